@@ -25,6 +25,9 @@ $WarningPreference = "Continue"
 # Default field length configuration file path
 $DefaultConfigPath = "Configuration\Fields_length.txt"
 
+# Inferred field types, read from the same folder as the field length configuration
+$SchemaFileName = "Fields_schema.txt"
+
 # ==============================================================================
 # FUNCTIONS
 # ==============================================================================
@@ -104,6 +107,72 @@ function Read-FieldLengthConfiguration {
     }
 }
 
+function Read-FieldSchemaConfiguration {
+    param([string]$SchemaFilePath)
+    
+    $fieldSchema = @{}
+    
+    if (-not (Test-Path $SchemaFilePath)) {
+        Write-Info "No inferred schema found at $SchemaFilePath, using default column types..."
+        return $fieldSchema
+    }
+    
+    try {
+        Write-Info "Reading inferred field types from: $SchemaFilePath"
+        $content = Get-Content $SchemaFilePath -ErrorAction Stop
+        $parsedCount = 0
+        
+        foreach ($line in $content) {
+            # Skip empty lines and comments
+            if ([string]::IsNullOrWhiteSpace($line) -or $line.StartsWith("#")) {
+                continue
+            }
+            
+            # Parse format: TableName.FieldName=Type
+            if ($line -match "^([^.]+)\.([^=]+)=(DATETIME|YESNO|INTEGER|DOUBLE|MEMO|TEXT\(\d+\))$") {
+                $tableName = $matches[1].Trim()
+                $fieldName = $matches[2].Trim()
+                
+                if (-not $fieldSchema.ContainsKey($tableName)) {
+                    $fieldSchema[$tableName] = @{}
+                }
+                
+                $fieldSchema[$tableName][$fieldName] = $matches[3]
+                $parsedCount++
+            }
+        }
+        
+        Write-Success "Parsed $parsedCount inferred field types"
+        return $fieldSchema
+    }
+    catch {
+        Write-Error "Failed to read schema file: $($_.Exception.Message)"
+        Write-Info "Using default column types..."
+        return @{}
+    }
+}
+
+function Get-InferredFieldDefinition {
+    param(
+        [hashtable]$FieldSchema,
+        [string]$TableName,
+        [string]$FieldName,
+        [string]$DefaultType = "MEMO"
+    )
+    
+    # Columns hand-coded as MEMO take an inferred text type, so short text can be indexed.
+    # The importer writes these columns as text, so other inferred types are not applied;
+    # TEXT(n) is already padded and only inferred from enough values, see Fields_schema.txt
+    if ($FieldSchema.ContainsKey($TableName) -and $FieldSchema[$TableName].ContainsKey($FieldName)) {
+        $inferredType = $FieldSchema[$TableName][$FieldName]
+        if ($inferredType -match '^(MEMO|TEXT\(\d+\))$') {
+            return $inferredType
+        }
+    }
+    
+    return $DefaultType
+}
+
 function Get-ConfiguredFieldLength {
     param(
         [hashtable]$FieldLengths,
@@ -153,7 +222,7 @@ function Get-FieldDefinition {
 # ==============================================================================
 
 function Get-TableDefinitions {
-    param([hashtable]$FieldLengths = @{})
+    param([hashtable]$FieldLengths = @{}, [hashtable]$FieldSchema = @{})
     
     return @{
         # Base tables (no dependencies)
@@ -174,29 +243,29 @@ function Get-TableDefinitions {
         
         # Tables with dependencies
         "ContactPersons" = @{
-            SQL = "CREATE TABLE ContactPersons (ContactPersonID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'ContactPersons' 'ContactPersonID' 100)) PRIMARY KEY, FirstName TEXT($(Get-ConfiguredFieldLength $FieldLengths 'ContactPersons' 'FirstName' 100)), Surname TEXT($(Get-ConfiguredFieldLength $FieldLengths 'ContactPersons' 'Surname' 100)), TitleOrFunction TEXT($(Get-ConfiguredFieldLength $FieldLengths 'ContactPersons' 'TitleOrFunction' 100)), AddressID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'ContactPersons' 'AddressID' 100)), ContactDetailsID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'ContactPersons' 'ContactDetailsID' 100)), LanguagesSpoken MEMO, PersonType TEXT($(Get-ConfiguredFieldLength $FieldLengths 'ContactPersons' 'PersonType' 50)))"
+            SQL = "CREATE TABLE ContactPersons (ContactPersonID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'ContactPersons' 'ContactPersonID' 100)) PRIMARY KEY, FirstName TEXT($(Get-ConfiguredFieldLength $FieldLengths 'ContactPersons' 'FirstName' 100)), Surname TEXT($(Get-ConfiguredFieldLength $FieldLengths 'ContactPersons' 'Surname' 100)), TitleOrFunction TEXT($(Get-ConfiguredFieldLength $FieldLengths 'ContactPersons' 'TitleOrFunction' 100)), AddressID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'ContactPersons' 'AddressID' 100)), ContactDetailsID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'ContactPersons' 'ContactDetailsID' 100)), LanguagesSpoken $(Get-InferredFieldDefinition $FieldSchema 'ContactPersons' 'LanguagesSpoken' 'MEMO'), PersonType TEXT($(Get-ConfiguredFieldLength $FieldLengths 'ContactPersons' 'PersonType' 50)))"
             Description = "Individual contact person information"
         }
         
         "BillingInformation" = @{
-            SQL = "CREATE TABLE BillingInformation (BillingID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'BillingInformation' 'BillingID' 100)) PRIMARY KEY, LegalDenomination TEXT($(Get-ConfiguredFieldLength $FieldLengths 'BillingInformation' 'LegalDenomination' 255)), Acronym TEXT($(Get-ConfiguredFieldLength $FieldLengths 'BillingInformation' 'Acronym' 100)), VATNumber TEXT($(Get-ConfiguredFieldLength $FieldLengths 'BillingInformation' 'VATNumber' 50)), NationalRegNumber TEXT($(Get-ConfiguredFieldLength $FieldLengths 'BillingInformation' 'NationalRegNumber' 50)), AddressID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'BillingInformation' 'AddressID' 100)), ContactDetailsID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'BillingInformation' 'ContactDetailsID' 100)), SpecificBillingRequirements MEMO)"
+            SQL = "CREATE TABLE BillingInformation (BillingID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'BillingInformation' 'BillingID' 100)) PRIMARY KEY, LegalDenomination TEXT($(Get-ConfiguredFieldLength $FieldLengths 'BillingInformation' 'LegalDenomination' 255)), Acronym TEXT($(Get-ConfiguredFieldLength $FieldLengths 'BillingInformation' 'Acronym' 100)), VATNumber TEXT($(Get-ConfiguredFieldLength $FieldLengths 'BillingInformation' 'VATNumber' 50)), NationalRegNumber TEXT($(Get-ConfiguredFieldLength $FieldLengths 'BillingInformation' 'NationalRegNumber' 50)), AddressID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'BillingInformation' 'AddressID' 100)), ContactDetailsID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'BillingInformation' 'ContactDetailsID' 100)), SpecificBillingRequirements $(Get-InferredFieldDefinition $FieldSchema 'BillingInformation' 'SpecificBillingRequirements' 'MEMO'))"
             Description = "Billing and payment information"
         }
         
         "Bodies" = @{
-            SQL = "CREATE TABLE Bodies (BodyID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Bodies' 'BodyID' 100)) PRIMARY KEY, BodyType TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Bodies' 'BodyType' 50)), LegalDenomination TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Bodies' 'LegalDenomination' 255)), Acronym TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Bodies' 'Acronym' 100)), VATNumber TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Bodies' 'VATNumber' 50)), NationalRegNumber TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Bodies' 'NationalRegNumber' 50)), AddressID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Bodies' 'AddressID' 100)), ContactDetailsID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Bodies' 'ContactDetailsID' 100)), AdditionalInfo MEMO, BodyName TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Bodies' 'BodyName' 255)), BodyIdNumber TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Bodies' 'BodyIdNumber' 100)), EINNumber TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Bodies' 'EINNumber' 50)))"
+            SQL = "CREATE TABLE Bodies (BodyID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Bodies' 'BodyID' 100)) PRIMARY KEY, BodyType TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Bodies' 'BodyType' 50)), LegalDenomination TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Bodies' 'LegalDenomination' 255)), Acronym TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Bodies' 'Acronym' 100)), VATNumber TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Bodies' 'VATNumber' 50)), NationalRegNumber TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Bodies' 'NationalRegNumber' 50)), AddressID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Bodies' 'AddressID' 100)), ContactDetailsID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Bodies' 'ContactDetailsID' 100)), AdditionalInfo $(Get-InferredFieldDefinition $FieldSchema 'Bodies' 'AdditionalInfo' 'MEMO'), BodyName TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Bodies' 'BodyName' 255)), BodyIdNumber TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Bodies' 'BodyIdNumber' 100)), EINNumber TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Bodies' 'EINNumber' 50)))"
             Description = "Organizations (Applicant, Notified, Designated, Assessment bodies)"
         }
         
         # Main table
         "Applications" = @{
-            SQL = "CREATE TABLE Applications (ApplicationID $(Get-FieldDefinition $FieldLengths 'Applications' 'ApplicationID' 50) PRIMARY KEY, ID $(Get-FieldDefinition $FieldLengths 'Applications' 'ID' 100), CaseType $(Get-FieldDefinition $FieldLengths 'Applications' 'CaseType' 50), NationalRegNumber $(Get-FieldDefinition $FieldLengths 'Applications' 'NationalRegNumber' 50), ProjectName $(Get-FieldDefinition $FieldLengths 'Applications' 'ProjectName' 255), ApplicationType $(Get-FieldDefinition $FieldLengths 'Applications' 'ApplicationType' 50), ApplicationTypeVariantVersion MEMO, IssuingAuthority $(Get-FieldDefinition $FieldLengths 'Applications' 'IssuingAuthority' 20), ApplicationStatus $(Get-FieldDefinition $FieldLengths 'Applications' 'ApplicationStatus' 50), Phase $(Get-FieldDefinition $FieldLengths 'Applications' 'Phase' 50), DecisionDate DATETIME, Submission DATETIME, CompletenessAcknowledgement DATETIME, Modified DATETIME, CachedLastUpdate DATETIME, VehicleIdentifier MEMO, EIN $(Get-FieldDefinition $FieldLengths 'Applications' 'EIN' 50), LegalDenomination $(Get-FieldDefinition $FieldLengths 'Applications' 'LegalDenomination' 255), MemberStates MEMO, Subcategory MEMO, IsWholeEU YESNO, PreEngaged YESNO, PreEngagementID $(Get-FieldDefinition $FieldLengths 'Applications' 'PreEngagementID' 50), IsPreEngagement YESNO, PreEngagementOtherInformation MEMO, DocLang $(Get-FieldDefinition $FieldLengths 'Applications' 'DocLang' 15), ApplicationVersion $(Get-FieldDefinition $FieldLengths 'Applications' 'ApplicationVersion' 30), ContactPersonID $(Get-FieldDefinition $FieldLengths 'Applications' 'ContactPersonID' 100), FinancialContactPersonID $(Get-FieldDefinition $FieldLengths 'Applications' 'FinancialContactPersonID' 100), BillingInformationID $(Get-FieldDefinition $FieldLengths 'Applications' 'BillingInformationID' 100), ApplicantBodyID $(Get-FieldDefinition $FieldLengths 'Applications' 'ApplicantBodyID' 100), CreatedDate DATETIME, UpdatedDate DATETIME)"
+            SQL = "CREATE TABLE Applications (ApplicationID $(Get-FieldDefinition $FieldLengths 'Applications' 'ApplicationID' 50) PRIMARY KEY, ID $(Get-FieldDefinition $FieldLengths 'Applications' 'ID' 100), CaseType $(Get-FieldDefinition $FieldLengths 'Applications' 'CaseType' 50), NationalRegNumber $(Get-FieldDefinition $FieldLengths 'Applications' 'NationalRegNumber' 50), ProjectName $(Get-FieldDefinition $FieldLengths 'Applications' 'ProjectName' 255), ApplicationType $(Get-FieldDefinition $FieldLengths 'Applications' 'ApplicationType' 50), ApplicationTypeVariantVersion $(Get-InferredFieldDefinition $FieldSchema 'Applications' 'ApplicationTypeVariantVersion' 'MEMO'), IssuingAuthority $(Get-FieldDefinition $FieldLengths 'Applications' 'IssuingAuthority' 20), ApplicationStatus $(Get-FieldDefinition $FieldLengths 'Applications' 'ApplicationStatus' 50), Phase $(Get-FieldDefinition $FieldLengths 'Applications' 'Phase' 50), DecisionDate DATETIME, Submission DATETIME, CompletenessAcknowledgement DATETIME, Modified DATETIME, CachedLastUpdate DATETIME, VehicleIdentifier $(Get-InferredFieldDefinition $FieldSchema 'Applications' 'VehicleIdentifier' 'MEMO'), EIN $(Get-FieldDefinition $FieldLengths 'Applications' 'EIN' 50), LegalDenomination $(Get-FieldDefinition $FieldLengths 'Applications' 'LegalDenomination' 255), MemberStates $(Get-InferredFieldDefinition $FieldSchema 'Applications' 'MemberStates' 'MEMO'), Subcategory $(Get-InferredFieldDefinition $FieldSchema 'Applications' 'Subcategory' 'MEMO'), IsWholeEU YESNO, PreEngaged YESNO, PreEngagementID $(Get-FieldDefinition $FieldLengths 'Applications' 'PreEngagementID' 50), IsPreEngagement YESNO, PreEngagementOtherInformation $(Get-InferredFieldDefinition $FieldSchema 'Applications' 'PreEngagementOtherInformation' 'MEMO'), DocLang $(Get-FieldDefinition $FieldLengths 'Applications' 'DocLang' 15), ApplicationVersion $(Get-FieldDefinition $FieldLengths 'Applications' 'ApplicationVersion' 30), ContactPersonID $(Get-FieldDefinition $FieldLengths 'Applications' 'ContactPersonID' 100), FinancialContactPersonID $(Get-FieldDefinition $FieldLengths 'Applications' 'FinancialContactPersonID' 100), BillingInformationID $(Get-FieldDefinition $FieldLengths 'Applications' 'BillingInformationID' 100), ApplicantBodyID $(Get-FieldDefinition $FieldLengths 'Applications' 'ApplicantBodyID' 100), CreatedDate DATETIME, UpdatedDate DATETIME)"
             Description = "Main table - Vehicle authorization applications"
         }
         
         # Tables dependent on Applications
         "Issues" = @{
-            SQL = "CREATE TABLE Issues (IssueID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Issues' 'IssueID' 50)) PRIMARY KEY, ID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Issues' 'ID' 100)), ApplicationID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Issues' 'ApplicationID' 50)), Title TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Issues' 'Title' 255)), IssueDescription MEMO, Owner TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Issues' 'Owner' 100)), OwnerDisplayName TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Issues' 'OwnerDisplayName' 255)), UserIsOwner YESNO, Assignees MEMO, AssigneesDisplayNames MEMO, DueBy DATETIME, CreationDate DATETIME, IssueType TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Issues' 'IssueType' 50)), IssueStatus TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Issues' 'IssueStatus' 50)), Resolution TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Issues' 'Resolution' 255)), AssessmentStage TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Issues' 'AssessmentStage' 50)), ResolutionText MEMO, SSCClosedOut YESNO, ResolutionDescription MEMO)"
+            SQL = "CREATE TABLE Issues (IssueID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Issues' 'IssueID' 50)) PRIMARY KEY, ID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Issues' 'ID' 100)), ApplicationID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Issues' 'ApplicationID' 50)), Title TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Issues' 'Title' 255)), IssueDescription $(Get-InferredFieldDefinition $FieldSchema 'Issues' 'IssueDescription' 'MEMO'), Owner TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Issues' 'Owner' 100)), OwnerDisplayName TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Issues' 'OwnerDisplayName' 255)), UserIsOwner YESNO, Assignees $(Get-InferredFieldDefinition $FieldSchema 'Issues' 'Assignees' 'MEMO'), AssigneesDisplayNames $(Get-InferredFieldDefinition $FieldSchema 'Issues' 'AssigneesDisplayNames' 'MEMO'), DueBy DATETIME, CreationDate DATETIME, IssueType TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Issues' 'IssueType' 50)), IssueStatus TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Issues' 'IssueStatus' 50)), Resolution TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Issues' 'Resolution' 255)), AssessmentStage TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Issues' 'AssessmentStage' 50)), ResolutionText $(Get-InferredFieldDefinition $FieldSchema 'Issues' 'ResolutionText' 'MEMO'), SSCClosedOut YESNO, ResolutionDescription $(Get-InferredFieldDefinition $FieldSchema 'Issues' 'ResolutionDescription' 'MEMO'))"
             Description = "Issues and problems related to applications"
         }
         
@@ -206,7 +275,7 @@ function Get-TableDefinitions {
         }
         
         "VehicleTypes" = @{
-            SQL = "CREATE TABLE VehicleTypes (VehicleTypeID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'VehicleTypes' 'VehicleTypeID' 100)) PRIMARY KEY, ApplicationID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'VehicleTypes' 'ApplicationID' 50)), AuthorizationType TEXT($(Get-ConfiguredFieldLength $FieldLengths 'VehicleTypes' 'AuthorizationType' 50)), VehicleType TEXT($(Get-ConfiguredFieldLength $FieldLengths 'VehicleTypes' 'VehicleType' 50)), TypeID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'VehicleTypes' 'TypeID' 50)), TypeName TEXT($(Get-ConfiguredFieldLength $FieldLengths 'VehicleTypes' 'TypeName' 255)), AltTypeName TEXT($(Get-ConfiguredFieldLength $FieldLengths 'VehicleTypes' 'AltTypeName' 255)), CreationDate DATETIME, ReferenceToExistingStr MEMO, DescriptionNew MEMO, VehicleIdentifier TEXT($(Get-ConfiguredFieldLength $FieldLengths 'VehicleTypes' 'VehicleIdentifier' 50)), VehicleValue MEMO, AuthorizationHolderID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'VehicleTypes' 'AuthorizationHolderID' 100)), IsApplicantTypeHolder YESNO, ERATVDateOfRecord DATETIME, VehicleMainCategory TEXT($(Get-ConfiguredFieldLength $FieldLengths 'VehicleTypes' 'VehicleMainCategory' 100)), VehicleSubCategory TEXT($(Get-ConfiguredFieldLength $FieldLengths 'VehicleTypes' 'VehicleSubCategory' 100)), NonCodedRestrictions MEMO, CodedRestrictions MEMO, ChangeSummary MEMO, RegistrationEntityRecipients MEMO)"
+            SQL = "CREATE TABLE VehicleTypes (VehicleTypeID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'VehicleTypes' 'VehicleTypeID' 100)) PRIMARY KEY, ApplicationID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'VehicleTypes' 'ApplicationID' 50)), AuthorizationType TEXT($(Get-ConfiguredFieldLength $FieldLengths 'VehicleTypes' 'AuthorizationType' 50)), VehicleType TEXT($(Get-ConfiguredFieldLength $FieldLengths 'VehicleTypes' 'VehicleType' 50)), TypeID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'VehicleTypes' 'TypeID' 50)), TypeName TEXT($(Get-ConfiguredFieldLength $FieldLengths 'VehicleTypes' 'TypeName' 255)), AltTypeName TEXT($(Get-ConfiguredFieldLength $FieldLengths 'VehicleTypes' 'AltTypeName' 255)), CreationDate DATETIME, ReferenceToExistingStr $(Get-InferredFieldDefinition $FieldSchema 'VehicleTypes' 'ReferenceToExistingStr' 'MEMO'), DescriptionNew $(Get-InferredFieldDefinition $FieldSchema 'VehicleTypes' 'DescriptionNew' 'MEMO'), VehicleIdentifier TEXT($(Get-ConfiguredFieldLength $FieldLengths 'VehicleTypes' 'VehicleIdentifier' 50)), VehicleValue $(Get-InferredFieldDefinition $FieldSchema 'VehicleTypes' 'VehicleValue' 'MEMO'), AuthorizationHolderID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'VehicleTypes' 'AuthorizationHolderID' 100)), IsApplicantTypeHolder YESNO, ERATVDateOfRecord DATETIME, VehicleMainCategory TEXT($(Get-ConfiguredFieldLength $FieldLengths 'VehicleTypes' 'VehicleMainCategory' 100)), VehicleSubCategory TEXT($(Get-ConfiguredFieldLength $FieldLengths 'VehicleTypes' 'VehicleSubCategory' 100)), NonCodedRestrictions $(Get-InferredFieldDefinition $FieldSchema 'VehicleTypes' 'NonCodedRestrictions' 'MEMO'), CodedRestrictions $(Get-InferredFieldDefinition $FieldSchema 'VehicleTypes' 'CodedRestrictions' 'MEMO'), ChangeSummary $(Get-InferredFieldDefinition $FieldSchema 'VehicleTypes' 'ChangeSummary' 'MEMO'), RegistrationEntityRecipients $(Get-InferredFieldDefinition $FieldSchema 'VehicleTypes' 'RegistrationEntityRecipients' 'MEMO'))"
             Description = "Vehicle type, variant, and version information"
         }
         
@@ -222,17 +291,17 @@ function Get-TableDefinitions {
         }
         
         "ApplicableRules" = @{
-            SQL = "CREATE TABLE ApplicableRules (RuleID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'ApplicableRules' 'RuleID' 100)) PRIMARY KEY, VehicleTypeID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'ApplicableRules' 'VehicleTypeID' 100)), RuleType TEXT($(Get-ConfiguredFieldLength $FieldLengths 'ApplicableRules' 'RuleType' 50)), MSCode TEXT($(Get-ConfiguredFieldLength $FieldLengths 'ApplicableRules' 'MSCode' 15)), Comment MEMO, Directive TEXT($(Get-ConfiguredFieldLength $FieldLengths 'ApplicableRules' 'Directive' 100)))"
+            SQL = "CREATE TABLE ApplicableRules (RuleID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'ApplicableRules' 'RuleID' 100)) PRIMARY KEY, VehicleTypeID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'ApplicableRules' 'VehicleTypeID' 100)), RuleType TEXT($(Get-ConfiguredFieldLength $FieldLengths 'ApplicableRules' 'RuleType' 50)), MSCode TEXT($(Get-ConfiguredFieldLength $FieldLengths 'ApplicableRules' 'MSCode' 15)), Comment $(Get-InferredFieldDefinition $FieldSchema 'ApplicableRules' 'Comment' 'MEMO'), Directive TEXT($(Get-ConfiguredFieldLength $FieldLengths 'ApplicableRules' 'Directive' 100)))"
             Description = "Regulatory rules and directives"
         }
         
         "MemberStateMappings" = @{
-            SQL = "CREATE TABLE MemberStateMappings (MappingID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'MemberStateMappings' 'MappingID' 100)) PRIMARY KEY, VehicleTypeID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'MemberStateMappings' 'VehicleTypeID' 100)), CountryCode TEXT($(Get-ConfiguredFieldLength $FieldLengths 'MemberStateMappings' 'CountryCode' 15)), Name TEXT($(Get-ConfiguredFieldLength $FieldLengths 'MemberStateMappings' 'Name' 255)), PassengerTransport YESNO, HighSpeed YESNO, FreightTransport YESNO, DangerousGoodsServices YESNO, ShuntingOnly YESNO, ShuntingOnlyTxt MEMO, Other YESNO, OtherDescription MEMO, IsBorderStation YESNO, AssigneeStr TEXT($(Get-ConfiguredFieldLength $FieldLengths 'MemberStateMappings' 'AssigneeStr' 255)))"
+            SQL = "CREATE TABLE MemberStateMappings (MappingID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'MemberStateMappings' 'MappingID' 100)) PRIMARY KEY, VehicleTypeID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'MemberStateMappings' 'VehicleTypeID' 100)), CountryCode TEXT($(Get-ConfiguredFieldLength $FieldLengths 'MemberStateMappings' 'CountryCode' 15)), Name TEXT($(Get-ConfiguredFieldLength $FieldLengths 'MemberStateMappings' 'Name' 255)), PassengerTransport YESNO, HighSpeed YESNO, FreightTransport YESNO, DangerousGoodsServices YESNO, ShuntingOnly YESNO, ShuntingOnlyTxt $(Get-InferredFieldDefinition $FieldSchema 'MemberStateMappings' 'ShuntingOnlyTxt' 'MEMO'), Other YESNO, OtherDescription $(Get-InferredFieldDefinition $FieldSchema 'MemberStateMappings' 'OtherDescription' 'MEMO'), IsBorderStation YESNO, AssigneeStr TEXT($(Get-ConfiguredFieldLength $FieldLengths 'MemberStateMappings' 'AssigneeStr' 255)))"
             Description = "Country-specific operational data"
         }
         
         "AgencyMappings" = @{
-            SQL = "CREATE TABLE AgencyMappings (AgencyMappingID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'AgencyMappings' 'AgencyMappingID' 100)) PRIMARY KEY, VehicleTypeID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'AgencyMappings' 'VehicleTypeID' 100)), Requirement TEXT($(Get-ConfiguredFieldLength $FieldLengths 'AgencyMappings' 'Requirement' 15)), RequirementDescr MEMO, Visible YESNO)"
+            SQL = "CREATE TABLE AgencyMappings (AgencyMappingID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'AgencyMappings' 'AgencyMappingID' 100)) PRIMARY KEY, VehicleTypeID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'AgencyMappings' 'VehicleTypeID' 100)), Requirement TEXT($(Get-ConfiguredFieldLength $FieldLengths 'AgencyMappings' 'Requirement' 15)), RequirementDescr $(Get-InferredFieldDefinition $FieldSchema 'AgencyMappings' 'RequirementDescr' 'MEMO'), Visible YESNO)"
             Description = "Agency requirements and mappings"
         }
         
@@ -243,17 +312,17 @@ function Get-TableDefinitions {
         }
         
         "AgencyMappingValues" = @{
-            SQL = "CREATE TABLE AgencyMappingValues (ValueID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'AgencyMappingValues' 'ValueID' 100)) PRIMARY KEY, AgencyMappingID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'AgencyMappingValues' 'AgencyMappingID' 100)), DocumentID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'AgencyMappingValues' 'DocumentID' 100)), ValueDescription MEMO, ValueText MEMO)"
+            SQL = "CREATE TABLE AgencyMappingValues (ValueID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'AgencyMappingValues' 'ValueID' 100)) PRIMARY KEY, AgencyMappingID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'AgencyMappingValues' 'AgencyMappingID' 100)), DocumentID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'AgencyMappingValues' 'DocumentID' 100)), ValueDescription $(Get-InferredFieldDefinition $FieldSchema 'AgencyMappingValues' 'ValueDescription' 'MEMO'), ValueText $(Get-InferredFieldDefinition $FieldSchema 'AgencyMappingValues' 'ValueText' 'MEMO'))"
             Description = "Values for agency mapping requirements"
         }
         
         "MSMappingRequirements" = @{
-            SQL = "CREATE TABLE MSMappingRequirements (RequirementID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'MSMappingRequirements' 'RequirementID' 100)) PRIMARY KEY, MappingID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'MSMappingRequirements' 'MappingID' 100)), Requirement TEXT($(Get-ConfiguredFieldLength $FieldLengths 'MSMappingRequirements' 'Requirement' 15)), RequirementDescr MEMO, Visible YESNO)"
+            SQL = "CREATE TABLE MSMappingRequirements (RequirementID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'MSMappingRequirements' 'RequirementID' 100)) PRIMARY KEY, MappingID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'MSMappingRequirements' 'MappingID' 100)), Requirement TEXT($(Get-ConfiguredFieldLength $FieldLengths 'MSMappingRequirements' 'Requirement' 15)), RequirementDescr $(Get-InferredFieldDefinition $FieldSchema 'MSMappingRequirements' 'RequirementDescr' 'MEMO'), Visible YESNO)"
             Description = "Requirements for member state mappings"
         }
         
         "MSMappingRequirementValues" = @{
-            SQL = "CREATE TABLE MSMappingRequirementValues (ValueID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'MSMappingRequirementValues' 'ValueID' 100)) PRIMARY KEY, RequirementID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'MSMappingRequirementValues' 'RequirementID' 100)), DocumentID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'MSMappingRequirementValues' 'DocumentID' 100)), ValueDescription MEMO, ValueText MEMO)"
+            SQL = "CREATE TABLE MSMappingRequirementValues (ValueID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'MSMappingRequirementValues' 'ValueID' 100)) PRIMARY KEY, RequirementID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'MSMappingRequirementValues' 'RequirementID' 100)), DocumentID TEXT($(Get-ConfiguredFieldLength $FieldLengths 'MSMappingRequirementValues' 'DocumentID' 100)), ValueDescription $(Get-InferredFieldDefinition $FieldSchema 'MSMappingRequirementValues' 'ValueDescription' 'MEMO'), ValueText $(Get-InferredFieldDefinition $FieldSchema 'MSMappingRequirementValues' 'ValueText' 'MEMO'))"
             Description = "Values for member state mapping requirements"
         }
     }
@@ -473,12 +542,12 @@ function Remove-ExistingTable {
 }
 
 function New-DatabaseTables {
-    param($Database, $Access, $FieldLengths = @{})
+    param($Database, $Access, $FieldLengths = @{}, $FieldSchema = @{})
     
     # First, remove all existing relationships so we can drop tables
     Remove-AllRelationships -Database $Database
     
-    $tables = Get-TableDefinitions -FieldLengths $FieldLengths
+    $tables = Get-TableDefinitions -FieldLengths $FieldLengths -FieldSchema $FieldSchema
     $tableOrder = @(
         "Addresses", "ContactDetails", "Documents",
         "ContactPersons", "BillingInformation", "Bodies",
@@ -695,6 +764,11 @@ function Main {
     # Read field length configuration
     $fieldLengths = Read-FieldLengthConfiguration -ConfigFilePath $configFilePath
     
+    # Read inferred field types generated next to the field length configuration
+    $configDirectory = Split-Path $configFilePath -Parent
+    $schemaFilePath = if ([string]::IsNullOrWhiteSpace($configDirectory)) { $SchemaFileName } else { Join-Path $configDirectory $SchemaFileName }
+    $fieldSchema = Read-FieldSchemaConfiguration -SchemaFilePath $schemaFilePath
+    
     # Check if database file exists
     if (-not (Test-Path $DatabasePath)) {
         Write-Error "Database file not found: $DatabasePath"
@@ -713,7 +787,7 @@ function Main {
     try {
         # Create tables
         Write-Header "CREATING DATABASE STRUCTURE"
-        $tableResult = New-DatabaseTables -Database $connection.Database -Access $connection.Access -FieldLengths $fieldLengths
+        $tableResult = New-DatabaseTables -Database $connection.Database -Access $connection.Access -FieldLengths $fieldLengths -FieldSchema $fieldSchema
         
         # Create indexes
         $indexResult = New-DatabaseIndexes -Database $connection.Database
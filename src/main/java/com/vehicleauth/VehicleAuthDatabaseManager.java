@@ -1,19 +1,33 @@
 package com.vehicleauth;
 
 import com.vehicleauth.service.BackupService;
+import com.vehicleauth.service.ConfigurationService;
+import com.vehicleauth.service.ImportService;
 import com.vehicleauth.ui.MenuInterface;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Paths;
+
 /**
  * Main class for Vehicle Authorization Database Manager
- * Provides a menu-driven interface for database operations
+ * Provides a menu-driven interface for database operations, or with
+ * {@code --dry-run [directory]} runs a dry run import and exits
  */
 public class VehicleAuthDatabaseManager {
     
     private static final Logger logger = LoggerFactory.getLogger(VehicleAuthDatabaseManager.class);
     
+    private static final String DRY_RUN_OPTION = "--dry-run";
+
     public static void main(String[] args) {
+        if (args.length > 0 && DRY_RUN_OPTION.equals(args[0])) {
+            // No database involved, so no backup either
+            ImportService importService = new ImportService(new ConfigurationService());
+            boolean complete = importService.dryRunJsonData(args.length > 1 ? Paths.get(args[1]) : null);
+            System.exit(complete ? 0 : 1);
+        }
+
         logger.info("Starting Vehicle Authorization Database Manager");
         
         // Automatic database backup at startup
@@ -0,0 +1,136 @@
+package com.vehicleauth.analysis;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Persisted record of previously analyzed JSON files
+ * Stores size, modification time and content hash of every file together with the
+ * length statistics it contributed, so unchanged files do not need to be parsed again
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class AnalysisManifest {
+
+    public static final int FORMAT_VERSION = 3;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private int version = FORMAT_VERSION;
+    private String analysisFingerprint;
+    private Map<String, FileEntry> files = new TreeMap<>();
+
+    /**
+     * Load a manifest, returning an empty one if the file is missing, unreadable
+     * or was written for a different format or analysis fingerprint
+     */
+    public static AnalysisManifest load(Path manifestFile, String analysisFingerprint) {
+        AnalysisManifest empty = new AnalysisManifest();
+        empty.setAnalysisFingerprint(analysisFingerprint);
+
+        if (!Files.exists(manifestFile)) {
+            return empty;
+        }
+
+        try {
+            AnalysisManifest manifest = MAPPER.readValue(manifestFile.toFile(), AnalysisManifest.class);
+            if (manifest.getVersion() != FORMAT_VERSION || !analysisFingerprint.equals(manifest.getAnalysisFingerprint())) {
+                return empty;
+            }
+            return manifest;
+        } catch (IOException e) {
+            return empty;
+        }
+    }
+
+    /**
+     * Write the manifest through a temporary file so an interrupted run never leaves a truncated manifest
+     */
+    public void save(Path manifestFile) throws IOException {
+        Path tempFile = manifestFile.resolveSibling(manifestFile.getFileName() + ".tmp");
+        MAPPER.writeValue(tempFile.toFile(), this);
+        Files.move(tempFile, manifestFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+    public String getAnalysisFingerprint() { return analysisFingerprint; }
+    public void setAnalysisFingerprint(String analysisFingerprint) { this.analysisFingerprint = analysisFingerprint; }
+    public Map<String, FileEntry> getFiles() { return files; }
+    public void setFiles(Map<String, FileEntry> files) { this.files = new TreeMap<>(files); }
+
+    /**
+     * Cached state of a single analyzed file
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class FileEntry {
+        private long size;
+        private long lastModified;
+        private String sha256;
+        private Map<String, FieldEntry> fields = new TreeMap<>();
+
+        public FileEntry() {
+        }
+
+        public FileEntry(long size, long lastModified, String sha256, Map<String, FieldEntry> fields) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.sha256 = sha256;
+            this.fields = new TreeMap<>(fields);
+        }
+
+        public long getSize() { return size; }
+        public void setSize(long size) { this.size = size; }
+        public long getLastModified() { return lastModified; }
+        public void setLastModified(long lastModified) { this.lastModified = lastModified; }
+        public String getSha256() { return sha256; }
+        public void setSha256(String sha256) { this.sha256 = sha256; }
+        public Map<String, FieldEntry> getFields() { return fields; }
+        public void setFields(Map<String, FieldEntry> fields) { this.fields = new TreeMap<>(fields); }
+    }
+
+    /**
+     * Length statistics one file contributed to a field, keyed by TableName.FieldName
+     * Only non-empty histogram buckets are stored
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class FieldEntry {
+        private int count;
+        private int nulls;
+        private int maxLength;
+        private Map<Integer, Integer> buckets = new TreeMap<>();
+        private Set<ValueType> types = EnumSet.noneOf(ValueType.class);
+
+        public FieldEntry() {
+        }
+
+        public FieldEntry(int count, int nulls, int maxLength, Map<Integer, Integer> buckets, Set<ValueType> types) {
+            this.count = count;
+            this.nulls = nulls;
+            this.maxLength = maxLength;
+            this.buckets = new TreeMap<>(buckets);
+            this.types = EnumSet.noneOf(ValueType.class);
+            this.types.addAll(types);
+        }
+
+        public int getCount() { return count; }
+        public void setCount(int count) { this.count = count; }
+        public int getNulls() { return nulls; }
+        public void setNulls(int nulls) { this.nulls = nulls; }
+        public int getMaxLength() { return maxLength; }
+        public void setMaxLength(int maxLength) { this.maxLength = maxLength; }
+        public Map<Integer, Integer> getBuckets() { return buckets; }
+        public void setBuckets(Map<Integer, Integer> buckets) { this.buckets = new TreeMap<>(buckets); }
+        public Set<ValueType> getTypes() { return types; }
+        public void setTypes(Set<ValueType> types) { this.types = EnumSet.noneOf(ValueType.class); this.types.addAll(types); }
+    }
+}
@@ -0,0 +1,254 @@
+package com.vehicleauth.analysis;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Throughput counters of field length analysis runs
+ * Updated concurrently by the analyzing workers and read through JMX or the periodic
+ * summary; counters are reset at the start of every run
+ */
+public class AnalysisMetrics implements AnalysisMetricsMXBean {
+
+    public static final String OBJECT_NAME = "com.vehicleauth:type=AnalysisMetrics";
+
+    private static final int PARSE_TIME_BUCKETS = 17;
+
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private final LongAdder filesAnalyzed = new LongAdder();
+    private final LongAdder filesFailed = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder tokensRead = new LongAdder();
+    private final LongAdder wallNanos = new LongAdder();
+    private final LongAdder cpuNanos = new LongAdder();
+    private final AtomicLongArray parseTimeHistogram = new AtomicLongArray(PARSE_TIME_BUCKETS);
+    private final Map<Path, Boolean> currentFiles = new ConcurrentHashMap<>();
+
+    private volatile long runStartNanos = System.nanoTime();
+    private volatile long runEndNanos;
+    private String slowestFile;
+    private long slowestFileNanos;
+
+    /**
+     * Reset all counters for a new run
+     */
+    public synchronized void runStarted() {
+        filesAnalyzed.reset();
+        filesFailed.reset();
+        bytesRead.reset();
+        tokensRead.reset();
+        wallNanos.reset();
+        cpuNanos.reset();
+        for (int i = 0; i < PARSE_TIME_BUCKETS; i++) {
+            parseTimeHistogram.set(i, 0);
+        }
+        currentFiles.clear();
+        slowestFile = null;
+        slowestFileNanos = 0;
+        runEndNanos = 0;
+        runStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Freeze the rates at the end of a run
+     */
+    public void runFinished() {
+        runEndNanos = System.nanoTime();
+    }
+
+    /**
+     * Mark a file as being analyzed on the calling thread
+     * @return Start mark to pass to {@link #fileFinished}
+     */
+    public FileMark fileStarted(Path file) {
+        currentFiles.put(file, Boolean.TRUE);
+        return new FileMark(file, System.nanoTime(), currentThreadCpuTime());
+    }
+
+    /**
+     * Record a file analyzed on the calling thread
+     * @param bytes Bytes read from the file
+     * @param tokens JSON tokens read, 0 if not counted
+     * @param success false if the file could not be analyzed
+     */
+    public void fileFinished(FileMark mark, long bytes, long tokens, boolean success) {
+        long elapsed = System.nanoTime() - mark.startNanos;
+        long cpuTime = currentThreadCpuTime();
+
+        currentFiles.remove(mark.file);
+        (success ? filesAnalyzed : filesFailed).increment();
+        bytesRead.add(bytes);
+        tokensRead.add(tokens);
+        wallNanos.add(elapsed);
+        if (cpuTime >= 0 && mark.startCpuNanos >= 0) {
+            cpuNanos.add(cpuTime - mark.startCpuNanos);
+        }
+        parseTimeHistogram.incrementAndGet(parseTimeBucket(elapsed));
+
+        synchronized (this) {
+            if (elapsed > slowestFileNanos) {
+                slowestFileNanos = elapsed;
+                slowestFile = JsonSources.describe(mark.file);
+            }
+        }
+    }
+
+    /**
+     * Emit the one-line summary at a fixed interval until the returned handle is closed
+     */
+    public Reporting reportEvery(Duration interval, Consumer<String> output) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "analysis-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> output.accept(getSummary()),
+            interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        return scheduler::shutdownNow;
+    }
+
+    @Override
+    public long getFilesAnalyzed() { return filesAnalyzed.sum(); }
+
+    @Override
+    public long getFilesFailed() { return filesFailed.sum(); }
+
+    @Override
+    public long getBytesRead() { return bytesRead.sum(); }
+
+    @Override
+    public long getTokensRead() { return tokensRead.sum(); }
+
+    @Override
+    public double getFilesPerSecond() {
+        return perSecond(filesAnalyzed.sum() + filesFailed.sum());
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        return perSecond(bytesRead.sum());
+    }
+
+    @Override
+    public double getTokensPerSecond() {
+        return perSecond(tokensRead.sum());
+    }
+
+    @Override
+    public double getCpuUtilization() {
+        long wall = wallNanos.sum();
+        return wall == 0 ? 0.0 : Math.min(1.0, (double) cpuNanos.sum() / wall);
+    }
+
+    @Override
+    public String[] getCurrentFiles() {
+        return currentFiles.keySet().stream().map(JsonSources::describe).sorted().toArray(String[]::new);
+    }
+
+    @Override
+    public long[] getParseTimeHistogram() {
+        long[] result = new long[PARSE_TIME_BUCKETS];
+        for (int i = 0; i < PARSE_TIME_BUCKETS; i++) {
+            result[i] = parseTimeHistogram.get(i);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized String getSlowestFile() { return slowestFile; }
+
+    @Override
+    public synchronized long getSlowestFileMillis() { return TimeUnit.NANOSECONDS.toMillis(slowestFileNanos); }
+
+    @Override
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format(Locale.ROOT, "%d files (%d failed), %.1f MB, %.1f files/s, %.2f MB/s, %.0f tokens/s, CPU %.0f%%",
+            getFilesAnalyzed() + getFilesFailed(), getFilesFailed(), getBytesRead() / 1048576.0,
+            getFilesPerSecond(), getBytesPerSecond() / 1048576.0, getTokensPerSecond(), getCpuUtilization() * 100));
+
+        long[] histogram = getParseTimeHistogram();
+        long files = 0;
+        for (long count : histogram) {
+            files += count;
+        }
+        if (files > 0) {
+            summary.append(", parse p50 <").append(parseTimePercentileMillis(histogram, files, 0.50))
+                   .append(" ms, p95 <").append(parseTimePercentileMillis(histogram, files, 0.95))
+                   .append(" ms, slowest ").append(getSlowestFileMillis()).append(" ms");
+        }
+
+        String[] current = getCurrentFiles();
+        if (current.length > 0) {
+            summary.append(", current: ").append(current[0]);
+            if (current.length > 1) {
+                summary.append(" (+").append(current.length - 1).append(" more)");
+            }
+        }
+        return summary.toString();
+    }
+
+    private double perSecond(long value) {
+        long end = runEndNanos != 0 ? runEndNanos : System.nanoTime();
+        long elapsed = end - runStartNanos;
+        return elapsed <= 0 ? 0.0 : value * 1e9 / elapsed;
+    }
+
+    private long currentThreadCpuTime() {
+        return threadBean.isCurrentThreadCpuTimeSupported() ? threadBean.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static int parseTimeBucket(long elapsedNanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        return Math.min(PARSE_TIME_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis));
+    }
+
+    /**
+     * @return Upper limit in ms of the bucket holding the percentile
+     */
+    private static long parseTimePercentileMillis(long[] histogram, long files, double percentile) {
+        long rank = Math.max(1, (long) Math.ceil(files * percentile));
+        long cumulative = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            cumulative += histogram[i];
+            if (cumulative >= rank) {
+                return 1L << i;
+            }
+        }
+        return 1L << (histogram.length - 1);
+    }
+
+    /**
+     * Start of the analysis of one file
+     */
+    public static final class FileMark {
+        private final Path file;
+        private final long startNanos;
+        private final long startCpuNanos;
+
+        FileMark(Path file, long startNanos, long startCpuNanos) {
+            this.file = file;
+            this.startNanos = startNanos;
+            this.startCpuNanos = startCpuNanos;
+        }
+    }
+
+    /**
+     * Handle stopping a periodic summary
+     */
+    public interface Reporting extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,51 @@
+package com.vehicleauth.analysis;
+
+/**
+ * JMX view of the running field length analysis
+ * Registered as com.vehicleauth:type=AnalysisMetrics
+ */
+public interface AnalysisMetricsMXBean {
+
+    long getFilesAnalyzed();
+
+    long getFilesFailed();
+
+    long getBytesRead();
+
+    /**
+     * @return JSON tokens read, only counted by the streaming engine
+     */
+    long getTokensRead();
+
+    double getFilesPerSecond();
+
+    double getBytesPerSecond();
+
+    double getTokensPerSecond();
+
+    /**
+     * @return Share of the per-file wall time the analyzing threads spent on the CPU;
+     *         close to 1 means CPU-bound, well below 1 means waiting on I/O
+     */
+    double getCpuUtilization();
+
+    /**
+     * @return Files being analyzed right now
+     */
+    String[] getCurrentFiles();
+
+    /**
+     * @return File counts per parse time bucket, bucket i counts parse times below 2^i ms
+     *         and the last bucket everything longer
+     */
+    long[] getParseTimeHistogram();
+
+    String getSlowestFile();
+
+    long getSlowestFileMillis();
+
+    /**
+     * @return One-line summary of the run
+     */
+    String getSummary();
+}
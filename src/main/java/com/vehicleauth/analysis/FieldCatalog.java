@@ -0,0 +1,131 @@
+package com.vehicleauth.analysis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Fixed numbering of every mapped database field
+ * Ordinals follow table name then field name order, so iterating ordinals
+ * yields the same order as the generated configuration file. A JSON path may list
+ * alternatives separated by '|' when the importer reads the field from several
+ * places, and ends with "[]" when every scalar element of an array is a value of
+ * its own; an array of scalars mapped without "[]" is one value, its elements
+ * joined with ','
+ */
+public final class FieldCatalog {
+
+    /**
+     * Path segment of the scalar elements of an array, written as a "[]" suffix in mapping paths
+     */
+    public static final String ELEMENTS = "[]";
+
+    private static final Pattern ALTERNATIVES = Pattern.compile("\\|");
+
+    private final String[] tableNames;
+    private final String[] fieldNames;
+    private final String[] jsonPaths;
+    private final List<String> distinctTableNames;
+    private final Map<String, Integer> ordinalsByQualifiedName;
+
+    private FieldCatalog(String[] tableNames, String[] fieldNames, String[] jsonPaths) {
+        this.tableNames = tableNames;
+        this.fieldNames = fieldNames;
+        this.jsonPaths = jsonPaths;
+        this.ordinalsByQualifiedName = new HashMap<>();
+
+        List<String> tables = new ArrayList<>();
+        for (int ordinal = 0; ordinal < tableNames.length; ordinal++) {
+            ordinalsByQualifiedName.put(getQualifiedName(ordinal), ordinal);
+            if (tables.isEmpty() || !tables.get(tables.size() - 1).equals(tableNames[ordinal])) {
+                tables.add(tableNames[ordinal]);
+            }
+        }
+        this.distinctTableNames = Collections.unmodifiableList(tables);
+    }
+
+    /**
+     * Build a catalog from table name -> (database field -> JSON path) mappings
+     */
+    public static FieldCatalog of(Map<String, Map<String, String>> tableFieldMappings) {
+        List<String> sortedTables = new ArrayList<>(tableFieldMappings.keySet());
+        Collections.sort(sortedTables);
+
+        List<String> tables = new ArrayList<>();
+        List<String> fields = new ArrayList<>();
+        List<String> paths = new ArrayList<>();
+        for (String tableName : sortedTables) {
+            Map<String, String> fieldMappings = tableFieldMappings.get(tableName);
+            List<String> sortedFields = new ArrayList<>(fieldMappings.keySet());
+            Collections.sort(sortedFields);
+
+            for (String fieldName : sortedFields) {
+                tables.add(tableName);
+                fields.add(fieldName);
+                paths.add(fieldMappings.get(fieldName));
+            }
+        }
+
+        return new FieldCatalog(tables.toArray(new String[0]), fields.toArray(new String[0]),
+                                paths.toArray(new String[0]));
+    }
+
+    public int size() { return tableNames.length; }
+    public String getTableName(int ordinal) { return tableNames[ordinal]; }
+    public String getFieldName(int ordinal) { return fieldNames[ordinal]; }
+    public String getJsonPath(int ordinal) { return jsonPaths[ordinal]; }
+    public List<String> getTableNames() { return distinctTableNames; }
+
+    /**
+     * @return The alternative JSON paths of the field, in mapping order
+     */
+    public List<String> getJsonPaths(int ordinal) {
+        return Arrays.asList(ALTERNATIVES.split(jsonPaths[ordinal]));
+    }
+
+    /**
+     * @return Segments of a single JSON path, the elements of an array as a trailing {@link #ELEMENTS} segment
+     */
+    public static String[] segmentsOf(String jsonPath) {
+        if (!jsonPath.endsWith(ELEMENTS)) {
+            return jsonPath.split("\\.");
+        }
+        String[] segments = jsonPath.substring(0, jsonPath.length() - ELEMENTS.length()).split("\\.");
+        segments = Arrays.copyOf(segments, segments.length + 1);
+        segments[segments.length - 1] = ELEMENTS;
+        return segments;
+    }
+
+    /**
+     * @return Field name in TableName.FieldName form
+     */
+    public String getQualifiedName(int ordinal) {
+        return tableNames[ordinal] + "." + fieldNames[ordinal];
+    }
+
+    /**
+     * Stable digest of all fields and their JSON paths
+     * Cached analysis results are only valid for the catalog they were computed with
+     */
+    public String getFingerprint() {
+        StringBuilder description = new StringBuilder();
+        for (int ordinal = 0; ordinal < size(); ordinal++) {
+            description.append(getQualifiedName(ordinal)).append('=').append(jsonPaths[ordinal]).append('\n');
+        }
+        return UUID.nameUUIDFromBytes(description.toString().getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    /**
+     * @return Ordinal of the field, or -1 if the field is not mapped
+     */
+    public int ordinalOf(String tableName, String fieldName) {
+        Integer ordinal = ordinalsByQualifiedName.get(tableName + "." + fieldName);
+        return ordinal == null ? -1 : ordinal;
+    }
+}
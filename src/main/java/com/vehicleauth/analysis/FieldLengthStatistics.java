@@ -0,0 +1,118 @@
+package com.vehicleauth.analysis;
+
+/**
+ * Length distribution of every mapped field, indexed by field ordinal
+ * Keeps the value count, null count, exact maximum, a {@link LengthHistogram} and the
+ * mask of observed {@link ValueType}s per field. Histograms are only allocated for
+ * fields that received a value.
+ * Not thread-safe: every worker fills its own instance and instances are merged
+ */
+public final class FieldLengthStatistics {
+
+    private final int[] counts;
+    private final int[] nullCounts;
+    private final int[] maxLengths;
+    private final int[][] histograms;
+    private final int[] typeMasks;
+
+    public FieldLengthStatistics(int fieldCount) {
+        this.counts = new int[fieldCount];
+        this.nullCounts = new int[fieldCount];
+        this.maxLengths = new int[fieldCount];
+        this.histograms = new int[fieldCount][];
+        this.typeMasks = new int[fieldCount];
+    }
+
+    /**
+     * Record one value of the field
+     * @param length Value length, 0 for a null or empty value
+     * @param type Kind of the value, NULL for a null or empty value
+     * @return true if the value raised the field's maximum length
+     */
+    public boolean record(int ordinal, int length, ValueType type) {
+        if (length == 0 || type == ValueType.NULL) {
+            nullCounts[ordinal]++;
+            return false;
+        }
+
+        counts[ordinal]++;
+        typeMasks[ordinal] |= type.mask();
+        histogramOf(ordinal)[LengthHistogram.bucketOf(length)]++;
+        if (length > maxLengths[ordinal]) {
+            maxLengths[ordinal] = length;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Add previously collected figures of one field
+     * @param histogram Bucket counters, may be null when count is 0
+     * @param typeMask Observed value types, see {@link ValueType#mask()}
+     */
+    public void mergeField(int ordinal, int count, int nullCount, int maxLength, int[] histogram, int typeMask) {
+        counts[ordinal] += count;
+        nullCounts[ordinal] += nullCount;
+        maxLengths[ordinal] = Math.max(maxLengths[ordinal], maxLength);
+        typeMasks[ordinal] |= typeMask;
+        if (histogram != null) {
+            int[] target = histogramOf(ordinal);
+            for (int bucket = 0; bucket < histogram.length; bucket++) {
+                target[bucket] += histogram[bucket];
+            }
+        }
+    }
+
+    /**
+     * Add all figures of another instance covering the same catalog
+     */
+    public void merge(FieldLengthStatistics other) {
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            mergeField(ordinal, other.counts[ordinal], other.nullCounts[ordinal],
+                       other.maxLengths[ordinal], other.histograms[ordinal], other.typeMasks[ordinal]);
+        }
+    }
+
+    public int getFieldCount() { return counts.length; }
+    public int getCount(int ordinal) { return counts[ordinal]; }
+    public int getNullCount(int ordinal) { return nullCounts[ordinal]; }
+    public int getMaxLength(int ordinal) { return maxLengths[ordinal]; }
+    public int getTypeMask(int ordinal) { return typeMasks[ordinal]; }
+
+    /**
+     * @return Maximum length per field, indexed by field ordinal
+     */
+    public int[] getMaxLengths() {
+        return maxLengths.clone();
+    }
+
+    /**
+     * @return Share of null or empty values among all values of the field
+     */
+    public double getNullRatio(int ordinal) {
+        int total = counts[ordinal] + nullCounts[ordinal];
+        return total == 0 ? 0.0 : (double) nullCounts[ordinal] / total;
+    }
+
+    /**
+     * @param percentile Percentile between 0 and 100 over the non-empty values
+     * @return Upper bound of the bucket holding the percentile, never above the maximum
+     */
+    public int getPercentile(int ordinal, double percentile) {
+        return LengthHistogram.percentile(histograms[ordinal], counts[ordinal], maxLengths[ordinal], percentile);
+    }
+
+    /**
+     * @return Copy of the field's bucket counters, or null if the field had no values
+     */
+    public int[] getHistogram(int ordinal) {
+        return histograms[ordinal] == null ? null : histograms[ordinal].clone();
+    }
+
+    private int[] histogramOf(int ordinal) {
+        if (histograms[ordinal] == null) {
+            histograms[ordinal] = new int[LengthHistogram.BUCKET_COUNT];
+        }
+        return histograms[ordinal];
+    }
+}
@@ -0,0 +1,79 @@
+package com.vehicleauth.analysis;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compiled matcher resolving a JSON path to the mapped fields it feeds
+ * Mapping paths are stored in a trie keyed by path segment from the last segment
+ * backwards, so a value path is resolved in a single walk over its own segments.
+ * A mapping matches when its segments are a suffix of the value path, which is the
+ * segment-wise equivalent of {@code path.equals(mapping) || path.endsWith("." + mapping)}.
+ * Every alternative of a mapping is stored, the elements of an array are matched by
+ * the {@link FieldCatalog#ELEMENTS} segment the analyzers report them with
+ */
+public final class FieldPathMatcher {
+
+    private static final int[] NO_ORDINALS = new int[0];
+
+    private final Node root = new Node();
+    private int pathCount;
+
+    public FieldPathMatcher(FieldCatalog catalog) {
+        for (int ordinal = 0; ordinal < catalog.size(); ordinal++) {
+            for (String jsonPath : catalog.getJsonPaths(ordinal)) {
+                String[] segments = FieldCatalog.segmentsOf(jsonPath);
+                Node node = root;
+                for (int i = segments.length - 1; i >= 0; i--) {
+                    node = node.children.computeIfAbsent(segments[i], segment -> new Node());
+                }
+                node.ordinals = append(node.ordinals, ordinal);
+                pathCount++;
+            }
+        }
+    }
+
+    /**
+     * Resolve the fields matching a path
+     * @param segments Path segments, root first
+     * @param length Number of segments in use
+     * @param result Receives matching field ordinals, must hold at least {@link #maxMatches()} entries
+     * @return Number of ordinals written to result
+     */
+    public int match(String[] segments, int length, int[] result) {
+        int count = 0;
+        Node node = root;
+        for (int i = length - 1; i >= 0; i--) {
+            node = node.children.get(segments[i]);
+            if (node == null) {
+                break;
+            }
+            for (int ordinal : node.ordinals) {
+                result[count++] = ordinal;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return Upper bound for the number of ordinals a single match can return
+     */
+    public int maxMatches() {
+        return pathCount;
+    }
+
+    private static int[] append(int[] ordinals, int ordinal) {
+        int[] extended = Arrays.copyOf(ordinals, ordinals.length + 1);
+        extended[ordinals.length] = ordinal;
+        return extended;
+    }
+
+    /**
+     * Trie node for one path segment
+     */
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>(4);
+        private int[] ordinals = NO_ORDINALS;
+    }
+}
@@ -0,0 +1,289 @@
+package com.vehicleauth.analysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Field length analysis that only parses new or changed files
+ * Per-file results are cached in an {@link AnalysisManifest}; files whose size and
+ * modification time (or, failing that, content hash) are unchanged reuse their cached
+ * statistics. The aggregate is rebuilt from the per-file entries on every run, so
+ * deleted and changed files drop out without reparsing anything else
+ */
+public class IncrementalFieldLengthAnalyzer {
+
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalFieldLengthAnalyzer.class);
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    /**
+     * Analyzes one file while feeding every byte read to the digest
+     */
+    public interface HashingFileAnalyzer {
+        /**
+         * @return Statistics for the file, or null if the file could not be analyzed
+         */
+        FieldLengthStatistics analyzeFile(Path file, MessageDigest digest);
+    }
+
+    private final FieldCatalog catalog;
+    private final int workerCount;
+    private final String analysisFingerprint;
+
+    /**
+     * @param analysisFingerprint Identifies mappings and settings the cached results depend on;
+     *                            a manifest written with a different fingerprint is discarded
+     */
+    public IncrementalFieldLengthAnalyzer(FieldCatalog catalog, int workerCount, String analysisFingerprint) {
+        this.catalog = catalog;
+        this.workerCount = workerCount;
+        this.analysisFingerprint = analysisFingerprint;
+    }
+
+    /**
+     * Analyze the files, reusing cached results from the manifest where possible,
+     * and write the updated manifest back
+     * @param baseDir Directory the manifest keys are relative to
+     * @param files Files currently present
+     * @param manifestFile Manifest location
+     * @param analyzer Per-file analysis, must be safe to call from several threads
+     */
+    public Result analyze(Path baseDir, List<Path> files, Path manifestFile, HashingFileAnalyzer analyzer) throws IOException {
+        AnalysisManifest manifest = AnalysisManifest.load(manifestFile, analysisFingerprint);
+        Map<String, AnalysisManifest.FileEntry> previousEntries = new HashMap<>(manifest.getFiles());
+        Map<String, AnalysisManifest.FileEntry> currentEntries = new TreeMap<>();
+
+        List<Path> filesToParse = new ArrayList<>();
+        Map<Path, long[]> fileStats = new HashMap<>();
+        int reusedFiles = 0;
+
+        for (Path file : files) {
+            String key = manifestKey(baseDir, file);
+            long size = Files.size(file);
+            long lastModified = Files.getLastModifiedTime(file).toMillis();
+            AnalysisManifest.FileEntry cached = previousEntries.remove(key);
+
+            if (cached != null && cached.getSize() == size) {
+                if (cached.getLastModified() == lastModified || hashFile(file).equals(cached.getSha256())) {
+                    cached.setLastModified(lastModified);
+                    currentEntries.put(key, cached);
+                    reusedFiles++;
+                    continue;
+                }
+            }
+
+            filesToParse.add(file);
+            fileStats.put(file, new long[] { size, lastModified });
+        }
+
+        // Entries that were not matched by a current file belong to deleted files
+        int removedFiles = previousEntries.size();
+
+        // Statistics are additive, so the aggregate is rebuilt from the entries that are still valid
+        FieldLengthStatistics statistics = new FieldLengthStatistics(catalog.size());
+        for (AnalysisManifest.FileEntry entry : currentEntries.values()) {
+            mergeEntry(entry, statistics);
+        }
+
+        Map<Path, ParsedFile> parsedFiles = parseFiles(filesToParse, analyzer);
+        for (Map.Entry<Path, ParsedFile> parsed : parsedFiles.entrySet()) {
+            // Failed files get no entry, so they contribute nothing and are retried on the next run
+            Path file = parsed.getKey();
+            long[] stats = fileStats.get(file);
+            currentEntries.put(manifestKey(baseDir, file), new AnalysisManifest.FileEntry(stats[0], stats[1],
+                parsed.getValue().sha256, toFieldEntries(parsed.getValue().statistics)));
+            statistics.merge(parsed.getValue().statistics);
+        }
+
+        manifest.setFiles(currentEntries);
+        manifest.save(manifestFile);
+
+        Result result = new Result(statistics, reusedFiles, parsedFiles.size(),
+                                   filesToParse.size() - parsedFiles.size(), removedFiles);
+        logger.info("Incremental analysis: {} reused, {} parsed, {} failed, {} removed",
+                    result.getReusedFiles(), result.getParsedFiles(), result.getFailedFiles(), result.getRemovedFiles());
+        return result;
+    }
+
+    /**
+     * Parse new and changed files
+     * @return Statistics and content hash of every file parsed successfully
+     */
+    private Map<Path, ParsedFile> parseFiles(List<Path> filesToParse, HashingFileAnalyzer analyzer) {
+        Function<Path, Map<Path, ParsedFile>> hashingAnalyzer = file -> {
+            Map<Path, ParsedFile> parsed = new HashMap<>();
+            MessageDigest digest = newDigest();
+            FieldLengthStatistics fileStatistics = analyzer.analyzeFile(file, digest);
+            if (fileStatistics != null) {
+                parsed.put(file, new ParsedFile(fileStatistics, toHex(digest.digest())));
+            }
+            return parsed;
+        };
+        BinaryOperator<Map<Path, ParsedFile>> merge = (result, other) -> {
+            result.putAll(other);
+            return result;
+        };
+
+        if (workerCount > 1 && filesToParse.size() > 1) {
+            return new ParallelFileAnalyzer(workerCount).reduce(filesToParse, hashingAnalyzer, HashMap::new, merge);
+        }
+        Map<Path, ParsedFile> parsedFiles = new HashMap<>();
+        for (Path file : filesToParse) {
+            merge.apply(parsedFiles, hashingAnalyzer.apply(file));
+        }
+        return parsedFiles;
+    }
+
+    /**
+     * Add the cached statistics of one file
+     */
+    private void mergeEntry(AnalysisManifest.FileEntry entry, FieldLengthStatistics statistics) {
+        for (Map.Entry<String, AnalysisManifest.FieldEntry> field : entry.getFields().entrySet()) {
+            int ordinal = ordinalOf(field.getKey());
+            if (ordinal < 0) {
+                continue;
+            }
+
+            AnalysisManifest.FieldEntry cached = field.getValue();
+            int[] histogram = null;
+            if (!cached.getBuckets().isEmpty()) {
+                histogram = new int[LengthHistogram.BUCKET_COUNT];
+                for (Map.Entry<Integer, Integer> bucket : cached.getBuckets().entrySet()) {
+                    if (bucket.getKey() >= 0 && bucket.getKey() < histogram.length) {
+                        histogram[bucket.getKey()] = bucket.getValue();
+                    }
+                }
+            }
+            int typeMask = 0;
+            for (ValueType type : cached.getTypes()) {
+                typeMask |= type.mask();
+            }
+            statistics.mergeField(ordinal, cached.getCount(), cached.getNulls(), cached.getMaxLength(), histogram, typeMask);
+        }
+    }
+
+    /**
+     * Convert statistics to entries keyed by TableName.FieldName, leaving out fields never seen
+     */
+    private Map<String, AnalysisManifest.FieldEntry> toFieldEntries(FieldLengthStatistics statistics) {
+        Map<String, AnalysisManifest.FieldEntry> result = new TreeMap<>();
+        for (int ordinal = 0; ordinal < statistics.getFieldCount(); ordinal++) {
+            if (statistics.getCount(ordinal) == 0 && statistics.getNullCount(ordinal) == 0) {
+                continue;
+            }
+
+            Map<Integer, Integer> buckets = new TreeMap<>();
+            int[] histogram = statistics.getHistogram(ordinal);
+            if (histogram != null) {
+                for (int bucket = 0; bucket < histogram.length; bucket++) {
+                    if (histogram[bucket] > 0) {
+                        buckets.put(bucket, histogram[bucket]);
+                    }
+                }
+            }
+            Set<ValueType> types = EnumSet.noneOf(ValueType.class);
+            for (ValueType type : ValueType.values()) {
+                if ((statistics.getTypeMask(ordinal) & type.mask()) != 0) {
+                    types.add(type);
+                }
+            }
+            result.put(catalog.getQualifiedName(ordinal), new AnalysisManifest.FieldEntry(
+                statistics.getCount(ordinal), statistics.getNullCount(ordinal), statistics.getMaxLength(ordinal), buckets, types));
+        }
+        return result;
+    }
+
+    private int ordinalOf(String qualifiedName) {
+        int separator = qualifiedName.indexOf('.');
+        return separator < 0 ? -1 : catalog.ordinalOf(qualifiedName.substring(0, separator), qualifiedName.substring(separator + 1));
+    }
+
+    private static String manifestKey(Path baseDir, Path file) {
+        return JsonSources.relativeName(baseDir, file);
+    }
+
+    /**
+     * Hash the stored bytes of a source, the same bytes the analyzer feeds to the digest
+     */
+    private static String hashFile(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream input = Files.newInputStream(file)) {
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " is not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Statistics of one parsed file with the hash of the bytes it was parsed from
+     */
+    private static final class ParsedFile {
+        final FieldLengthStatistics statistics;
+        final String sha256;
+
+        ParsedFile(FieldLengthStatistics statistics, String sha256) {
+            this.statistics = statistics;
+            this.sha256 = sha256;
+        }
+    }
+
+    /**
+     * Outcome of an incremental analysis run
+     */
+    public static class Result {
+        private final FieldLengthStatistics statistics;
+        private final int reusedFiles;
+        private final int parsedFiles;
+        private final int failedFiles;
+        private final int removedFiles;
+
+        public Result(FieldLengthStatistics statistics, int reusedFiles, int parsedFiles, int failedFiles, int removedFiles) {
+            this.statistics = statistics;
+            this.reusedFiles = reusedFiles;
+            this.parsedFiles = parsedFiles;
+            this.failedFiles = failedFiles;
+            this.removedFiles = removedFiles;
+        }
+
+        public FieldLengthStatistics getStatistics() { return statistics; }
+        public int getReusedFiles() { return reusedFiles; }
+        public int getParsedFiles() { return parsedFiles; }
+        public int getFailedFiles() { return failedFiles; }
+        public int getRemovedFiles() { return removedFiles; }
+    }
+}
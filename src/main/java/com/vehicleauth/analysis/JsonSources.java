@@ -0,0 +1,221 @@
+package com.vehicleauth.analysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * JSON sources below a directory: plain .json files, gzip-compressed .json.gz files
+ * and the JSON entries of .zip bundles
+ * Zip bundles are mounted as zip file systems, so their entries are ordinary paths
+ * that can be analyzed in parallel like files and are decompressed while being read.
+ * Nothing is unpacked to disk; closing the instance unmounts the bundles
+ */
+public final class JsonSources implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(JsonSources.class);
+
+    private static final String JSON_SUFFIX = ".json";
+    private static final String GZIP_SUFFIX = ".json.gz";
+    private static final String ZIP_SUFFIX = ".zip";
+
+    // Separates the archive from the entry in source names, as in jar URLs
+    private static final String ENTRY_SEPARATOR = "!/";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final List<Path> files;
+    private final List<FileSystem> archives;
+
+    private JsonSources(List<Path> files, List<FileSystem> archives) {
+        this.files = files;
+        this.archives = archives;
+    }
+
+    /**
+     * Find all JSON sources below the directory
+     * Archives that cannot be opened are logged and skipped
+     */
+    public static JsonSources open(Path dir) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            paths = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        return open(paths);
+    }
+
+    /**
+     * Take the JSON sources among the files, opening their zip bundles
+     * Archives that cannot be opened are logged and skipped
+     */
+    public static JsonSources open(List<Path> paths) throws IOException {
+        List<Path> files = new ArrayList<>();
+        List<FileSystem> archives = new ArrayList<>();
+        try {
+            for (Path path : paths) {
+                String name = lowerCaseName(path);
+                if (name.endsWith(ZIP_SUFFIX)) {
+                    FileSystem archive = openArchive(path);
+                    if (archive != null) {
+                        archives.add(archive);
+                        files.addAll(findArchiveEntries(archive));
+                    }
+                } else if (isJsonSource(name)) {
+                    files.add(path);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            closeAll(archives);
+            throw e;
+        }
+        return new JsonSources(Collections.unmodifiableList(files), archives);
+    }
+
+    /**
+     * @return Plain files, gzip files and zip entries, in path order
+     */
+    public List<Path> getFiles() {
+        return files;
+    }
+
+    /**
+     * Open a source for reading, decompressing gzip sources
+     * Zip entries are already decompressed by their file system
+     */
+    public static InputStream newInputStream(Path file) throws IOException {
+        return decompress(file, Files.newInputStream(file));
+    }
+
+    /**
+     * Wrap the raw bytes of a source so that the JSON text is read
+     * @param raw Stream over the stored bytes of the source
+     */
+    public static InputStream decompress(Path file, InputStream raw) throws IOException {
+        if (!lowerCaseName(file).endsWith(GZIP_SUFFIX)) {
+            return raw;
+        }
+        try {
+            return new BufferedInputStream(new GZIPInputStream(raw, BUFFER_SIZE), BUFFER_SIZE);
+        } catch (IOException e) {
+            raw.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return true for a plain JSON file, a gzip file or a zip bundle
+     */
+    public static boolean isSourceFile(Path file) {
+        String name = lowerCaseName(file);
+        return name.endsWith(ZIP_SUFFIX) || isJsonSource(name);
+    }
+
+    /**
+     * Name of a source relative to the base directory, zip entries as archive!/entry
+     */
+    public static String relativeName(Path baseDir, Path file) {
+        Path archive = archiveOf(file);
+        if (archive == null) {
+            return baseDir.relativize(file).toString().replace('\\', '/');
+        }
+        return relativeName(baseDir.toAbsolutePath(), archive) + ENTRY_SEPARATOR + entryName(file);
+    }
+
+    /**
+     * Name of a source for messages, zip entries as archive!/entry
+     */
+    public static String describe(Path file) {
+        Path archive = archiveOf(file);
+        return archive == null ? file.toString() : archive + ENTRY_SEPARATOR + entryName(file);
+    }
+
+    /**
+     * Unmount the zip bundles; paths of their entries become unreadable
+     */
+    @Override
+    public void close() {
+        closeAll(archives);
+    }
+
+    private static boolean isJsonSource(String name) {
+        return name.endsWith(JSON_SUFFIX) || name.endsWith(GZIP_SUFFIX);
+    }
+
+    private static FileSystem openArchive(Path path) {
+        try {
+            return FileSystems.newFileSystem(path, (ClassLoader) null);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to open archive: " + path + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static List<Path> findArchiveEntries(FileSystem archive) throws IOException {
+        List<Path> entries = new ArrayList<>();
+        for (Path root : archive.getRootDirectories()) {
+            try (Stream<Path> walk = Files.walk(root)) {
+                walk.filter(Files::isRegularFile)
+                    .filter(entry -> isJsonSource(lowerCaseName(entry)))
+                    .sorted()
+                    .forEach(entries::add);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * @return The zip file holding the entry, or null for a file on the default file system
+     */
+    private static Path archiveOf(Path file) {
+        if (file.getFileSystem() == FileSystems.getDefault()) {
+            return null;
+        }
+        // Zip entry URIs look like jar:file:///dir/bundle.zip!/entry.json
+        String location = file.toUri().getRawSchemeSpecificPart();
+        int separator = location.indexOf(ENTRY_SEPARATOR);
+        if (separator < 0) {
+            return null;
+        }
+        try {
+            return Paths.get(URI.create(location.substring(0, separator)));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String entryName(Path entry) {
+        String name = entry.toString();
+        return name.startsWith("/") ? name.substring(1) : name;
+    }
+
+    private static String lowerCaseName(Path path) {
+        Path fileName = path.getFileName();
+        return fileName == null ? "" : fileName.toString().toLowerCase();
+    }
+
+    private static void closeAll(List<FileSystem> archives) {
+        for (FileSystem archive : archives) {
+            try {
+                archive.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close archive: " + archive + " - " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.vehicleauth.analysis;
+
+/**
+ * Log-scaled bucketing of value lengths
+ * Lengths below 16 get a bucket each, longer lengths are split into 8 buckets per
+ * power of two (at most 12.5% wide), and lengths of 65536 and above share one last
+ * bucket. A histogram is a plain int[] of {@link #BUCKET_COUNT} counters
+ */
+public final class LengthHistogram {
+
+    private static final int EXACT_LIMIT = 16;
+    private static final int EXACT_EXPONENT = 4;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int OVERFLOW_EXPONENT = 16;
+
+    public static final int BUCKET_COUNT = EXACT_LIMIT + (OVERFLOW_EXPONENT - EXACT_EXPONENT) * SUB_BUCKETS + 1;
+
+    private LengthHistogram() {
+    }
+
+    /**
+     * @return Index of the bucket counting the given length
+     */
+    public static int bucketOf(int length) {
+        if (length < EXACT_LIMIT) {
+            return length;
+        }
+        int exponent = 31 - Integer.numberOfLeadingZeros(length);
+        if (exponent >= OVERFLOW_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (length >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return EXACT_LIMIT + (exponent - EXACT_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return Largest length counted by the bucket
+     */
+    public static int upperBound(int bucket) {
+        if (bucket < EXACT_LIMIT) {
+            return bucket;
+        }
+        if (bucket == BUCKET_COUNT - 1) {
+            return Integer.MAX_VALUE;
+        }
+        int exponent = EXACT_EXPONENT + (bucket - EXACT_LIMIT) / SUB_BUCKETS;
+        int subBucket = (bucket - EXACT_LIMIT) % SUB_BUCKETS;
+        return (1 << exponent) + ((subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * Estimate a percentile as the upper bound of the bucket holding it
+     * @param histogram Bucket counters, may be null when nothing was counted
+     * @param count Total of all counters
+     * @param maxLength Exact maximum, caps the estimate
+     * @param percentile Percentile between 0 and 100
+     * @return Estimated length, or 0 if nothing was counted
+     */
+    public static int percentile(int[] histogram, int count, int maxLength, double percentile) {
+        if (histogram == null || count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long cumulative = 0;
+        for (int bucket = 0; bucket < histogram.length; bucket++) {
+            cumulative += histogram[bucket];
+            if (cumulative >= rank) {
+                return Math.min(upperBound(bucket), maxLength);
+            }
+        }
+        return maxLength;
+    }
+}
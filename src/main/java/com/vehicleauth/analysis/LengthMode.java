@@ -0,0 +1,11 @@
+package com.vehicleauth.analysis;
+
+/**
+ * How the length of a text value is counted
+ */
+public enum LengthMode {
+    /** UTF-16 code units, the same as String.length() and the Access TEXT(n) limit */
+    UTF16_UNITS,
+    /** Unicode code points, counting a surrogate pair as one character */
+    CODE_POINTS
+}
@@ -0,0 +1,112 @@
+package com.vehicleauth.analysis;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs per-file field length analysis on a ForkJoinPool
+ * Every task owns the statistics it returns and results are merged while
+ * joining, so workers never share a mutable structure
+ */
+public class ParallelFileAnalyzer {
+
+    /**
+     * Analyzes one file into fresh statistics covering every catalog field
+     */
+    public interface FileAnalyzer {
+        /**
+         * @return Statistics for the file, or null if the file could not be analyzed
+         */
+        FieldLengthStatistics analyzeFile(Path file);
+    }
+
+    private final int workerCount;
+
+    public ParallelFileAnalyzer(int workerCount) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("Worker count must be at least 1: " + workerCount);
+        }
+        this.workerCount = workerCount;
+    }
+
+    /**
+     * Analyze all files and merge their results
+     * @param files Files to analyze
+     * @param fieldCount Number of fields in the catalog
+     * @param analyzer Per-file analysis, must be safe to call from several threads
+     * @return Statistics over all files
+     */
+    public FieldLengthStatistics analyze(List<Path> files, int fieldCount, FileAnalyzer analyzer) {
+        return reduce(files, file -> {
+            FieldLengthStatistics fileStatistics = analyzer.analyzeFile(file);
+            return fileStatistics != null ? fileStatistics : new FieldLengthStatistics(fieldCount);
+        }, () -> new FieldLengthStatistics(fieldCount), (result, other) -> {
+            result.merge(other);
+            return result;
+        });
+    }
+
+    /**
+     * Analyze all files into per-file results and merge them
+     * @param analyzer Per-file analysis returning a result the task owns, must be safe to call from several threads
+     * @param empty Result of no files
+     * @param merge Merges the second result into the first and returns it
+     * @return Result over all files
+     */
+    public <T> T reduce(List<Path> files, Function<Path, T> analyzer, Supplier<T> empty, BinaryOperator<T> merge) {
+        if (files.isEmpty()) {
+            return empty.get();
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(workerCount);
+        try {
+            return pool.invoke(new AnalysisTask<>(files, 0, files.size(), analyzer, merge));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    /**
+     * Splits the file range in halves until a single file is left
+     */
+    private static final class AnalysisTask<T> extends RecursiveTask<T> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Path> files;
+        private final int from;
+        private final int to;
+        private final Function<Path, T> analyzer;
+        private final BinaryOperator<T> merge;
+
+        AnalysisTask(List<Path> files, int from, int to, Function<Path, T> analyzer, BinaryOperator<T> merge) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+            this.analyzer = analyzer;
+            this.merge = merge;
+        }
+
+        @Override
+        protected T compute() {
+            if (to - from == 1) {
+                return analyzer.apply(files.get(from));
+            }
+
+            int middle = (from + to) >>> 1;
+            AnalysisTask<T> left = new AnalysisTask<>(files, from, middle, analyzer, merge);
+            left.fork();
+            T result = new AnalysisTask<>(files, middle, to, analyzer, merge).compute();
+            return merge.apply(result, left.join());
+        }
+    }
+}
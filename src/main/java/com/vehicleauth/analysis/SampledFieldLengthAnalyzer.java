@@ -0,0 +1,337 @@
+package com.vehicleauth.analysis;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Quick field length estimate over the records of an application list
+ * Streams the applicationListDTO array and keeps a uniform reservoir sample of its
+ * records; records that are not selected are skipped without being measured. Reading
+ * stops at the end of the array or when the time budget runs out, so the file is never
+ * loaded as a whole and large dumps give an answer within the budget. Records after
+ * the point reading stopped are never sampled, so every estimate of an incomplete
+ * read is flagged as under-estimated. Gzip dumps are decompressed while being read
+ */
+public class SampledFieldLengthAnalyzer {
+
+    public static final String RECORD_ARRAY_FIELD = "applicationListDTO";
+
+    // One-sided 95% confidence for all bounds
+    private static final double CONFIDENCE_Z = 1.645;
+    private static final double CONFIDENCE_ALPHA = 0.05;
+
+    // Fields with fewer sampled values are always reported as unreliable
+    private static final int MIN_SAMPLED_VALUES = 30;
+
+    private static final ValueType[] VALUE_TYPES = ValueType.values();
+
+    private final StreamingFieldLengthAnalyzer streamingAnalyzer;
+    private final FieldPathMatcher fieldPathMatcher;
+    private final int fieldCount;
+    private final JsonFactory jsonFactory;
+    private final long seed;
+
+    /**
+     * @param seed Seed of the record selection, the same seed selects the same records
+     */
+    public SampledFieldLengthAnalyzer(StreamingFieldLengthAnalyzer streamingAnalyzer, FieldPathMatcher fieldPathMatcher,
+                                      int fieldCount, long seed) {
+        this.streamingAnalyzer = streamingAnalyzer;
+        this.fieldPathMatcher = fieldPathMatcher;
+        this.fieldCount = fieldCount;
+        this.jsonFactory = new JsonFactory();
+        this.seed = seed;
+    }
+
+    /**
+     * Sample the records of the applicationListDTO array in a file
+     * @param recordBudget Number of records kept in the sample
+     * @param timeBudget Maximum reading time, null to read the whole array
+     * @return Statistics of the sampled records and how they relate to the whole file
+     */
+    public Result sample(Path file, int recordBudget, Duration timeBudget) throws IOException {
+        if (recordBudget < 1) {
+            throw new IllegalArgumentException("Record budget must be at least 1: " + recordBudget);
+        }
+
+        long startTime = System.nanoTime();
+        long deadline = timeBudget == null ? Long.MAX_VALUE : startTime + timeBudget.toNanos();
+        long fileSize = Files.size(file);
+
+        SplittableRandom random = new SplittableRandom(seed);
+        int[][] reservoir = new int[recordBudget][];
+        long recordsSeen = 0;
+        boolean complete = false;
+        long bytesRead;
+
+        CountingInputStream raw = new CountingInputStream(Files.newInputStream(file));
+        try (InputStream input = JsonSources.decompress(file, raw);
+             JsonParser parser = jsonFactory.createParser(input)) {
+            if (moveToRecordArray(parser)) {
+                String[] basePath = { RECORD_ARRAY_FIELD };
+                RecordCollector collector = new RecordCollector();
+                JsonToken token;
+
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token == null) {
+                        throw new IOException("Unexpected end of input in " + RECORD_ARRAY_FIELD);
+                    }
+                    if (System.nanoTime() > deadline) {
+                        break;
+                    }
+
+                    // Algorithm R: record n replaces a random slot with probability budget / n
+                    int slot = recordsSeen < recordBudget ? (int) recordsSeen : (int) random.nextLong(recordsSeen + 1);
+                    recordsSeen++;
+                    if (slot < recordBudget && token == JsonToken.START_OBJECT) {
+                        collector.reset();
+                        streamingAnalyzer.analyzeCurrentValue(parser, basePath, basePath.length, collector);
+                        reservoir[slot] = collector.toArray();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                complete = token == JsonToken.END_ARRAY;
+            }
+            // The parser's offset counts decompressed bytes, the file size compressed ones
+            bytesRead = input == raw ? parser.getCurrentLocation().getByteOffset() : raw.count;
+        }
+
+        FieldLengthStatistics statistics = new FieldLengthStatistics(fieldCount);
+        int recordsSampled = 0;
+        for (int[] record : reservoir) {
+            if (record == null) {
+                continue;
+            }
+            recordsSampled++;
+            for (int i = 0; i < record.length; i += 3) {
+                statistics.record(record[i], record[i + 1], VALUE_TYPES[record[i + 2]]);
+            }
+        }
+
+        // Extrapolate the record count from the bytes read when the time budget cut reading short
+        long estimatedRecords = complete || bytesRead <= 0 ? recordsSeen
+            : Math.max(recordsSeen, Math.round(recordsSeen * ((double) fileSize / bytesRead)));
+        return new Result(statistics, recordsSampled, recordsSeen, estimatedRecords, complete,
+                          Duration.ofNanos(System.nanoTime() - startTime));
+    }
+
+    /**
+     * Advance the parser to the start of the top level record array
+     * @return false if the file has no such array
+     */
+    private static boolean moveToRecordArray(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            boolean recordArray = RECORD_ARRAY_FIELD.equals(parser.getCurrentName());
+            token = parser.nextToken();
+            if (recordArray && token == JsonToken.START_ARRAY) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    /**
+     * Collects ordinal/length/type triples of the record being measured
+     */
+    private final class RecordCollector implements StreamingFieldLengthAnalyzer.FieldValueListener {
+
+        private final int[] matches = new int[fieldPathMatcher.maxMatches()];
+        private int[] values = new int[96];
+        private int size;
+
+        @Override
+        public void onValue(String[] pathSegments, int pathLength, int length, ValueType type) {
+            int matchCount = fieldPathMatcher.match(pathSegments, pathLength, matches);
+            for (int i = 0; i < matchCount; i++) {
+                if (size + 3 > values.length) {
+                    values = Arrays.copyOf(values, values.length * 2);
+                }
+                values[size++] = matches[i];
+                values[size++] = length;
+                values[size++] = type.ordinal();
+            }
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Counts the bytes read from the file, before decompression
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    /**
+     * Outcome of a sampling run
+     */
+    public static class Result {
+        private final FieldLengthStatistics statistics;
+        private final int recordsSampled;
+        private final long recordsSeen;
+        private final long estimatedRecords;
+        private final boolean complete;
+        private final Duration elapsed;
+
+        public Result(FieldLengthStatistics statistics, int recordsSampled, long recordsSeen, long estimatedRecords,
+                      boolean complete, Duration elapsed) {
+            this.statistics = statistics;
+            this.recordsSampled = recordsSampled;
+            this.recordsSeen = recordsSeen;
+            this.estimatedRecords = estimatedRecords;
+            this.complete = complete;
+            this.elapsed = elapsed;
+        }
+
+        public FieldLengthStatistics getStatistics() { return statistics; }
+        public int getRecordsSampled() { return recordsSampled; }
+        public long getRecordsSeen() { return recordsSeen; }
+        public long getEstimatedRecords() { return estimatedRecords; }
+        public boolean isComplete() { return complete; }
+        public Duration getElapsed() { return elapsed; }
+
+        /**
+         * @return true if every record of the file was measured, so the figures are exact
+         */
+        public boolean isExact() {
+            return complete && recordsSampled == recordsSeen;
+        }
+
+        /**
+         * Estimate the length distribution of one field over the whole file
+         */
+        public FieldEstimate estimate(int ordinal) {
+            int count = statistics.getCount(ordinal);
+            int maxLength = statistics.getMaxLength(ordinal);
+            if (isExact() || count == 0) {
+                int p50 = statistics.getPercentile(ordinal, 50);
+                int p95 = statistics.getPercentile(ordinal, 95);
+                int p99 = statistics.getPercentile(ordinal, 99);
+                return new FieldEstimate(count, p50, p95, p99, p50, p95, p99, maxLength, 1.0, !complete);
+            }
+
+            // With 95% confidence at least this share of all values is no longer than the sampled maximum
+            double maxCoverage = Math.pow(CONFIDENCE_ALPHA, 1.0 / count);
+            double unseenValues = count * ((double) estimatedRecords / recordsSampled) - count;
+            boolean longTail = maxLength > statistics.getPercentile(ordinal, 99);
+            // The records after the point reading stopped had no chance to be sampled
+            boolean underEstimated = !complete || count < MIN_SAMPLED_VALUES
+                || (longTail && unseenValues * (1.0 - maxCoverage) >= 1.0);
+
+            return new FieldEstimate(count,
+                statistics.getPercentile(ordinal, 50), statistics.getPercentile(ordinal, 95), statistics.getPercentile(ordinal, 99),
+                upperPercentile(ordinal, 50, count), upperPercentile(ordinal, 95, count), upperPercentile(ordinal, 99, count),
+                maxLength, maxCoverage, underEstimated);
+        }
+
+        /**
+         * Upper confidence bound of a percentile from the normal approximation of its rank
+         */
+        private int upperPercentile(int ordinal, double percentile, int count) {
+            double quantile = percentile / 100.0;
+            double upperQuantile = Math.min(1.0, quantile + CONFIDENCE_Z * Math.sqrt(quantile * (1.0 - quantile) / count));
+            return statistics.getPercentile(ordinal, upperQuantile * 100.0);
+        }
+    }
+
+    /**
+     * Estimated length distribution of one field with one-sided 95% confidence bounds
+     */
+    public static class FieldEstimate {
+        private final int sampledValues;
+        private final int p50;
+        private final int p95;
+        private final int p99;
+        private final int p50Upper;
+        private final int p95Upper;
+        private final int p99Upper;
+        private final int maxLength;
+        private final double maxCoverage;
+        private final boolean underEstimated;
+
+        public FieldEstimate(int sampledValues, int p50, int p95, int p99, int p50Upper, int p95Upper, int p99Upper,
+                             int maxLength, double maxCoverage, boolean underEstimated) {
+            this.sampledValues = sampledValues;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.p99 = p99;
+            this.p50Upper = p50Upper;
+            this.p95Upper = p95Upper;
+            this.p99Upper = p99Upper;
+            this.maxLength = maxLength;
+            this.maxCoverage = maxCoverage;
+            this.underEstimated = underEstimated;
+        }
+
+        public int getSampledValues() { return sampledValues; }
+        public int getP50() { return p50; }
+        public int getP95() { return p95; }
+        public int getP99() { return p99; }
+        public int getP50Upper() { return p50Upper; }
+        public int getP95Upper() { return p95Upper; }
+        public int getP99Upper() { return p99Upper; }
+        public int getMaxLength() { return maxLength; }
+
+        /**
+         * @return Share of all values the sampled maximum covers with 95% confidence
+         */
+        public double getMaxCoverage() { return maxCoverage; }
+
+        /**
+         * @return true if the sample is likely to miss longer values, or reading stopped
+         *         before the end of the file, so the maximum should not be used to size a column
+         */
+        public boolean isUnderEstimated() { return underEstimated; }
+    }
+}
@@ -0,0 +1,218 @@
+package com.vehicleauth.analysis;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Streaming field length analyzer built on the Jackson token stream
+ * Keeps only the stack of open path segments in memory, so heap usage stays flat
+ * regardless of how large the analyzed file is
+ */
+public class StreamingFieldLengthAnalyzer {
+
+    /**
+     * Receives the text length and kind of every scalar value found under an object field
+     * Null and empty values are reported with length 0 and {@link ValueType#NULL}. Each
+     * scalar element of an array is reported below a {@link FieldCatalog#ELEMENTS} segment,
+     * and the array itself as {@link ValueType#TEXT} with the length of its non-null
+     * elements joined with ','. The segment array is reused between calls and must not be retained
+     */
+    public interface FieldValueListener {
+        void onValue(String[] pathSegments, int pathLength, int length, ValueType type);
+    }
+
+    private final JsonFactory jsonFactory;
+    private final LengthMode lengthMode;
+
+    public StreamingFieldLengthAnalyzer() {
+        this(LengthMode.UTF16_UNITS);
+    }
+
+    public StreamingFieldLengthAnalyzer(LengthMode lengthMode) {
+        this(new JsonFactory().disable(JsonParser.Feature.AUTO_CLOSE_SOURCE), lengthMode);
+    }
+
+    public StreamingFieldLengthAnalyzer(JsonFactory jsonFactory, LengthMode lengthMode) {
+        this.jsonFactory = jsonFactory;
+        this.lengthMode = lengthMode;
+    }
+
+    /**
+     * Analyze a JSON file and report every scalar value to the listener
+     * @param file JSON file to analyze
+     * @param listener Receiver of path/length pairs
+     * @return Number of JSON tokens read
+     */
+    public long analyze(Path file, FieldValueListener listener) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            return analyze(input, listener);
+        }
+    }
+
+    /**
+     * Analyze a JSON document read from a stream and report every scalar value to the listener
+     * The stream is left open for the caller to close
+     * @param input Stream containing a single JSON document
+     * @param listener Receiver of path/length pairs
+     * @return Number of JSON tokens read
+     */
+    public long analyze(InputStream input, FieldValueListener listener) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(input)) {
+            return analyze(parser, listener);
+        }
+    }
+
+    /**
+     * Walk the tokens of the first JSON value in the parser
+     * Paths are built the same way as the tree-based analysis: object fields are joined
+     * with '.', containers inside an array inherit the path of the array and scalar
+     * array elements are measured one by one and joined
+     * @return Number of JSON tokens read
+     */
+    public long analyze(JsonParser parser, FieldValueListener listener) throws IOException {
+        parser.nextToken();
+        return 1 + analyzeCurrentValue(parser, new String[0], 0, listener);
+    }
+
+    /**
+     * Walk the object or array the parser is positioned on, leaving the parser on its closing token
+     * @param basePath Path segments leading to the value, reported in front of its own segments
+     * @param basePathLength Number of segments of basePath to use
+     * @return Number of JSON tokens read after the current one
+     */
+    public long analyzeCurrentValue(JsonParser parser, String[] basePath, int basePathLength, FieldValueListener listener) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == null || !token.isStructStart()) {
+            return 0;
+        }
+
+        // Path segments of the current position and, per open container, the path depth it restores on close
+        // and for an array the joined length of its scalar elements, -1 for an object
+        String[] segments = Arrays.copyOf(basePath, Math.max(16, basePathLength * 2));
+        int depth = basePathLength;
+        int[] containerDepths = new int[16];
+        int[] joinedLengths = new int[16];
+        int openContainers = 0;
+        joinedLengths[openContainers] = token == JsonToken.START_ARRAY ? 0 : -1;
+        containerDepths[openContainers++] = basePathLength;
+        long tokens = 0;
+
+        while (openContainers > 0 && (token = parser.nextToken()) != null) {
+            tokens++;
+            switch (token) {
+                case FIELD_NAME:
+                    if (depth == segments.length) {
+                        segments = Arrays.copyOf(segments, depth * 2);
+                    }
+                    segments[depth] = parser.getCurrentName();
+
+                    JsonToken valueToken = parser.nextToken();
+                    tokens++;
+                    if (valueToken.isStructStart()) {
+                        if (openContainers == containerDepths.length) {
+                            containerDepths = Arrays.copyOf(containerDepths, openContainers * 2);
+                            joinedLengths = Arrays.copyOf(joinedLengths, openContainers * 2);
+                        }
+                        joinedLengths[openContainers] = valueToken == JsonToken.START_ARRAY ? 0 : -1;
+                        containerDepths[openContainers++] = depth;
+                        depth++;
+                    } else {
+                        ValueType type = classify(parser, valueToken);
+                        int length = type == ValueType.NULL ? 0 : measure(parser, valueToken);
+                        listener.onValue(segments, depth + 1, length, type);
+                    }
+                    break;
+                case START_OBJECT:
+                case START_ARRAY:
+                    // Container inside an array keeps the array's path
+                    if (openContainers == containerDepths.length) {
+                        containerDepths = Arrays.copyOf(containerDepths, openContainers * 2);
+                        joinedLengths = Arrays.copyOf(joinedLengths, openContainers * 2);
+                    }
+                    joinedLengths[openContainers] = token == JsonToken.START_ARRAY ? 0 : -1;
+                    containerDepths[openContainers++] = depth;
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    if (joinedLengths[--openContainers] > 0) {
+                        listener.onValue(segments, depth, joinedLengths[openContainers], ValueType.TEXT);
+                    }
+                    depth = containerDepths[openContainers];
+                    break;
+                default:
+                    // Scalar array element, measured on its own and as part of the joined array
+                    if (depth == segments.length) {
+                        segments = Arrays.copyOf(segments, depth * 2);
+                    }
+                    segments[depth] = FieldCatalog.ELEMENTS;
+                    ValueType type = classify(parser, token);
+                    int length = type == ValueType.NULL ? 0 : measure(parser, token);
+                    listener.onValue(segments, depth + 1, length, type);
+                    if (token != JsonToken.VALUE_NULL) {
+                        int joined = joinedLengths[openContainers - 1];
+                        joinedLengths[openContainers - 1] = joined > 0 ? joined + 1 + length : length;
+                    }
+                    break;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Classify a scalar value the same way the tree engine classifies its JsonNode
+     */
+    private ValueType classify(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+                return ValueType.ofText(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            case VALUE_NUMBER_INT:
+                return parser.getNumberType() == JsonParser.NumberType.INT ? ValueType.INTEGER : ValueType.NUMBER;
+            case VALUE_NUMBER_FLOAT:
+                return ValueType.NUMBER;
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                return ValueType.BOOLEAN;
+            case VALUE_NULL:
+                return ValueType.NULL;
+            default:
+                return ValueType.TEXT;
+        }
+    }
+
+    /**
+     * Measure a scalar value with the same text representation JsonNode.asText() would produce
+     * Text and integer lengths are read from the parser's character buffer without creating a String
+     */
+    private int measure(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+                if (lengthMode == LengthMode.CODE_POINTS) {
+                    return Character.codePointCount(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                }
+                return parser.getTextLength();
+            case VALUE_NUMBER_INT:
+                // JSON integers have no leading zeros, so the source text matches the rendered number except for "-0"
+                int length = parser.getTextLength();
+                if (length == 2 && parser.getTextCharacters()[parser.getTextOffset() + 1] == '0') {
+                    return 1;
+                }
+                return length;
+            case VALUE_NUMBER_FLOAT:
+                // Rendered like Double.toString(), which needs the value itself; floats do not occur in mapped fields
+                return String.valueOf(parser.getDoubleValue()).length();
+            case VALUE_TRUE:
+                return 4;
+            case VALUE_FALSE:
+                return 5;
+            default:
+                return parser.getTextLength();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.vehicleauth.analysis;
+
+/**
+ * Kind of a scalar JSON value as seen by the type inference
+ */
+public enum ValueType {
+    /** null or empty string */
+    NULL,
+    BOOLEAN,
+    /** Integral number within the 32-bit range */
+    INTEGER,
+    /** Any other number */
+    NUMBER,
+    /** String holding an ISO-8601 date or date-time */
+    TIMESTAMP,
+    TEXT;
+
+    /**
+     * @return Bit of this type in a type mask
+     */
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Classify a string value without creating a String
+     */
+    public static ValueType ofText(char[] text, int offset, int length) {
+        if (length == 0) {
+            return NULL;
+        }
+        return isIsoTimestamp(text, offset, length) ? TIMESTAMP : TEXT;
+    }
+
+    /**
+     * Check for yyyy-MM-dd, optionally followed by 'T' or ' ', HH:mm[:ss[.fraction]]
+     * and a 'Z' or +HH[:]mm offset
+     */
+    static boolean isIsoTimestamp(char[] text, int offset, int length) {
+        if (length < 10 || length > 35) {
+            return false;
+        }
+        int end = offset + length;
+        int i = offset;
+        if (!digits(text, i, 4) || text[i + 4] != '-' || !digits(text, i + 5, 2) || text[i + 7] != '-' || !digits(text, i + 8, 2)) {
+            return false;
+        }
+        int month = number(text, i + 5, 2);
+        int day = number(text, i + 8, 2);
+        if (month < 1 || month > 12 || day < 1 || day > 31) {
+            return false;
+        }
+        i += 10;
+        if (i == end) {
+            return true;
+        }
+
+        // Time of day
+        if ((text[i] != 'T' && text[i] != ' ') || i + 6 > end || !digits(text, i + 1, 2) || text[i + 3] != ':' || !digits(text, i + 4, 2)) {
+            return false;
+        }
+        if (number(text, i + 1, 2) > 23 || number(text, i + 4, 2) > 59) {
+            return false;
+        }
+        i += 6;
+        if (i < end && text[i] == ':') {
+            if (i + 3 > end || !digits(text, i + 1, 2) || number(text, i + 1, 2) > 60) {
+                return false;
+            }
+            i += 3;
+            if (i < end && text[i] == '.') {
+                int fractionStart = ++i;
+                while (i < end && text[i] >= '0' && text[i] <= '9') {
+                    i++;
+                }
+                if (i == fractionStart) {
+                    return false;
+                }
+            }
+        }
+        if (i == end) {
+            return true;
+        }
+
+        // Zone
+        if (text[i] == 'Z') {
+            return i + 1 == end;
+        }
+        if (text[i] != '+' && text[i] != '-') {
+            return false;
+        }
+        int zoneLength = end - i - 1;
+        if (zoneLength == 5) {
+            return digits(text, i + 1, 2) && text[i + 3] == ':' && digits(text, i + 4, 2);
+        }
+        return (zoneLength == 4 || zoneLength == 2) && digits(text, i + 1, zoneLength);
+    }
+
+    private static boolean digits(char[] text, int offset, int count) {
+        for (int i = offset; i < offset + count; i++) {
+            if (text[i] < '0' || text[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int number(char[] text, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            value = value * 10 + (text[i] - '0');
+        }
+        return value;
+    }
+}
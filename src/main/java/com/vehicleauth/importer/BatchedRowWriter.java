@@ -0,0 +1,264 @@
+package com.vehicleauth.importer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Upserts rows with JDBC batches instead of one statement per row
+ * Rows are buffered per table, rows with the same key are merged, and once the
+ * batch size is reached the tables are written wave by wave, as derived from the
+ * foreign keys by {@link ImportSchema}, so whole batches can be written with the
+ * constraints enforced. Each table gets a batch of updates, then a batch of inserts
+ * for the rows no update matched. Tables of one wave share the connection and its
+ * transaction, so they are written one after the other.
+ * The transaction is committed every commit interval rows. If a batch fails the
+ * transaction is rolled back and its records are written again one at a time, so
+ * only the records that fail on their own are rejected
+ */
+public class BatchedRowWriter extends JdbcRowWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchedRowWriter.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final int DEFAULT_COMMIT_INTERVAL = 5000;
+
+    private final int batchSize;
+    private final int commitInterval;
+
+    // Rows waiting for the next batch, by table in wave order and by key
+    private final Map<TableMapping, Map<List<Object>, Map<String, Object>>> pendingRows;
+    // Records written since the last commit, replayed if the transaction fails
+    private final List<List<Row>> uncommittedRecords = new ArrayList<>();
+    private int pendingRowCount;
+    private int uncommittedRowCount;
+    private long uncommittedInserted;
+    private long rejectedRecords;
+    private RejectionListener rejectionListener;
+
+    /**
+     * @param connection Connection owned by the caller, switched to manual commit
+     * @param batchSize Rows buffered before the batches are executed
+     * @param commitInterval Rows written before the transaction is committed, at least one batch
+     */
+    public BatchedRowWriter(Connection connection, ImportSchema schema, int batchSize, int commitInterval) throws SQLException {
+        super(connection);
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        this.commitInterval = Math.max(commitInterval, batchSize);
+        this.pendingRows = new TreeMap<>(Comparator.comparingInt(schema::orderOf));
+    }
+
+    @Override
+    public void write(List<Row> rows) throws SQLException {
+        uncommittedRecords.add(rows);
+        for (Row row : rows) {
+            buffer(row);
+        }
+        if (pendingRowCount >= batchSize) {
+            writePending(false);
+        }
+    }
+
+    @Override
+    public void flush() throws SQLException {
+        writePending(true);
+    }
+
+    /**
+     * Buffered rows are written first, so applications of earlier records are found
+     */
+    @Override
+    public String findApplicationId(String id) throws SQLException {
+        if (pendingRowCount > 0) {
+            writePending(false);
+        }
+        return super.findApplicationId(id);
+    }
+
+    @Override
+    public long getRejectedRecords() {
+        return rejectedRecords;
+    }
+
+    @Override
+    public void setRejectionListener(RejectionListener listener) {
+        this.rejectionListener = listener;
+    }
+
+    public int getBatchSize() { return batchSize; }
+    public int getCommitInterval() { return commitInterval; }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            flush();
+        } finally {
+            super.close();
+        }
+    }
+
+    private void buffer(Row row) {
+        TableMapping table = row.getTable();
+        List<Object> key = new ArrayList<>(table.getKeyColumns().size());
+        for (String keyColumn : table.getKeyColumns()) {
+            key.add(row.get(keyColumn));
+        }
+
+        Map<String, Object> values = pendingRows.computeIfAbsent(table, t -> new LinkedHashMap<>()).get(key);
+        if (values == null) {
+            pendingRows.get(table).put(key, new LinkedHashMap<>(row.getValues()));
+            pendingRowCount++;
+        } else {
+            // A later row of the same key overrides the columns it carries, as a second upsert would
+            values.putAll(row.getValues());
+        }
+    }
+
+    private void writePending(boolean commit) throws SQLException {
+        try {
+            for (Map.Entry<TableMapping, Map<List<Object>, Map<String, Object>>> table : pendingRows.entrySet()) {
+                writeTable(table.getKey(), table.getValue().values());
+            }
+            uncommittedRowCount += pendingRowCount;
+            clearPending();
+            if (commit || uncommittedRowCount >= commitInterval) {
+                commit();
+                countRows(uncommittedInserted, uncommittedRowCount - uncommittedInserted);
+                uncommittedRecords.clear();
+                uncommittedRowCount = 0;
+                uncommittedInserted = 0;
+            }
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            logger.warn("Batch of " + uncommittedRecords.size() + " records failed, writing them one at a time - " + e.getMessage());
+            replayUncommitted();
+        }
+    }
+
+    private void writeTable(TableMapping table, Iterable<Map<String, Object>> rows) throws SQLException {
+        long startTime = System.nanoTime();
+        String tableName = table.getTableName();
+        List<String> keyColumns = table.getKeyColumns();
+
+        // Group the rows by statement, rows carrying the same columns share one
+        Map<String, List<Row>> updates = new LinkedHashMap<>();
+        int rowCount = 0;
+        for (Map<String, Object> values : rows) {
+            Row row = new Row(table, values);
+            List<String> valueColumns = valueColumns(row);
+            updates.computeIfAbsent("UPDATE " + tableName + " SET " + assignments(valueColumns) + " WHERE " + conditions(keyColumns),
+                                    sql -> new ArrayList<>()).add(row);
+            rowCount++;
+        }
+
+        Map<String, List<Row>> inserts = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Row>> update : updates.entrySet()) {
+            int[] counts = executeBatch(statement(update.getKey()), update.getValue(), keyColumns);
+            for (int i = 0; i < counts.length; i++) {
+                Row row = update.getValue().get(i);
+                if (counts[i] == 0 || (counts[i] == Statement.SUCCESS_NO_INFO && !exists(row))) {
+                    List<String> columns = new ArrayList<>(row.getValues().keySet());
+                    inserts.computeIfAbsent("INSERT INTO " + tableName + " (" + String.join(", ", columns) + ") VALUES ("
+                                            + placeholders(columns.size()) + ")", sql -> new ArrayList<>()).add(row);
+                }
+            }
+        }
+
+        int inserted = 0;
+        for (Map.Entry<String, List<Row>> insert : inserts.entrySet()) {
+            executeBatch(statement(insert.getKey()), insert.getValue(), null);
+            inserted += insert.getValue().size();
+        }
+
+        uncommittedInserted += inserted;
+        recordTable(tableName, rowCount, System.nanoTime() - startTime);
+    }
+
+    /**
+     * @param keyColumns Key columns of an update, null to bind all columns of an insert
+     */
+    private static int[] executeBatch(PreparedStatement statement, List<Row> rows, List<String> keyColumns) throws SQLException {
+        try {
+            for (Row row : rows) {
+                if (keyColumns == null) {
+                    bind(statement, row, new ArrayList<>(row.getValues().keySet()), 1);
+                } else {
+                    bind(statement, row, keyColumns, bind(statement, row, valueColumns(row), 1));
+                }
+                statement.addBatch();
+            }
+            return statement.executeBatch();
+        } finally {
+            statement.clearBatch();
+        }
+    }
+
+    /**
+     * Columns set by the update; a row with only key columns sets its first key to itself,
+     * so the update count still tells whether the row exists
+     */
+    private static List<String> valueColumns(Row row) {
+        List<String> keyColumns = row.getTable().getKeyColumns();
+        List<String> valueColumns = new ArrayList<>();
+        for (String column : row.getValues().keySet()) {
+            if (!keyColumns.contains(column)) {
+                valueColumns.add(column);
+            }
+        }
+        if (valueColumns.isEmpty()) {
+            valueColumns.add(keyColumns.get(0));
+        }
+        return valueColumns;
+    }
+
+    /**
+     * Fallback for drivers that do not report batch update counts
+     */
+    private boolean exists(Row row) throws SQLException {
+        List<String> keyColumns = row.getTable().getKeyColumns();
+        PreparedStatement select = statement("SELECT 1 FROM " + row.getTable().getTableName() + " WHERE " + conditions(keyColumns));
+        bind(select, row, keyColumns, 1);
+        try (ResultSet result = select.executeQuery()) {
+            return result.next();
+        }
+    }
+
+    private void replayUncommitted() throws SQLException {
+        List<List<Row>> records = new ArrayList<>(uncommittedRecords);
+        clearPending();
+        uncommittedRecords.clear();
+        uncommittedRowCount = 0;
+        uncommittedInserted = 0;
+
+        for (List<Row> record : records) {
+            try {
+                super.write(record);
+            } catch (SQLException | RuntimeException e) {
+                rejectedRecords++;
+                logger.warn("Rejected record " + (record.isEmpty() ? "" : record.get(0)) + " - " + e.getMessage());
+                if (rejectionListener != null) {
+                    rejectionListener.onRejected(record, e);
+                }
+            }
+        }
+    }
+
+    private void clearPending() {
+        pendingRows.clear();
+        pendingRowCount = 0;
+    }
+}
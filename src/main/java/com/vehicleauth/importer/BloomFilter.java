@@ -0,0 +1,57 @@
+package com.vehicleauth.importer;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size bloom filter over object hash codes
+ * Answers "definitely not added" without false negatives; a positive answer must
+ * be confirmed by an exact lookup
+ */
+final class BloomFilter {
+
+    private static final int HASH_FUNCTIONS = 3;
+
+    private final long[] bits;
+    private final int bitCount;
+
+    /**
+     * @param expectedEntries Entries added before the false positive rate exceeds about 3%
+     */
+    BloomFilter(int expectedEntries) {
+        // Eight bits per entry with three hash functions
+        this.bitCount = Math.max(64, expectedEntries * 8);
+        this.bits = new long[(bitCount + 63) / 64];
+    }
+
+    void add(Object key) {
+        int hash = key.hashCode();
+        int step = mix(hash);
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            int bit = Math.floorMod(hash + i * step, bitCount);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(Object key) {
+        int hash = key.hashCode();
+        int step = mix(hash);
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            int bit = Math.floorMod(hash + i * step, bitCount);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void clear() {
+        Arrays.fill(bits, 0L);
+    }
+
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        return hash | 1;
+    }
+}
@@ -0,0 +1,267 @@
+package com.vehicleauth.importer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Drops the secondary indexes and foreign keys of CreateVehicleAuthDatabase.ps1 for
+ * a bulk load and rebuilds them afterwards
+ * Foreign keys are dropped before the indexes and created after them. The rebuild
+ * creates every definition of the script the database metadata does not list, not
+ * only those this run dropped, so a bulk load that died before its rebuild is
+ * repaired by the next one. Created definitions are looked up again; those that
+ * fail to rebuild are reported with their statement, the rest of the rebuild still runs
+ */
+public final class BulkLoad {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkLoad.class);
+
+    private static final Pattern INDEX = Pattern.compile(
+        "CREATE\\s+INDEX\\s+(IX_\\w+)\\s+ON\\s+(\\w+)\\s*\\([^)]*\\)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern FOREIGN_KEY = Pattern.compile(
+        "ALTER\\s+TABLE\\s+(\\w+)\\s+ADD\\s+CONSTRAINT\\s+(\\w+)\\s+FOREIGN\\s+KEY\\s*\\((\\w+)\\)\\s*REFERENCES\\s+(\\w+)\\s*\\((\\w+)\\)",
+        Pattern.CASE_INSENSITIVE);
+
+    private final List<Definition> indexes;
+    private final List<Definition> foreignKeys;
+
+    private BulkLoad(List<Definition> indexes, List<Definition> foreignKeys) {
+        this.indexes = indexes;
+        this.foreignKeys = foreignKeys;
+    }
+
+    /**
+     * Read the index and foreign key definitions of the database creation script
+     */
+    public static BulkLoad load(Path script) throws IOException {
+        return parse(new String(Files.readAllBytes(script), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Read CREATE INDEX IX_* and ALTER TABLE ... FOREIGN KEY statements, skipping commented lines
+     */
+    public static BulkLoad parse(String script) {
+        List<Definition> indexes = new ArrayList<>();
+        List<Definition> foreignKeys = new ArrayList<>();
+        for (String line : script.split("\\R")) {
+            if (line.trim().startsWith("#")) {
+                continue;
+            }
+            Matcher index = INDEX.matcher(line);
+            if (index.find()) {
+                indexes.add(new Definition(index.group(1), index.group(2), index.group(), null, null, null));
+            }
+            Matcher foreignKey = FOREIGN_KEY.matcher(line);
+            if (foreignKey.find()) {
+                foreignKeys.add(new Definition(foreignKey.group(2), foreignKey.group(1), foreignKey.group(),
+                                               foreignKey.group(3), foreignKey.group(4), foreignKey.group(5)));
+            }
+        }
+        return new BulkLoad(indexes, foreignKeys);
+    }
+
+    public int getIndexCount() { return indexes.size(); }
+    public int getForeignKeyCount() { return foreignKeys.size(); }
+
+    /**
+     * Drop the foreign keys, then the indexes, and commit
+     * @return Time spent dropping
+     */
+    public Duration prepare(Connection connection) throws SQLException {
+        long startTime = System.nanoTime();
+        int dropped = 0;
+        try (Statement statement = connection.createStatement()) {
+            for (Definition foreignKey : foreignKeys) {
+                dropped += drop(statement, foreignKey, "ALTER TABLE " + foreignKey.table + " DROP CONSTRAINT " + foreignKey.name);
+            }
+            for (Definition index : indexes) {
+                dropped += drop(statement, index, "DROP INDEX " + index.name);
+            }
+        }
+        commit(connection);
+        int missing = indexes.size() + foreignKeys.size() - dropped;
+        if (missing > 0) {
+            logger.warn("{} indexes and foreign keys of the script were not in the database, the rebuild creates them", missing);
+        }
+        logger.info("Dropped {} indexes and foreign keys for the bulk load", dropped);
+        return Duration.ofNanos(System.nanoTime() - startTime);
+    }
+
+    /**
+     * Create the missing indexes, then the missing foreign keys, commit and verify them
+     */
+    public Result rebuild(Connection connection) throws SQLException {
+        long startTime = System.nanoTime();
+        DatabaseMetaData metaData = connection.getMetaData();
+        List<Definition> rebuildOrder = new ArrayList<>();
+        for (Definition index : indexes) {
+            if (!exists(metaData, index)) {
+                rebuildOrder.add(index);
+            }
+        }
+        for (Definition foreignKey : foreignKeys) {
+            if (!exists(metaData, foreignKey)) {
+                rebuildOrder.add(foreignKey);
+            }
+        }
+
+        List<String> failures = new ArrayList<>();
+        List<Definition> created = new ArrayList<>();
+        try (Statement statement = connection.createStatement()) {
+            for (Definition definition : rebuildOrder) {
+                try {
+                    long orphans = definition.isForeignKey() ? countOrphans(statement, definition) : 0;
+                    if (orphans > 0) {
+                        failures.add(definition.sql + " - " + orphans + " rows reference missing "
+                                     + definition.referencedTable + " rows");
+                        continue;
+                    }
+                    statement.execute(definition.sql);
+                    created.add(definition);
+                } catch (SQLException e) {
+                    failures.add(definition.sql + " - " + e.getMessage());
+                }
+            }
+        }
+        commit(connection);
+
+        int rebuilt = 0;
+        for (Definition definition : created) {
+            if (exists(connection.getMetaData(), definition)) {
+                rebuilt++;
+            } else {
+                failures.add(definition.sql + " - not found after the rebuild");
+            }
+        }
+        for (String failure : failures) {
+            logger.warn("Failed to rebuild: " + failure);
+        }
+        return new Result(rebuilt, failures, Duration.ofNanos(System.nanoTime() - startTime));
+    }
+
+    /**
+     * @return 1 if the definition was dropped, 0 if the database does not have it
+     */
+    private static int drop(Statement statement, Definition definition, String sql) {
+        try {
+            statement.execute(sql);
+            return 1;
+        } catch (SQLException e) {
+            logger.debug("{} not dropped - {}", definition.name, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * @return Rows whose foreign key column names a missing row
+     */
+    private static long countOrphans(Statement statement, Definition foreignKey) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM " + foreignKey.table + " c WHERE c." + foreignKey.column + " IS NOT NULL"
+                     + " AND NOT EXISTS (SELECT 1 FROM " + foreignKey.referencedTable + " p WHERE p."
+                     + foreignKey.referencedColumn + " = c." + foreignKey.column + ")";
+        try (ResultSet result = statement.executeQuery(sql)) {
+            return result.next() ? result.getLong(1) : 0;
+        }
+    }
+
+    private static boolean exists(DatabaseMetaData metaData, Definition definition) throws SQLException {
+        String table = definition.table;
+        try (ResultSet result = definition.isForeignKey()
+                 ? metaData.getImportedKeys(null, null, caseOf(metaData, table))
+                 : metaData.getIndexInfo(null, null, caseOf(metaData, table), false, false)) {
+            while (result.next()) {
+                String name = result.getString(definition.isForeignKey() ? "FK_NAME" : "INDEX_NAME");
+                if (definition.name.equalsIgnoreCase(name)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String caseOf(DatabaseMetaData metaData, String identifier) throws SQLException {
+        if (metaData.storesUpperCaseIdentifiers()) {
+            return identifier.toUpperCase(Locale.ROOT);
+        } else if (metaData.storesLowerCaseIdentifiers()) {
+            return identifier.toLowerCase(Locale.ROOT);
+        }
+        return identifier;
+    }
+
+    private static void commit(Connection connection) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+    }
+
+    /**
+     * Index or foreign key of the script
+     */
+    private static final class Definition {
+        final String name;
+        final String table;
+        final String sql;
+        // Foreign keys only
+        final String column;
+        final String referencedTable;
+        final String referencedColumn;
+
+        Definition(String name, String table, String sql, String column, String referencedTable, String referencedColumn) {
+            this.name = name;
+            this.table = table;
+            this.sql = sql;
+            this.column = column;
+            this.referencedTable = referencedTable;
+            this.referencedColumn = referencedColumn;
+        }
+
+        boolean isForeignKey() {
+            return column != null;
+        }
+    }
+
+    /**
+     * Outcome of a rebuild
+     */
+    public static class Result {
+        private final int rebuilt;
+        private final List<String> failures;
+        private final Duration elapsed;
+
+        public Result(int rebuilt, List<String> failures, Duration elapsed) {
+            this.rebuilt = rebuilt;
+            this.failures = Collections.unmodifiableList(failures);
+            this.elapsed = elapsed;
+        }
+
+        public int getRebuilt() { return rebuilt; }
+
+        /**
+         * @return Statements that failed or could not be verified, with the reason
+         */
+        public List<String> getFailures() { return failures; }
+
+        public Duration getElapsed() { return elapsed; }
+
+        public boolean isComplete() {
+            return failures.isEmpty();
+        }
+    }
+}
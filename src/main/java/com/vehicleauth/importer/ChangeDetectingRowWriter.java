@@ -0,0 +1,186 @@
+package com.vehicleauth.importer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Skips rows whose content has not changed since they were last imported
+ * The 64-bit content hash of every written row is stored in the row hash table,
+ * in the same transaction as the row, keyed by a hash of the row's table, key and
+ * columns. All stored hashes are loaded into memory when the writer is created; a
+ * row whose hash matches is not written. Re-importing an unchanged file therefore
+ * issues no updates. The hashes of written rows are known once the underlying
+ * writer has committed them; until then a repeated row is passed on again. If the
+ * underlying writer rejects a record the hashes are loaded again, since the rolled
+ * back rows are no longer stored
+ */
+public class ChangeDetectingRowWriter implements RowWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeDetectingRowWriter.class);
+
+    private final RowWriter delegate;
+    private final Connection connection;
+    private final TableMapping rowHashTable;
+    private final LongHashIndex storedHashes = new LongHashIndex();
+    // Hashes of the rows written since the last commit, by identity
+    private final Map<Long, Long> uncommittedHashes = new LinkedHashMap<>();
+    private long rejectedRecords;
+    private long commits;
+    private long rowsChecked;
+    private long rowsUnchanged;
+
+    /**
+     * @param connection Connection the delegate writes through, used to read the stored hashes
+     */
+    public ChangeDetectingRowWriter(RowWriter delegate, Connection connection, ImportSchema schema) throws SQLException {
+        this.delegate = delegate;
+        this.connection = connection;
+        this.rowHashTable = schema.getRowHashTable();
+        this.rejectedRecords = delegate.getRejectedRecords();
+        this.commits = delegate.getCommits();
+        loadStoredHashes();
+    }
+
+    /**
+     * Create the row hash table if the database does not have it yet
+     */
+    public static void createRowHashTable(Connection connection, ImportSchema schema) throws SQLException {
+        String tableName = schema.getRowHashTable().getTableName();
+        try (Statement statement = connection.createStatement()) {
+            try {
+                statement.executeQuery("SELECT RowKey FROM " + tableName + " WHERE 1 = 0").close();
+            } catch (SQLException e) {
+                logger.info("Creating table {}", tableName);
+                statement.execute("CREATE TABLE " + tableName
+                                  + " (TableName VARCHAR(64), RowKey VARCHAR(16), RowHash VARCHAR(16), PRIMARY KEY (TableName, RowKey))");
+                if (!connection.getAutoCommit()) {
+                    connection.commit();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void write(List<Row> rows) throws SQLException {
+        List<Row> changedRows = new ArrayList<>(rows.size());
+        List<Row> hashRows = new ArrayList<>();
+        Map<Long, Long> newHashes = new LinkedHashMap<>();
+        for (Row row : rows) {
+            rowsChecked++;
+            long identity = row.identityHash();
+            long content = row.contentHash();
+            if (storedHashes.containsEntry(identity, content)) {
+                rowsUnchanged++;
+                continue;
+            }
+            changedRows.add(row);
+            hashRows.add(hashRow(row, identity, content));
+            newHashes.put(identity, content);
+        }
+        if (changedRows.isEmpty()) {
+            return;
+        }
+
+        changedRows.addAll(hashRows);
+        try {
+            delegate.write(changedRows);
+            uncommittedHashes.putAll(newHashes);
+        } finally {
+            checkCommits();
+        }
+    }
+
+    @Override
+    public void flush() throws SQLException {
+        try {
+            delegate.flush();
+        } finally {
+            checkCommits();
+        }
+    }
+
+    @Override
+    public long getRejectedRecords() {
+        return delegate.getRejectedRecords();
+    }
+
+    @Override
+    public long getCommits() {
+        return delegate.getCommits();
+    }
+
+    @Override
+    public void setRejectionListener(RejectionListener listener) {
+        delegate.setRejectionListener(listener);
+    }
+
+    public long getRowsChecked() { return rowsChecked; }
+    public long getRowsUnchanged() { return rowsUnchanged; }
+
+    /**
+     * @return Number of row hashes known
+     */
+    public int getStoredHashCount() {
+        return storedHashes.size();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        delegate.close();
+    }
+
+    private Row hashRow(Row row, long identity, long content) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("TableName", row.getTable().getTableName());
+        values.put("RowKey", toHex(identity));
+        values.put("RowHash", toHex(content));
+        return new Row(rowHashTable, values);
+    }
+
+    /**
+     * Take in the hashes the delegate committed since the last check, or load them again if it rejected a record
+     */
+    private void checkCommits() throws SQLException {
+        long rejected = delegate.getRejectedRecords();
+        long committed = delegate.getCommits();
+        if (rejected != rejectedRecords) {
+            rejectedRecords = rejected;
+            commits = committed;
+            uncommittedHashes.clear();
+            loadStoredHashes();
+        } else if (committed != commits) {
+            commits = committed;
+            for (Map.Entry<Long, Long> hash : uncommittedHashes.entrySet()) {
+                storedHashes.put(hash.getKey(), hash.getValue());
+            }
+            uncommittedHashes.clear();
+        }
+    }
+
+    private void loadStoredHashes() throws SQLException {
+        storedHashes.clear();
+        try (PreparedStatement statement = connection.prepareStatement(
+                 "SELECT RowKey, RowHash FROM " + rowHashTable.getTableName());
+             ResultSet result = statement.executeQuery()) {
+            while (result.next()) {
+                storedHashes.put(Long.parseUnsignedLong(result.getString(1), 16), Long.parseUnsignedLong(result.getString(2), 16));
+            }
+        }
+        logger.debug("Loaded {} row hashes", storedHashes.size());
+    }
+
+    private static String toHex(long hash) {
+        String hex = Long.toHexString(hash);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+}
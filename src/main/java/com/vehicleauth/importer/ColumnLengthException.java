@@ -0,0 +1,28 @@
+package com.vehicleauth.importer;
+
+/**
+ * A text value longer than its column holds, found while mapping a record
+ */
+public class ColumnLengthException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean failFast;
+
+    /**
+     * @param failFast true if the whole import stops, false if only the record fails
+     */
+    public ColumnLengthException(String message, boolean failFast) {
+        super(message);
+        this.failFast = failFast;
+    }
+
+    public boolean isFailFast() { return failFast; }
+
+    /**
+     * @return true if the error stops the whole import
+     */
+    public static boolean isFailFast(Exception e) {
+        return e instanceof ColumnLengthException && ((ColumnLengthException) e).isFailFast();
+    }
+}
@@ -0,0 +1,212 @@
+package com.vehicleauth.importer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Longest text of each column, as the database script creates it from the field length configuration
+ * and the inferred schema
+ * Limits are kept per table as an int[] in column order, 0 for a column without a
+ * limit, and checked by the {@link RowMapper} for every text value it maps. Columns
+ * longer than the longest Access text are created as MEMO and have no limit. A column
+ * the script types from the inferred schema is limited to the n of its TEXT(n) type,
+ * and unlimited as MEMO or without an inferred type. A key value that is too long
+ * always fails its record, since shortening it could merge different rows
+ */
+public final class ColumnLimits {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColumnLimits.class);
+
+    /**
+     * What happens to a value longer than its column
+     */
+    public enum Policy {
+        /** The value is shortened to the limit and the record imported */
+        TRUNCATE,
+        /** The record fails, and goes to the dead letter queue if there is one */
+        DEAD_LETTER,
+        /** The import stops */
+        FAIL_FAST
+    }
+
+    /** No limits, every value is written as it is */
+    public static final ColumnLimits NONE = new ColumnLimits(new IdentityHashMap<>(), Policy.DEAD_LETTER, 0);
+
+    /** Longest text Access stores in a TEXT(n) column, longer values need MEMO */
+    public static final int MAX_TEXT_LENGTH = 255;
+
+    // Table.Field=MaxLength
+    private static final Pattern LIMIT = Pattern.compile("^\\s*([^.#=\\s]+)\\.([^=\\s]+)\\s*=\\s*(\\d+)\\s*$");
+
+    // Table.Field=Type of the inferred schema, the script applies only the text types
+    private static final Pattern INFERRED_TYPE = Pattern.compile("^\\s*([^.#=\\s]+)\\.([^=\\s]+)\\s*=\\s*(MEMO|TEXT\\(\\d+\\))\\s*$");
+
+    // Text columns the script sizes from the configuration: table, field and default length
+    private static final Pattern SIZED_COLUMN = Pattern.compile(
+        "Get-(?:ConfiguredFieldLength|FieldDefinition)\\s+\\$FieldLengths\\s+'(\\w+)'\\s+'(\\w+)'\\s+(\\d+)");
+
+    // TEXT(n) column type
+    private static final Pattern TEXT_TYPE = Pattern.compile("TEXT\\((\\d+)\\)");
+
+    // Columns the script types from the inferred schema: table, field and default type
+    private static final Pattern INFERRED_COLUMN = Pattern.compile(
+        "Get-InferredFieldDefinition\\s+\\$FieldSchema\\s+'(\\w+)'\\s+'(\\w+)'\\s+'([^']+)'");
+
+    private final Map<TableMapping, int[]> limits;
+    private final Policy policy;
+    private final int limitedColumns;
+    private final AtomicLong truncatedValues = new AtomicLong();
+
+    private ColumnLimits(Map<TableMapping, int[]> limits, Policy policy, int limitedColumns) {
+        this.limits = limits;
+        this.policy = policy;
+        this.limitedColumns = limitedColumns;
+    }
+
+    /**
+     * Read the limits of the schema's text columns from a field length configuration file
+     * @param inferredSchema Inferred schema file the script types columns from, may not exist
+     * @param script Database creation script, its column definitions decide which columns are limited;
+     *               null to limit every configured column
+     */
+    public static ColumnLimits load(Path file, Path inferredSchema, Path script, ImportSchema schema, Policy policy) throws IOException {
+        return parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8),
+                     Files.isRegularFile(inferredSchema) ? new String(Files.readAllBytes(inferredSchema), StandardCharsets.UTF_8) : null,
+                     script == null ? null : new String(Files.readAllBytes(script), StandardCharsets.UTF_8),
+                     schema, policy);
+    }
+
+    /**
+     * Read the limits from the text of a field length configuration, the inferred schema and the database creation script
+     * A configured length gets the padding the script adds to it; a column the script sizes
+     * without a configured length gets the script's default, and a column it types from the
+     * inferred schema the length of its inferred TEXT(n). Without the script, every
+     * configured column is limited
+     * @param inferredSchema Text of the inferred schema, null if there is none
+     */
+    public static ColumnLimits parse(String configuration, String inferredSchema, String script, ImportSchema schema, Policy policy) {
+        Map<String, Integer> configured = new HashMap<>();
+        for (String line : configuration.split("\\R")) {
+            Matcher matcher = LIMIT.matcher(line);
+            if (matcher.matches()) {
+                configured.put(matcher.group(1) + "." + matcher.group(2), Integer.parseInt(matcher.group(3)));
+            }
+        }
+
+        Map<String, String> inferred = new HashMap<>();
+        if (inferredSchema != null) {
+            for (String line : inferredSchema.split("\\R")) {
+                Matcher matcher = INFERRED_TYPE.matcher(line);
+                if (matcher.matches()) {
+                    inferred.put(matcher.group(1) + "." + matcher.group(2), matcher.group(3));
+                }
+            }
+        }
+
+        // Length of each column as created, before the MEMO check
+        Map<String, Integer> created = new LinkedHashMap<>();
+        if (script == null) {
+            configured.forEach((column, length) -> created.put(column, createdLength(length)));
+        } else {
+            Matcher matcher = SIZED_COLUMN.matcher(script);
+            while (matcher.find()) {
+                Integer length = configured.get(matcher.group(1) + "." + matcher.group(2));
+                created.put(matcher.group(1) + "." + matcher.group(2),
+                            length != null ? createdLength(length) : Integer.parseInt(matcher.group(3)));
+            }
+            matcher = INFERRED_COLUMN.matcher(script);
+            while (matcher.find()) {
+                // Only a TEXT(n) column is limited, MEMO and the other types are not
+                String column = matcher.group(1) + "." + matcher.group(2);
+                Matcher text = TEXT_TYPE.matcher(inferred.getOrDefault(column, matcher.group(3)));
+                created.put(column, text.matches() ? Integer.parseInt(text.group(1)) : 0);
+            }
+        }
+
+        Map<String, TableMapping> tables = new HashMap<>();
+        for (TableMapping table : schema.getTables()) {
+            tables.put(table.getTableName(), table);
+        }
+        Map<TableMapping, int[]> limits = new IdentityHashMap<>();
+        int limitedColumns = 0;
+        for (Map.Entry<String, Integer> column : created.entrySet()) {
+            String[] name = column.getKey().split("\\.", 2);
+            TableMapping table = tables.get(name[0]);
+            int length = column.getValue();
+            if (table == null || length < 1 || length > MAX_TEXT_LENGTH
+                || table.getColumnTypes().get(name[1]) != TableMapping.ColumnType.TEXT) {
+                continue;
+            }
+            int[] tableLimits = limits.computeIfAbsent(table, t -> new int[t.getColumnTypes().size()]);
+            int index = columnIndex(table, name[1]);
+            if (tableLimits[index] == 0) {
+                limitedColumns++;
+            }
+            tableLimits[index] = length;
+        }
+        logger.info("Column length limits: {} columns of {} tables, policy {}", limitedColumns, limits.size(), policy);
+        return new ColumnLimits(limits, policy, limitedColumns);
+    }
+
+    /**
+     * @return Limits of the table's columns in column order, 0 for no limit; null if none is limited
+     */
+    int[] of(TableMapping table) {
+        return limits.get(table);
+    }
+
+    /**
+     * Handle a value longer than its column
+     * @return The value shortened to the limit
+     * @throws ColumnLengthException unless the policy truncates and the column is not a key
+     */
+    String tooLong(TableMapping table, String column, String value, int limit) {
+        String message = table + "." + column + ": " + value.length() + " characters, the column holds " + limit;
+        if (policy != Policy.TRUNCATE || table.getKeyColumns().contains(column)) {
+            throw new ColumnLengthException(message, policy == Policy.FAIL_FAST);
+        }
+        truncatedValues.incrementAndGet();
+        logger.debug("Truncated {}", message);
+        // A surrogate pair is not split
+        int end = Character.isHighSurrogate(value.charAt(limit - 1)) ? limit - 1 : limit;
+        return value.substring(0, end);
+    }
+
+    public Policy getPolicy() { return policy; }
+
+    /**
+     * @return Number of columns with a limit
+     */
+    public int size() { return limitedColumns; }
+
+    /**
+     * @return Values shortened under the TRUNCATE policy
+     */
+    public long getTruncatedValues() { return truncatedValues.get(); }
+
+    /**
+     * @return Length the script creates a column of the configured length with, the padding of Get-ConfiguredFieldLength
+     */
+    public static int createdLength(int configuredLength) {
+        return configuredLength + Math.max(10, Math.min(50, (configuredLength + 4) / 5));
+    }
+
+    private static int columnIndex(TableMapping table, String column) {
+        List<String> columns = new ArrayList<>(table.getColumnTypes().keySet());
+        return columns.indexOf(column);
+    }
+}
@@ -0,0 +1,137 @@
+package com.vehicleauth.importer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+import java.time.zone.ZoneRules;
+
+/**
+ * Conversion of JSON values to database column values
+ */
+final class ColumnValues {
+
+    // Dates come as 2025-01-30T15:04:57.036Z, 2025-01-30T15:04:57.036+0000 or without offset
+    private static final DateTimeFormatter DATE_TIME = new DateTimeFormatterBuilder()
+        .append(DateTimeFormatter.ISO_LOCAL_DATE)
+        .optionalStart()
+        .appendLiteral('T')
+        .append(DateTimeFormatter.ISO_LOCAL_TIME)
+        .optionalStart().appendOffset("+HH:MM", "Z").optionalEnd()
+        .optionalStart().appendOffset("+HHMM", "Z").optionalEnd()
+        .optionalEnd()
+        .toFormatter();
+
+    // 1582-10-15T00:00Z, Timestamp counts earlier dates in the Julian calendar
+    private static final long GREGORIAN_CUTOVER_MILLIS = -12_219_292_800_000L;
+
+    private ColumnValues() {
+    }
+
+    /**
+     * Convert a value for a column of the given type
+     * @throws IllegalArgumentException if the value does not fit the column type
+     */
+    static Object convert(JsonNode value, TableMapping.ColumnType type) {
+        switch (type) {
+            case DATETIME:
+                return dateTime(value);
+            case YESNO:
+                return yesNo(value);
+            default:
+                return text(value);
+        }
+    }
+
+    /**
+     * Scalars as text, arrays of scalars as a comma separated list; empty values become null
+     */
+    static String text(JsonNode value) {
+        if (value.isArray()) {
+            StringBuilder text = new StringBuilder();
+            for (JsonNode element : value) {
+                if (element.isValueNode() && !element.isNull()) {
+                    if (text.length() > 0) {
+                        text.append(',');
+                    }
+                    text.append(element.asText());
+                }
+            }
+            return text.length() == 0 ? null : text.toString();
+        }
+        if (!value.isValueNode() || value.isNull()) {
+            return null;
+        }
+        String text = value.asText();
+        return text.isEmpty() ? null : text;
+    }
+
+    /**
+     * ISO-8601 dates and date-times, converted to UTC
+     * The usual shape is read by {@link IsoTimestamps}, others by the JDK parser
+     */
+    static Timestamp dateTime(JsonNode value) {
+        String text = text(value);
+        if (text == null) {
+            return null;
+        }
+        long utcMillis = IsoTimestamps.parseEpochMillis(text);
+        if (utcMillis != IsoTimestamps.NOT_PARSED) {
+            return utcTimestamp(utcMillis);
+        }
+        return parseDateTime(text);
+    }
+
+    /**
+     * ISO-8601 dates and date-times, converted to UTC, with the JDK parser
+     */
+    static Timestamp parseDateTime(String text) {
+        try {
+            TemporalAccessor parsed = DATE_TIME.parseBest(text, OffsetDateTime::from, LocalDateTime::from, LocalDate::from);
+            if (parsed instanceof OffsetDateTime) {
+                return Timestamp.valueOf(((OffsetDateTime) parsed).withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime());
+            } else if (parsed instanceof LocalDateTime) {
+                return Timestamp.valueOf((LocalDateTime) parsed);
+            }
+            return Timestamp.valueOf(((LocalDate) parsed).atStartOfDay());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Not a date-time: " + text, e);
+        }
+    }
+
+    /**
+     * @return The UTC date-time as a timestamp of the same local date-time, as Timestamp.valueOf(LocalDateTime)
+     */
+    private static Timestamp utcTimestamp(long utcMillis) {
+        ZoneRules rules = ZoneId.systemDefault().getRules();
+        if (rules.isFixedOffset() && utcMillis >= GREGORIAN_CUTOVER_MILLIS) {
+            return new Timestamp(utcMillis - rules.getOffset(Instant.EPOCH).getTotalSeconds() * 1000L);
+        }
+        // Daylight saving time gaps and overlaps, and Julian dates, are resolved the way Timestamp resolves them
+        return Timestamp.valueOf(LocalDateTime.ofEpochSecond(Math.floorDiv(utcMillis, 1000L),
+                                                             (int) Math.floorMod(utcMillis, 1000L) * 1_000_000, ZoneOffset.UTC));
+    }
+
+    /**
+     * Booleans; null becomes false since Access yes/no columns cannot hold null
+     */
+    static Boolean yesNo(JsonNode value) {
+        if (value.isNull()) {
+            return Boolean.FALSE;
+        } else if (value.isBoolean()) {
+            return value.booleanValue();
+        } else if (value.isTextual() && ("true".equalsIgnoreCase(value.asText()) || "false".equalsIgnoreCase(value.asText()))) {
+            return Boolean.valueOf(value.asText());
+        }
+        throw new IllegalArgumentException("Not a yes/no value: " + value);
+    }
+}
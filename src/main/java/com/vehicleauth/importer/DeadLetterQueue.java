@@ -0,0 +1,311 @@
+package com.vehicleauth.importer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.vehicleauth.analysis.JsonSources;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * File of records that failed to import, one JSON object per line
+ * Every entry holds the original record, the error, the stage it failed in and the
+ * file and byte offset it was read from. Records rejected after they were buffered
+ * are read again from their file. Entries are appended, so the file collects the
+ * failures of several runs until they are replayed
+ */
+public final class DeadLetterQueue implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterQueue.class);
+
+    /** The record could not be converted to rows */
+    public static final String STAGE_MAPPING = "mapping";
+    /** The rows of the record could not be stored */
+    public static final String STAGE_INSERTION = "insertion";
+    /** A value of the record is longer than its column */
+    public static final String STAGE_VALIDATION = "validation";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Path file;
+    private BufferedWriter appender;
+    private long entries;
+
+    /**
+     * @param file File appended to, created when the first entry is added
+     */
+    public DeadLetterQueue(Path file) {
+        this.file = file;
+    }
+
+    public Path getFile() { return file; }
+
+    /**
+     * @return Number of entries added since the queue was opened
+     */
+    public synchronized long getEntries() {
+        return entries;
+    }
+
+    /**
+     * Add a record rejected by a writer, see {@link RowWriter.RejectionListener}
+     * @param rows Rows of the record, at least one knowing its origin
+     */
+    public void addRejected(List<Row> rows, Exception error) {
+        RecordOrigin origin = originOf(rows);
+        if (origin == null) {
+            logger.warn("No origin for rejected rows " + rows + ", not dead-lettered");
+            return;
+        }
+        add(origin, null, STAGE_INSERTION, error);
+    }
+
+    /**
+     * Add a failed record
+     * @param record The record, or null to read it again from its file or take it from the origin
+     */
+    public synchronized void add(RecordOrigin origin, JsonNode record, String stage, Exception error) {
+        ObjectNode entry = OBJECT_MAPPER.createObjectNode();
+        entry.put("source", origin.getSourceName());
+        entry.put("offset", origin.getOffset());
+        entry.put("type", origin.getType().name());
+        entry.put("stage", stage);
+        entry.put("error", error.getMessage() != null ? error.getMessage() : error.toString());
+        entry.put("failedAt", Instant.now().toString());
+        entry.set("record", record != null ? record : recordOf(origin));
+        try {
+            BufferedWriter out = open();
+            out.write(OBJECT_MAPPER.writeValueAsString(entry));
+            out.newLine();
+            out.flush();
+            entries++;
+        } catch (IOException e) {
+            logger.error("Failed to write dead letter for " + origin + " to " + file, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (appender != null) {
+            appender.close();
+            appender = null;
+        }
+    }
+
+    private BufferedWriter open() throws IOException {
+        if (appender == null) {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            appender = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        return appender;
+    }
+
+    /**
+     * A record held in memory was pruned to the mapped fields when it was read, so the
+     * original is read again from its file whenever there is one
+     * @return The record of the origin as it is in its file, the held record if the file cannot be read; null if neither
+     */
+    private static JsonNode recordOf(RecordOrigin origin) {
+        if (origin.getSource() == null) {
+            return origin.getRecord();
+        }
+        try (InputStream input = JsonSources.newInputStream(origin.getSource())) {
+            if (JsonRecordReader.skip(input, origin.getOffset())) {
+                return OBJECT_MAPPER.readTree(input);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to read " + origin + " again - " + e.getMessage());
+        }
+        return origin.getRecord();
+    }
+
+    /**
+     * Read all entries of a dead letter file
+     * @return Entries in file order, none if the file does not exist
+     */
+    public static List<Entry> read(Path file) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return entries;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    entries.add(new Entry(OBJECT_MAPPER.readTree(line)));
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Import the dead-lettered records again
+     * Records that fail again are written back to the file, the others are removed
+     * from it. If storing fails altogether the file is left as it was. Entries left
+     * aside by a replay that was killed are folded back into the file first
+     * @return Outcome, with the records that failed again as failed records
+     */
+    public static JsonImporter.Result replay(Path file, RowMapper rowMapper, RowWriter writer) throws IOException, SQLException {
+        long startTime = System.nanoTime();
+        Path replaying = file.resolveSibling(file.getFileName() + ".replaying");
+        if (Files.exists(replaying)) {
+            foldBack(replaying, file);
+        }
+        List<Entry> entries = read(file);
+        if (entries.isEmpty()) {
+            return new JsonImporter.Result(0, 0, 0, 0, 0, Duration.ZERO);
+        }
+
+        Files.move(file, replaying);
+        long rows = 0;
+        long failedAgain;
+        try (DeadLetterQueue queue = new DeadLetterQueue(file)) {
+            writer.setRejectionListener(queue::addRejected);
+            try {
+                for (Entry entry : entries) {
+                    RecordOrigin origin = new RecordOrigin(entry.getType(), entry.getSource(), null, entry.getOffset(), entry.getRecord());
+                    if (entry.getRecord() == null) {
+                        queue.add(origin, null, entry.getStage(), new IOException(entry.getError()));
+                        continue;
+                    }
+                    try {
+                        List<Row> mapped = rowMapper.map(entry.getType(), entry.getRecord(), entry.getSource());
+                        writer.write(withOrigin(mapped, origin));
+                        rows += mapped.size();
+                    } catch (SQLException | RuntimeException e) {
+                        queue.add(origin, entry.getRecord(), mappingStage(e), e);
+                    }
+                }
+                writer.flush();
+            } finally {
+                writer.setRejectionListener(null);
+            }
+            failedAgain = queue.getEntries();
+        } catch (SQLException | RuntimeException e) {
+            // The queue is closed by now; put the entries being replayed back in its place
+            Files.move(replaying, file, StandardCopyOption.REPLACE_EXISTING);
+            throw e;
+        }
+        Files.delete(replaying);
+
+        logger.info("Replayed {} dead letters, {} failed again", entries.size(), failedAgain);
+        return new JsonImporter.Result(1, 0, entries.size(), failedAgain, rows,
+                                       Duration.ofNanos(System.nanoTime() - startTime));
+    }
+
+    /**
+     * Put the entries of an interrupted replay back into the file
+     * The file may already hold some of them, added again when they failed before the
+     * replay was interrupted; those are only kept once
+     */
+    private static void foldBack(Path replaying, Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        Set<String> keys = new HashSet<>();
+        for (Path part : List.of(replaying, file)) {
+            if (!Files.exists(part)) {
+                continue;
+            }
+            boolean stranded = part == replaying;
+            for (String line : Files.readAllLines(part, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                Entry entry = new Entry(OBJECT_MAPPER.readTree(line));
+                String key = entry.getType() + " " + entry.getOffset() + " " + entry.getSource();
+                if (keys.add(key) || stranded) {
+                    lines.add(line);
+                }
+            }
+        }
+        Path folded = file.resolveSibling(file.getFileName() + ".folding");
+        Files.write(folded, lines, StandardCharsets.UTF_8);
+        Files.move(folded, file, StandardCopyOption.REPLACE_EXISTING);
+        Files.delete(replaying);
+        logger.warn("Folded the entries of an interrupted replay back into {}, {} entries now", file, lines.size());
+    }
+
+    /**
+     * @return Stage of a record that failed to map with the error
+     */
+    static String mappingStage(Exception error) {
+        return error instanceof ColumnLengthException ? STAGE_VALIDATION : STAGE_MAPPING;
+    }
+
+    /**
+     * @return The rows remembering the origin
+     */
+    static List<Row> withOrigin(List<Row> rows, RecordOrigin origin) {
+        List<Row> traced = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            traced.add(row.withOrigin(origin));
+        }
+        return traced;
+    }
+
+    /**
+     * @return Origin of the first row that knows it, or null
+     */
+    static RecordOrigin originOf(List<Row> rows) {
+        for (Row row : rows) {
+            if (row.getOrigin() != null) {
+                return row.getOrigin();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * One dead-lettered record
+     */
+    public static class Entry {
+        private final String source;
+        private final long offset;
+        private final JsonPayloadType type;
+        private final String stage;
+        private final String error;
+        private final JsonNode record;
+
+        Entry(JsonNode entry) {
+            this.source = entry.path("source").asText();
+            this.offset = entry.path("offset").asLong();
+            this.type = JsonPayloadType.valueOf(entry.path("type").asText());
+            this.stage = entry.path("stage").asText();
+            this.error = entry.path("error").asText();
+            JsonNode record = entry.path("record");
+            this.record = record.isObject() ? record : null;
+        }
+
+        public String getSource() { return source; }
+        public long getOffset() { return offset; }
+        public JsonPayloadType getType() { return type; }
+        public String getStage() { return stage; }
+        public String getError() { return error; }
+
+        /**
+         * @return The record, or null if it could not be read when it failed
+         */
+        public JsonNode getRecord() { return record; }
+    }
+}
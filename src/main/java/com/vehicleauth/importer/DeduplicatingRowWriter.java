@@ -0,0 +1,140 @@
+package com.vehicleauth.importer;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Skips rows of shared tables that were already written with the same content
+ * Addresses, contact details and bodies recur across many applications; a row
+ * whose key and values match a row committed earlier in the run is not written
+ * again. Rows are remembered once the underlying writer has committed them: until
+ * then a repeated row is passed on, and a batching writer merges it with the first,
+ * so a record replayed after a failed batch still carries the shared rows it needs.
+ * When the underlying writer rejects a record the caches are cleared, so no row is
+ * skipped on the strength of a write that was rolled back
+ */
+public class DeduplicatingRowWriter implements RowWriter {
+
+    public static final List<String> DEFAULT_SHARED_TABLES = List.of("Addresses", "ContactDetails", "Bodies");
+    public static final int DEFAULT_CAPACITY = 100_000;
+
+    private final RowWriter delegate;
+    private final Map<String, SeenRowCache> caches = new LinkedHashMap<>();
+    // Shared rows written since the last commit, remembered once it is seen
+    private final List<Row> uncommitted = new ArrayList<>();
+    private long rejectedRecords;
+    private long commits;
+
+    /**
+     * @param sharedTables Tables whose rows are deduplicated
+     * @param capacity Keys remembered per table
+     * @param useBloomFilter Put a bloom filter in front of each cache
+     */
+    public DeduplicatingRowWriter(RowWriter delegate, List<String> sharedTables, int capacity, boolean useBloomFilter) {
+        this.delegate = delegate;
+        for (String table : sharedTables) {
+            caches.put(table, new SeenRowCache(capacity, useBloomFilter));
+        }
+        this.rejectedRecords = delegate.getRejectedRecords();
+        this.commits = delegate.getCommits();
+    }
+
+    @Override
+    public void write(List<Row> rows) throws SQLException {
+        List<Row> toWrite = new ArrayList<>(rows.size());
+        List<Row> shared = new ArrayList<>();
+        for (Row row : rows) {
+            SeenRowCache cache = caches.get(row.getTable().getTableName());
+            if (cache == null) {
+                toWrite.add(row);
+            } else if (!cache.isWritten(row)) {
+                toWrite.add(row);
+                shared.add(row);
+            }
+        }
+
+        try {
+            delegate.write(toWrite);
+            uncommitted.addAll(shared);
+        } finally {
+            checkCommits();
+        }
+    }
+
+    @Override
+    public void flush() throws SQLException {
+        try {
+            delegate.flush();
+        } finally {
+            checkCommits();
+        }
+    }
+
+    @Override
+    public long getRejectedRecords() {
+        return delegate.getRejectedRecords();
+    }
+
+    @Override
+    public long getCommits() {
+        return delegate.getCommits();
+    }
+
+    @Override
+    public void setRejectionListener(RejectionListener listener) {
+        delegate.setRejectionListener(listener);
+    }
+
+    /**
+     * @return Caches of the shared tables by table name
+     */
+    public Map<String, SeenRowCache> getCaches() {
+        return Collections.unmodifiableMap(caches);
+    }
+
+    /**
+     * @return Rows skipped over all shared tables
+     */
+    public long getSuppressedRows() {
+        long suppressed = 0;
+        for (SeenRowCache cache : caches.values()) {
+            suppressed += cache.getSuppressed();
+        }
+        return suppressed;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            delegate.close();
+        } finally {
+            checkCommits();
+        }
+    }
+
+    /**
+     * Remember the shared rows the delegate committed since the last check, or forget all rows if it rejected a record
+     */
+    private void checkCommits() {
+        long rejected = delegate.getRejectedRecords();
+        long committed = delegate.getCommits();
+        if (rejected != rejectedRecords) {
+            rejectedRecords = rejected;
+            commits = committed;
+            uncommitted.clear();
+            for (SeenRowCache cache : caches.values()) {
+                cache.clear();
+            }
+        } else if (committed != commits) {
+            commits = committed;
+            for (Row row : uncommitted) {
+                caches.get(row.getTable().getTableName()).markWritten(row);
+            }
+            uncommitted.clear();
+        }
+    }
+}
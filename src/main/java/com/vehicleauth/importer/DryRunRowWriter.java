@@ -0,0 +1,113 @@
+package com.vehicleauth.importer;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts the rows of the importer instead of writing them, so the pipeline runs without a database
+ * Rows and value bytes are counted per table: text as its UTF-8 length, a
+ * date as 8 bytes and a yes/no value as 1. Application IDs are remembered so
+ * details records resolve as they would against the database
+ */
+public class DryRunRowWriter implements RowWriter, RowMapper.ApplicationIdLookup {
+
+    private static final int DATE_TIME_BYTES = 8;
+
+    private final Map<String, TableVolume> tableVolumes = new LinkedHashMap<>();
+    // Application ID by application GUID, from the Applications rows written
+    private final Map<String, String> applicationIds = new HashMap<>();
+
+    @Override
+    public void write(List<Row> rows) {
+        for (Row row : rows) {
+            long bytes = 0;
+            for (Object value : row.getValues().values()) {
+                bytes += bytesOf(value);
+            }
+            String tableName = row.getTable().getTableName();
+            tableVolumes.computeIfAbsent(tableName, table -> new TableVolume()).add(bytes);
+
+            if ("Applications".equals(tableName) && row.get("ID") != null && row.get("ApplicationID") != null) {
+                applicationIds.put((String) row.get("ID"), (String) row.get("ApplicationID"));
+            }
+        }
+    }
+
+    @Override
+    public String findApplicationId(String id) {
+        return applicationIds.get(id);
+    }
+
+    /**
+     * @return Rows and bytes per table, in order of first row
+     */
+    public Map<String, TableVolume> getTableVolumes() {
+        return Collections.unmodifiableMap(tableVolumes);
+    }
+
+    public long getRows() {
+        return tableVolumes.values().stream().mapToLong(TableVolume::getRows).sum();
+    }
+
+    public long getBytes() {
+        return tableVolumes.values().stream().mapToLong(TableVolume::getBytes).sum();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static long bytesOf(Object value) {
+        if (value instanceof String) {
+            return utf8Length((String) value);
+        }
+        if (value instanceof Timestamp) {
+            return DATE_TIME_BYTES;
+        }
+        return value == null ? 0 : 1;
+    }
+
+    /**
+     * Count the UTF-8 length from the chars, so no byte array is made per value
+     * @return Length of the text encoded as UTF-8; an unpaired surrogate counts as the '?' it is encoded as
+     */
+    static long utf8Length(String text) {
+        long length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Rows and value bytes counted for one table
+     */
+    public static final class TableVolume {
+        private long rows;
+        private long bytes;
+
+        void add(long rowBytes) {
+            rows++;
+            bytes += rowBytes;
+        }
+
+        public long getRows() { return rows; }
+        public long getBytes() { return bytes; }
+    }
+}
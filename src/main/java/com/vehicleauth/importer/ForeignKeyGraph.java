@@ -0,0 +1,132 @@
+package com.vehicleauth.importer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tables and the tables they reference, as declared by the foreign keys of
+ * CreateVehicleAuthDatabase.ps1
+ * The graph is split into waves: every table comes in a later wave than the tables
+ * it references, so writing wave by wave never breaks a foreign key, and the tables
+ * of one wave do not depend on each other
+ */
+public final class ForeignKeyGraph {
+
+    private static final Logger logger = LoggerFactory.getLogger(ForeignKeyGraph.class);
+
+    private static final Pattern FOREIGN_KEY = Pattern.compile(
+        "ALTER\\s+TABLE\\s+(\\w+)\\s+ADD\\s+CONSTRAINT\\s+\\w+\\s+FOREIGN\\s+KEY\\s*\\([^)]*\\)\\s*REFERENCES\\s+(\\w+)",
+        Pattern.CASE_INSENSITIVE);
+
+    // Referenced tables by referencing table
+    private final Map<String, Set<String>> references = new LinkedHashMap<>();
+
+    /**
+     * Read the foreign keys of the database creation script
+     * @throws IOException if the script cannot be read
+     */
+    public static ForeignKeyGraph load(Path script) throws IOException {
+        return parse(new String(Files.readAllBytes(script), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Read the foreign keys of ALTER TABLE statements, skipping commented lines
+     */
+    public static ForeignKeyGraph parse(String script) {
+        ForeignKeyGraph graph = new ForeignKeyGraph();
+        for (String line : script.split("\\R")) {
+            if (line.trim().startsWith("#")) {
+                continue;
+            }
+            Matcher matcher = FOREIGN_KEY.matcher(line);
+            while (matcher.find()) {
+                graph.addReference(matcher.group(1), matcher.group(2));
+            }
+        }
+        logger.debug("Read {} foreign keys", graph.size());
+        return graph;
+    }
+
+    /**
+     * Declare that rows of a table reference rows of another
+     */
+    public ForeignKeyGraph addReference(String table, String referencedTable) {
+        if (!table.equalsIgnoreCase(referencedTable)) {
+            references.computeIfAbsent(table, t -> new LinkedHashSet<>()).add(referencedTable);
+        }
+        return this;
+    }
+
+    /**
+     * @return Tables the given table references
+     */
+    public Set<String> getReferences(String table) {
+        return references.getOrDefault(table, Set.of());
+    }
+
+    /**
+     * @return Number of references
+     */
+    public int size() {
+        return references.values().stream().mapToInt(Set::size).sum();
+    }
+
+    /**
+     * Split tables into waves; references to tables not listed are ignored
+     * @param tables Tables in their preferred order, kept within each wave
+     * @return Waves, tables without references first
+     * @throws IllegalStateException if the references form a cycle
+     */
+    public List<List<String>> waves(Collection<String> tables) {
+        Map<String, Integer> waveOf = new LinkedHashMap<>();
+        for (String table : tables) {
+            waveOf(table, tables, waveOf, new LinkedHashSet<>());
+        }
+
+        List<List<String>> waves = new ArrayList<>();
+        for (String table : tables) {
+            int wave = waveOf.get(table);
+            while (waves.size() <= wave) {
+                waves.add(new ArrayList<>());
+            }
+            waves.get(wave).add(table);
+        }
+        return waves;
+    }
+
+    /**
+     * @return One more than the latest wave of the referenced tables
+     */
+    private int waveOf(String table, Collection<String> tables, Map<String, Integer> waveOf, Set<String> path) {
+        Integer known = waveOf.get(table);
+        if (known != null) {
+            return known;
+        }
+        if (!path.add(table)) {
+            throw new IllegalStateException("Foreign keys form a cycle: " + String.join(" -> ", path) + " -> " + table);
+        }
+        int wave = 0;
+        for (String referenced : getReferences(table)) {
+            if (tables.contains(referenced)) {
+                wave = Math.max(wave, waveOf(referenced, tables, waveOf, path) + 1);
+            }
+        }
+        path.remove(table);
+        waveOf.put(table, wave);
+        return wave;
+    }
+}
@@ -0,0 +1,243 @@
+package com.vehicleauth.importer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of an import run, saved after every commit so a run that dies can resume
+ * The checkpoint file holds the files imported completely and, for each file in
+ * progress, the byte offset of its last committed record and the last committed
+ * application ID. Files are identified by name, size and modification time; a file
+ * that changed since the checkpoint is imported from the start. The file is written
+ * to a temporary file, forced to disk and moved into place, and deleted once a run
+ * has gone through all files
+ */
+public final class ImportCheckpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportCheckpoint.class);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Path file;
+    // State of the previous run, read by the parsers
+    private final Map<String, String> resumeCompleted;
+    private final Map<String, Position> resumePositions;
+    private final Map<String, String> identities = new ConcurrentHashMap<>();
+    private final AtomicInteger skippedSources = new AtomicInteger();
+    private final AtomicInteger resumedSources = new AtomicInteger();
+
+    // State of this run, kept by the writer thread
+    private final Map<String, String> completed;
+    private final Map<String, Position> committed;
+    private final Map<String, Position> written = new LinkedHashMap<>();
+    private final Set<String> finished = new LinkedHashSet<>();
+
+    private ImportCheckpoint(Path file, Map<String, String> completed, Map<String, Position> positions) {
+        this.file = file;
+        this.resumeCompleted = Collections.unmodifiableMap(new LinkedHashMap<>(completed));
+        this.resumePositions = Collections.unmodifiableMap(new LinkedHashMap<>(positions));
+        this.completed = new LinkedHashMap<>(completed);
+        this.committed = new LinkedHashMap<>(positions);
+    }
+
+    /**
+     * Read the checkpoint of an earlier run, or start a new one if there is none
+     */
+    public static ImportCheckpoint load(Path file) throws IOException {
+        Map<String, String> completed = new LinkedHashMap<>();
+        Map<String, Position> positions = new LinkedHashMap<>();
+        if (Files.exists(file)) {
+            JsonNode root = OBJECT_MAPPER.readTree(file.toFile());
+            Iterator<Map.Entry<String, JsonNode>> completedFiles = root.path("completed").fields();
+            while (completedFiles.hasNext()) {
+                Map.Entry<String, JsonNode> entry = completedFiles.next();
+                completed.put(entry.getKey(), entry.getValue().asText());
+            }
+            Iterator<Map.Entry<String, JsonNode>> inProgress = root.path("inProgress").fields();
+            while (inProgress.hasNext()) {
+                Map.Entry<String, JsonNode> entry = inProgress.next();
+                JsonNode position = entry.getValue();
+                positions.put(entry.getKey(), new Position(position.path("identity").asText(),
+                    JsonPayloadType.valueOf(position.path("type").asText()), position.path("offset").asLong(),
+                    position.path("lastApplicationId").isNull() ? null : position.path("lastApplicationId").asText(null)));
+            }
+            logger.info("Resuming import: {} files completed, {} in progress", completed.size(), positions.size());
+        }
+        return new ImportCheckpoint(file, completed, positions);
+    }
+
+    /**
+     * @return true if the previous run imported the unchanged file completely
+     */
+    public boolean isCompleted(Path source, String sourceName) {
+        boolean skip = resumeCompleted.containsKey(sourceName) && resumeCompleted.get(sourceName).equals(identity(source, sourceName));
+        if (skip) {
+            skippedSources.incrementAndGet();
+        }
+        return skip;
+    }
+
+    /**
+     * @return Position of the last record the previous run committed from the unchanged file, or null to start over
+     */
+    public Position resumePosition(Path source, String sourceName) {
+        Position position = resumePositions.get(sourceName);
+        if (position == null || !position.identity.equals(identity(source, sourceName))) {
+            return null;
+        }
+        resumedSources.incrementAndGet();
+        return position;
+    }
+
+    /**
+     * Remember a record handed to the writer, committed with the next commit
+     * @param rows Rows of the record, the first with an ApplicationID column names the application
+     */
+    public void recordWritten(RecordOrigin origin, List<Row> rows) {
+        if (origin.getSource() == null) {
+            return;
+        }
+        Object applicationId = null;
+        for (Row row : rows) {
+            applicationId = row.get("ApplicationID");
+            if (applicationId != null) {
+                break;
+            }
+        }
+        written.put(origin.getSourceName(), new Position(identity(origin.getSource(), origin.getSourceName()),
+                                                         origin.getType(), origin.getOffset(), (String) applicationId));
+    }
+
+    /**
+     * Remember that every record of the file was handed to the writer
+     */
+    public void sourceFinished(String sourceName) {
+        finished.add(sourceName);
+    }
+
+    /**
+     * The writer committed everything handed to it; save the progress
+     */
+    public void committed() {
+        if (written.isEmpty() && finished.isEmpty()) {
+            return;
+        }
+        committed.putAll(written);
+        written.clear();
+        for (String sourceName : finished) {
+            Position position = committed.remove(sourceName);
+            String identity = position != null ? position.identity : identities.get(sourceName);
+            if (identity != null) {
+                completed.put(sourceName, identity);
+            }
+        }
+        finished.clear();
+        save();
+    }
+
+    /**
+     * The run went through all files; forget the progress
+     */
+    public void finish() throws IOException {
+        Files.deleteIfExists(file);
+        completed.clear();
+        committed.clear();
+    }
+
+    public int getSkippedSources() { return skippedSources.get(); }
+    public int getResumedSources() { return resumedSources.get(); }
+
+    /**
+     * @return The file's name with its size and modification time
+     */
+    private String identity(Path source, String sourceName) {
+        return identities.computeIfAbsent(sourceName, name -> {
+            try {
+                return Files.size(source) + ":" + Files.getLastModifiedTime(source).toMillis();
+            } catch (IOException e) {
+                return "unknown";
+            }
+        });
+    }
+
+    private void save() {
+        ObjectNode root = OBJECT_MAPPER.createObjectNode();
+        ObjectNode completedFiles = root.putObject("completed");
+        completed.forEach(completedFiles::put);
+        ObjectNode inProgress = root.putObject("inProgress");
+        for (Map.Entry<String, Position> entry : committed.entrySet()) {
+            Position position = entry.getValue();
+            ObjectNode node = inProgress.putObject(entry.getKey());
+            node.put("identity", position.identity);
+            node.put("type", position.type.name());
+            node.put("offset", position.offset);
+            node.put("lastApplicationId", position.lastApplicationId);
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                        StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer content = ByteBuffer.wrap(OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsBytes(root));
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to save the import checkpoint " + file + " - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Last committed record of a file
+     */
+    public static final class Position {
+        private final String identity;
+        private final JsonPayloadType type;
+        private final long offset;
+        private final String lastApplicationId;
+
+        Position(String identity, JsonPayloadType type, long offset, String lastApplicationId) {
+            this.identity = identity;
+            this.type = type;
+            this.offset = offset;
+            this.lastApplicationId = lastApplicationId;
+        }
+
+        public JsonPayloadType getType() { return type; }
+
+        /**
+         * @return Byte offset of the record in its payload
+         */
+        public long getOffset() { return offset; }
+
+        public String getLastApplicationId() { return lastApplicationId; }
+    }
+}
@@ -0,0 +1,309 @@
+package com.vehicleauth.importer;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.vehicleauth.analysis.FieldCatalog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The 19 tables of CreateVehicleAuthDatabase.ps1 as seen by the importer
+ * Text columns and their JSON paths come from the field length mappings. Every table
+ * is anchored at the JSON object its rows are built from: a mapped path below the
+ * anchor is read relative to that object, any other mapped path names a key the
+ * parent row hands down. Date and yes/no columns are not part of the length
+ * mappings and are declared here. Tables are written in waves derived from the
+ * foreign keys of the script, so referenced rows come before the rows referencing them
+ */
+public final class ImportSchema {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportSchema.class);
+
+    /**
+     * Database creation script declaring the foreign keys
+     */
+    public static final String DATABASE_SCRIPT = "CreateVehicleAuthDatabase.ps1";
+
+    /**
+     * Bookkeeping table with the content hash of every imported row, see {@link ChangeDetectingRowWriter}
+     */
+    public static final String ROW_HASHES_TABLE = "ImportRowHashes";
+
+    private final Map<String, TableMapping> tables;
+    private final Map<String, Integer> order;
+    private final Map<String, Integer> waveOf;
+    private final List<List<TableMapping>> waves;
+    private final TableMapping rowHashTable;
+
+    /**
+     * @param waves Table names by wave, tables of a wave in declaration order
+     */
+    private ImportSchema(Map<String, TableMapping> declaredTables, List<List<String>> waves) {
+        this.tables = new LinkedHashMap<>();
+        this.order = new LinkedHashMap<>();
+        this.waveOf = new LinkedHashMap<>();
+        this.waves = new ArrayList<>();
+        for (List<String> wave : waves) {
+            List<TableMapping> waveTables = new ArrayList<>();
+            for (String tableName : wave) {
+                TableMapping table = declaredTables.get(tableName);
+                this.order.put(tableName, this.tables.size());
+                this.waveOf.put(tableName, this.waves.size());
+                this.tables.put(tableName, table);
+                waveTables.add(table);
+            }
+            this.waves.add(Collections.unmodifiableList(waveTables));
+        }
+
+        // Written last, in the same transaction as the rows it describes
+        Map<String, TableMapping.ColumnType> rowHashColumns = new LinkedHashMap<>();
+        rowHashColumns.put("TableName", TableMapping.ColumnType.TEXT);
+        rowHashColumns.put("RowKey", TableMapping.ColumnType.TEXT);
+        rowHashColumns.put("RowHash", TableMapping.ColumnType.TEXT);
+        this.rowHashTable = new TableMapping(ROW_HASHES_TABLE, List.of("TableName", "RowKey"), rowHashColumns, Map.of());
+        this.order.put(ROW_HASHES_TABLE, this.tables.size());
+        this.waveOf.put(ROW_HASHES_TABLE, this.waves.size());
+    }
+
+    /**
+     * Build the schema from the mapped fields, ordered by the foreign keys of {@link #DATABASE_SCRIPT}
+     * Without the script, tables are written one at a time in declaration order
+     */
+    public static ImportSchema of(FieldCatalog catalog) {
+        Path script = Paths.get(DATABASE_SCRIPT);
+        if (Files.isRegularFile(script)) {
+            try {
+                return of(catalog, ForeignKeyGraph.load(script));
+            } catch (IOException e) {
+                logger.warn("Failed to read foreign keys from " + DATABASE_SCRIPT + " - " + e.getMessage());
+            }
+        } else {
+            logger.warn("{} not found, writing tables in declaration order", DATABASE_SCRIPT);
+        }
+        return of(catalog, null);
+    }
+
+    /**
+     * Build the schema from the mapped fields
+     * @param foreignKeys Foreign keys of the database, the script's conditional ones are added;
+     *                    null to write tables one at a time in declaration order
+     */
+    public static ImportSchema of(FieldCatalog catalog, ForeignKeyGraph foreignKeys) {
+        List<TableMapping> tables = new ArrayList<>();
+
+        tables.add(define("Addresses", "address", "AddressID").build(catalog));
+        tables.add(define("ContactDetails", "contactDetails", "ContactDetailsID").build(catalog));
+        tables.add(define("Documents", "document", "DocumentID").build(catalog));
+        tables.add(define("ContactPersons", "contactPerson", "ContactPersonID").build(catalog));
+        tables.add(define("BillingInformation", "billingInformation", "BillingID").build(catalog));
+        tables.add(define("Bodies", "applicantBody", "BodyID").build(catalog));
+        tables.add(define("Applications", "", "ApplicationID")
+            .dateTime("DecisionDate", "decisionDate")
+            .dateTime("Submission", "submission")
+            .dateTime("CompletenessAcknowledgement", "completenessAcknowledgement")
+            .dateTime("Modified", "modified")
+            .dateTime("CachedLastUpdate", "cachedLastUpdate")
+            .yesNo("IsWholeEU", "isWholeEu")
+            .yesNo("PreEngaged", "preEngaged")
+            .yesNo("IsPreEngagement", "isPreEngagement")
+            .build(catalog));
+        tables.add(define("ApplicationStaff", null, "ApplicationID", "StaffType", "StaffName").build(catalog));
+        tables.add(define("ApplicationBodies", null, "ApplicationID", "BodyID", "BodyRole").build(catalog));
+        tables.add(define("Issues", "", "IssueID")
+            .yesNo("UserIsOwner", "userIsOwner")
+            .dateTime("DueBy", "dueBy")
+            .dateTime("CreationDate", "creationDate")
+            .yesNo("SSCClosedOut", "sscClosedOut")
+            .build(catalog));
+        tables.add(define("VehicleTypes", "variantsTypesList", "VehicleTypeID")
+            .dateTime("CreationDate", "creationDate")
+            .yesNo("IsApplicantTypeHolder", "isApplicantTypeHolder")
+            .dateTime("ERATVDateOfRecord", "eraTVDateOfRecord")
+            .build(catalog));
+        tables.add(define("VehiclesToAuthorise", "variantsTypesList.vehiclesToAuthorise", "VehicleToAuthoriseID").build(catalog));
+        tables.add(define("ApplicableRules", "variantsTypesList.uiApplicableRules.rules", "RuleID").build(catalog));
+        tables.add(define("MemberStateMappings", "variantsTypesList.msMappings", "MappingID")
+            .yesNo("PassengerTransport", "passengerTransport")
+            .yesNo("HighSpeed", "highSpeed")
+            .yesNo("FreightTransport", "freightTransport")
+            .yesNo("DangerousGoodsServices", "dangerousGoodsServices")
+            .yesNo("ShuntingOnly", "shuntingOnly")
+            .yesNo("Other", "other")
+            .yesNo("IsBorderStation", "isBorderStation")
+            .build(catalog));
+        // NetworkID is an AUTOINCREMENT column, rows are identified by mapping and name
+        tables.add(define("Networks", "variantsTypesList.msMappings.networks", "MappingID", "NetworkName").build(catalog));
+        tables.add(define("AgencyMappings", "variantsTypesList.agencyMappings", "AgencyMappingID")
+            .yesNo("Visible", "visible")
+            .build(catalog));
+        tables.add(define("AgencyMappingValues", "variantsTypesList.agencyMappings.values", "ValueID").build(catalog));
+        tables.add(define("MSMappingRequirements", "variantsTypesList.msMappings.msMappings", "RequirementID")
+            .yesNo("Visible", "visible")
+            .build(catalog));
+        tables.add(define("MSMappingRequirementValues", "variantsTypesList.msMappings.msMappings.values", "ValueID").build(catalog));
+
+        Map<String, TableMapping> declaredTables = new LinkedHashMap<>();
+        for (TableMapping table : tables) {
+            declaredTables.put(table.getTableName(), table);
+        }
+        List<List<String>> waves = new ArrayList<>();
+        if (foreignKeys == null) {
+            for (String tableName : declaredTables.keySet()) {
+                waves.add(List.of(tableName));
+            }
+        } else {
+            // The script adds these only when the referenced rows exist; order for them anyway
+            foreignKeys.addReference("Applications", "ContactPersons")
+                       .addReference("Applications", "BillingInformation")
+                       .addReference("Applications", "Bodies")
+                       .addReference("VehicleTypes", "Bodies");
+            waves = foreignKeys.waves(declaredTables.keySet());
+        }
+        return new ImportSchema(declaredTables, waves);
+    }
+
+    public TableMapping table(String tableName) {
+        TableMapping table = tables.get(tableName);
+        if (table == null) {
+            throw new IllegalArgumentException("Unknown table: " + tableName);
+        }
+        return table;
+    }
+
+    /**
+     * @return The bookkeeping table of row content hashes, not part of {@link #getTables()}
+     */
+    public TableMapping getRowHashTable() {
+        return rowHashTable;
+    }
+
+    /**
+     * @return All tables, referenced tables first
+     */
+    public List<TableMapping> getTables() {
+        return Collections.unmodifiableList(new ArrayList<>(tables.values()));
+    }
+
+    /**
+     * @return Position of the table in write order
+     */
+    public int orderOf(TableMapping table) {
+        return order.get(table.getTableName());
+    }
+
+    /**
+     * @return Tables by wave; a table only references tables of earlier waves
+     */
+    public List<List<TableMapping>> getWaves() {
+        return Collections.unmodifiableList(waves);
+    }
+
+    /**
+     * @return Wave of the table, the row hash table comes after all waves
+     */
+    public int waveOf(TableMapping table) {
+        return waveOf.get(table.getTableName());
+    }
+
+    private static Definition define(String tableName, String anchor, String... keyColumns) {
+        return new Definition(tableName, anchor, Arrays.asList(keyColumns));
+    }
+
+    /**
+     * Table definition collected before the mapped text columns are added
+     */
+    private static final class Definition {
+
+        private final String tableName;
+        private final String anchor;
+        private final List<String> keyColumns;
+        private final Map<String, TableMapping.ColumnType> extraTypes = new LinkedHashMap<>();
+        private final Map<String, String> extraPaths = new LinkedHashMap<>();
+
+        /**
+         * @param anchor Dotted path of the JSON object rows are built from, "" for the record itself,
+         *               null if every column is handed down
+         */
+        Definition(String tableName, String anchor, List<String> keyColumns) {
+            this.tableName = tableName;
+            this.anchor = anchor;
+            this.keyColumns = keyColumns;
+        }
+
+        Definition dateTime(String column, String relativePath) {
+            return extra(column, relativePath, TableMapping.ColumnType.DATETIME);
+        }
+
+        Definition yesNo(String column, String relativePath) {
+            return extra(column, relativePath, TableMapping.ColumnType.YESNO);
+        }
+
+        private Definition extra(String column, String relativePath, TableMapping.ColumnType type) {
+            extraTypes.put(column, type);
+            extraPaths.put(column, relativePath);
+            return this;
+        }
+
+        TableMapping build(FieldCatalog catalog) {
+            Map<String, TableMapping.ColumnType> types = new LinkedHashMap<>();
+            Map<String, JsonPointer> paths = new LinkedHashMap<>();
+            for (String keyColumn : keyColumns) {
+                types.put(keyColumn, TableMapping.ColumnType.TEXT);
+            }
+
+            for (int ordinal = 0; ordinal < catalog.size(); ordinal++) {
+                if (!catalog.getTableName(ordinal).equals(tableName)) {
+                    continue;
+                }
+                String column = catalog.getFieldName(ordinal);
+                types.put(column, TableMapping.ColumnType.TEXT);
+                String relativePath = relativePath(catalog.getJsonPaths(ordinal));
+                if (relativePath != null) {
+                    paths.put(column, toPointer(relativePath));
+                }
+            }
+
+            for (Map.Entry<String, TableMapping.ColumnType> extra : extraTypes.entrySet()) {
+                types.put(extra.getKey(), extra.getValue());
+                paths.put(extra.getKey(), toPointer(extraPaths.get(extra.getKey())));
+            }
+            return new TableMapping(tableName, keyColumns, types, paths);
+        }
+
+        /**
+         * @return Path of the first alternative below the anchor, "" for the anchor itself or one of its
+         *         elements, or null if the value is handed down
+         */
+        private String relativePath(List<String> jsonPaths) {
+            for (String alternative : jsonPaths) {
+                String jsonPath = alternative.endsWith(FieldCatalog.ELEMENTS)
+                    ? alternative.substring(0, alternative.length() - FieldCatalog.ELEMENTS.length())
+                    : alternative;
+                if (anchor == null) {
+                    return null;
+                } else if (anchor.isEmpty()) {
+                    return jsonPath;
+                } else if (jsonPath.equals(anchor)) {
+                    return "";
+                } else if (jsonPath.startsWith(anchor + ".")) {
+                    return jsonPath.substring(anchor.length() + 1);
+                }
+            }
+            return null;
+        }
+
+        private static JsonPointer toPointer(String relativePath) {
+            return relativePath.isEmpty() ? JsonPointer.empty() : JsonPointer.compile("/" + relativePath.replace('.', '/'));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.vehicleauth.importer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * High-water marks of incremental imports, one per application
+ * The mark is the latest modified or cachedLastUpdate time of the application's list
+ * records, the one stream of changes that only moves forward: the files of an export
+ * directory do not, as a new file may hold records older than an earlier one.
+ * Records strictly below their application's mark are skipped on the next import,
+ * whatever file they arrive in; a record at the mark is imported again and its rows
+ * are left to change detection. A mark is only advanced after its record's rows have
+ * been committed without rejections; it is stored as ISO-8601 text so no precision is lost
+ */
+public final class ImportWatermarks {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportWatermarks.class);
+
+    public static final String TABLE = "ImportWatermarks";
+
+    private static final String[] TIMESTAMP_FIELDS = { "modified", "cachedLastUpdate" };
+
+    private final Connection connection;
+    private final Map<String, Instant> marks = new ConcurrentHashMap<>();
+
+    private ImportWatermarks(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Create the watermark table if the database does not have it yet
+     */
+    public static void createTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            try {
+                statement.executeQuery("SELECT ApplicationID FROM " + TABLE + " WHERE 1 = 0").close();
+            } catch (SQLException e) {
+                logger.info("Creating table {}", TABLE);
+                statement.execute("CREATE TABLE " + TABLE + " (ApplicationID VARCHAR(255) PRIMARY KEY, Watermark VARCHAR(40))");
+                if (!connection.getAutoCommit()) {
+                    connection.commit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Load the stored marks
+     * @param connection Connection the marks are read from and written to
+     */
+    public static ImportWatermarks load(Connection connection) throws SQLException {
+        ImportWatermarks watermarks = new ImportWatermarks(connection);
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT ApplicationID, Watermark FROM " + TABLE)) {
+            while (result.next()) {
+                watermarks.marks.put(result.getString(1), Instant.parse(result.getString(2)));
+            }
+        }
+        return watermarks;
+    }
+
+    /**
+     * @return The mark of the application, or null if it was never imported incrementally
+     */
+    public Instant get(String applicationId) {
+        return marks.get(applicationId);
+    }
+
+    /**
+     * @return ID of the application whose mark the record is checked against, or null if it has none
+     */
+    public static String applicationOf(JsonPayloadType type, JsonNode record) {
+        if (type != JsonPayloadType.APPLICATION_LIST) {
+            return null;
+        }
+        JsonNode applicationId = record.path("applicationId");
+        return applicationId.isValueNode() && !applicationId.isNull() ? applicationId.asText() : null;
+    }
+
+    /**
+     * @return The latest change time of the record, or null if it carries none
+     */
+    public static Instant recordTimestamp(JsonPayloadType type, JsonNode record) {
+        if (type != JsonPayloadType.APPLICATION_LIST) {
+            return null;
+        }
+        Instant latest = null;
+        for (String field : TIMESTAMP_FIELDS) {
+            JsonNode value = record.path(field);
+            if (value.isMissingNode() || value.isNull()) {
+                continue;
+            }
+            try {
+                Timestamp utc = ColumnValues.dateTime(value);
+                if (utc == null) {
+                    continue;
+                }
+                Instant timestamp = utc.toLocalDateTime().toInstant(ZoneOffset.UTC);
+                if (latest == null || timestamp.isAfter(latest)) {
+                    latest = timestamp;
+                }
+            } catch (IllegalArgumentException e) {
+                // A record with an unreadable time is never skipped
+                return null;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * @return true if the record is strictly below the mark of its application
+     */
+    public boolean isImported(String applicationId, Instant recordTimestamp) {
+        Instant mark = applicationId != null ? marks.get(applicationId) : null;
+        return mark != null && recordTimestamp != null && recordTimestamp.isBefore(mark);
+    }
+
+    /**
+     * Store the new marks that are ahead of the current ones and commit them
+     * Call only once the rows of the records are committed
+     * @return Number of marks advanced
+     */
+    public int advance(Map<String, Instant> newMarks) throws SQLException {
+        int advanced = 0;
+        try (PreparedStatement update = connection.prepareStatement("UPDATE " + TABLE + " SET Watermark = ? WHERE ApplicationID = ?");
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO " + TABLE + " (ApplicationID, Watermark) VALUES (?, ?)")) {
+            for (Map.Entry<String, Instant> mark : newMarks.entrySet()) {
+                Instant current = marks.get(mark.getKey());
+                if (mark.getValue() == null || (current != null && !mark.getValue().isAfter(current))) {
+                    continue;
+                }
+                update.setString(1, mark.getValue().toString());
+                update.setString(2, mark.getKey());
+                if (update.executeUpdate() == 0) {
+                    insert.setString(1, mark.getKey());
+                    insert.setString(2, mark.getValue().toString());
+                    insert.executeUpdate();
+                }
+                advanced++;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        }
+        for (Map.Entry<String, Instant> mark : newMarks.entrySet()) {
+            if (mark.getValue() != null) {
+                marks.merge(mark.getKey(), mark.getValue(), (current, next) -> next.isAfter(current) ? next : current);
+            }
+        }
+        logger.debug("Watermarks of {} applications advanced", advanced);
+        return advanced;
+    }
+}
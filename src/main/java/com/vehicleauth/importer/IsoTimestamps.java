@@ -0,0 +1,138 @@
+package com.vehicleauth.importer;
+
+/**
+ * Parser for the fixed-shape ISO-8601 date-times of the API, reading the characters in place
+ * Handles yyyy-MM-ddTHH:mm:ss with up to three fraction digits, followed by Z,
+ * +HH:MM, +HHMM or no offset, as in 2025-04-02T11:10:00.015Z. Any other shape,
+ * and values out of range, are left to the JDK parser. Nothing is allocated
+ */
+final class IsoTimestamps {
+
+    /** Returned for a value that is not of the handled shape */
+    static final long NOT_PARSED = Long.MIN_VALUE;
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final int MAX_OFFSET_HOURS = 18;
+
+    private IsoTimestamps() {
+    }
+
+    /**
+     * @return Milliseconds since the epoch of the UTC date-time, a date-time without offset
+     *         taken as UTC; {@link #NOT_PARSED} if the value is not of the handled shape
+     */
+    static long parseEpochMillis(CharSequence text) {
+        return parseEpochMillis(text, 0, text.length());
+    }
+
+    /**
+     * Parse the characters from start to end, such as a parser's text buffer wrapped in a CharBuffer
+     * @see #parseEpochMillis(CharSequence)
+     */
+    static long parseEpochMillis(CharSequence text, int start, int end) {
+        // yyyy-MM-ddTHH:mm:ss
+        if (end - start < 19 || text.charAt(start + 4) != '-' || text.charAt(start + 7) != '-'
+            || text.charAt(start + 10) != 'T' || text.charAt(start + 13) != ':' || text.charAt(start + 16) != ':') {
+            return NOT_PARSED;
+        }
+        int year = digits(text, start, 4);
+        int month = digits(text, start + 5, 2);
+        int day = digits(text, start + 8, 2);
+        int hour = digits(text, start + 11, 2);
+        int minute = digits(text, start + 14, 2);
+        int second = digits(text, start + 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+            || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return NOT_PARSED;
+        }
+
+        int position = start + 19;
+        int millis = 0;
+        if (position < end && text.charAt(position) == '.') {
+            int fractionStart = ++position;
+            while (position < end && position - fractionStart < 3 && isDigit(text.charAt(position))) {
+                millis = millis * 10 + text.charAt(position++) - '0';
+            }
+            int fractionDigits = position - fractionStart;
+            if (fractionDigits == 0 || (position < end && isDigit(text.charAt(position)))) {
+                // Sub-millisecond fractions keep their precision through the JDK parser
+                return NOT_PARSED;
+            }
+            millis *= fractionDigits == 1 ? 100 : fractionDigits == 2 ? 10 : 1;
+        }
+
+        int offsetSeconds = 0;
+        if (position < end) {
+            char sign = text.charAt(position);
+            if (sign == 'Z' && position + 1 == end) {
+                position++;
+            } else if (sign == '+' || sign == '-') {
+                int offsetHours = digits(text, position + 1, 2);
+                int minutesAt = end - position == 6 && text.charAt(position + 3) == ':' ? position + 4
+                    : end - position == 5 ? position + 3 : -1;
+                int offsetMinutes = minutesAt < 0 ? -1 : digits(text, minutesAt, 2);
+                if (offsetHours < 0 || offsetHours > MAX_OFFSET_HOURS || offsetMinutes < 0 || offsetMinutes > 59
+                    || (offsetHours == MAX_OFFSET_HOURS && offsetMinutes > 0)) {
+                    return NOT_PARSED;
+                }
+                offsetSeconds = (offsetHours * 3600 + offsetMinutes * 60) * (sign == '-' ? -1 : 1);
+                position = end;
+            }
+        }
+        if (position != end) {
+            return NOT_PARSED;
+        }
+
+        long secondOfDay = hour * 3600L + minute * 60L + second - offsetSeconds;
+        return epochDay(year, month, day) * MILLIS_PER_DAY + secondOfDay * 1000L + millis;
+    }
+
+    /**
+     * @return The value of the decimal digits, -1 if any character is not a digit or the text ends first
+     */
+    private static int digits(CharSequence text, int start, int count) {
+        if (start < 0 || start + count > text.length()) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + c - '0';
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * @return Days since 1970-01-01 of the proleptic Gregorian date, as LocalDate.toEpochDay
+     */
+    private static long epochDay(int year, int month, int day) {
+        // Years start in March, so the leap day is the last day of the year
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+}
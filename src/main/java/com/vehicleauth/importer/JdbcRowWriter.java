@@ -0,0 +1,244 @@
+package com.vehicleauth.importer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Upserts rows over JDBC, one transaction per record
+ * A row updates the existing row with the same key columns, setting only the columns
+ * it carries, and is inserted otherwise. Prepared statements are cached by their SQL
+ * and the time spent writing each table is recorded
+ */
+public class JdbcRowWriter implements RowWriter, RowMapper.ApplicationIdLookup {
+
+    protected final Connection connection;
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+    private final Map<String, TableThroughput> tableThroughput = new LinkedHashMap<>();
+    private long rowsInserted;
+    private long rowsUpdated;
+    private long commits;
+
+    /**
+     * @param connection Connection owned by the caller, switched to manual commit
+     */
+    public JdbcRowWriter(Connection connection) throws SQLException {
+        this.connection = connection;
+        connection.setAutoCommit(false);
+    }
+
+    @Override
+    public void write(List<Row> rows) throws SQLException {
+        int inserted = 0;
+        int updated = 0;
+        Map<String, TableThroughput> written = new LinkedHashMap<>();
+        try {
+            for (Row row : rows) {
+                long startTime = System.nanoTime();
+                if (upsert(row)) {
+                    inserted++;
+                } else {
+                    updated++;
+                }
+                written.computeIfAbsent(row.getTable().getTableName(), table -> new TableThroughput())
+                       .add(1, System.nanoTime() - startTime);
+            }
+            commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        }
+        countRows(inserted, updated);
+        for (Map.Entry<String, TableThroughput> table : written.entrySet()) {
+            recordTable(table.getKey(), table.getValue().getRows(), table.getValue().getNanos());
+        }
+    }
+
+    @Override
+    public String findApplicationId(String id) throws SQLException {
+        PreparedStatement statement = statement("SELECT ApplicationID FROM Applications WHERE ID = ?");
+        statement.setString(1, id);
+        try (ResultSet result = statement.executeQuery()) {
+            return result.next() ? result.getString(1) : null;
+        }
+    }
+
+    @Override
+    public long getCommits() {
+        return commits;
+    }
+
+    public long getRowsInserted() { return rowsInserted; }
+    public long getRowsUpdated() { return rowsUpdated; }
+
+    /**
+     * @return Rows written and time spent per table, in order of first write
+     */
+    public Map<String, TableThroughput> getTableThroughput() {
+        return Collections.unmodifiableMap(tableThroughput);
+    }
+
+    protected void commit() throws SQLException {
+        connection.commit();
+        commits++;
+    }
+
+    protected void countRows(long inserted, long updated) {
+        rowsInserted += inserted;
+        rowsUpdated += updated;
+    }
+
+    protected void recordTable(String tableName, long rows, long nanos) {
+        tableThroughput.computeIfAbsent(tableName, table -> new TableThroughput()).add(rows, nanos);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        SQLException failure = null;
+        for (PreparedStatement statement : statements.values()) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                failure = e;
+            }
+        }
+        statements.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * @return true if the row was inserted, false if an existing row was updated
+     */
+    private boolean upsert(Row row) throws SQLException {
+        TableMapping table = row.getTable();
+        List<String> keyColumns = table.getKeyColumns();
+        List<String> valueColumns = new ArrayList<>();
+        for (String column : row.getValues().keySet()) {
+            if (!keyColumns.contains(column)) {
+                valueColumns.add(column);
+            }
+        }
+
+        if (valueColumns.isEmpty()) {
+            // Nothing to update, only make sure the row exists
+            PreparedStatement select = statement("SELECT 1 FROM " + table.getTableName() + " WHERE " + conditions(keyColumns));
+            bind(select, row, keyColumns, 1);
+            try (ResultSet result = select.executeQuery()) {
+                if (result.next()) {
+                    return false;
+                }
+            }
+        } else {
+            PreparedStatement update = statement("UPDATE " + table.getTableName() + " SET " + assignments(valueColumns)
+                                                 + " WHERE " + conditions(keyColumns));
+            int index = bind(update, row, valueColumns, 1);
+            bind(update, row, keyColumns, index);
+            if (update.executeUpdate() > 0) {
+                return false;
+            }
+        }
+
+        List<String> columns = new ArrayList<>(row.getValues().keySet());
+        PreparedStatement insert = statement("INSERT INTO " + table.getTableName() + " (" + String.join(", ", columns)
+                                             + ") VALUES (" + placeholders(columns.size()) + ")");
+        bind(insert, row, columns, 1);
+        insert.executeUpdate();
+        return true;
+    }
+
+    protected PreparedStatement statement(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = connection.prepareStatement(sql);
+            statements.put(sql, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * @return Index of the next parameter
+     */
+    protected static int bind(PreparedStatement statement, Row row, List<String> columns, int index) throws SQLException {
+        for (String column : columns) {
+            Object value = row.get(column);
+            if (value == null) {
+                statement.setNull(index, sqlType(row.getTable().getColumnType(column)));
+            } else {
+                statement.setObject(index, value);
+            }
+            index++;
+        }
+        return index;
+    }
+
+    private static int sqlType(TableMapping.ColumnType type) {
+        switch (type) {
+            case DATETIME:
+                return Types.TIMESTAMP;
+            case YESNO:
+                return Types.BOOLEAN;
+            default:
+                return Types.VARCHAR;
+        }
+    }
+
+    protected static String assignments(List<String> columns) {
+        StringBuilder sql = new StringBuilder();
+        for (String column : columns) {
+            if (sql.length() > 0) {
+                sql.append(", ");
+            }
+            sql.append(column).append(" = ?");
+        }
+        return sql.toString();
+    }
+
+    protected static String conditions(List<String> columns) {
+        StringBuilder sql = new StringBuilder();
+        for (String column : columns) {
+            if (sql.length() > 0) {
+                sql.append(" AND ");
+            }
+            sql.append(column).append(" = ?");
+        }
+        return sql.toString();
+    }
+
+    protected static String placeholders(int count) {
+        StringBuilder sql = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Rows written to one table and the time spent writing them
+     */
+    public static class TableThroughput {
+        private long rows;
+        private long nanos;
+
+        void add(long rows, long nanos) {
+            this.rows += rows;
+            this.nanos += nanos;
+        }
+
+        public long getRows() { return rows; }
+        public long getNanos() { return nanos; }
+
+        public double getRowsPerSecond() {
+            return nanos == 0 ? 0 : rows * 1_000_000_000.0 / nanos;
+        }
+    }
+}
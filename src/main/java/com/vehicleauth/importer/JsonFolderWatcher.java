@@ -0,0 +1,411 @@
+package com.vehicleauth.importer;
+
+import com.vehicleauth.analysis.JsonSources;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Imports the JSON files dropped into a directory tree as they arrive
+ * Create and modify events only mark a file as pending; bursts of events for one
+ * file coalesce into one entry. A pending file is imported once no event arrived
+ * and its size did not change for the stable interval, together with the other
+ * files that are stable by then. At most the pending limit of files is tracked;
+ * when more arrive, or the watch service drops events, the directory is scanned
+ * once the pending files are imported, for files modified since, at most the pending
+ * limit at a time. A directory moved in keeps the modification times of its files,
+ * so it is walked when it appears and its files are tracked directly; those beyond
+ * the pending limit wait until there is room. A batch whose import fails stays pending and is tried again after
+ * a delay that doubles with each failure. Files and imports are handled by the thread
+ * running the watcher. The latency from a file's first event to the return of its
+ * successful import is recorded
+ */
+public final class JsonFolderWatcher implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(JsonFolderWatcher.class);
+
+    public static final Duration DEFAULT_STABLE_INTERVAL = Duration.ofSeconds(5);
+    public static final int DEFAULT_MAX_PENDING_FILES = 64;
+
+    // Margin for file systems with coarse modification times
+    private static final long RESCAN_MARGIN_MILLIS = 2000;
+    private static final long MAX_RETRY_DELAY_MILLIS = Duration.ofMinutes(5).toMillis();
+
+    /**
+     * Imports a batch of stable files, returning once their rows are committed
+     */
+    public interface BatchImporter {
+        /**
+         * @return Outcome of the import; records that failed are counted, not retried
+         * @throws Exception If the batch was not imported, it is tried again later
+         */
+        JsonImporter.Result importFiles(List<Path> files) throws Exception;
+    }
+
+    private final Path directory;
+    private final long stableMillis;
+    private final int maxPendingFiles;
+    private final BatchImporter importer;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirectories = new LinkedHashMap<>();
+    private final Map<Path, PendingFile> pending = new LinkedHashMap<>();
+    // Files of new directories found beyond the pending limit, tracked as pending files are imported
+    private final Set<Path> deferred = new LinkedHashSet<>();
+    // Files of the last batch with their modification time, not taken again by a scan
+    private final Map<Path, Long> recentlyImported;
+    // Files modified after this position are picked up by the next scan, null when none is due
+    private ScanPosition rescanAfter;
+    private volatile boolean closed;
+
+    private long importedFiles;
+    private long failedBatches;
+    private long failedFiles;
+    private long failedRecords;
+    private long latencyTotalMillis;
+    private long maxLatencyMillis;
+
+    /**
+     * @param stableInterval Time without events or size changes before a file is imported
+     * @param maxPendingFiles Files tracked at once and imported per batch
+     * @param importExisting Import the files already in the directory, as if they had just been dropped
+     */
+    public JsonFolderWatcher(Path directory, Duration stableInterval, int maxPendingFiles, boolean importExisting,
+                             BatchImporter importer) throws IOException {
+        if (maxPendingFiles < 1) {
+            throw new IllegalArgumentException("Pending file limit must be positive: " + maxPendingFiles);
+        }
+        this.directory = directory;
+        this.stableMillis = stableInterval.toMillis();
+        this.maxPendingFiles = maxPendingFiles;
+        this.importer = importer;
+        this.recentlyImported = new LinkedHashMap<Path, Long>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, Long> eldest) {
+                return size() > maxPendingFiles;
+            }
+        };
+        this.watchService = directory.getFileSystem().newWatchService();
+        registerTree(directory);
+        if (importExisting) {
+            rescanAfter = ScanPosition.START;
+        }
+    }
+
+    /**
+     * Watch and import until the watcher is closed or the thread interrupted
+     */
+    public void run() {
+        logger.info("Watching {} for JSON files", directory);
+        // Checked twice per stable interval
+        long tickMillis = Math.max(10, stableMillis / 2);
+        while (!closed) {
+            try {
+                WatchKey key = watchService.poll(tickMillis, TimeUnit.MILLISECONDS);
+                // Take the rest of a burst before looking at the files
+                while (key != null) {
+                    handleEvents(key);
+                    key = watchService.poll();
+                }
+            } catch (ClosedWatchServiceException e) {
+                break;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            importStableFiles();
+        }
+        logger.info("Stopped watching {}: {} files imported, latency avg {} ms max {} ms", directory, importedFiles,
+                    getAverageLatency().toMillis(), getMaxLatency().toMillis());
+    }
+
+    /**
+     * Stop watching; an import in progress is finished first
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        watchService.close();
+    }
+
+    public long getImportedFiles() { return importedFiles; }
+    public long getFailedBatches() { return failedBatches; }
+
+    /**
+     * @return Files of imported batches that could not be read
+     */
+    public long getFailedFiles() { return failedFiles; }
+
+    /**
+     * @return Records of imported batches that failed, see the dead letter queue
+     */
+    public long getFailedRecords() { return failedRecords; }
+
+    /**
+     * @return Average time from a file's first event to the end of its import
+     */
+    public Duration getAverageLatency() {
+        return Duration.ofMillis(importedFiles == 0 ? 0 : latencyTotalMillis / importedFiles);
+    }
+
+    public Duration getMaxLatency() { return Duration.ofMillis(maxLatencyMillis); }
+
+    private void handleEvents(WatchKey key) {
+        Path dir = watchedDirectories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                logger.warn("Watch events of {} were dropped, scanning it", directory);
+                scheduleRescan();
+                continue;
+            }
+            if (dir == null) {
+                continue;
+            }
+            Path file = dir.resolve((Path) event.context());
+            if (Files.isDirectory(file)) {
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                    registerTree(file);
+                    // Files may have been moved in with the directory, whatever their modification time
+                    trackTree(file);
+                }
+            } else if (JsonSources.isSourceFile(file)) {
+                track(file, System.currentTimeMillis());
+            }
+        }
+        if (!key.reset()) {
+            watchedDirectories.remove(key);
+        }
+    }
+
+    private void track(Path file, long eventTime) {
+        PendingFile pendingFile = pending.get(file);
+        if (pendingFile != null) {
+            pendingFile.lastEvent = eventTime;
+        } else if (pending.size() < maxPendingFiles) {
+            pending.put(file, new PendingFile(eventTime));
+        } else {
+            scheduleRescan();
+        }
+    }
+
+    /**
+     * Track the files of a new directory, deferring those beyond the pending limit
+     */
+    private void trackTree(Path root) {
+        long now = System.currentTimeMillis();
+        try (Stream<Path> walk = Files.walk(root)) {
+            walk.filter(Files::isRegularFile).filter(JsonSources::isSourceFile).forEach(file -> {
+                if (pending.containsKey(file) || pending.size() < maxPendingFiles) {
+                    track(file, now);
+                } else {
+                    deferred.add(file);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to scan " + root + " - " + e.getMessage());
+            scheduleRescan();
+        }
+    }
+
+    private void importStableFiles() {
+        long now = System.currentTimeMillis();
+        List<Path> stable = new ArrayList<>();
+        Iterator<Map.Entry<Path, PendingFile>> files = pending.entrySet().iterator();
+        while (files.hasNext()) {
+            Map.Entry<Path, PendingFile> entry = files.next();
+            PendingFile pendingFile = entry.getValue();
+            long size;
+            try {
+                size = Files.size(entry.getKey());
+            } catch (IOException e) {
+                // Deleted or renamed before it was stable
+                files.remove();
+                continue;
+            }
+            if (size != pendingFile.size) {
+                pendingFile.size = size;
+                pendingFile.sizeSince = now;
+            } else if (now - Math.max(pendingFile.lastEvent, pendingFile.sizeSince) >= stableMillis
+                       && now >= pendingFile.retryAt) {
+                stable.add(entry.getKey());
+            }
+        }
+        if (!stable.isEmpty()) {
+            importBatch(stable);
+        }
+        Iterator<Path> waiting = deferred.iterator();
+        while (waiting.hasNext() && pending.size() < maxPendingFiles) {
+            Path file = waiting.next();
+            waiting.remove();
+            if (Files.exists(file)) {
+                track(file, System.currentTimeMillis());
+            }
+        }
+        if (pending.isEmpty() && rescanAfter != null) {
+            rescan();
+        }
+    }
+
+    private void importBatch(List<Path> files) {
+        JsonImporter.Result result;
+        try {
+            result = importer.importFiles(files);
+        } catch (Exception e) {
+            failedBatches++;
+            long retryAt = System.currentTimeMillis();
+            for (Path file : files) {
+                PendingFile pendingFile = pending.get(file);
+                pendingFile.failures++;
+                pendingFile.retryAt = retryAt + retryDelay(pendingFile.failures);
+            }
+            logger.error("Failed to import " + files + ", trying again in "
+                         + retryDelay(pending.get(files.get(0)).failures) + " ms", e);
+            return;
+        }
+        long finished = System.currentTimeMillis();
+        long batchMaxLatency = 0;
+        for (Path file : files) {
+            long latency = finished - pending.remove(file).firstEvent;
+            latencyTotalMillis += latency;
+            batchMaxLatency = Math.max(batchMaxLatency, latency);
+            recentlyImported.put(file, lastModified(file));
+        }
+        importedFiles += files.size();
+        maxLatencyMillis = Math.max(maxLatencyMillis, batchMaxLatency);
+        if (result != null) {
+            failedFiles += result.getFailedSources();
+            failedRecords += result.getFailedRecords();
+            if (!result.isComplete()) {
+                logger.warn("Imported {} dropped files with {} unreadable files and {} failed records", files.size(),
+                            result.getFailedSources(), result.getFailedRecords());
+            }
+        }
+        logger.info("Imported {} dropped files, latency max {} ms", files.size(), batchMaxLatency);
+    }
+
+    /**
+     * @return Delay before a batch that failed the given number of times is tried again
+     */
+    private long retryDelay(int failures) {
+        return Math.min(MAX_RETRY_DELAY_MILLIS, Math.max(stableMillis, 1) << Math.min(failures - 1, 20));
+    }
+
+    private void scheduleRescan() {
+        if (rescanAfter == null) {
+            rescanAfter = new ScanPosition(System.currentTimeMillis() - stableMillis - RESCAN_MARGIN_MILLIS, "");
+        }
+    }
+
+    /**
+     * Track the oldest files modified after the scan position, up to the pending limit
+     */
+    private void rescan() {
+        TreeSet<ScanPosition> oldest = new TreeSet<>();
+        try (Stream<Path> walk = Files.walk(directory)) {
+            walk.filter(Files::isRegularFile).filter(JsonSources::isSourceFile).forEach(file -> {
+                ScanPosition position = new ScanPosition(lastModified(file), file.toString());
+                Long imported = recentlyImported.get(file);
+                if (position.compareTo(rescanAfter) > 0 && (imported == null || imported != position.modified)) {
+                    oldest.add(position);
+                    if (oldest.size() > maxPendingFiles) {
+                        oldest.pollLast();
+                    }
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to scan " + directory + " - " + e.getMessage());
+            return;
+        }
+
+        boolean more = oldest.size() == maxPendingFiles;
+        for (ScanPosition position : oldest) {
+            // Modification time stands in for the drop time of files found by a scan
+            track(Path.of(position.path), position.modified);
+        }
+        // A full scan may have left files behind, scan again after them
+        rescanAfter = more ? oldest.last() : null;
+    }
+
+    private void registerTree(Path root) {
+        try (Stream<Path> walk = Files.walk(root)) {
+            walk.filter(Files::isDirectory).forEach(dir -> {
+                try {
+                    watchedDirectories.put(dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                                                        StandardWatchEventKinds.ENTRY_MODIFY), dir);
+                } catch (IOException e) {
+                    logger.warn("Failed to watch " + dir + " - " + e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Failed to watch " + root + " - " + e.getMessage());
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * A file seen by an event or a scan, not imported yet
+     */
+    private static final class PendingFile {
+        final long firstEvent;
+        long lastEvent;
+        long size = -1;
+        long sizeSince;
+        // Failed imports, and the time before which the file is not tried again
+        int failures;
+        long retryAt;
+
+        PendingFile(long eventTime) {
+            this.firstEvent = eventTime;
+            this.lastEvent = eventTime;
+        }
+    }
+
+    /**
+     * Files ordered by modification time, then path
+     */
+    private static final class ScanPosition implements Comparable<ScanPosition> {
+        static final ScanPosition START = new ScanPosition(Long.MIN_VALUE, "");
+        private static final Comparator<ScanPosition> ORDER =
+            Comparator.<ScanPosition>comparingLong(position -> position.modified).thenComparing(position -> position.path);
+
+        final long modified;
+        final String path;
+
+        ScanPosition(long modified, String path) {
+            this.modified = modified;
+            this.path = path;
+        }
+
+        @Override
+        public int compareTo(ScanPosition other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.vehicleauth.importer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.vehicleauth.analysis.JsonSources;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Imports application lists, issue lists and application details into the database
+ * Sources are streamed record by record and every record is mapped and written
+ * before the next one is read, so memory use does not grow with the file size.
+ * A record that cannot be mapped or written is logged and skipped; the other
+ * records of its file are still imported. A value too long for its column under
+ * the fail-fast policy stops the import with a {@link ColumnLengthException}
+ */
+public class JsonImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(JsonImporter.class);
+
+    private final JsonRecordReader recordReader;
+    private final RowMapper rowMapper;
+
+    public JsonImporter(RowMapper rowMapper) {
+        this.recordReader = new JsonRecordReader(rowMapper::shapeOf);
+        this.rowMapper = rowMapper;
+    }
+
+    /**
+     * Import all sources in order
+     * @param sources JSON files, see {@link JsonSources}
+     * @throws ColumnLengthException for a value too long for its column under the fail-fast policy
+     */
+    public Result importSources(List<Path> sources, RowWriter writer) {
+        long startTime = System.nanoTime();
+        long rejectedBefore = writer.getRejectedRecords();
+        Counters counters = new Counters();
+
+        for (Path source : sources) {
+            String sourceName = JsonSources.describe(source);
+            logger.debug("Importing: {}", sourceName);
+            try (InputStream input = JsonSources.newInputStream(source)) {
+                recordReader.read(input, (type, record) -> importRecord(type, record, sourceName, writer, counters));
+            } catch (IOException e) {
+                counters.failedSources++;
+                logger.warn("Failed to read file: " + sourceName + " - " + e.getMessage());
+            }
+            flush(writer, sourceName, counters);
+        }
+        counters.failedRecords += writer.getRejectedRecords() - rejectedBefore;
+
+        Result result = new Result(sources.size(), counters.failedSources, counters.records, counters.failedRecords,
+                                   counters.rows, Duration.ofNanos(System.nanoTime() - startTime));
+        logger.info("Import: {} files ({} failed), {} records ({} failed), {} rows",
+                    result.getSources(), result.getFailedSources(), result.getRecords(), result.getFailedRecords(), result.getRows());
+        return result;
+    }
+
+    private void importRecord(JsonPayloadType type, JsonNode record, String sourceName, RowWriter writer, Counters counters) {
+        counters.records++;
+        try {
+            List<Row> rows = rowMapper.map(type, record, sourceName);
+            writer.write(rows);
+            counters.rows += rows.size();
+        } catch (SQLException | RuntimeException e) {
+            if (ColumnLengthException.isFailFast(e)) {
+                throw (ColumnLengthException) e;
+            }
+            counters.failedRecords++;
+            logger.warn("Failed to import " + describe(type, record) + " from " + sourceName + " - " + e.getMessage());
+        }
+    }
+
+    private static void flush(RowWriter writer, String sourceName, Counters counters) {
+        try {
+            writer.flush();
+        } catch (SQLException e) {
+            counters.failedSources++;
+            logger.warn("Failed to store records of file: " + sourceName + " - " + e.getMessage());
+        }
+    }
+
+    static String describe(JsonPayloadType type, JsonNode record) {
+        JsonNode key = type == JsonPayloadType.ISSUE_LIST ? record.path("issueId") : record.path("applicationId");
+        if (key.isMissingNode() || key.isNull()) {
+            key = record.path("id");
+        }
+        return type + " record " + key.asText("?");
+    }
+
+    private static final class Counters {
+        long records;
+        long failedRecords;
+        long rows;
+        int failedSources;
+    }
+
+    /**
+     * Outcome of an import run
+     */
+    public static class Result {
+        private final int sources;
+        private final int failedSources;
+        private final long records;
+        private final long failedRecords;
+        private final long rows;
+        private final Duration elapsed;
+
+        public Result(int sources, int failedSources, long records, long failedRecords, long rows, Duration elapsed) {
+            this.sources = sources;
+            this.failedSources = failedSources;
+            this.records = records;
+            this.failedRecords = failedRecords;
+            this.rows = rows;
+            this.elapsed = elapsed;
+        }
+
+        public int getSources() { return sources; }
+        public int getFailedSources() { return failedSources; }
+        public long getRecords() { return records; }
+        public long getFailedRecords() { return failedRecords; }
+        public long getRows() { return rows; }
+        public Duration getElapsed() { return elapsed; }
+
+        /**
+         * @return true if every file was read and every record written
+         */
+        public boolean isComplete() {
+            return failedSources == 0 && failedRecords == 0;
+        }
+    }
+}
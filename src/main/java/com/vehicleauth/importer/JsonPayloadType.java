@@ -0,0 +1,38 @@
+package com.vehicleauth.importer;
+
+/**
+ * Kinds of JSON files delivered by the application API
+ */
+public enum JsonPayloadType {
+    /** Application list: {"applicationListDTO": [...], "count": n} */
+    APPLICATION_LIST("applicationListDTO"),
+    /** Issue list: {"result": [...], "count": n} */
+    ISSUE_LIST("result"),
+    /** Details of a single application as one top level object */
+    DETAILS(null);
+
+    private final String recordArrayField;
+
+    JsonPayloadType(String recordArrayField) {
+        this.recordArrayField = recordArrayField;
+    }
+
+    /**
+     * @return Top level field holding the records, null for a single-record payload
+     */
+    public String getRecordArrayField() {
+        return recordArrayField;
+    }
+
+    /**
+     * @return The list payload whose records are held by the top level field, or null
+     */
+    public static JsonPayloadType ofRecordArrayField(String fieldName) {
+        for (JsonPayloadType type : values()) {
+            if (type.recordArrayField != null && type.recordArrayField.equals(fieldName)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,168 @@
+package com.vehicleauth.importer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.function.Function;
+
+/**
+ * Streams the records of an API payload one at a time
+ * List payloads are read element by element from their record array, so only the
+ * record being handled is held in memory; a details payload is a single record.
+ * With record shapes, only the properties of a record's shape are bound and the
+ * rest is skipped, see {@link RecordShape}
+ */
+public class JsonRecordReader {
+
+    /**
+     * Receives every record in file order
+     */
+    public interface RecordHandler {
+        void onRecord(JsonPayloadType type, JsonNode record);
+    }
+
+    private final ObjectMapper objectMapper;
+    private final Function<JsonPayloadType, RecordShape> shapes;
+    private long recordOffset;
+
+    /**
+     * Read records as complete trees
+     */
+    public JsonRecordReader() {
+        this(null);
+    }
+
+    /**
+     * @param shapes Shape of the records of each payload type, see {@link RowMapper#shapeOf}; null to read complete trees
+     */
+    public JsonRecordReader(Function<JsonPayloadType, RecordShape> shapes) {
+        this.objectMapper = new ObjectMapper().disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        this.shapes = shapes;
+    }
+
+    /**
+     * @return Byte offset of the record being handled in its payload, 0 for a details record
+     */
+    public long getRecordOffset() {
+        return recordOffset;
+    }
+
+    /**
+     * Read all records of one payload
+     * Records before a syntax error have already been handed over when the error is thrown
+     * @return Number of records read
+     */
+    public long read(InputStream input, RecordHandler handler) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object at the top level");
+            }
+
+            // Top level fields are collected as a details record until a record array shows up
+            ObjectNode details = objectMapper.createObjectNode();
+            RecordShape detailsShape = shapes != null ? shapes.apply(JsonPayloadType.DETAILS) : null;
+            boolean detailsFields = false;
+            JsonPayloadType listType = null;
+            long records = 0;
+
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                token = parser.nextToken();
+                JsonPayloadType fieldListType = JsonPayloadType.ofRecordArrayField(fieldName);
+
+                if (fieldListType != null && token == JsonToken.START_ARRAY) {
+                    listType = fieldListType;
+                    records += readRecordArray(parser, fieldName, listType, 0, handler);
+                } else if (listType == null) {
+                    detailsFields = true;
+                    RecordShape shape = detailsShape != null ? detailsShape.propertyShape(fieldName) : null;
+                    if (detailsShape != null && shape == null) {
+                        parser.skipChildren();
+                    } else {
+                        JsonNode value = shape != null ? shape.read(parser) : parser.readValueAsTree();
+                        details.set(fieldName, value != null ? value : NullNode.getInstance());
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (token != JsonToken.END_OBJECT) {
+                throw new IOException("Unexpected end of input");
+            }
+
+            if (listType == null && detailsFields) {
+                recordOffset = 0;
+                handler.onRecord(JsonPayloadType.DETAILS, details);
+                records++;
+            }
+            return records;
+        }
+    }
+
+    /**
+     * Read the records of a list payload from a record onwards
+     * The input starts at the record, see {@link #skip(InputStream, long)}; the rest of the
+     * array is read and whatever follows it is ignored
+     * @param offset Byte offset of the record in its payload, reported by {@link #getRecordOffset()}
+     * @return Number of records read
+     */
+    public long readFrom(InputStream input, JsonPayloadType type, long offset, RecordHandler handler) throws IOException {
+        // Opening the array again makes the remaining records a complete array up to its end
+        InputStream array = new SequenceInputStream(new ByteArrayInputStream(new byte[] { '[' }), input);
+        try (JsonParser parser = objectMapper.getFactory().createParser(array)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a record array at offset " + offset);
+            }
+            return readRecordArray(parser, type.name(), type, offset - 1, handler);
+        }
+    }
+
+    /**
+     * Skip the first bytes of an input
+     * @return false if the input ended first
+     */
+    public static boolean skip(InputStream input, long bytes) throws IOException {
+        long remaining = bytes;
+        while (remaining > 0) {
+            long skipped = input.skip(remaining);
+            if (skipped <= 0) {
+                if (input.read() < 0) {
+                    return false;
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+        return true;
+    }
+
+    private long readRecordArray(JsonParser parser, String fieldName, JsonPayloadType type, long baseOffset,
+                                 RecordHandler handler) throws IOException {
+        RecordShape shape = shapes != null ? shapes.apply(type) : null;
+        long records = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new IOException("Unexpected end of input in " + fieldName);
+            }
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            recordOffset = baseOffset + parser.getTokenLocation().getByteOffset();
+            JsonNode record = shape != null ? shape.read(parser) : parser.readValueAsTree();
+            handler.onRecord(type, record);
+            records++;
+        }
+        return records;
+    }
+}
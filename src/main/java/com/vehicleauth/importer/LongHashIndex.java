@@ -0,0 +1,88 @@
+package com.vehicleauth.importer;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from long keys to long values
+ * Holds one pair of longs per entry, with no object per entry, so millions of row
+ * hashes fit in a few tens of megabytes
+ */
+final class LongHashIndex {
+
+    private static final long EMPTY = 0L;
+    // Key stored in place of 0, which marks empty slots
+    private static final long ZERO_KEY = 0x9e3779b97f4a7c15L;
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+
+    LongHashIndex() {
+        this.keys = new long[1024];
+        this.values = new long[1024];
+    }
+
+    /**
+     * @return true if the key is present with the value
+     */
+    boolean containsEntry(long key, long value) {
+        int slot = find(storedKey(key));
+        return keys[slot] != EMPTY && values[slot] == value;
+    }
+
+    void put(long key, long value) {
+        long stored = storedKey(key);
+        int slot = find(stored);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = stored;
+            size++;
+        }
+        values[slot] = value;
+        if (size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private int find(long stored) {
+        int mask = keys.length - 1;
+        int slot = (int) mix(stored) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != stored) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldValues.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static long storedKey(long key) {
+        return key == EMPTY ? ZERO_KEY : key;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,603 @@
+package com.vehicleauth.importer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.vehicleauth.analysis.JsonSources;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Imports sources with several parser threads feeding a single writer
+ * Parsers read whole files and map their records to row bundles, which they put on
+ * a bounded queue; the calling thread takes the bundles and writes them. When the
+ * writer falls behind the queue fills up and the parsers block, so memory stays
+ * bounded by the queue capacity. Details records are mapped by the writer, because
+ * resolving their application ID reads the database.
+ * Files are written in the order their parsers finish, not in file order.
+ * With watermarks, application list records strictly below the mark of their
+ * application are skipped before they are mapped. When every file is through and the
+ * writer has committed, the mark of each application is advanced to the latest change
+ * time of its written records, except for the records of files with a rejected row;
+ * records that fail to map are bad data and do not advance or hold back any mark.
+ * With a dead letter queue every record that fails to map or to be stored is added
+ * to it, and the import goes on with the next record.
+ * With a checkpoint the writer saves the progress of every file after each commit.
+ * Files the checkpoint has as completed are skipped, and files in progress are read
+ * from their last committed record, so only the records after the last commit are
+ * imported again. The checkpoint is deleted once all files have been gone through.
+ * A value too long for its column under the fail-fast policy stops the parsers; the
+ * records written before it are committed and the error is thrown
+ */
+public class ParallelJsonImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelJsonImporter.class);
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    // Put by the last parser to finish
+    private static final Bundle END = new Bundle(null, null, null, null, null);
+
+    private final RowMapper rowMapper;
+    private final int parserThreads;
+    private final int queueCapacity;
+    private final ImportWatermarks watermarks;
+    private final DeadLetterQueue deadLetters;
+    private final ImportCheckpoint checkpoint;
+
+    /**
+     * @param parserThreads Number of threads reading and mapping files
+     * @param queueCapacity Record bundles buffered between the parsers and the writer
+     */
+    public ParallelJsonImporter(RowMapper rowMapper, int parserThreads, int queueCapacity) {
+        this(rowMapper, parserThreads, queueCapacity, null, null, null);
+    }
+
+    /**
+     * @param parserThreads Number of threads reading and mapping files
+     * @param queueCapacity Record bundles buffered between the parsers and the writer
+     * @param watermarks Marks of an incremental import, advanced on the writer's connection; null imports everything
+     * @param deadLetters Queue of the records that fail, null to only log them
+     */
+    public ParallelJsonImporter(RowMapper rowMapper, int parserThreads, int queueCapacity, ImportWatermarks watermarks,
+                                DeadLetterQueue deadLetters) {
+        this(rowMapper, parserThreads, queueCapacity, watermarks, deadLetters, null);
+    }
+
+    /**
+     * @param parserThreads Number of threads reading and mapping files
+     * @param queueCapacity Record bundles buffered between the parsers and the writer
+     * @param watermarks Marks of an incremental import, advanced on the writer's connection; null imports everything
+     * @param deadLetters Queue of the records that fail, null to only log them
+     * @param checkpoint Progress of an earlier run to resume and of this run, null to import every file from the start
+     */
+    public ParallelJsonImporter(RowMapper rowMapper, int parserThreads, int queueCapacity, ImportWatermarks watermarks,
+                                DeadLetterQueue deadLetters, ImportCheckpoint checkpoint) {
+        if (parserThreads < 1) {
+            throw new IllegalArgumentException("Parser thread count must be at least 1: " + parserThreads);
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+        }
+        this.rowMapper = rowMapper;
+        this.parserThreads = parserThreads;
+        this.queueCapacity = queueCapacity;
+        this.watermarks = watermarks;
+        this.deadLetters = deadLetters;
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Import all sources
+     * @param sources JSON files, see {@link JsonSources}
+     * @param writer Writer used by the calling thread only
+     * @throws ColumnLengthException for a value too long for its column under the fail-fast policy
+     */
+    public Result importSources(List<Path> sources, RowWriter writer) {
+        long startTime = System.nanoTime();
+        long rejectedBefore = writer.getRejectedRecords();
+        Pipeline pipeline = new Pipeline(sources);
+        pipeline.commits = writer.getCommits();
+
+        int threads = Math.max(1, Math.min(parserThreads, sources.size()));
+        ExecutorService parsers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "json-import-parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (deadLetters != null || watermarks != null) {
+            writer.setRejectionListener((rows, error) -> rejected(pipeline, rows, error));
+        }
+        try {
+            for (int i = 0; i < threads; i++) {
+                parsers.execute(() -> parse(pipeline, threads));
+            }
+            boolean drained = drain(pipeline, writer);
+            if (flush(writer, pipeline) && drained && pipeline.failure.get() == null && checkpoint != null) {
+                checkpoint.finish();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to delete the import checkpoint - " + e.getMessage());
+        } finally {
+            parsers.shutdownNow();
+            if (deadLetters != null || watermarks != null) {
+                writer.setRejectionListener(null);
+            }
+        }
+        if (pipeline.failure.get() != null) {
+            throw pipeline.failure.get();
+        }
+
+        long elapsed = System.nanoTime() - startTime;
+        long failedRecords = pipeline.failedRecords.get() + writer.getRejectedRecords() - rejectedBefore;
+        Result result = new Result(sources.size(), pipeline.failedSources.get(), pipeline.records.get(), failedRecords,
+                                   pipeline.rows, Duration.ofNanos(elapsed), pipeline.skippedRecords.get(),
+                                   pipeline.advancedWatermarks,
+                                   utilization(pipeline.parserBusyNanos.get(), elapsed * threads),
+                                   utilization(pipeline.writerBusyNanos, elapsed),
+                                   pipeline.maxQueueDepth,
+                                   pipeline.takes == 0 ? 0 : (double) pipeline.queueDepthSum / pipeline.takes,
+                                   queueCapacity,
+                                   Duration.ofNanos(pipeline.parserBusyNanos.get() - pipeline.parserMapNanos.get()),
+                                   Duration.ofNanos(pipeline.parserMapNanos.get() + pipeline.writerMapNanos),
+                                   Duration.ofNanos(pipeline.writerBusyNanos - pipeline.writerMapNanos));
+        logger.info("Import: {} files ({} failed), {} records ({} failed, {} skipped), {} rows, parsers {}% busy, writer {}% busy",
+                    result.getSources(), result.getFailedSources(), result.getRecords(), result.getFailedRecords(),
+                    result.getSkippedRecords(), result.getRows(),
+                    Math.round(result.getParserUtilization() * 100), Math.round(result.getWriterUtilization() * 100));
+        return result;
+    }
+
+    private void parse(Pipeline pipeline, int threads) {
+        try {
+            JsonRecordReader recordReader = new JsonRecordReader(rowMapper::shapeOf);
+            Path source;
+            while ((source = pipeline.pendingSources.poll()) != null) {
+                Path file = source;
+                String sourceName = JsonSources.describe(source);
+                if (checkpoint != null && checkpoint.isCompleted(source, sourceName)) {
+                    logger.info("Skipping {}, imported completely by the interrupted run", sourceName);
+                    continue;
+                }
+                // Last record committed by the interrupted run, null to read the whole file
+                ImportCheckpoint.Position resume = checkpoint != null ? checkpoint.resumePosition(source, sourceName) : null;
+                // Time blocked on a full queue does not count as busy
+                long[] busyStart = { System.nanoTime() };
+                try (InputStream input = JsonSources.newInputStream(source)) {
+                    JsonRecordReader.RecordHandler handler = (type, record) -> {
+                        if (pipeline.failure.get() != null) {
+                            throw new InterruptedImport();
+                        }
+                        if (resume != null && recordReader.getRecordOffset() <= resume.getOffset()) {
+                            return;
+                        }
+                        String applicationId = null;
+                        Instant timestamp = null;
+                        if (watermarks != null) {
+                            applicationId = ImportWatermarks.applicationOf(type, record);
+                            timestamp = ImportWatermarks.recordTimestamp(type, record);
+                            if (watermarks.isImported(applicationId, timestamp)) {
+                                pipeline.skippedRecords.incrementAndGet();
+                                return;
+                            }
+                        }
+                        long mapStart = System.nanoTime();
+                        Bundle bundle = map(type, record, file, sourceName, recordReader.getRecordOffset(),
+                                            applicationId != null ? timestamp : null, applicationId, pipeline);
+                        pipeline.parserMapNanos.addAndGet(System.nanoTime() - mapStart);
+                        if (bundle != null) {
+                            pipeline.parserBusyNanos.addAndGet(System.nanoTime() - busyStart[0]);
+                            put(pipeline, bundle);
+                            busyStart[0] = System.nanoTime();
+                        }
+                    };
+                    if (resume != null && resume.getType() != JsonPayloadType.DETAILS) {
+                        if (!JsonRecordReader.skip(input, resume.getOffset())) {
+                            throw new IOException("File ends before its checkpoint at offset " + resume.getOffset());
+                        }
+                        logger.info("Resuming {} after application {}", sourceName, resume.getLastApplicationId());
+                        recordReader.readFrom(input, resume.getType(), resume.getOffset(), handler);
+                    } else {
+                        recordReader.read(input, handler);
+                    }
+                    if (checkpoint != null) {
+                        pipeline.parserBusyNanos.addAndGet(System.nanoTime() - busyStart[0]);
+                        put(pipeline, new Bundle(null, new RecordOrigin(null, sourceName, source, 0, null), null, null, null));
+                        busyStart[0] = System.nanoTime();
+                    }
+                } catch (IOException e) {
+                    pipeline.failedSources.incrementAndGet();
+                    logger.warn("Failed to read file: " + sourceName + " - " + e.getMessage());
+                } catch (InterruptedImport e) {
+                    return;
+                }
+                pipeline.parserBusyNanos.addAndGet(System.nanoTime() - busyStart[0]);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Parser failed", e);
+        } finally {
+            if (pipeline.finishedParsers.incrementAndGet() == threads) {
+                try {
+                    pipeline.queue.put(END);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * @param watermark Change time the mark of the application advances to once the record is committed, or null
+     * @return The bundle to write, or null if the record failed to map
+     */
+    private Bundle map(JsonPayloadType type, JsonNode record, Path source, String sourceName, long offset, Instant watermark,
+                       String applicationId, Pipeline pipeline) {
+        pipeline.records.incrementAndGet();
+        if (type == JsonPayloadType.DETAILS) {
+            return new Bundle(null, new RecordOrigin(type, sourceName, source, offset, record), null, null, null);
+        }
+        // The mapped record is only kept as its description; it was read pruned to the mapped fields,
+        // so a dead letter reads the whole record again
+        RecordOrigin origin = new RecordOrigin(type, sourceName, source, offset, null);
+        try {
+            List<Row> rows = rowMapper.map(type, record, sourceName);
+            if (deadLetters != null || watermarks != null) {
+                rows = DeadLetterQueue.withOrigin(rows, origin);
+            }
+            return new Bundle(rows, origin, JsonImporter.describe(type, record) + " from " + sourceName, watermark, applicationId);
+        } catch (SQLException | RuntimeException e) {
+            if (ColumnLengthException.isFailFast(e)) {
+                abort(pipeline, (ColumnLengthException) e);
+                throw new InterruptedImport();
+            }
+            pipeline.failedRecords.incrementAndGet();
+            logger.warn("Failed to import " + JsonImporter.describe(type, record) + " from " + sourceName + " - " + e.getMessage());
+            if (deadLetters != null) {
+                deadLetters.add(origin, null, DeadLetterQueue.mappingStage(e), e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Stop the import at the first fatal error; parsers stop at their next record and the writer skips what is queued
+     */
+    private static void abort(Pipeline pipeline, ColumnLengthException failure) {
+        if (pipeline.failure.compareAndSet(null, failure)) {
+            logger.error("Import stopped: " + failure.getMessage());
+            pipeline.pendingSources.clear();
+        }
+    }
+
+    private static void put(Pipeline pipeline, Bundle bundle) {
+        try {
+            pipeline.queue.put(bundle);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedImport();
+        }
+    }
+
+    /**
+     * @return true if all parsers finished, false if the writer was interrupted
+     */
+    private boolean drain(Pipeline pipeline, RowWriter writer) {
+        while (true) {
+            Bundle bundle;
+            try {
+                bundle = pipeline.queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            if (bundle == END) {
+                // Rows are rejected when they are flushed, so the marks wait for the last commit
+                if (watermarks != null && pipeline.failure.get() == null && flush(writer, pipeline)) {
+                    advance(pipeline);
+                }
+                return true;
+            }
+            if (pipeline.failure.get() != null) {
+                continue;
+            }
+            int depth = pipeline.queue.size();
+            pipeline.maxQueueDepth = Math.max(pipeline.maxQueueDepth, depth);
+            pipeline.queueDepthSum += depth;
+            pipeline.takes++;
+
+            String sourceName = bundle.origin.getSourceName();
+            if (bundle.isEnd()) {
+                // Completed with the next commit
+                checkpoint.sourceFinished(sourceName);
+                continue;
+            }
+
+            long busyStart = System.nanoTime();
+            List<Row> rows = bundle.rows;
+            try {
+                if (rows == null) {
+                    long mapStart = System.nanoTime();
+                    RecordOrigin origin = bundle.origin;
+                    rows = rowMapper.map(origin.getType(), origin.getRecord(), origin.getSourceName());
+                    if (deadLetters != null || watermarks != null) {
+                        rows = DeadLetterQueue.withOrigin(rows, origin);
+                    }
+                    pipeline.writerMapNanos += System.nanoTime() - mapStart;
+                    // Looking up the application may have committed the records before this one
+                    checkpoint(writer, pipeline);
+                }
+                writer.write(rows);
+                pipeline.rows += rows.size();
+                if (bundle.watermark != null) {
+                    pipeline.newMarks.computeIfAbsent(sourceName, name -> new HashMap<>())
+                        .merge(bundle.applicationId, bundle.watermark, (mark, other) -> mark.isAfter(other) ? mark : other);
+                }
+                if (checkpoint != null) {
+                    checkpoint.recordWritten(bundle.origin, rows);
+                    checkpoint(writer, pipeline);
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (ColumnLengthException.isFailFast(e)) {
+                    abort(pipeline, (ColumnLengthException) e);
+                    continue;
+                }
+                pipeline.failedRecords.incrementAndGet();
+                if (watermarks != null) {
+                    pipeline.heldSources.add(sourceName);
+                }
+                logger.warn("Failed to import " + bundle.describe() + " - " + e.getMessage());
+                if (deadLetters != null) {
+                    deadLetters.add(bundle.origin, null, rows == null ? DeadLetterQueue.mappingStage(e) : DeadLetterQueue.STAGE_INSERTION, e);
+                }
+            }
+            pipeline.writerBusyNanos += System.nanoTime() - busyStart;
+        }
+    }
+
+    /**
+     * Pass rows the writer rejected on to the dead letter queue, and hold back the marks of their file
+     */
+    private void rejected(Pipeline pipeline, List<Row> rows, Exception error) {
+        if (watermarks != null) {
+            RecordOrigin origin = DeadLetterQueue.originOf(rows);
+            if (origin != null) {
+                pipeline.heldSources.add(origin.getSourceName());
+            } else {
+                pipeline.holdAllMarks = true;
+            }
+        }
+        if (deadLetters != null) {
+            deadLetters.addRejected(rows, error);
+        }
+    }
+
+    /**
+     * Advance the marks of the applications written from files none of whose rows were rejected, once all are committed
+     */
+    private void advance(Pipeline pipeline) {
+        long busyStart = System.nanoTime();
+        Map<String, Instant> newMarks = new HashMap<>();
+        for (Map.Entry<String, Map<String, Instant>> source : pipeline.newMarks.entrySet()) {
+            if (pipeline.holdAllMarks || pipeline.heldSources.contains(source.getKey())) {
+                logger.info("Watermarks of {} not advanced, some of its records failed", source.getKey());
+                continue;
+            }
+            source.getValue().forEach((applicationId, mark) ->
+                newMarks.merge(applicationId, mark, (current, other) -> current.isAfter(other) ? current : other));
+        }
+        try {
+            pipeline.advancedWatermarks = watermarks.advance(newMarks);
+        } catch (SQLException e) {
+            logger.warn("Failed to store the watermarks - " + e.getMessage());
+        }
+        pipeline.writerBusyNanos += System.nanoTime() - busyStart;
+    }
+
+    /**
+     * @return true if the writer committed everything written so far
+     */
+    private boolean flush(RowWriter writer, Pipeline pipeline) {
+        long busyStart = System.nanoTime();
+        try {
+            writer.flush();
+            if (checkpoint != null) {
+                checkpoint.committed();
+                pipeline.commits = writer.getCommits();
+            }
+            return true;
+        } catch (SQLException e) {
+            pipeline.failedSources.incrementAndGet();
+            logger.warn("Failed to store imported records - " + e.getMessage());
+            return false;
+        } finally {
+            pipeline.writerBusyNanos += System.nanoTime() - busyStart;
+        }
+    }
+
+    /**
+     * Save the checkpoint if the writer committed since it was last saved
+     */
+    private void checkpoint(RowWriter writer, Pipeline pipeline) {
+        if (checkpoint != null && writer.getCommits() != pipeline.commits) {
+            pipeline.commits = writer.getCommits();
+            checkpoint.committed();
+        }
+    }
+
+    private static double utilization(long busyNanos, long availableNanos) {
+        return availableNanos <= 0 ? 0 : Math.min(1.0, (double) busyNanos / availableNanos);
+    }
+
+    /**
+     * Rows of one record with the mark they advance, if any, the record itself if the writer maps it, or the end of a file
+     */
+    private static final class Bundle {
+        final List<Row> rows;
+        // Holds the record if the writer maps it
+        final RecordOrigin origin;
+        // Description of a mapped record
+        final String description;
+        final Instant watermark;
+        final String applicationId;
+
+        Bundle(List<Row> rows, RecordOrigin origin, String description, Instant watermark, String applicationId) {
+            this.rows = rows;
+            this.origin = origin;
+            this.description = description;
+            this.watermark = watermark;
+            this.applicationId = applicationId;
+        }
+
+        /**
+         * @return true for the end of a file, put once all its records are
+         */
+        boolean isEnd() {
+            return rows == null && origin.getType() == null;
+        }
+
+        String describe() {
+            return description != null ? description
+                : JsonImporter.describe(origin.getType(), origin.getRecord()) + " from " + origin.getSourceName();
+        }
+    }
+
+    /**
+     * State shared by the parsers and the writer of one run
+     */
+    private final class Pipeline {
+        final Queue<Path> pendingSources;
+        final BlockingQueue<Bundle> queue = new ArrayBlockingQueue<>(queueCapacity);
+        final AtomicInteger finishedParsers = new AtomicInteger();
+        // First fatal error, stops the import
+        final AtomicReference<ColumnLengthException> failure = new AtomicReference<>();
+        final AtomicInteger failedSources = new AtomicInteger();
+        final AtomicLong records = new AtomicLong();
+        final AtomicLong failedRecords = new AtomicLong();
+        final AtomicLong skippedRecords = new AtomicLong();
+        final AtomicLong parserBusyNanos = new AtomicLong();
+        final AtomicLong parserMapNanos = new AtomicLong();
+        // Written by the writer thread only
+        long rows;
+        long writerBusyNanos;
+        long writerMapNanos;
+        int maxQueueDepth;
+        long queueDepthSum;
+        long takes;
+        int advancedWatermarks;
+        // Marks of the written records per file, and the files with a failed or rejected record
+        final Map<String, Map<String, Instant>> newMarks = new HashMap<>();
+        final Set<String> heldSources = new HashSet<>();
+        boolean holdAllMarks;
+        // Writer commits when the checkpoint was last saved
+        long commits;
+
+        Pipeline(List<Path> sources) {
+            this.pendingSources = new ConcurrentLinkedQueue<>(sources);
+        }
+    }
+
+    /**
+     * Unwinds a parser out of the record handler when the import is cancelled
+     */
+    private static final class InterruptedImport extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        InterruptedImport() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Outcome of a parallel import run, with the load of both sides of the queue
+     */
+    public static class Result extends JsonImporter.Result {
+        private final double parserUtilization;
+        private final double writerUtilization;
+        private final int maxQueueDepth;
+        private final double averageQueueDepth;
+        private final int queueCapacity;
+        private final long skippedRecords;
+        private final int advancedWatermarks;
+        private final Duration parseTime;
+        private final Duration mapTime;
+        private final Duration writeTime;
+
+        public Result(int sources, int failedSources, long records, long failedRecords, long rows, Duration elapsed,
+                      long skippedRecords, int advancedWatermarks, double parserUtilization, double writerUtilization, int maxQueueDepth, double averageQueueDepth,
+                      int queueCapacity, Duration parseTime, Duration mapTime, Duration writeTime) {
+            super(sources, failedSources, records, failedRecords, rows, elapsed);
+            this.parserUtilization = parserUtilization;
+            this.writerUtilization = writerUtilization;
+            this.maxQueueDepth = maxQueueDepth;
+            this.averageQueueDepth = averageQueueDepth;
+            this.queueCapacity = queueCapacity;
+            this.skippedRecords = skippedRecords;
+            this.advancedWatermarks = advancedWatermarks;
+            this.parseTime = parseTime;
+            this.mapTime = mapTime;
+            this.writeTime = writeTime;
+        }
+
+        /**
+         * @return Records below their application's watermark, not counted in {@link #getRecords()}
+         */
+        public long getSkippedRecords() { return skippedRecords; }
+
+        public int getAdvancedWatermarks() { return advancedWatermarks; }
+
+        /**
+         * @return Time the parsers spent reading records, summed over the threads
+         */
+        public Duration getParseTime() { return parseTime; }
+
+        /**
+         * @return Time spent mapping and validating records, by the parsers and the writer
+         */
+        public Duration getMapTime() { return mapTime; }
+
+        /**
+         * @return Time the writer spent writing and committing rows
+         */
+        public Duration getWriteTime() { return writeTime; }
+
+        /**
+         * @return Share of the parser threads' time spent reading and mapping, 0 to 1
+         */
+        public double getParserUtilization() { return parserUtilization; }
+
+        /**
+         * @return Share of the run the writer spent writing, 0 to 1
+         */
+        public double getWriterUtilization() { return writerUtilization; }
+
+        public int getMaxQueueDepth() { return maxQueueDepth; }
+        public double getAverageQueueDepth() { return averageQueueDepth; }
+        public int getQueueCapacity() { return queueCapacity; }
+
+        /**
+         * @return "writer" if the writer was the busier side, "parsers" otherwise
+         */
+        public String getBottleneck() {
+            return writerUtilization >= parserUtilization ? "writer" : "parsers";
+        }
+    }
+}
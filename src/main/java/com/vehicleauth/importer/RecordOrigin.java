@@ -0,0 +1,43 @@
+package com.vehicleauth.importer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.nio.file.Path;
+
+/**
+ * Where a record was read from
+ * Rows of a record keep its origin while they are buffered, so a record rejected
+ * later can still be traced to its file and read again from there
+ */
+public final class RecordOrigin {
+
+    private final JsonPayloadType type;
+    private final String sourceName;
+    private final Path source;
+    private final long offset;
+    private final JsonNode record;
+
+    /**
+     * @param source File the record can be read again from, null if it is held in memory
+     * @param offset Byte offset of the record in its payload, 0 for a details record
+     * @param record The record itself, possibly pruned to the mapped fields; null to read it again from the file when needed
+     */
+    public RecordOrigin(JsonPayloadType type, String sourceName, Path source, long offset, JsonNode record) {
+        this.type = type;
+        this.sourceName = sourceName;
+        this.source = source;
+        this.offset = offset;
+        this.record = record;
+    }
+
+    public JsonPayloadType getType() { return type; }
+    public String getSourceName() { return sourceName; }
+    public Path getSource() { return source; }
+    public long getOffset() { return offset; }
+    public JsonNode getRecord() { return record; }
+
+    @Override
+    public String toString() {
+        return sourceName + "@" + offset;
+    }
+}
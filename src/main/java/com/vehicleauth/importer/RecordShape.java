@@ -0,0 +1,118 @@
+package com.vehicleauth.importer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The properties of a record the importer reads, bound from the parser while everything else is skipped
+ * A shape lists the properties of an object, each with the shape of its value; the
+ * shape of an array property applies to every element. Properties not in the shape
+ * are skipped token by token and never become nodes, so unmapped subtrees such as
+ * the PDF references of contact persons cost no memory. A property kept whole is
+ * read as a complete tree. Nodes are built straight from the parser's tokens
+ */
+public final class RecordShape {
+
+    // Nodes as ObjectMapper.readTree builds them by default
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+    private final Map<String, RecordShape> properties = new HashMap<>();
+    private boolean whole;
+
+    /**
+     * @return The shape of the property's value, added if it is not in the shape yet
+     */
+    public RecordShape property(String name) {
+        return properties.computeIfAbsent(name, property -> new RecordShape());
+    }
+
+    /**
+     * @return The shape of the property's value, null if the property is skipped
+     */
+    RecordShape propertyShape(String name) {
+        return whole ? this : properties.get(name);
+    }
+
+    /**
+     * Keep the values of the properties whole
+     * @return This shape
+     */
+    public RecordShape keep(String... names) {
+        for (String name : names) {
+            property(name).whole = true;
+        }
+        return this;
+    }
+
+    /**
+     * Keep the values the table's columns are read from, relative to this shape's object
+     * @return This shape
+     */
+    public RecordShape columnsOf(TableMapping table) {
+        for (JsonPointer path : table.getColumnPaths().values()) {
+            RecordShape shape = this;
+            for (JsonPointer segment = path; !segment.matches(); segment = segment.tail()) {
+                shape = shape.property(segment.getMatchingProperty());
+            }
+            shape.whole = true;
+        }
+        return this;
+    }
+
+    /**
+     * Read the value at the parser's current token, which is left at the value's last token
+     */
+    public JsonNode read(JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case START_OBJECT:
+                ObjectNode object = NODES.objectNode();
+                String name;
+                while ((name = parser.nextFieldName()) != null) {
+                    RecordShape shape = propertyShape(name);
+                    parser.nextToken();
+                    if (shape == null) {
+                        parser.skipChildren();
+                    } else {
+                        object.set(name, shape.read(parser));
+                    }
+                }
+                return object;
+            case START_ARRAY:
+                ArrayNode array = NODES.arrayNode();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    array.add(read(parser));
+                }
+                return array;
+            case VALUE_STRING:
+                return NODES.textNode(parser.getText());
+            case VALUE_NUMBER_INT:
+                switch (parser.getNumberType()) {
+                    case INT:
+                        return NODES.numberNode(parser.getIntValue());
+                    case LONG:
+                        return NODES.numberNode(parser.getLongValue());
+                    default:
+                        return NODES.numberNode(parser.getBigIntegerValue());
+                }
+            case VALUE_NUMBER_FLOAT:
+                return NODES.numberNode(parser.getDoubleValue());
+            case VALUE_TRUE:
+                return NODES.booleanNode(true);
+            case VALUE_FALSE:
+                return NODES.booleanNode(false);
+            case VALUE_EMBEDDED_OBJECT:
+                return NODES.pojoNode(parser.getEmbeddedObject());
+            default:
+                return NODES.nullNode();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.vehicleauth.importer;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Column values of one database row
+ * Only columns present in the JSON are set, so writing the row leaves all other
+ * columns of an existing row untouched. Values are String, Boolean or
+ * java.sql.Timestamp, or null for a JSON null
+ */
+public final class Row {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final TableMapping table;
+    private final Map<String, Object> values;
+    private final RecordOrigin origin;
+
+    public Row(TableMapping table, Map<String, Object> values) {
+        this(table, Collections.unmodifiableMap(new LinkedHashMap<>(values)), null);
+    }
+
+    private Row(TableMapping table, Map<String, Object> values, RecordOrigin origin) {
+        this.table = table;
+        this.values = values;
+        this.origin = origin;
+    }
+
+    public TableMapping getTable() { return table; }
+    public Map<String, Object> getValues() { return values; }
+
+    /**
+     * @return The record the row was mapped from, or null if unknown
+     */
+    public RecordOrigin getOrigin() { return origin; }
+
+    /**
+     * @return The same row, remembering the record it was mapped from
+     */
+    public Row withOrigin(RecordOrigin origin) {
+        return new Row(table, values, origin);
+    }
+
+    public Object get(String column) {
+        return values.get(column);
+    }
+
+    /**
+     * Stable 64-bit FNV-1a hash of the names and values of the non-key columns
+     */
+    public long contentHash() {
+        long hash = FNV_OFFSET_BASIS;
+        for (Map.Entry<String, Object> column : values.entrySet()) {
+            if (table.getKeyColumns().contains(column.getKey())) {
+                continue;
+            }
+            hash = hash(hash, column.getKey());
+            Object value = column.getValue();
+            hash = hash(hash, value instanceof Timestamp ? Long.toString(((Timestamp) value).getTime()) : Objects.toString(value));
+        }
+        return hash;
+    }
+
+    /**
+     * Stable 64-bit hash of the table, the key values and the names of the columns set
+     * Rows of the same key setting different columns, such as the application key row
+     * of an issue and the full application row, have different identities
+     */
+    public long identityHash() {
+        long hash = hash(FNV_OFFSET_BASIS, table.getTableName());
+        for (String keyColumn : table.getKeyColumns()) {
+            hash = hash(hash, Objects.toString(values.get(keyColumn)));
+        }
+        for (String column : values.keySet()) {
+            hash = hash(hash, column);
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        // Separator, so that "ab" + "c" and "a" + "bc" differ
+        hash ^= 0xff;
+        return hash * FNV_PRIME;
+    }
+
+    @Override
+    public String toString() {
+        return table.getTableName() + values;
+    }
+}
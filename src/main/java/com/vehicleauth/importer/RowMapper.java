@@ -0,0 +1,418 @@
+package com.vehicleauth.importer;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns one JSON record into the normalized rows of all tables it touches
+ * Rows of nested objects receive the keys of their parents; objects without an id
+ * produce no row. The rows of a record are returned in {@link ImportSchema} order,
+ * so referenced rows are written first
+ */
+public class RowMapper {
+
+    /**
+     * Finds the application ID of an application already in the database
+     */
+    public interface ApplicationIdLookup {
+        /**
+         * @param id GUID of the application, the "id" of list and details records
+         * @return The application ID, or null if the application is unknown
+         */
+        String findApplicationId(String id) throws SQLException;
+    }
+
+    // Application IDs such as V-20250130-002, details files carry them only in their name
+    private static final Pattern APPLICATION_ID_PATTERN = Pattern.compile("[A-Z]-\\d{8}-\\d{3}");
+
+    private static final String[] STAFF_FIELDS = { "assessor", "projectManager", "assuror", "decisionMaker" };
+    private static final String[][] BODY_ROLE_FIELDS = {
+        { "notifiedBodies", "notified" },
+        { "designatedBodies", "designated" },
+        { "assessmentBodies", "assessment" }
+    };
+
+    private final ImportSchema schema;
+    private final ApplicationIdLookup applicationIdLookup;
+    private final ColumnLimits columnLimits;
+
+    private final TableMapping addresses;
+    private final TableMapping contactDetails;
+    private final TableMapping documents;
+    private final TableMapping contactPersons;
+    private final TableMapping billingInformation;
+    private final TableMapping bodies;
+    private final TableMapping applications;
+    private final TableMapping applicationStaff;
+    private final TableMapping applicationBodies;
+    private final TableMapping issues;
+    private final TableMapping vehicleTypes;
+    private final TableMapping vehiclesToAuthorise;
+    private final TableMapping applicableRules;
+    private final TableMapping memberStateMappings;
+    private final TableMapping networks;
+    private final TableMapping agencyMappings;
+    private final TableMapping agencyMappingValues;
+    private final TableMapping msMappingRequirements;
+    private final TableMapping msMappingRequirementValues;
+    // Properties each mapping method reads, kept in step with it
+    private final Map<JsonPayloadType, RecordShape> shapes = new EnumMap<>(JsonPayloadType.class);
+
+    /**
+     * @param applicationIdLookup Resolves details records, which carry no application ID
+     */
+    public RowMapper(ImportSchema schema, ApplicationIdLookup applicationIdLookup) {
+        this(schema, applicationIdLookup, ColumnLimits.NONE);
+    }
+
+    /**
+     * @param applicationIdLookup Resolves details records, which carry no application ID
+     * @param columnLimits Longest text of the columns, checked for every value mapped
+     */
+    public RowMapper(ImportSchema schema, ApplicationIdLookup applicationIdLookup, ColumnLimits columnLimits) {
+        this.schema = schema;
+        this.applicationIdLookup = applicationIdLookup;
+        this.columnLimits = columnLimits;
+        this.addresses = schema.table("Addresses");
+        this.contactDetails = schema.table("ContactDetails");
+        this.documents = schema.table("Documents");
+        this.contactPersons = schema.table("ContactPersons");
+        this.billingInformation = schema.table("BillingInformation");
+        this.bodies = schema.table("Bodies");
+        this.applications = schema.table("Applications");
+        this.applicationStaff = schema.table("ApplicationStaff");
+        this.applicationBodies = schema.table("ApplicationBodies");
+        this.issues = schema.table("Issues");
+        this.vehicleTypes = schema.table("VehicleTypes");
+        this.vehiclesToAuthorise = schema.table("VehiclesToAuthorise");
+        this.applicableRules = schema.table("ApplicableRules");
+        this.memberStateMappings = schema.table("MemberStateMappings");
+        this.networks = schema.table("Networks");
+        this.agencyMappings = schema.table("AgencyMappings");
+        this.agencyMappingValues = schema.table("AgencyMappingValues");
+        this.msMappingRequirements = schema.table("MSMappingRequirements");
+        this.msMappingRequirementValues = schema.table("MSMappingRequirementValues");
+
+        shapes.put(JsonPayloadType.APPLICATION_LIST, applicationListShape());
+        shapes.put(JsonPayloadType.ISSUE_LIST, issueShape());
+        shapes.put(JsonPayloadType.DETAILS, detailsShape());
+    }
+
+    /**
+     * @return The properties of a record of the type that are read when it is mapped, see {@link JsonRecordReader}
+     */
+    public RecordShape shapeOf(JsonPayloadType type) {
+        return shapes.get(type);
+    }
+
+    /**
+     * Map one record
+     * @param sourceName Name of the file the record came from
+     * @return Rows in write order
+     * @throws IllegalArgumentException if the record lacks its key or holds a value that does not fit its column,
+     *         a {@link ColumnLengthException} for text longer than its column
+     */
+    public List<Row> map(JsonPayloadType type, JsonNode record, String sourceName) throws SQLException {
+        List<Row> rows = new ArrayList<>();
+        switch (type) {
+            case APPLICATION_LIST:
+                mapApplicationListRecord(record, rows);
+                break;
+            case ISSUE_LIST:
+                mapIssue(record, rows);
+                break;
+            default:
+                mapDetails(record, sourceName, rows);
+                break;
+        }
+        rows.sort(Comparator.comparingInt(row -> schema.orderOf(row.getTable())));
+        return rows;
+    }
+
+    private void mapApplicationListRecord(JsonNode record, List<Row> rows) {
+        String applicationId = ColumnValues.text(record.path("applicationId"));
+        if (applicationId == null) {
+            throw new IllegalArgumentException("Application list record without applicationId");
+        }
+
+        add(rows, applications, record, values());
+        for (String staffField : STAFF_FIELDS) {
+            for (JsonNode staffName : record.path(staffField)) {
+                add(rows, applicationStaff, null,
+                    values("ApplicationID", applicationId, "StaffType", staffField, "StaffName", ColumnValues.text(staffName)));
+            }
+        }
+    }
+
+    private RecordShape applicationListShape() {
+        return recordShape().columnsOf(applications).keep(STAFF_FIELDS);
+    }
+
+    private void mapIssue(JsonNode record, List<Row> rows) {
+        // The issue's application may not be imported yet; its key row keeps the reference valid
+        String applicationId = ColumnValues.text(record.path("applicationId"));
+        if (applicationId != null) {
+            Map<String, Object> application = values("ApplicationID", applicationId);
+            String id = ColumnValues.text(record.path("application").path("id"));
+            if (id != null) {
+                application.put("ID", id);
+            }
+            add(rows, applications, null, application);
+        }
+
+        if (add(rows, issues, record, values()) == null) {
+            throw new IllegalArgumentException("Issue record without issueId");
+        }
+    }
+
+    private RecordShape issueShape() {
+        RecordShape shape = recordShape().columnsOf(issues);
+        shape.property("application").keep("id");
+        return shape;
+    }
+
+    private void mapDetails(JsonNode record, String sourceName, List<Row> rows) throws SQLException {
+        String applicationId = resolveApplicationId(record, sourceName);
+
+        contactPerson(rows, record.path("contactPerson"), "contact", "userAddress", "userContactDetails");
+        contactPerson(rows, record.path("financialContactPerson"), "financial", "address", "contactDetails");
+
+        JsonNode billing = record.path("billingInformation");
+        add(rows, addresses, billing.path("address"), values());
+        add(rows, contactDetails, billing.path("contactDetails"), values());
+        add(rows, billingInformation, billing, values());
+
+        add(rows, applications, record, values("ApplicationID", applicationId));
+
+        body(rows, record.path("applicantBody"), "applicant", applicationId);
+        for (String[] bodyRole : BODY_ROLE_FIELDS) {
+            for (JsonNode body : record.path(bodyRole[0])) {
+                body(rows, body, bodyRole[1], applicationId);
+            }
+        }
+
+        for (JsonNode vehicleType : record.path("variantsTypesList")) {
+            vehicleType(rows, vehicleType, applicationId);
+        }
+    }
+
+    private RecordShape detailsShape() {
+        RecordShape shape = recordShape().columnsOf(applications);
+        contactPersonShape(shape.property("contactPerson"), "userAddress", "userContactDetails");
+        contactPersonShape(shape.property("financialContactPerson"), "address", "contactDetails");
+
+        RecordShape billing = shape.property("billingInformation").columnsOf(billingInformation);
+        billing.property("address").columnsOf(addresses);
+        billing.property("contactDetails").columnsOf(contactDetails);
+
+        bodyShape(shape.property("applicantBody"));
+        for (String[] bodyRole : BODY_ROLE_FIELDS) {
+            bodyShape(shape.property(bodyRole[0]));
+        }
+
+        vehicleTypeShape(shape.property("variantsTypesList"));
+        return shape;
+    }
+
+    /**
+     * @return Shape of the top level of a record, with the fields identifying it
+     */
+    private static RecordShape recordShape() {
+        return new RecordShape().keep("applicationId", "id", "issueId");
+    }
+
+    /**
+     * Details records are matched by their GUID, falling back to the ID in the file name
+     */
+    private String resolveApplicationId(JsonNode record, String sourceName) throws SQLException {
+        String applicationId = ColumnValues.text(record.path("applicationId"));
+        String id = ColumnValues.text(record.path("id"));
+        if (applicationId == null && id != null && applicationIdLookup != null) {
+            applicationId = applicationIdLookup.findApplicationId(id);
+        }
+        if (applicationId == null) {
+            Matcher matcher = APPLICATION_ID_PATTERN.matcher(sourceName);
+            while (matcher.find()) {
+                applicationId = matcher.group();
+            }
+        }
+        if (applicationId == null) {
+            throw new IllegalArgumentException("Cannot determine the application ID of details record " + id);
+        }
+        return applicationId;
+    }
+
+    private void contactPerson(List<Row> rows, JsonNode person, String personType, String addressField, String contactDetailsField) {
+        Row address = add(rows, addresses, person.path(addressField), values());
+        Row details = add(rows, contactDetails, person.path(contactDetailsField), values());
+        add(rows, contactPersons, person, values(
+            "AddressID", key(address, "AddressID"),
+            "ContactDetailsID", key(details, "ContactDetailsID"),
+            "PersonType", personType));
+    }
+
+    private void contactPersonShape(RecordShape person, String addressField, String contactDetailsField) {
+        person.columnsOf(contactPersons);
+        person.property(addressField).columnsOf(addresses);
+        person.property(contactDetailsField).columnsOf(contactDetails);
+    }
+
+    private void body(List<Row> rows, JsonNode body, String role, String applicationId) {
+        add(rows, addresses, body.path("address"), values());
+        add(rows, contactDetails, body.path("contactDetails"), values());
+        Row row = add(rows, bodies, body, values("BodyType", role));
+        if (row != null && applicationId != null) {
+            add(rows, applicationBodies, null,
+                values("ApplicationID", applicationId, "BodyID", key(row, "BodyID"), "BodyRole", role));
+        }
+    }
+
+    private void bodyShape(RecordShape body) {
+        body.columnsOf(bodies);
+        body.property("address").columnsOf(addresses);
+        body.property("contactDetails").columnsOf(contactDetails);
+    }
+
+    private void vehicleType(List<Row> rows, JsonNode vehicleType, String applicationId) {
+        String vehicleTypeId = key(add(rows, vehicleTypes, vehicleType, values("ApplicationID", applicationId)), "VehicleTypeID");
+        if (vehicleTypeId == null) {
+            return;
+        }
+
+        body(rows, vehicleType.path("authorisationHolder"), "authorisationHolder", null);
+
+        for (JsonNode vehicle : vehicleType.path("vehiclesToAuthorise")) {
+            add(rows, vehiclesToAuthorise, vehicle, values("VehicleTypeID", vehicleTypeId));
+        }
+
+        for (JsonNode ruleGroup : vehicleType.path("uiApplicableRules")) {
+            for (JsonNode rule : ruleGroup.path("rules")) {
+                add(rows, applicableRules, rule, values("VehicleTypeID", vehicleTypeId,
+                    "RuleType", ColumnValues.text(ruleGroup.path("type")), "MSCode", ColumnValues.text(ruleGroup.path("msCode"))));
+            }
+        }
+
+        for (JsonNode mapping : vehicleType.path("msMappings")) {
+            String mappingId = key(add(rows, memberStateMappings, mapping, values("VehicleTypeID", vehicleTypeId)), "MappingID");
+            if (mappingId == null) {
+                continue;
+            }
+            for (JsonNode network : mapping.path("networks")) {
+                add(rows, networks, network, values("MappingID", mappingId));
+            }
+            // Requirements of a member state mapping are nested as msMappings
+            for (JsonNode requirement : mapping.path("msMappings")) {
+                String requirementId = key(add(rows, msMappingRequirements, requirement, values("MappingID", mappingId)), "RequirementID");
+                if (requirementId == null) {
+                    continue;
+                }
+                for (JsonNode value : requirement.path("values")) {
+                    add(rows, documents, value.path("document"), values());
+                    add(rows, msMappingRequirementValues, value, values("RequirementID", requirementId));
+                }
+            }
+        }
+
+        for (JsonNode mapping : vehicleType.path("agencyMappings")) {
+            String agencyMappingId = key(add(rows, agencyMappings, mapping, values("VehicleTypeID", vehicleTypeId)), "AgencyMappingID");
+            if (agencyMappingId == null) {
+                continue;
+            }
+            for (JsonNode value : mapping.path("values")) {
+                add(rows, documents, value.path("document"), values());
+                add(rows, agencyMappingValues, value, values("AgencyMappingID", agencyMappingId));
+            }
+        }
+    }
+
+    private void vehicleTypeShape(RecordShape vehicleType) {
+        vehicleType.columnsOf(vehicleTypes);
+        bodyShape(vehicleType.property("authorisationHolder"));
+        vehicleType.property("vehiclesToAuthorise").columnsOf(vehiclesToAuthorise);
+
+        RecordShape ruleGroup = vehicleType.property("uiApplicableRules").keep("type", "msCode");
+        ruleGroup.property("rules").columnsOf(applicableRules);
+
+        RecordShape mapping = vehicleType.property("msMappings").columnsOf(memberStateMappings);
+        mapping.property("networks").columnsOf(networks);
+        RecordShape requirement = mapping.property("msMappings").columnsOf(msMappingRequirements);
+        valueShape(requirement.property("values").columnsOf(msMappingRequirementValues));
+
+        RecordShape agencyMapping = vehicleType.property("agencyMappings").columnsOf(agencyMappings);
+        valueShape(agencyMapping.property("values").columnsOf(agencyMappingValues));
+    }
+
+    private void valueShape(RecordShape value) {
+        value.property("document").columnsOf(documents);
+    }
+
+    /**
+     * Build a row from the JSON object and the handed down values
+     * @param entity JSON object of the row, null if all values are handed down
+     * @param supplied Handed down values, they take precedence over values in the object
+     * @return The row, or null if a key column has no value
+     */
+    private Row add(List<Row> rows, TableMapping table, JsonNode entity, Map<String, Object> supplied) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        int[] limits = columnLimits.of(table);
+        int columnIndex = -1;
+        for (Map.Entry<String, TableMapping.ColumnType> column : table.getColumnTypes().entrySet()) {
+            columnIndex++;
+            String columnName = column.getKey();
+            Object columnValue;
+            if (supplied.containsKey(columnName)) {
+                columnValue = supplied.get(columnName);
+            } else {
+                JsonPointer path = table.getColumnPaths().get(columnName);
+                if (entity == null || path == null) {
+                    continue;
+                }
+                JsonNode value = entity.at(path);
+                if (value.isMissingNode()) {
+                    continue;
+                }
+                try {
+                    columnValue = ColumnValues.convert(value, column.getValue());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(table + "." + columnName + ": " + e.getMessage(), e);
+                }
+            }
+            if (limits != null && limits[columnIndex] > 0 && columnValue instanceof String
+                && ((String) columnValue).length() > limits[columnIndex]) {
+                columnValue = columnLimits.tooLong(table, columnName, (String) columnValue, limits[columnIndex]);
+            }
+            values.put(columnName, columnValue);
+        }
+
+        for (String keyColumn : table.getKeyColumns()) {
+            if (values.get(keyColumn) == null) {
+                return null;
+            }
+        }
+        Row row = new Row(table, values);
+        rows.add(row);
+        return row;
+    }
+
+    private static String key(Row row, String column) {
+        return row == null ? null : (String) row.get(column);
+    }
+
+    private static Map<String, Object> values(Object... columnsAndValues) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int i = 0; i < columnsAndValues.length; i += 2) {
+            values.put((String) columnsAndValues[i], columnsAndValues[i + 1]);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,54 @@
+package com.vehicleauth.importer;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Destination of the rows produced by the importer
+ */
+public interface RowWriter extends AutoCloseable {
+
+    /**
+     * Told about every record rejected after {@link #write} accepted it
+     */
+    interface RejectionListener {
+        void onRejected(List<Row> rows, Exception error);
+    }
+
+    /**
+     * Write the rows of one record as a unit: either all rows are stored or none
+     * A buffering writer may store the rows later; a record that fails then is
+     * rejected on its own and counted by {@link #getRejectedRecords()}
+     * @param rows Rows in write order
+     */
+    void write(List<Row> rows) throws SQLException;
+
+    /**
+     * Store and commit all buffered rows
+     */
+    default void flush() throws SQLException {
+    }
+
+    /**
+     * @return Number of records accepted by {@link #write} that failed when their rows were stored
+     */
+    default long getRejectedRecords() {
+        return 0;
+    }
+
+    /**
+     * @return Number of transactions committed; every record accepted by {@link #write} before the last commit is stored or rejected
+     */
+    default long getCommits() {
+        return 0;
+    }
+
+    /**
+     * @param listener Listener for rejected records, null for none; writers that never reject ignore it
+     */
+    default void setRejectionListener(RejectionListener listener) {
+    }
+
+    @Override
+    void close() throws SQLException;
+}
@@ -0,0 +1,154 @@
+package com.vehicleauth.importer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded memory of the rows of one table written in this run
+ * Keys are stored as two longs when they are GUIDs, the row content as a 64-bit
+ * hash, and the least recently seen keys are evicted once the capacity is reached.
+ * An optional bloom filter answers most lookups of new keys without touching the map
+ */
+public final class SeenRowCache {
+
+    private final Map<Object, Long> contentHashes;
+    private final BloomFilter bloomFilter;
+    private long lookups;
+    private long suppressed;
+
+    /**
+     * @param capacity Maximum number of keys remembered
+     * @param useBloomFilter Check a bloom filter before the key map
+     */
+    public SeenRowCache(int capacity, boolean useBloomFilter) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.contentHashes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Long> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.bloomFilter = useBloomFilter ? new BloomFilter(capacity) : null;
+    }
+
+    /**
+     * @return true if the same row was already written and can be skipped
+     */
+    public boolean isWritten(Row row) {
+        lookups++;
+        Object key = keyOf(row);
+        if (bloomFilter != null && !bloomFilter.mightContain(key)) {
+            return false;
+        }
+        Long contentHash = contentHashes.get(key);
+        if (contentHash != null && contentHash == row.contentHash()) {
+            suppressed++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remember a row that has been written
+     */
+    public void markWritten(Row row) {
+        Object key = keyOf(row);
+        contentHashes.put(key, row.contentHash());
+        if (bloomFilter != null) {
+            bloomFilter.add(key);
+        }
+    }
+
+    public void clear() {
+        contentHashes.clear();
+        if (bloomFilter != null) {
+            bloomFilter.clear();
+        }
+    }
+
+    public int size() { return contentHashes.size(); }
+    public long getLookups() { return lookups; }
+    public long getSuppressed() { return suppressed; }
+
+    private static Object keyOf(Row row) {
+        if (row.getTable().getKeyColumns().size() == 1) {
+            Object value = row.get(row.getTable().getKeyColumns().get(0));
+            GuidKey guid = value instanceof String ? GuidKey.parse((String) value) : null;
+            return guid != null ? guid : value;
+        }
+        StringBuilder key = new StringBuilder();
+        for (String keyColumn : row.getTable().getKeyColumns()) {
+            key.append(row.get(keyColumn)).append('\u0000');
+        }
+        return key.toString();
+    }
+
+    /**
+     * GUID such as 8A6B1C2D-0000-C216-ABFA-EAEF6132E070, with or without braces
+     */
+    static final class GuidKey {
+        private final long high;
+        private final long low;
+
+        private GuidKey(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        /**
+         * @return The key, or null if the text is not a GUID
+         */
+        static GuidKey parse(String text) {
+            int start = 0;
+            int end = text.length();
+            if (end == 38 && text.charAt(0) == '{' && text.charAt(37) == '}') {
+                start = 1;
+                end = 37;
+            }
+            if (end - start != 36) {
+                return null;
+            }
+
+            long high = 0;
+            long low = 0;
+            int digits = 0;
+            for (int i = start; i < end; i++) {
+                char c = text.charAt(i);
+                int offset = i - start;
+                if (offset == 8 || offset == 13 || offset == 18 || offset == 23) {
+                    if (c != '-') {
+                        return null;
+                    }
+                    continue;
+                }
+                int digit = Character.digit(c, 16);
+                if (digit < 0) {
+                    return null;
+                }
+                if (digits < 16) {
+                    high = (high << 4) | digit;
+                } else {
+                    low = (low << 4) | digit;
+                }
+                digits++;
+            }
+            return new GuidKey(high, low);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof GuidKey)) {
+                return false;
+            }
+            GuidKey key = (GuidKey) other;
+            return high == key.high && low == key.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(high * 31 + low);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.vehicleauth.importer;
+
+import com.fasterxml.jackson.core.JsonPointer;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How the rows of one database table are built from JSON
+ * Columns with a path are read from the JSON object the row is built from; all other
+ * columns are keys handed down from the parent row by the {@link RowMapper}
+ */
+public final class TableMapping {
+
+    /**
+     * Database column types the importer converts JSON values to
+     */
+    public enum ColumnType {
+        TEXT,
+        DATETIME,
+        YESNO
+    }
+
+    private final String tableName;
+    private final List<String> keyColumns;
+    private final Map<String, ColumnType> columnTypes;
+    private final Map<String, JsonPointer> columnPaths;
+
+    /**
+     * @param keyColumns Columns identifying a row, the primary key or a natural key for tables with a generated one
+     * @param columnTypes All columns the importer writes, in column order
+     * @param columnPaths Location of a column's value relative to the JSON object of the row
+     */
+    public TableMapping(String tableName, List<String> keyColumns, Map<String, ColumnType> columnTypes,
+                        Map<String, JsonPointer> columnPaths) {
+        this.tableName = tableName;
+        this.keyColumns = List.copyOf(keyColumns);
+        this.columnTypes = Collections.unmodifiableMap(new LinkedHashMap<>(columnTypes));
+        this.columnPaths = Collections.unmodifiableMap(new LinkedHashMap<>(columnPaths));
+    }
+
+    public String getTableName() { return tableName; }
+    public List<String> getKeyColumns() { return keyColumns; }
+    public Map<String, ColumnType> getColumnTypes() { return columnTypes; }
+    public Map<String, JsonPointer> getColumnPaths() { return columnPaths; }
+
+    public ColumnType getColumnType(String column) {
+        return columnTypes.get(column);
+    }
+
+    @Override
+    public String toString() {
+        return tableName;
+    }
+}
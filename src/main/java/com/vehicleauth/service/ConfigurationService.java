@@ -1,20 +1,43 @@
 package com.vehicleauth.service;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vehicleauth.analysis.AnalysisMetrics;
+import com.vehicleauth.analysis.FieldCatalog;
+import com.vehicleauth.analysis.FieldLengthStatistics;
+import com.vehicleauth.analysis.FieldPathMatcher;
+import com.vehicleauth.analysis.IncrementalFieldLengthAnalyzer;
+import com.vehicleauth.analysis.JsonSources;
+import com.vehicleauth.analysis.LengthMode;
+import com.vehicleauth.analysis.ParallelFileAnalyzer;
+import com.vehicleauth.analysis.SampledFieldLengthAnalyzer;
+import com.vehicleauth.analysis.StreamingFieldLengthAnalyzer;
+import com.vehicleauth.analysis.ValueType;
+import com.vehicleauth.importer.ColumnLimits;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
 import java.util.*;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 /**
  * Service class for analyzing JSON files and generating field length configuration
- * Creates Fields_length.txt in Configuration folder with maximum text field lengths
+ * Creates Fields_length.txt in Configuration folder with recommended text field lengths,
+ * Fields_length_stats.txt with the length distribution behind them and Fields_schema.txt
+ * with the column types inferred from the values
  */
 public class ConfigurationService {
     
@@ -24,19 +47,135 @@ public class ConfigurationService {
     private static final String JSON_FILES_DIR = "Json Files";
     private static final String CONFIG_DIR = "Configuration";
     private static final String CONFIG_FILE = "Fields_length.txt";
+    private static final String STATISTICS_FILE = "Fields_length_stats.txt";
+    private static final String SCHEMA_FILE = "Fields_schema.txt";
+    
+    // Fewer non-empty values than this say too little about a field to type it, it stays MEMO
+    static final int MIN_INFERENCE_VALUES = 30;
+    
+    // Interval of the one-line progress summary printed during analysis
+    private static final Duration SUMMARY_INTERVAL = Duration.ofSeconds(5);
+    private static final String MANIFEST_FILE = "Fields_length.manifest.json";
+    
+    /**
+     * Engine used to walk the JSON files
+     * TREE loads each file into a JsonNode tree, STREAMING walks the token stream
+     * and keeps heap usage flat regardless of file size
+     */
+    public enum AnalysisEngine {
+        TREE,
+        STREAMING
+    }
+    
+    /**
+     * Length a recommended column size is based on, before the +20% (minimum +10) padding
+     * MAX fits every sampled value, P99_MARGIN keeps a few outliers from widening
+     * the column or forcing it to MEMO
+     */
+    public enum SizingPolicy {
+        MAX,
+        P99_MARGIN
+    }
     
     // Database table to JSON field mappings based on the database schema
     private final Map<String, Map<String, String>> tableFieldMappings;
     
+    // Mapped fields numbered by ordinal and the compiled JSON path matcher resolving to them
+    private final FieldCatalog fieldCatalog;
+    private final FieldPathMatcher fieldPathMatcher;
+    private final AnalysisEngine analysisEngine;
+    private final StreamingFieldLengthAnalyzer streamingAnalyzer;
+    private final ObjectMapper objectMapper;
+    
+    // Number of files analyzed concurrently, 1 analyzes on the calling thread
+    private final int workerCount;
+    private final LengthMode lengthMode;
+    
+    // Throughput of the current or last analysis run, also exposed through JMX
+    private final AnalysisMetrics analysisMetrics;
+    private boolean metricsRegistered;
+    
     public ConfigurationService() {
+        this(AnalysisEngine.STREAMING);
+    }
+    
+    public ConfigurationService(AnalysisEngine analysisEngine) {
+        this(analysisEngine, Runtime.getRuntime().availableProcessors());
+    }
+    
+    public ConfigurationService(AnalysisEngine analysisEngine, int workerCount) {
+        this(analysisEngine, workerCount, LengthMode.UTF16_UNITS);
+    }
+    
+    public ConfigurationService(AnalysisEngine analysisEngine, int workerCount, LengthMode lengthMode) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("Worker count must be at least 1: " + workerCount);
+        }
         this.tableFieldMappings = initializeTableFieldMappings();
+        this.fieldCatalog = FieldCatalog.of(tableFieldMappings);
+        this.fieldPathMatcher = new FieldPathMatcher(fieldCatalog);
+        this.analysisEngine = analysisEngine;
+        this.streamingAnalyzer = new StreamingFieldLengthAnalyzer(lengthMode);
+        this.objectMapper = new ObjectMapper().disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        this.workerCount = workerCount;
+        this.lengthMode = lengthMode;
+        this.analysisMetrics = new AnalysisMetrics();
     }
     
     /**
-     * Analyze all JSON files and generate field length configuration
+     * Expose the analysis metrics of this instance through JMX, called once by the application's entry point
+     * Leaves the MBean of another instance in place
+     * @return true if this instance's metrics are registered
+     */
+    public boolean registerAnalysisMetrics() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(AnalysisMetrics.OBJECT_NAME);
+            synchronized (ConfigurationService.class) {
+                if (!metricsRegistered && !server.isRegistered(name)) {
+                    server.registerMBean(analysisMetrics, name);
+                    metricsRegistered = true;
+                }
+            }
+            if (!metricsRegistered) {
+                logger.warn("Analysis metrics MBean is already registered by another instance");
+            }
+        } catch (Exception e) {
+            logger.warn("Could not register analysis metrics MBean: " + e.getMessage());
+        }
+        return metricsRegistered;
+    }
+    
+    /**
+     * Remove the analysis metrics of this instance from JMX, if registered
+     */
+    public void unregisterAnalysisMetrics() {
+        try {
+            synchronized (ConfigurationService.class) {
+                if (metricsRegistered) {
+                    ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(AnalysisMetrics.OBJECT_NAME));
+                    metricsRegistered = false;
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Could not unregister analysis metrics MBean: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Analyze all JSON files and generate field length configuration sized to the longest values
      * @return true if configuration file was generated successfully
      */
     public boolean generateFieldLengthConfiguration() {
+        return generateFieldLengthConfiguration(SizingPolicy.MAX);
+    }
+    
+    /**
+     * Analyze all JSON files and generate field length configuration
+     * @param sizingPolicy How recommended lengths are derived from the length distribution
+     * @return true if configuration file was generated successfully
+     */
+    public boolean generateFieldLengthConfiguration(SizingPolicy sizingPolicy) {
         logger.info("Starting field length analysis of JSON files");
         
         try {
@@ -44,10 +183,10 @@ public class ConfigurationService {
             createConfigurationDirectory();
             
             // Analyze all JSON files
-            Map<String, Map<String, Integer>> maxFieldLengths = analyzeJsonFiles();
+            FieldLengthStatistics statistics = analyzeJsonFiles();
             
-            // Generate configuration file
-            generateConfigurationFile(maxFieldLengths);
+            // Generate configuration files
+            writeConfigurationFiles(statistics, sizingPolicy, Paths.get(CONFIG_DIR));
             
             logger.info("Field length configuration generated successfully");
             return true;
@@ -59,6 +198,66 @@ public class ConfigurationService {
         }
     }
     
+    /**
+     * Estimate field lengths of a large application list from a sample of its records
+     * Nothing is written; the estimates are printed with their confidence bounds and
+     * fields whose maximum is likely under-estimated are flagged
+     * @param jsonFile File with an applicationListDTO array
+     * @param recordBudget Number of records kept in the sample
+     * @param timeBudget Maximum reading time, null to read the whole file
+     * @return Sampling result, or null if the file could not be read
+     */
+    public SampledFieldLengthAnalyzer.Result sampleFieldLengths(Path jsonFile, int recordBudget, Duration timeBudget) {
+        logger.info("Sampling {} records of {} within {}", recordBudget, jsonFile, timeBudget);
+        
+        try {
+            SampledFieldLengthAnalyzer.Result result = new SampledFieldLengthAnalyzer(streamingAnalyzer, fieldPathMatcher,
+                fieldCatalog.size(), System.nanoTime()).sample(jsonFile, recordBudget, timeBudget);
+            printSampleReport(result);
+            return result;
+        } catch (Exception e) {
+            logger.error("Failed to sample file: " + jsonFile, e);
+            System.err.println("❌ Sampling failed: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Print the estimates of every field that occurred in the sample
+     */
+    private void printSampleReport(SampledFieldLengthAnalyzer.Result result) {
+        System.out.println("🎲 Sampled " + result.getRecordsSampled() + " of " + result.getRecordsSeen() + " records read"
+                           + (result.isComplete() ? "" : " (about " + result.getEstimatedRecords() + " in file)")
+                           + " in " + result.getElapsed().toMillis() + " ms");
+        if (result.isExact()) {
+            System.out.println("✅ Every record was measured, the figures are exact");
+        } else if (!result.isComplete()) {
+            System.out.println("⏱️ Reading stopped at the time budget, the records after it were not sampled and every field is flagged");
+        }
+        System.out.println("Field: max (share of values covered), p50/p95/p99 (95% upper bounds)");
+        
+        int flagged = 0;
+        for (int ordinal = 0; ordinal < fieldCatalog.size(); ordinal++) {
+            SampledFieldLengthAnalyzer.FieldEstimate estimate = result.estimate(ordinal);
+            if (estimate.getSampledValues() == 0) {
+                continue;
+            }
+            
+            System.out.println(String.format(Locale.ROOT, "%s %s: %d (%.1f%%), %d/%d/%d (%d/%d/%d)",
+                estimate.isUnderEstimated() ? "⚠️ " : "  ", fieldCatalog.getQualifiedName(ordinal),
+                estimate.getMaxLength(), estimate.getMaxCoverage() * 100,
+                estimate.getP50(), estimate.getP95(), estimate.getP99(),
+                estimate.getP50Upper(), estimate.getP95Upper(), estimate.getP99Upper()));
+            if (estimate.isUnderEstimated()) {
+                flagged++;
+            }
+        }
+        
+        if (flagged > 0) {
+            System.out.println("⚠️  " + flagged + " fields are likely under-estimated, run a full analysis before sizing them");
+        }
+    }
+    
     /**
      * Create Configuration directory if it doesn't exist
      */
@@ -72,145 +271,362 @@ public class ConfigurationService {
     
     /**
      * Analyze all JSON files in the Json Files directory
+     * Only new or changed files are parsed, the rest is taken from the manifest
+     * stored next to the configuration file
      */
-    private Map<String, Map<String, Integer>> analyzeJsonFiles() throws IOException {
-        Map<String, Map<String, Integer>> maxFieldLengths = new HashMap<>();
-        ObjectMapper objectMapper = new ObjectMapper();
-        
-        // Initialize max lengths map
-        for (String tableName : tableFieldMappings.keySet()) {
-            maxFieldLengths.put(tableName, new HashMap<>());
-            for (String fieldName : tableFieldMappings.get(tableName).keySet()) {
-                maxFieldLengths.get(tableName).put(fieldName, 0);
-            }
-        }
-        
+    private FieldLengthStatistics analyzeJsonFiles() throws IOException {
         // Process all JSON files recursively
         Path jsonDir = Paths.get(JSON_FILES_DIR);
         if (!Files.exists(jsonDir)) {
             throw new IOException("JSON files directory not found: " + JSON_FILES_DIR);
         }
         
-        Files.walk(jsonDir)
-            .filter(path -> path.toString().toLowerCase().endsWith(".json"))
-            .forEach(path -> {
-                try {
-                    System.out.println("📄 Analyzing: " + path.toString());
-                    JsonNode rootNode = objectMapper.readTree(path.toFile());
-                    analyzeJsonNode(rootNode, "", maxFieldLengths);
-                } catch (Exception e) {
-                    logger.warn("Failed to analyze file: " + path + " - " + e.getMessage());
-                }
-            });
+        return analyzeJsonFilesIncrementally(jsonDir, Paths.get(CONFIG_DIR, MANIFEST_FILE)).getStatistics();
+    }
+    
+    /**
+     * Analyze all JSON files below the given directory, reusing cached per-file results
+     * from the manifest and writing the updated manifest back
+     */
+    IncrementalFieldLengthAnalyzer.Result analyzeJsonFilesIncrementally(Path jsonDir, Path manifestFile) throws IOException {
+        // Cached statistics are only valid for the same mappings and length mode
+        String analysisFingerprint = fieldCatalog.getFingerprint() + "/" + lengthMode;
+        IncrementalFieldLengthAnalyzer.Result result;
+        analysisMetrics.runStarted();
+        AnalysisMetrics.Reporting reporting = analysisMetrics.reportEvery(SUMMARY_INTERVAL, this::printProgress);
+        try (JsonSources sources = JsonSources.open(jsonDir)) {
+            result = new IncrementalFieldLengthAnalyzer(fieldCatalog, workerCount, analysisFingerprint)
+                .analyze(jsonDir, sources.getFiles(), manifestFile, this::analyzeJsonFile);
+        } finally {
+            reporting.close();
+            finishMetricsRun();
+        }
         
-        return maxFieldLengths;
+        System.out.println("♻️  Reused cached results for " + result.getReusedFiles() + " files, parsed "
+                           + result.getParsedFiles() + ", removed " + result.getRemovedFiles());
+        return result;
+    }
+    
+    /**
+     * Analyze all JSON sources below the given directory with the configured engine
+     * Plain, gzip-compressed and zipped JSON files are read in place, see {@link JsonSources}
+     * @return Length statistics per mapped field
+     */
+    FieldLengthStatistics analyzeJsonFiles(Path jsonDir) throws IOException {
+        analysisMetrics.runStarted();
+        AnalysisMetrics.Reporting reporting = analysisMetrics.reportEvery(SUMMARY_INTERVAL, this::printProgress);
+        try (JsonSources sources = JsonSources.open(jsonDir)) {
+            List<Path> jsonFiles = sources.getFiles();
+            if (workerCount > 1 && jsonFiles.size() > 1) {
+                logger.info("Analyzing {} JSON files with {} workers", jsonFiles.size(), workerCount);
+                return new ParallelFileAnalyzer(workerCount).analyze(jsonFiles, fieldCatalog.size(), path -> analyzeJsonFile(path, null));
+            }
+            
+            FieldLengthStatistics statistics = new FieldLengthStatistics(fieldCatalog.size());
+            for (Path path : jsonFiles) {
+                FieldLengthStatistics fileStatistics = analyzeJsonFile(path, null);
+                if (fileStatistics != null) {
+                    statistics.merge(fileStatistics);
+                }
+            }
+            return statistics;
+        } finally {
+            reporting.close();
+            finishMetricsRun();
+        }
+    }
+    
+    private void printProgress(String summary) {
+        System.out.println("⏱️  " + summary);
+    }
+    
+    /**
+     * Close the metrics run and print its final summary
+     */
+    private void finishMetricsRun() {
+        analysisMetrics.runFinished();
+        System.out.println("📈 " + analysisMetrics.getSummary());
+        logger.info("Analysis run: {}", analysisMetrics.getSummary());
+    }
+    
+    /**
+     * Analyze a single JSON file with the configured engine
+     * Lengths are collected per file, so a malformed file contributes nothing.
+     * Safe to call from several threads: all mutable state is local to the call
+     * @param digest Receives every byte of the file when not null
+     * @return Statistics of the file, or null if the file could not be analyzed
+     */
+    private FieldLengthStatistics analyzeJsonFile(Path path, MessageDigest digest) {
+        FieldLengthStatistics fileStatistics = new FieldLengthStatistics(fieldCatalog.size());
+        int[] matches = new int[fieldPathMatcher.maxMatches()];
+        long tokens = 0;
+        boolean success = false;
+        
+        logger.debug("Analyzing: {}", JsonSources.describe(path));
+        AnalysisMetrics.FileMark fileMark = analysisMetrics.fileStarted(path);
+        try (InputStream fileInput = Files.newInputStream(path);
+             InputStream rawInput = digest != null ? new DigestInputStream(fileInput, digest) : fileInput;
+             InputStream input = JsonSources.decompress(path, rawInput)) {
+            if (analysisEngine == AnalysisEngine.STREAMING) {
+                tokens = streamingAnalyzer.analyze(input, (segments, pathLength, length, type) ->
+                    updateFieldLength(segments, pathLength, length, type, fileStatistics, matches));
+            } else {
+                JsonNode rootNode = objectMapper.readTree(input);
+                analyzeJsonNode(rootNode, new String[16], 0, fileStatistics, matches);
+            }
+            
+            // The parser stops after the first JSON value; hash whatever follows as well
+            if (digest != null) {
+                input.transferTo(OutputStream.nullOutputStream());
+                rawInput.transferTo(OutputStream.nullOutputStream());
+            }
+            success = true;
+            return fileStatistics;
+        } catch (Exception e) {
+            logger.warn("Failed to analyze file: " + JsonSources.describe(path) + " - " + e.getMessage());
+            return null;
+        } finally {
+            analysisMetrics.fileFinished(fileMark, fileSize(path), tokens, success);
+        }
+    }
+    
+    private static long fileSize(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
     }
     
     /**
-     * Recursively analyze JSON node and update maximum field lengths
+     * Recursively analyze JSON node and record field lengths
      */
-    private void analyzeJsonNode(JsonNode node, String currentPath, Map<String, Map<String, Integer>> maxFieldLengths) {
+    private void analyzeJsonNode(JsonNode node, String[] segments, int depth, FieldLengthStatistics statistics, int[] matches) {
         if (node.isObject()) {
+            String[] pathSegments = depth < segments.length ? segments : Arrays.copyOf(segments, depth * 2);
             node.fields().forEachRemaining(entry -> {
-                String fieldName = entry.getKey();
                 JsonNode fieldValue = entry.getValue();
-                String fullPath = currentPath.isEmpty() ? fieldName : currentPath + "." + fieldName;
+                pathSegments[depth] = entry.getKey();
                 
                 // Check if this field maps to a database field
-                updateFieldLength(fullPath, fieldValue, maxFieldLengths);
+                updateFieldLength(pathSegments, depth + 1, fieldValue, statistics, matches);
                 
                 // Recursively process nested objects and arrays
                 if (fieldValue.isObject() || fieldValue.isArray()) {
-                    analyzeJsonNode(fieldValue, fullPath, maxFieldLengths);
+                    analyzeJsonNode(fieldValue, pathSegments, depth + 1, statistics, matches);
                 }
             });
         } else if (node.isArray()) {
+            // Scalar elements are measured one by one and joined with ',' the way the importer reads them
+            String[] pathSegments = depth < segments.length ? segments : Arrays.copyOf(segments, depth * 2);
+            int joinedLength = 0;
             for (int i = 0; i < node.size(); i++) {
-                analyzeJsonNode(node.get(i), currentPath, maxFieldLengths);
+                JsonNode element = node.get(i);
+                if (element.isContainerNode()) {
+                    analyzeJsonNode(element, pathSegments, depth, statistics, matches);
+                    continue;
+                }
+                pathSegments[depth] = FieldCatalog.ELEMENTS;
+                int length = updateFieldLength(pathSegments, depth + 1, element, statistics, matches);
+                if (!element.isNull()) {
+                    joinedLength = joinedLength > 0 ? joinedLength + 1 + length : length;
+                }
+            }
+            if (joinedLength > 0) {
+                updateFieldLength(pathSegments, depth, joinedLength, ValueType.TEXT, statistics, matches);
             }
         }
     }
     
     /**
-     * Update maximum field length if current value is longer
+     * Record the length and kind of a scalar value, null and empty values count with length 0
+     * @return The recorded length, 0 for a container
      */
-    private void updateFieldLength(String jsonPath, JsonNode value, Map<String, Map<String, Integer>> maxFieldLengths) {
-        if (value == null || value.isNull()) {
-            return;
+    private int updateFieldLength(String[] segments, int pathLength, JsonNode value, FieldLengthStatistics statistics, int[] matches) {
+        // Objects and arrays are walked by analyzeJsonNode, only their scalar members are measured
+        if (value == null || value.isContainerNode()) {
+            return 0;
         }
         
-        String stringValue = value.asText();
-        if (stringValue == null || stringValue.isEmpty()) {
-            return;
+        String stringValue = value.isNull() ? "" : value.asText();
+        int length = lengthMode == LengthMode.CODE_POINTS
+            ? stringValue.codePointCount(0, stringValue.length())
+            : stringValue.length();
+        updateFieldLength(segments, pathLength, length, classify(value, stringValue), statistics, matches);
+        return length;
+    }
+    
+    /**
+     * Classify a scalar node for type inference
+     */
+    private ValueType classify(JsonNode value, String stringValue) {
+        if (stringValue.isEmpty()) {
+            return ValueType.NULL;
+        } else if (value.isBoolean()) {
+            return ValueType.BOOLEAN;
+        } else if (value.isInt()) {
+            return ValueType.INTEGER;
+        } else if (value.isNumber()) {
+            return ValueType.NUMBER;
+        } else if (value.isTextual()) {
+            return ValueType.ofText(stringValue.toCharArray(), 0, stringValue.length());
         }
+        return ValueType.TEXT;
+    }
+    
+    /**
+     * Record the value length and kind for every mapping matching the JSON path
+     */
+    private void updateFieldLength(String[] segments, int pathLength, int length, ValueType type,
+                                   FieldLengthStatistics statistics, int[] matches) {
+        int matchCount = fieldPathMatcher.match(segments, pathLength, matches);
+        for (int i = 0; i < matchCount; i++) {
+            statistics.record(matches[i], length, type);
+        }
+    }
+    
+    /**
+     * Write the field length configuration, the statistics it was derived from and the inferred schema
+     * @param configDir Directory receiving Fields_length.txt, Fields_length_stats.txt and Fields_schema.txt
+     */
+    void writeConfigurationFiles(FieldLengthStatistics statistics, SizingPolicy sizingPolicy, Path configDir) throws IOException {
+        generateConfigurationFile(statistics, sizingPolicy, configDir.resolve(CONFIG_FILE));
+        generateStatisticsFile(statistics, sizingPolicy, configDir.resolve(STATISTICS_FILE));
+        generateSchemaFile(statistics, sizingPolicy, configDir.resolve(SCHEMA_FILE));
         
-        int length = stringValue.length();
+        System.out.println("📊 Analyzed " + fieldCatalog.getTableNames().size() + " database tables");
         
-        // Check all table mappings for this JSON path
-        for (Map.Entry<String, Map<String, String>> tableEntry : tableFieldMappings.entrySet()) {
-            String tableName = tableEntry.getKey();
-            Map<String, String> fieldMappings = tableEntry.getValue();
+        // Print summary
+        System.out.println("📋 Total text fields analyzed: " + fieldCatalog.size());
+    }
+    
+    /**
+     * Generate the configuration file read by CreateVehicleAuthDatabase.ps1
+     */
+    private void generateConfigurationFile(FieldLengthStatistics statistics, SizingPolicy sizingPolicy, Path configFile) throws IOException {
+        try (FileWriter writer = new FileWriter(configFile.toFile())) {
+            writer.write("# Vehicle Authorization Database - Field Length Configuration\n");
+            writer.write("# Generated on: " + new Date() + "\n");
+            if (sizingPolicy == SizingPolicy.MAX) {
+                writer.write("# This file contains maximum text field lengths found in JSON sample data\n");
+            } else {
+                writer.write("# This file contains 99th percentile text field lengths found in JSON sample data\n");
+            }
+            writer.write("# Format: TableName.FieldName=MaxLength\n\n");
             
-            for (Map.Entry<String, String> fieldEntry : fieldMappings.entrySet()) {
-                String dbField = fieldEntry.getKey();
-                String jsonField = fieldEntry.getValue();
-                
-                // Check if JSON path matches this mapping
-                if (jsonPath.equals(jsonField) || jsonPath.endsWith("." + jsonField)) {
-                    Integer currentMax = maxFieldLengths.get(tableName).get(dbField);
-                    if (currentMax == null || length > currentMax) {
-                        maxFieldLengths.get(tableName).put(dbField, length);
-                        logger.debug("Updated max length for {}.{}: {} (value: '{}')", 
-                                   tableName, dbField, length, stringValue.substring(0, Math.min(50, length)));
+            // Catalog ordinals are sorted by table name, then field name
+            String currentTable = null;
+            for (int ordinal = 0; ordinal < fieldCatalog.size(); ordinal++) {
+                String tableName = fieldCatalog.getTableName(ordinal);
+                if (!tableName.equals(currentTable)) {
+                    if (currentTable != null) {
+                        writer.write("\n");
                     }
+                    writer.write("# " + tableName + " Table\n");
+                    currentTable = tableName;
                 }
+                
+                int recommendedLength = recommendedLength(statistics, ordinal, sizingPolicy);
+                writer.write(String.format("%s.%s=%d\n", tableName, fieldCatalog.getFieldName(ordinal), recommendedLength));
+            }
+            if (currentTable != null) {
+                writer.write("\n");
             }
         }
+        
+        System.out.println("✅ Configuration file generated: " + configFile.toAbsolutePath());
     }
     
     /**
-     * Generate the configuration file
+     * Generate the statistics file with the length distribution of every field
      */
-    private void generateConfigurationFile(Map<String, Map<String, Integer>> maxFieldLengths) throws IOException {
-        Path configFile = Paths.get(CONFIG_DIR, CONFIG_FILE);
-        
-        try (FileWriter writer = new FileWriter(configFile.toFile())) {
-            writer.write("# Vehicle Authorization Database - Field Length Configuration\n");
+    private void generateStatisticsFile(FieldLengthStatistics statistics, SizingPolicy sizingPolicy, Path statisticsFile) throws IOException {
+        try (FileWriter writer = new FileWriter(statisticsFile.toFile())) {
+            writer.write("# Vehicle Authorization Database - Field Length Statistics\n");
             writer.write("# Generated on: " + new Date() + "\n");
-            writer.write("# This file contains maximum text field lengths found in JSON sample data\n");
-            writer.write("# Format: TableName.FieldName=MaxLength\n\n");
+            writer.write("# Sizing policy: " + sizingPolicy + "\n");
+            writer.write("# Count is the number of non-empty values, NullRatio the share of null or empty values\n");
+            writer.write("# Percentiles are bucket upper bounds, exact below 16 and within 12.5% above\n");
+            writer.write("# Format: TableName.FieldName=Count,NullRatio,P50,P95,P99,Max,Recommended\n\n");
             
-            // Sort tables alphabetically
-            List<String> sortedTables = new ArrayList<>(maxFieldLengths.keySet());
-            Collections.sort(sortedTables);
+            for (int ordinal = 0; ordinal < fieldCatalog.size(); ordinal++) {
+                writer.write(String.format(Locale.ROOT, "%s=%d,%.4f,%d,%d,%d,%d,%d\n",
+                    fieldCatalog.getQualifiedName(ordinal),
+                    statistics.getCount(ordinal),
+                    statistics.getNullRatio(ordinal),
+                    statistics.getPercentile(ordinal, 50),
+                    statistics.getPercentile(ordinal, 95),
+                    statistics.getPercentile(ordinal, 99),
+                    statistics.getMaxLength(ordinal),
+                    recommendedLength(statistics, ordinal, sizingPolicy)));
+            }
+        }
+        
+        System.out.println("✅ Statistics file generated: " + statisticsFile.toAbsolutePath());
+    }
+    
+    /**
+     * Generate the schema file with the column type inferred for every field that had values
+     */
+    private void generateSchemaFile(FieldLengthStatistics statistics, SizingPolicy sizingPolicy, Path schemaFile) throws IOException {
+        try (FileWriter writer = new FileWriter(schemaFile.toFile())) {
+            writer.write("# Vehicle Authorization Database - Inferred Field Types\n");
+            writer.write("# Generated on: " + new Date() + "\n");
+            writer.write("# Types: DATETIME, YESNO, INTEGER, DOUBLE, TEXT(n), MEMO\n");
+            writer.write("# TEXT(n) is padded like a configured length; fields with fewer than " + MIN_INFERENCE_VALUES
+                         + " values are MEMO\n");
+            writer.write("# Fields without values in the JSON sample data are left out\n");
+            writer.write("# Format: TableName.FieldName=Type\n\n");
             
-            for (String tableName : sortedTables) {
-                writer.write("# " + tableName + " Table\n");
-                Map<String, Integer> fieldLengths = maxFieldLengths.get(tableName);
-                
-                // Sort fields alphabetically
-                List<String> sortedFields = new ArrayList<>(fieldLengths.keySet());
-                Collections.sort(sortedFields);
-                
-                for (String fieldName : sortedFields) {
-                    Integer maxLength = fieldLengths.get(fieldName);
-                    // Add some padding to the max length (+20% with minimum +10)
-                    int recommendedLength = maxLength + Math.max(10, (int)(maxLength * 0.2));
-                    
-                    writer.write(String.format("%s.%s=%d\n", tableName, fieldName, recommendedLength));
+            for (int ordinal = 0; ordinal < fieldCatalog.size(); ordinal++) {
+                String columnType = inferColumnType(statistics, ordinal, sizingPolicy);
+                if (columnType != null) {
+                    writer.write(fieldCatalog.getQualifiedName(ordinal) + "=" + columnType + "\n");
                 }
-                writer.write("\n");
             }
         }
         
-        System.out.println("✅ Configuration file generated: " + configFile.toAbsolutePath());
-        System.out.println("📊 Analyzed " + maxFieldLengths.size() + " database tables");
+        System.out.println("✅ Schema file generated: " + schemaFile.toAbsolutePath());
+    }
+    
+    /**
+     * Infer the Access column type from the kinds of values seen
+     * Only fields whose values are all of one kind get a typed column; mixed fields,
+     * such as identifiers that are sometimes numbers and sometimes text, stay text.
+     * A field with fewer than {@link #MIN_INFERENCE_VALUES} values stays MEMO, and a
+     * TEXT(n) column gets the padding the script adds to a configured length
+     * @return Column type, or null if the field had no values
+     */
+    String inferColumnType(FieldLengthStatistics statistics, int ordinal, SizingPolicy sizingPolicy) {
+        int typeMask = statistics.getTypeMask(ordinal);
+        if (typeMask == 0) {
+            return null;
+        } else if (statistics.getCount(ordinal) < MIN_INFERENCE_VALUES) {
+            return "MEMO";
+        } else if (typeMask == ValueType.TIMESTAMP.mask()) {
+            return "DATETIME";
+        } else if (typeMask == ValueType.BOOLEAN.mask()) {
+            return "YESNO";
+        } else if (typeMask == ValueType.INTEGER.mask()) {
+            return "INTEGER";
+        } else if ((typeMask & ~(ValueType.INTEGER.mask() | ValueType.NUMBER.mask())) == 0) {
+            return "DOUBLE";
+        }
         
-        // Print summary
-        int totalFields = maxFieldLengths.values().stream()
-                .mapToInt(map -> map.size())
-                .sum();
-        System.out.println("📋 Total text fields analyzed: " + totalFields);
+        int length = ColumnLimits.createdLength(recommendedLength(statistics, ordinal, sizingPolicy));
+        return length > ColumnLimits.MAX_TEXT_LENGTH ? "MEMO" : "TEXT(" + length + ")";
+    }
+    
+    /**
+     * Recommended column length for a field under the sizing policy
+     */
+    private int recommendedLength(FieldLengthStatistics statistics, int ordinal, SizingPolicy sizingPolicy) {
+        int length = sizingPolicy == SizingPolicy.MAX
+            ? statistics.getMaxLength(ordinal)
+            : statistics.getPercentile(ordinal, 99);
+        
+        // Add some padding to the length (+20% with minimum +10)
+        return length + Math.max(10, (int)(length * 0.2));
     }
     
     /**
@@ -219,6 +635,13 @@ public class ConfigurationService {
      */
     private Map<String, Map<String, String>> initializeTableFieldMappings() {
         Map<String, Map<String, String>> mappings = new HashMap<>();
+        // Objects the importer reads the rows of a table from, see RowMapper
+        String[] addressObjects = { "address", "userAddress" };
+        String[] contactDetailsObjects = { "contactDetails", "userContactDetails" };
+        String[] personObjects = { "contactPerson", "financialContactPerson" };
+        String[] applicationBodyObjects = { "applicantBody", "notifiedBodies", "designatedBodies", "assessmentBodies" };
+        String[] bodyObjects = { "applicantBody", "notifiedBodies", "designatedBodies", "assessmentBodies", "authorisationHolder" };
+        String requirements = "variantsTypesList.msMappings.msMappings";
         
         // Applications table mappings
         Map<String, String> applications = new HashMap<>();
@@ -249,31 +672,31 @@ public class ConfigurationService {
         
         // Addresses table mappings
         Map<String, String> addresses = new HashMap<>();
-        addresses.put("AddressID", "address.id");
-        addresses.put("Street", "address.street");
-        addresses.put("City", "address.city");
-        addresses.put("PostalCode", "address.postalCode");
-        addresses.put("CountryCode", "address.code");
+        addresses.put("AddressID", anyOf(addressObjects, "id"));
+        addresses.put("Street", anyOf(addressObjects, "street"));
+        addresses.put("City", anyOf(addressObjects, "city"));
+        addresses.put("PostalCode", anyOf(addressObjects, "postalCode"));
+        addresses.put("CountryCode", anyOf(addressObjects, "code"));
         mappings.put("Addresses", addresses);
         
         // ContactDetails table mappings
         Map<String, String> contactDetails = new HashMap<>();
-        contactDetails.put("ContactDetailsID", "contactDetails.id");
-        contactDetails.put("Phone", "contactDetails.phone");
-        contactDetails.put("Fax", "contactDetails.fax");
-        contactDetails.put("Email", "contactDetails.email");
-        contactDetails.put("Website", "contactDetails.website");
+        contactDetails.put("ContactDetailsID", anyOf(contactDetailsObjects, "id"));
+        contactDetails.put("Phone", anyOf(contactDetailsObjects, "phone"));
+        contactDetails.put("Fax", anyOf(contactDetailsObjects, "fax"));
+        contactDetails.put("Email", anyOf(contactDetailsObjects, "email"));
+        contactDetails.put("Website", anyOf(contactDetailsObjects, "website"));
         mappings.put("ContactDetails", contactDetails);
         
         // ContactPersons table mappings
         Map<String, String> contactPersons = new HashMap<>();
-        contactPersons.put("ContactPersonID", "contactPerson.id");
-        contactPersons.put("FirstName", "contactPerson.firstName");
-        contactPersons.put("Surname", "contactPerson.surname");
-        contactPersons.put("TitleOrFunction", "contactPerson.titleOrFunction");
-        contactPersons.put("AddressID", "contactPerson.userAddress.id");
-        contactPersons.put("ContactDetailsID", "contactPerson.userContactDetails.id");
-        contactPersons.put("LanguagesSpoken", "contactPerson.langSpoken");
+        contactPersons.put("ContactPersonID", anyOf(personObjects, "id"));
+        contactPersons.put("FirstName", anyOf(personObjects, "firstName"));
+        contactPersons.put("Surname", anyOf(personObjects, "surname"));
+        contactPersons.put("TitleOrFunction", anyOf(personObjects, "titleOrFunction"));
+        contactPersons.put("AddressID", "contactPerson.userAddress.id|financialContactPerson.address.id");
+        contactPersons.put("ContactDetailsID", "contactPerson.userContactDetails.id|financialContactPerson.contactDetails.id");
+        contactPersons.put("LanguagesSpoken", anyOf(personObjects, "langSpoken"));
         contactPersons.put("PersonType", "contactPerson.personType");
         mappings.put("ContactPersons", contactPersons);
         
@@ -291,18 +714,18 @@ public class ConfigurationService {
         
         // Bodies table mappings
         Map<String, String> bodies = new HashMap<>();
-        bodies.put("BodyID", "applicantBody.id");
+        bodies.put("BodyID", anyOf(bodyObjects, "id"));
         bodies.put("BodyType", "bodyType");
-        bodies.put("LegalDenomination", "applicantBody.legalDenomination");
-        bodies.put("Acronym", "applicantBody.acronym");
-        bodies.put("VATNumber", "applicantBody.vatNumber");
-        bodies.put("NationalRegNumber", "applicantBody.nationalRegNumber");
-        bodies.put("AddressID", "applicantBody.address.id");
-        bodies.put("ContactDetailsID", "applicantBody.contactDetails.id");
-        bodies.put("AdditionalInfo", "applicantBody.additionalInfo");
-        bodies.put("BodyName", "applicantBody.name");
-        bodies.put("BodyIdNumber", "applicantBody.bodyId");
-        bodies.put("EINNumber", "applicantBody.einNumber");
+        bodies.put("LegalDenomination", anyOf(bodyObjects, "legalDenomination"));
+        bodies.put("Acronym", anyOf(bodyObjects, "acronym"));
+        bodies.put("VATNumber", anyOf(bodyObjects, "vatNumber"));
+        bodies.put("NationalRegNumber", anyOf(bodyObjects, "nationalRegNumber"));
+        bodies.put("AddressID", anyOf(bodyObjects, "address.id"));
+        bodies.put("ContactDetailsID", anyOf(bodyObjects, "contactDetails.id"));
+        bodies.put("AdditionalInfo", anyOf(bodyObjects, "additionalInfo"));
+        bodies.put("BodyName", anyOf(bodyObjects, "name"));
+        bodies.put("BodyIdNumber", anyOf(bodyObjects, "bodyId"));
+        bodies.put("EINNumber", anyOf(bodyObjects, "einNumber"));
         mappings.put("Bodies", bodies);
         
         // Issues table mappings
@@ -364,7 +787,7 @@ public class ConfigurationService {
         // ApplicationBodies table mappings
         Map<String, String> applicationBodies = new HashMap<>();
         applicationBodies.put("ApplicationID", "applicationId");
-        applicationBodies.put("BodyID", "applicantBody.id");
+        applicationBodies.put("BodyID", anyOf(applicationBodyObjects, "id"));
         applicationBodies.put("BodyRole", "bodyRole");
         mappings.put("ApplicationBodies", applicationBodies);
         
@@ -372,7 +795,8 @@ public class ConfigurationService {
         Map<String, String> applicationStaff = new HashMap<>();
         applicationStaff.put("ApplicationID", "applicationId");
         applicationStaff.put("StaffType", "staffType");
-        applicationStaff.put("StaffName", "staffName");
+        // One row per name in each staff array
+        applicationStaff.put("StaffName", "assessor[]|projectManager[]|assuror[]|decisionMaker[]");
         mappings.put("ApplicationStaff", applicationStaff);
         
         // ApplicableRules table mappings
@@ -407,7 +831,7 @@ public class ConfigurationService {
         // Networks table mappings
         Map<String, String> networks = new HashMap<>();
         networks.put("MappingID", "variantsTypesList.msMappings.id");
-        networks.put("NetworkName", "variantsTypesList.msMappings.networks");
+        networks.put("NetworkName", "variantsTypesList.msMappings.networks[]");
         mappings.put("Networks", networks);
         
         // AgencyMappingValues table mappings
@@ -421,24 +845,64 @@ public class ConfigurationService {
         
         // MSMappingRequirements table mappings
         Map<String, String> msMappingRequirements = new HashMap<>();
-        msMappingRequirements.put("RequirementID", "msMappingRequirements.id");
+        // Requirements are nested in their member state mapping as msMappings
+        msMappingRequirements.put("RequirementID", requirements + ".id");
         msMappingRequirements.put("MappingID", "variantsTypesList.msMappings.id");
-        msMappingRequirements.put("Requirement", "msMappingRequirements.requirement");
-        msMappingRequirements.put("RequirementDescr", "msMappingRequirements.requirementDescr");
+        msMappingRequirements.put("Requirement", requirements + ".requirement");
+        msMappingRequirements.put("RequirementDescr", requirements + ".requirementDescr");
         mappings.put("MSMappingRequirements", msMappingRequirements);
         
         // MSMappingRequirementValues table mappings
         Map<String, String> msMappingRequirementValues = new HashMap<>();
-        msMappingRequirementValues.put("ValueID", "msMappingRequirementValues.id");
-        msMappingRequirementValues.put("RequirementID", "msMappingRequirements.id");
-        msMappingRequirementValues.put("DocumentID", "msMappingRequirementValues.document.id");
-        msMappingRequirementValues.put("ValueDescription", "msMappingRequirementValues.description");
-        msMappingRequirementValues.put("ValueText", "msMappingRequirementValues.text");
+        msMappingRequirementValues.put("ValueID", requirements + ".values.id");
+        msMappingRequirementValues.put("RequirementID", requirements + ".id");
+        msMappingRequirementValues.put("DocumentID", requirements + ".values.document.id");
+        msMappingRequirementValues.put("ValueDescription", requirements + ".values.description");
+        msMappingRequirementValues.put("ValueText", requirements + ".values.text");
         mappings.put("MSMappingRequirementValues", msMappingRequirementValues);
         
         return mappings;
     }
     
+    /**
+     * @return Alternative paths of a field read from any of the objects
+     */
+    private static String anyOf(String[] objects, String field) {
+        StringJoiner paths = new StringJoiner("|");
+        for (String object : objects) {
+            paths.add(object + "." + field);
+        }
+        return paths.toString();
+    }
+    
+    /**
+     * Get the throughput metrics of the current or last analysis run
+     */
+    public AnalysisMetrics getAnalysisMetrics() {
+        return analysisMetrics;
+    }
+    
+    /**
+     * Get the field length configuration file, which may not exist yet
+     */
+    public Path getFieldLengthFile() {
+        return Paths.get(CONFIG_DIR, CONFIG_FILE);
+    }
+    
+    /**
+     * Get the inferred schema file written next to the field length configuration, which may not exist yet
+     */
+    public Path getFieldSchemaFile() {
+        return getFieldLengthFile().resolveSibling(SCHEMA_FILE);
+    }
+    
+    /**
+     * Get the catalog numbering the mapped database fields
+     */
+    public FieldCatalog getFieldCatalog() {
+        return fieldCatalog;
+    }
+    
     /**
      * Get service information
      */
@@ -448,6 +912,10 @@ public class ConfigurationService {
         info.append("- JSON Files Directory: ").append(JSON_FILES_DIR).append("\n");
         info.append("- Configuration Directory: ").append(CONFIG_DIR).append("\n");
         info.append("- Configuration File: ").append(CONFIG_FILE).append("\n");
+        info.append("- Statistics File: ").append(STATISTICS_FILE).append("\n");
+        info.append("- Schema File: ").append(SCHEMA_FILE).append("\n");
+        info.append("- Analysis Workers: ").append(workerCount).append("\n");
+        info.append("- Length Mode: ").append(lengthMode).append("\n");
         info.append("- Database Tables Mapped: ").append(tableFieldMappings.size()).append("\n");
         
         int totalFields = tableFieldMappings.values().stream()
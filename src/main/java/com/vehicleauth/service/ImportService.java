@@ -0,0 +1,446 @@
+package com.vehicleauth.service;
+
+import com.vehicleauth.analysis.JsonSources;
+import com.vehicleauth.importer.BatchedRowWriter;
+import com.vehicleauth.importer.BulkLoad;
+import com.vehicleauth.importer.ChangeDetectingRowWriter;
+import com.vehicleauth.importer.ColumnLimits;
+import com.vehicleauth.importer.DeadLetterQueue;
+import com.vehicleauth.importer.DeduplicatingRowWriter;
+import com.vehicleauth.importer.DryRunRowWriter;
+import com.vehicleauth.importer.ImportCheckpoint;
+import com.vehicleauth.importer.ImportSchema;
+import com.vehicleauth.importer.ImportWatermarks;
+import com.vehicleauth.importer.JdbcRowWriter;
+import com.vehicleauth.importer.JsonFolderWatcher;
+import com.vehicleauth.importer.JsonImporter;
+import com.vehicleauth.importer.ParallelJsonImporter;
+import com.vehicleauth.importer.RowMapper;
+import com.vehicleauth.importer.SeenRowCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Service class for importing JSON data into the database
+ * Application lists, issue lists and application details are streamed from the
+ * JSON files directory and upserted into the normalized tables
+ */
+public class ImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportService.class);
+
+    // Configuration constants
+    private static final String JSON_FILES_DIR = "Json Files";
+    private static final String DATABASE_FILE = "Database.accdb";
+    private static final String DEAD_LETTER_FILE = "import-dead-letters.jsonl";
+    private static final String CHECKPOINT_FILE = "import-checkpoint.json";
+    // Tables are kept on disk instead of being mirrored in memory
+    private static final String JDBC_URL_PREFIX = "jdbc:ucanaccess://";
+    private static final String JDBC_URL_OPTIONS = ";memory=false";
+
+    /**
+     * How the JSON files are imported
+     */
+    public enum Mode {
+        /** Every record is read and upserted */
+        FULL,
+        /** Application list records not modified since the last incremental import are skipped */
+        INCREMENTAL,
+        /** Full import with the secondary indexes and foreign keys dropped and rebuilt afterwards */
+        BULK_LOAD
+    }
+
+    private final ImportSchema importSchema;
+    private final int parserThreads;
+    private final int batchSize;
+    private final int commitInterval;
+    private final ColumnLimits columnLimits;
+
+    /**
+     * @param configurationService Provides the JSON paths of the mapped database fields
+     */
+    public ImportService(ConfigurationService configurationService) {
+        // One core is left to the writer
+        this(configurationService, Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+             BatchedRowWriter.DEFAULT_BATCH_SIZE, BatchedRowWriter.DEFAULT_COMMIT_INTERVAL);
+    }
+
+    /**
+     * @param configurationService Provides the JSON paths of the mapped database fields
+     * @param parserThreads Threads parsing JSON files while the rows are written
+     * @param batchSize Rows sent to the database per JDBC batch
+     * @param commitInterval Rows written per transaction
+     */
+    public ImportService(ConfigurationService configurationService, int parserThreads, int batchSize, int commitInterval) {
+        this(configurationService, parserThreads, batchSize, commitInterval, ColumnLimits.Policy.DEAD_LETTER);
+    }
+
+    /**
+     * @param configurationService Provides the JSON paths of the mapped database fields and their lengths
+     * @param parserThreads Threads parsing JSON files while the rows are written
+     * @param batchSize Rows sent to the database per JDBC batch
+     * @param commitInterval Rows written per transaction
+     * @param lengthPolicy What happens to text longer than its column in the field length configuration
+     */
+    public ImportService(ConfigurationService configurationService, int parserThreads, int batchSize, int commitInterval,
+                         ColumnLimits.Policy lengthPolicy) {
+        this.importSchema = ImportSchema.of(configurationService.getFieldCatalog());
+        this.parserThreads = parserThreads;
+        this.batchSize = batchSize;
+        this.commitInterval = commitInterval;
+        this.columnLimits = loadColumnLimits(configurationService.getFieldLengthFile(), configurationService.getFieldSchemaFile(), lengthPolicy);
+    }
+
+    /**
+     * @return Limits of the field length configuration and the inferred schema, none without the configuration
+     */
+    private ColumnLimits loadColumnLimits(Path fieldLengthFile, Path fieldSchemaFile, ColumnLimits.Policy lengthPolicy) {
+        if (!Files.isRegularFile(fieldLengthFile)) {
+            logger.info("No field length configuration {}, text lengths are not checked", fieldLengthFile);
+            return ColumnLimits.NONE;
+        }
+        try {
+            Path script = Paths.get(ImportSchema.DATABASE_SCRIPT);
+            return ColumnLimits.load(fieldLengthFile, fieldSchemaFile, Files.isRegularFile(script) ? script : null, importSchema, lengthPolicy);
+        } catch (IOException e) {
+            logger.warn("Failed to read " + fieldLengthFile + ", text lengths are not checked - " + e.getMessage());
+            return ColumnLimits.NONE;
+        }
+    }
+
+    /**
+     * Import all JSON files into the database
+     * @return true if every file and record was imported
+     */
+    public boolean importJsonData() {
+        return importJsonData(Mode.FULL);
+    }
+
+    /**
+     * Import the JSON files into the database
+     * @return true if every file and record was imported, and in bulk load mode every index rebuilt
+     */
+    public boolean importJsonData(Mode mode) {
+        logger.info("Starting JSON data import, mode {}", mode);
+
+        Path databasePath = Paths.get(DATABASE_FILE);
+        if (!Files.exists(databasePath)) {
+            System.err.println("❌ Database file not found: " + DATABASE_FILE);
+            System.err.println("Please create the database first.");
+            return false;
+        }
+        Path jsonDir = Paths.get(JSON_FILES_DIR);
+        if (!Files.isDirectory(jsonDir)) {
+            System.err.println("❌ JSON files directory not found: " + JSON_FILES_DIR);
+            return false;
+        }
+
+        String url = JDBC_URL_PREFIX + databasePath.toAbsolutePath() + JDBC_URL_OPTIONS;
+        try (Connection connection = DriverManager.getConnection(url);
+             DeadLetterQueue deadLetters = new DeadLetterQueue(Paths.get(DEAD_LETTER_FILE))) {
+            // Left behind by a run that did not get through all files
+            ImportCheckpoint checkpoint = ImportCheckpoint.load(Paths.get(CHECKPOINT_FILE));
+            boolean complete = mode == Mode.BULK_LOAD
+                ? bulkLoadJsonFiles(jsonDir, connection, deadLetters, checkpoint)
+                : importJsonFiles(jsonDir, connection, mode == Mode.INCREMENTAL, deadLetters, checkpoint).isComplete();
+            if (deadLetters.getEntries() > 0) {
+                System.out.println("📮 " + deadLetters.getEntries() + " failed records written to " + DEAD_LETTER_FILE
+                                   + ", replay them once the cause is fixed");
+            }
+            return complete;
+        } catch (Exception e) {
+            logger.error("JSON data import failed", e);
+            System.err.println("❌ Import failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Import the JSON files of a directory over an open connection
+     * @param jsonDir Directory with the JSON files, see {@link JsonSources}
+     * @param incremental Skip records below the watermarks of their applications, and advance them
+     * @param deadLetters Queue of the records that fail, null to only log them
+     * @param checkpoint Progress to resume and save, null to import every file from the start
+     * @return Import result
+     */
+    JsonImporter.Result importJsonFiles(Path jsonDir, Connection connection, boolean incremental, DeadLetterQueue deadLetters,
+                                        ImportCheckpoint checkpoint) throws IOException, SQLException {
+        try (JsonSources sources = JsonSources.open(jsonDir)) {
+            return importSources(sources, connection, incremental, deadLetters, checkpoint);
+        }
+    }
+
+    private JsonImporter.Result importSources(JsonSources sources, Connection connection, boolean incremental,
+                                              DeadLetterQueue deadLetters, ImportCheckpoint checkpoint) throws IOException, SQLException {
+        ChangeDetectingRowWriter.createRowHashTable(connection, importSchema);
+        ImportWatermarks watermarks = null;
+        if (incremental) {
+            ImportWatermarks.createTable(connection);
+            watermarks = ImportWatermarks.load(connection);
+        }
+        try (BatchedRowWriter writer = new BatchedRowWriter(connection, importSchema, batchSize, commitInterval);
+             ChangeDetectingRowWriter changeDetectingWriter = new ChangeDetectingRowWriter(writer, connection, importSchema);
+             DeduplicatingRowWriter deduplicatingWriter = new DeduplicatingRowWriter(changeDetectingWriter,
+                 DeduplicatingRowWriter.DEFAULT_SHARED_TABLES, DeduplicatingRowWriter.DEFAULT_CAPACITY, true)) {
+            System.out.println("📂 Found " + sources.getFiles().size() + " JSON files to import");
+
+            ParallelJsonImporter importer = new ParallelJsonImporter(new RowMapper(importSchema, writer, columnLimits),
+                parserThreads, ParallelJsonImporter.DEFAULT_QUEUE_CAPACITY, watermarks, deadLetters, checkpoint);
+            long truncatedBefore = columnLimits.getTruncatedValues();
+            ParallelJsonImporter.Result result = importer.importSources(sources.getFiles(), deduplicatingWriter);
+            if (columnLimits.getTruncatedValues() > truncatedBefore) {
+                System.out.println("✂️ Values truncated to their column length: " + (columnLimits.getTruncatedValues() - truncatedBefore));
+            }
+            if (checkpoint != null && checkpoint.getSkippedSources() + checkpoint.getResumedSources() > 0) {
+                System.out.println("⏯️ Resumed the interrupted import: " + checkpoint.getSkippedSources() + " files already complete, "
+                                   + checkpoint.getResumedSources() + " continued from their last commit");
+            }
+            printImportReport(result, writer, changeDetectingWriter, deduplicatingWriter);
+            return result;
+        }
+    }
+
+    /**
+     * Run the import over the JSON files without a database, counting the rows instead of writing them
+     * Neither the database nor its script is needed, so it runs anywhere and shows the
+     * throughput reading and mapping allows, the ceiling of a real import
+     * @param jsonDir Directory with the JSON files, the JSON files directory if null
+     * @return true if every file was read and every record mapped
+     */
+    public boolean dryRunJsonData(Path jsonDir) {
+        Path dir = jsonDir != null ? jsonDir : Paths.get(JSON_FILES_DIR);
+        logger.info("Starting dry run import of {}", dir);
+        if (!Files.isDirectory(dir)) {
+            System.err.println("❌ JSON files directory not found: " + dir);
+            return false;
+        }
+        try {
+            return dryRunJsonFiles(dir).isComplete();
+        } catch (Exception e) {
+            logger.error("Dry run import failed", e);
+            System.err.println("❌ Dry run failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Read and map the JSON files of a directory, discarding the rows
+     * @return Import result, with the time spent per stage
+     */
+    ParallelJsonImporter.Result dryRunJsonFiles(Path jsonDir) throws IOException {
+        try (JsonSources sources = JsonSources.open(jsonDir);
+             DryRunRowWriter writer = new DryRunRowWriter()) {
+            long sourceBytes = 0;
+            for (Path file : sources.getFiles()) {
+                sourceBytes += Files.size(file);
+            }
+            System.out.println("📂 Found " + sources.getFiles().size() + " JSON files, " + sourceBytes / 1024 + " KB, dry run");
+
+            ParallelJsonImporter importer = new ParallelJsonImporter(new RowMapper(importSchema, writer, columnLimits), parserThreads,
+                                                                     ParallelJsonImporter.DEFAULT_QUEUE_CAPACITY);
+            ParallelJsonImporter.Result result = importer.importSources(sources.getFiles(), writer);
+            printDryRunReport(result, writer, sourceBytes);
+            return result;
+        }
+    }
+
+    /**
+     * Import the JSON files dropped into the JSON files directory as they arrive, until the watcher is closed
+     * Files are imported incrementally, so a file dropped again only stores its changed records
+     * @param onStarted Receives the watcher once it is watching, so another thread can close it
+     * @return true if the directory was watched until the watcher was closed
+     */
+    public boolean watchJsonData(Duration stableInterval, Consumer<JsonFolderWatcher> onStarted) {
+        logger.info("Starting JSON folder watch");
+
+        Path databasePath = Paths.get(DATABASE_FILE);
+        if (!Files.exists(databasePath)) {
+            System.err.println("❌ Database file not found: " + DATABASE_FILE);
+            return false;
+        }
+        Path jsonDir = Paths.get(JSON_FILES_DIR);
+        if (!Files.isDirectory(jsonDir)) {
+            System.err.println("❌ JSON files directory not found: " + JSON_FILES_DIR);
+            return false;
+        }
+
+        String url = JDBC_URL_PREFIX + databasePath.toAbsolutePath() + JDBC_URL_OPTIONS;
+        try (Connection connection = DriverManager.getConnection(url);
+             DeadLetterQueue deadLetters = new DeadLetterQueue(Paths.get(DEAD_LETTER_FILE));
+             JsonFolderWatcher watcher = new JsonFolderWatcher(jsonDir, stableInterval, JsonFolderWatcher.DEFAULT_MAX_PENDING_FILES,
+                                                               true, files -> importDroppedFiles(files, connection, deadLetters))) {
+            onStarted.accept(watcher);
+            watcher.run();
+            System.out.println("📡 Files imported while watching: " + watcher.getImportedFiles() + ", latency avg "
+                               + watcher.getAverageLatency().toMillis() + " ms, max " + watcher.getMaxLatency().toMillis() + " ms");
+            if (watcher.getFailedFiles() > 0 || watcher.getFailedRecords() > 0 || watcher.getFailedBatches() > 0) {
+                System.out.println("⚠ Unreadable files: " + watcher.getFailedFiles() + ", failed records: "
+                                   + watcher.getFailedRecords() + " (see " + DEAD_LETTER_FILE + "), failed batch attempts: "
+                                   + watcher.getFailedBatches());
+            }
+            return true;
+        } catch (Exception e) {
+            logger.error("JSON folder watch failed", e);
+            System.err.println("❌ Watch failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Import a batch of files found by the watcher over an open connection
+     * @return Outcome of the import, with the records that failed
+     */
+    JsonImporter.Result importDroppedFiles(List<Path> files, Connection connection, DeadLetterQueue deadLetters)
+            throws IOException, SQLException {
+        System.out.println("📡 " + files.size() + " new or changed JSON files");
+        try (JsonSources sources = JsonSources.open(files)) {
+            return importSources(sources, connection, true, deadLetters, null);
+        }
+    }
+
+    /**
+     * Import the JSON files with the indexes and foreign keys of the database script dropped,
+     * rebuilding them afterwards even if the import fails
+     * Without the script the files are imported with the indexes in place
+     * @return true if every file and record was imported and every definition of the script is in place
+     */
+    boolean bulkLoadJsonFiles(Path jsonDir, Connection connection, DeadLetterQueue deadLetters, ImportCheckpoint checkpoint)
+            throws IOException, SQLException {
+        Path script = Paths.get(ImportSchema.DATABASE_SCRIPT);
+        if (!Files.isRegularFile(script)) {
+            System.out.println("⚠ " + ImportSchema.DATABASE_SCRIPT + " not found, importing with the indexes in place");
+            return importJsonFiles(jsonDir, connection, false, deadLetters, checkpoint).isComplete();
+        }
+        BulkLoad bulkLoad = BulkLoad.load(script);
+        Duration dropElapsed = bulkLoad.prepare(connection);
+        JsonImporter.Result result = null;
+        try {
+            result = importJsonFiles(jsonDir, connection, false, deadLetters, checkpoint);
+        } finally {
+            BulkLoad.Result rebuild = bulkLoad.rebuild(connection);
+            System.out.println("🧱 Bulk load: dropping " + dropElapsed.toMillis() + " ms, loading "
+                               + (result == null ? "-" : String.valueOf(result.getElapsed().toMillis())) + " ms, rebuilding "
+                               + rebuild.getElapsed().toMillis() + " ms, " + rebuild.getRebuilt() + " indexes and foreign keys rebuilt");
+            for (String failure : rebuild.getFailures()) {
+                System.out.println("❌ Not rebuilt, run manually: " + failure);
+            }
+            if (result != null) {
+                return result.isComplete() && rebuild.isComplete();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Import the records of the dead letter file again, keeping those that fail again
+     * @return true if every dead-lettered record was imported
+     */
+    public boolean replayDeadLetters() {
+        logger.info("Replaying dead-lettered records");
+
+        Path databasePath = Paths.get(DATABASE_FILE);
+        if (!Files.exists(databasePath)) {
+            System.err.println("❌ Database file not found: " + DATABASE_FILE);
+            return false;
+        }
+        String url = JDBC_URL_PREFIX + databasePath.toAbsolutePath() + JDBC_URL_OPTIONS;
+        try (Connection connection = DriverManager.getConnection(url)) {
+            return replayDeadLetters(Paths.get(DEAD_LETTER_FILE), connection).isComplete();
+        } catch (Exception e) {
+            logger.error("Dead letter replay failed", e);
+            System.err.println("❌ Replay failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Import the records of a dead letter file again over an open connection
+     * @return Replay result, the records that failed again as failed records
+     */
+    JsonImporter.Result replayDeadLetters(Path deadLetterFile, Connection connection) throws IOException, SQLException {
+        ChangeDetectingRowWriter.createRowHashTable(connection, importSchema);
+        try (BatchedRowWriter writer = new BatchedRowWriter(connection, importSchema, batchSize, commitInterval);
+             ChangeDetectingRowWriter changeDetectingWriter = new ChangeDetectingRowWriter(writer, connection, importSchema)) {
+            JsonImporter.Result result = DeadLetterQueue.replay(deadLetterFile, new RowMapper(importSchema, writer, columnLimits), changeDetectingWriter);
+            System.out.println("📮 Dead letters replayed: " + (result.getRecords() - result.getFailedRecords()) + "/" + result.getRecords()
+                               + (result.getFailedRecords() > 0 ? ", the others remain in " + deadLetterFile : ""));
+            return result;
+        }
+    }
+
+    private static void printImportReport(ParallelJsonImporter.Result result, JdbcRowWriter writer,
+                                          ChangeDetectingRowWriter changeDetectingWriter,
+                                          DeduplicatingRowWriter deduplicatingWriter) {
+        System.out.println("📥 Files imported: " + (result.getSources() - result.getFailedSources()) + "/" + result.getSources());
+        System.out.println("📄 Records imported: " + (result.getRecords() - result.getFailedRecords()) + "/" + result.getRecords());
+        if (result.getSkippedRecords() > 0 || result.getAdvancedWatermarks() > 0) {
+            System.out.println("⏭️ Records unchanged since the last import: " + result.getSkippedRecords()
+                               + ", watermarks advanced: " + result.getAdvancedWatermarks());
+        }
+        System.out.println("🗃️ Rows inserted: " + writer.getRowsInserted() + ", updated: " + writer.getRowsUpdated()
+                           + ", unchanged: " + changeDetectingWriter.getRowsUnchanged());
+        System.out.println("⏱️ Elapsed: " + result.getElapsed().toMillis() + " ms");
+        System.out.println(String.format("⚙️ Parsers %.0f%% busy, writer %.0f%% busy, queue depth avg %.1f max %d of %d, limited by %s",
+            result.getParserUtilization() * 100, result.getWriterUtilization() * 100, result.getAverageQueueDepth(),
+            result.getMaxQueueDepth(), result.getQueueCapacity(), result.getBottleneck()));
+        for (Map.Entry<String, JdbcRowWriter.TableThroughput> table : writer.getTableThroughput().entrySet()) {
+            System.out.println(String.format("   %-28s %8d rows %10.0f rows/s",
+                table.getKey(), table.getValue().getRows(), table.getValue().getRowsPerSecond()));
+        }
+        for (Map.Entry<String, SeenRowCache> cache : deduplicatingWriter.getCaches().entrySet()) {
+            System.out.println(String.format("   %-28s %8d repeated rows skipped of %d",
+                cache.getKey(), cache.getValue().getSuppressed(), cache.getValue().getLookups()));
+        }
+        if (!result.isComplete()) {
+            System.out.println("⚠ Some files or records were skipped, see the log for details");
+        }
+    }
+
+    private void printDryRunReport(ParallelJsonImporter.Result result, DryRunRowWriter writer, long sourceBytes) {
+        double seconds = Math.max(result.getElapsed().toNanos(), 1) / 1e9;
+        System.out.println("📄 Records mapped: " + (result.getRecords() - result.getFailedRecords()) + "/" + result.getRecords()
+                           + ", rows: " + writer.getRows() + ", row bytes: " + writer.getBytes());
+        System.out.println("⏱️ Elapsed: " + result.getElapsed().toMillis() + " ms with " + parserThreads + " parser threads");
+        System.out.println(String.format("🚀 %.0f records/s, %.0f rows/s, %.1f MB/s of JSON",
+            result.getRecords() / seconds, writer.getRows() / seconds, sourceBytes / seconds / (1024 * 1024)));
+        System.out.println("⚙️ Parsing " + result.getParseTime().toMillis() + " ms, mapping " + result.getMapTime().toMillis()
+                           + " ms, discarding " + result.getWriteTime().toMillis() + " ms, limited by " + result.getBottleneck());
+        for (Map.Entry<String, DryRunRowWriter.TableVolume> table : writer.getTableVolumes().entrySet()) {
+            System.out.println(String.format("   %-28s %8d rows %12d bytes",
+                table.getKey(), table.getValue().getRows(), table.getValue().getBytes()));
+        }
+        if (!result.isComplete()) {
+            System.out.println("⚠ Some files or records could not be mapped, see the log for details");
+        }
+    }
+
+    /**
+     * Get service information
+     */
+    public String getServiceInfo() {
+        StringBuilder info = new StringBuilder();
+        info.append("Import Service Information:\n");
+        info.append("- JSON Files Directory: ").append(JSON_FILES_DIR).append("\n");
+        info.append("- Database File: ").append(DATABASE_FILE).append("\n");
+        info.append("- Dead Letter File: ").append(DEAD_LETTER_FILE).append("\n");
+        info.append("- Checkpoint File: ").append(CHECKPOINT_FILE).append("\n");
+        info.append("- Tables Imported: ").append(importSchema.getTables().size()).append("\n");
+        info.append("- Parser Threads: ").append(parserThreads).append("\n");
+        info.append("- Batch Size: ").append(batchSize).append("\n");
+        info.append("- Commit Interval: ").append(commitInterval).append("\n");
+        info.append("- Length Checked Columns: ").append(columnLimits.size()).append(" (").append(columnLimits.getPolicy()).append(")\n");
+        return info.toString();
+    }
+}
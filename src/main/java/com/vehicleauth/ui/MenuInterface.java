@@ -1,11 +1,19 @@
 package com.vehicleauth.ui;
 
+import com.vehicleauth.importer.JsonFolderWatcher;
 import com.vehicleauth.service.ConfigurationService;
 import com.vehicleauth.service.DatabaseService;
+import com.vehicleauth.service.ImportService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Menu interface for Vehicle Authorization Database Manager
@@ -17,12 +25,14 @@ public class MenuInterface {
     private final Scanner scanner;
     private final DatabaseService databaseService;
     private final ConfigurationService configurationService;
+    private final ImportService importService;
     private boolean running;
     
     public MenuInterface() {
         this.scanner = new Scanner(System.in);
         this.databaseService = new DatabaseService();
         this.configurationService = new ConfigurationService();
+        this.importService = new ImportService(configurationService);
         this.running = true;
     }
     
@@ -31,11 +41,16 @@ public class MenuInterface {
      */
     public void showMainMenu() {
         printWelcome();
+        configurationService.registerAnalysisMetrics();
         
-        while (running) {
-            printMainMenu();
-            int choice = getUserChoice();
-            handleMenuChoice(choice);
+        try {
+            while (running) {
+                printMainMenu();
+                int choice = getUserChoice();
+                handleMenuChoice(choice);
+            }
+        } finally {
+            configurationService.unregisterAnalysisMetrics();
         }
         
         scanner.close();
@@ -64,12 +79,14 @@ public class MenuInterface {
         System.out.println("1. Create New Database");
         System.out.println("2. Verify Database Structure");
         System.out.println("3. Generate Field Length Configuration");
-        System.out.println("4. Import JSON Data (Coming Soon)");
+        System.out.println("4. Import JSON Data");
         System.out.println("5. Export Database Report (Coming Soon)");
         System.out.println("6. Database Statistics (Coming Soon)");
+        System.out.println("7. Replay Failed Import Records");
+        System.out.println("8. Watch JSON Files Directory");
         System.out.println("0. Exit");
         System.out.println("===============================================================");
-        System.out.print("Please select an option (0-6): ");
+        System.out.print("Please select an option (0-8): ");
     }
     
     /**
@@ -112,11 +129,17 @@ public class MenuInterface {
             case 6:
                 handleDatabaseStatistics();
                 break;
+            case 7:
+                handleReplayDeadLetters();
+                break;
+            case 8:
+                handleWatchJsonData();
+                break;
             case 0:
                 handleExit();
                 break;
             default:
-                System.out.println("❌ Invalid option. Please select a number between 0-6.");
+                System.out.println("❌ Invalid option. Please select a number between 0-8.");
                 break;
         }
         
@@ -189,23 +212,43 @@ public class MenuInterface {
         System.out.println("📊 GENERATE FIELD LENGTH CONFIGURATION");
         System.out.println("---------------------------------------------------------------");
         System.out.println("This will analyze all JSON files in the 'Json Files' directory");
+        System.out.println("(including .json.gz files and JSON entries of .zip bundles)");
         System.out.println("and generate a configuration file with maximum text field lengths");
         System.out.println("for the database schema.");
         System.out.println();
-        System.out.println("The configuration file will be saved as:");
+        System.out.println("The configuration files will be saved as:");
         System.out.println("  📁 Configuration/Fields_length.txt");
+        System.out.println("  📁 Configuration/Fields_length_stats.txt");
         System.out.println();
         
+        System.out.println("Analysis mode:");
+        System.out.println("  1. Full analysis of all JSON files (default)");
+        System.out.println("  2. Quick estimate from a sample of one application list");
+        System.out.print("Select analysis mode (1-2): ");
+        if ("2".equals(scanner.nextLine().trim())) {
+            handleSampleFieldLengths();
+            return;
+        }
+        
         System.out.print("Do you want to proceed? (y/N): ");
         String confirmation = scanner.nextLine().trim().toLowerCase();
         
         if ("y".equals(confirmation) || "yes".equals(confirmation)) {
+            System.out.println("Size columns by:");
+            System.out.println("  1. Longest value found (default)");
+            System.out.println("  2. 99th percentile, ignoring rare outliers");
+            System.out.print("Select sizing policy (1-2): ");
+            ConfigurationService.SizingPolicy sizingPolicy = "2".equals(scanner.nextLine().trim())
+                ? ConfigurationService.SizingPolicy.P99_MARGIN
+                : ConfigurationService.SizingPolicy.MAX;
+            
             System.out.println("\n🔍 Analyzing JSON files...");
-            boolean success = configurationService.generateFieldLengthConfiguration();
+            boolean success = configurationService.generateFieldLengthConfiguration(sizingPolicy);
             
             if (success) {
                 System.out.println("\n✅ Field length configuration generated successfully!");
                 System.out.println("📄 Configuration file: Configuration/Fields_length.txt");
+                System.out.println("📈 Length statistics: Configuration/Fields_length_stats.txt");
                 System.out.println("🔧 This file can be used to optimize database field sizes.");
             } else {
                 System.out.println("\n❌ Failed to generate field length configuration.");
@@ -217,18 +260,153 @@ public class MenuInterface {
     }
     
     /**
-     * Handle JSON data import option (placeholder for future implementation)
+     * Handle the quick sampling estimate of a single application list
+     */
+    private void handleSampleFieldLengths() {
+        System.out.print("Application list JSON file: ");
+        String fileName = scanner.nextLine().trim();
+        Path jsonFile = Paths.get(fileName);
+        if (fileName.isEmpty() || !Files.isRegularFile(jsonFile)) {
+            System.out.println("❌ File not found: " + fileName);
+            return;
+        }
+        
+        int recordBudget = readNumber("Records to sample", 1000);
+        int seconds = readNumber("Time budget in seconds", 10);
+        
+        System.out.println("\n🎲 Sampling application list...");
+        if (configurationService.sampleFieldLengths(jsonFile, recordBudget, Duration.ofSeconds(seconds)) == null) {
+            System.out.println("\n❌ Failed to sample the application list.");
+            System.out.println("Please check the logs for more details.");
+        }
+    }
+    
+    /**
+     * Read a positive number, falling back to the default on empty or invalid input
+     */
+    private int readNumber(String prompt, int defaultValue) {
+        System.out.print(prompt + " [" + defaultValue + "]: ");
+        try {
+            int value = Integer.parseInt(scanner.nextLine().trim());
+            return value > 0 ? value : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+    
+    /**
+     * Handle JSON data import
      */
     private void handleImportJsonData() {
         System.out.println("📥 IMPORT JSON DATA");
         System.out.println("---------------------------------------------------------------");
-        System.out.println("This feature will import Vehicle Authorization data from JSON files");
-        System.out.println("into the database tables.");
+        System.out.println("This will import the application lists, issue lists and application");
+        System.out.println("details in the 'Json Files' directory into the database tables.");
+        System.out.println("Existing rows are updated, new rows are inserted.");
         System.out.println();
-        System.out.println("🚧 This feature is coming soon!");
-        System.out.println("💡 The database structure is ready to receive JSON data.");
+        
+        System.out.print("Do you want to proceed? (y/N): ");
+        String confirmation = scanner.nextLine().trim().toLowerCase();
+        
+        if ("y".equals(confirmation) || "yes".equals(confirmation)) {
+            System.out.println("Import mode:");
+            System.out.println("  1. Full - read and store every record (default)");
+            System.out.println("  2. Incremental - skip records not modified since the last incremental import");
+            System.out.println("  3. Bulk load - full import with indexes dropped and rebuilt, for first loads");
+            System.out.println("  4. Dry run - read and map every record without writing, to measure throughput");
+            System.out.print("Select mode (1-4): ");
+            String modeChoice = scanner.nextLine().trim();
+            if ("4".equals(modeChoice)) {
+                System.out.println("\n📥 Dry run over the JSON files...");
+                if (importService.dryRunJsonData(null)) {
+                    System.out.println("\n✅ Dry run completed, every record mapped.");
+                } else {
+                    System.out.println("\n❌ Dry run found records that do not map.");
+                    System.out.println("Please check the logs for more details.");
+                }
+                return;
+            }
+            ImportService.Mode mode = "2".equals(modeChoice) ? ImportService.Mode.INCREMENTAL
+                                    : "3".equals(modeChoice) ? ImportService.Mode.BULK_LOAD
+                                    : ImportService.Mode.FULL;
+            
+            System.out.println("\n📥 Importing JSON files...");
+            boolean success = importService.importJsonData(mode);
+            
+            if (success) {
+                System.out.println("\n✅ JSON data imported successfully!");
+            } else {
+                System.out.println("\n❌ JSON data import did not complete.");
+                System.out.println("Please check the logs for more details.");
+            }
+        } else {
+            System.out.println("❌ Operation cancelled.");
+        }
+    }
+    
+    /**
+     * Handle replay of the records that failed to import
+     */
+    private void handleReplayDeadLetters() {
+        System.out.println("📮 REPLAY FAILED IMPORT RECORDS");
+        System.out.println("---------------------------------------------------------------");
+        System.out.println("This will import the records written to the dead letter file by");
+        System.out.println("earlier imports again. Records that still fail are kept in the file.");
+        System.out.println();
+        
+        System.out.print("Do you want to proceed? (y/N): ");
+        String confirmation = scanner.nextLine().trim().toLowerCase();
+        
+        if ("y".equals(confirmation) || "yes".equals(confirmation)) {
+            System.out.println("\n📮 Replaying failed records...");
+            boolean success = importService.replayDeadLetters();
+            
+            if (success) {
+                System.out.println("\n✅ All failed records imported successfully!");
+            } else {
+                System.out.println("\n❌ Some records still fail to import.");
+                System.out.println("Please check the logs for more details.");
+            }
+        } else {
+            System.out.println("❌ Operation cancelled.");
+        }
     }
     
+    /**
+     * Handle watching the JSON files directory, importing files as they arrive until Enter is pressed
+     */
+    private void handleWatchJsonData() {
+        System.out.println("📡 WATCH JSON FILES DIRECTORY");
+        System.out.println("---------------------------------------------------------------");
+        System.out.println("This will import the JSON files in the 'Json Files' directory, then keep");
+        System.out.println("importing files as they are dropped there once they stop changing.");
+        System.out.println("Only records modified since their file's last import are stored.");
+        System.out.println();
+        System.out.println("📡 Watching, press Enter to stop...");
+
+        AtomicReference<JsonFolderWatcher> watcher = new AtomicReference<>();
+        Thread watchThread = new Thread(() -> importService.watchJsonData(JsonFolderWatcher.DEFAULT_STABLE_INTERVAL, watcher::set),
+                                        "json-folder-watcher");
+        watchThread.start();
+        scanner.nextLine();
+
+        try {
+            // An import in progress is finished before the watcher stops
+            while (watchThread.isAlive()) {
+                JsonFolderWatcher started = watcher.get();
+                if (started != null) {
+                    started.close();
+                }
+                watchThread.join(500);
+            }
+            System.out.println("\n✅ Stopped watching.");
+        } catch (IOException e) {
+            logger.warn("Failed to stop the watcher", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * Handle export report option (placeholder for future implementation)
      */
@@ -0,0 +1,70 @@
+package com.vehicleauth.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AnalysisMetrics
+ */
+class AnalysisMetricsTest {
+
+    @Test
+    @DisplayName("Should count files, bytes and tokens and track the files in progress")
+    void shouldCountFinishedFiles() {
+        AnalysisMetrics metrics = new AnalysisMetrics();
+        metrics.runStarted();
+
+        Path first = Paths.get("first.json");
+        Path second = Paths.get("second.json");
+        AnalysisMetrics.FileMark firstMark = metrics.fileStarted(first);
+        AnalysisMetrics.FileMark secondMark = metrics.fileStarted(second);
+        assertArrayEquals(new String[] { "first.json", "second.json" }, metrics.getCurrentFiles());
+        assertTrue(metrics.getSummary().contains("current: first.json (+1 more)"));
+
+        metrics.fileFinished(firstMark, 1000, 50, true);
+        metrics.fileFinished(secondMark, 24, 0, false);
+        metrics.runFinished();
+
+        assertEquals(1, metrics.getFilesAnalyzed());
+        assertEquals(1, metrics.getFilesFailed());
+        assertEquals(1024, metrics.getBytesRead());
+        assertEquals(50, metrics.getTokensRead());
+        assertEquals(0, metrics.getCurrentFiles().length);
+        assertTrue(metrics.getFilesPerSecond() > 0);
+        assertTrue(metrics.getCpuUtilization() >= 0 && metrics.getCpuUtilization() <= 1);
+        assertNotNull(metrics.getSlowestFile());
+
+        long files = 0;
+        for (long count : metrics.getParseTimeHistogram()) {
+            files += count;
+        }
+        assertEquals(2, files);
+
+        String summary = metrics.getSummary();
+        assertTrue(summary.startsWith("2 files (1 failed)"), summary);
+        assertTrue(summary.contains("parse p50 <"), summary);
+
+        metrics.runStarted();
+        assertEquals(0, metrics.getFilesAnalyzed());
+        assertEquals(0, metrics.getBytesRead());
+        assertNull(metrics.getSlowestFile());
+    }
+
+    @Test
+    @DisplayName("Rates should be frozen once the run finished")
+    void ratesShouldFreezeAfterRun() throws InterruptedException {
+        AnalysisMetrics metrics = new AnalysisMetrics();
+        metrics.runStarted();
+        metrics.fileFinished(metrics.fileStarted(Paths.get("a.json")), 4096, 100, true);
+        metrics.runFinished();
+
+        double filesPerSecond = metrics.getFilesPerSecond();
+        Thread.sleep(20);
+        assertEquals(filesPerSecond, metrics.getFilesPerSecond());
+    }
+}
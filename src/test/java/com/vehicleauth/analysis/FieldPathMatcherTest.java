@@ -0,0 +1,120 @@
+package com.vehicleauth.analysis;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for FieldPathMatcher
+ */
+class FieldPathMatcherTest {
+
+    private FieldCatalog catalog;
+    private FieldPathMatcher matcher;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, Map<String, String>> mappings = new HashMap<>();
+        Map<String, String> addresses = new HashMap<>();
+        addresses.put("AddressID", "address.id");
+        addresses.put("City", "address.city");
+        mappings.put("Addresses", addresses);
+        Map<String, String> bodies = new HashMap<>();
+        bodies.put("BodyID", "applicantBody.id");
+        bodies.put("AddressID", "applicantBody.address.id");
+        mappings.put("Bodies", bodies);
+        Map<String, String> applications = new HashMap<>();
+        applications.put("ID", "id");
+        applications.put("ApplicationID", "applicationId");
+        mappings.put("Applications", applications);
+
+        catalog = FieldCatalog.of(mappings);
+        matcher = new FieldPathMatcher(catalog);
+    }
+
+    @Test
+    @DisplayName("Should number fields by table then field name")
+    void shouldNumberFieldsInSortedOrder() {
+        assertEquals(6, catalog.size());
+        assertEquals("Addresses.AddressID", catalog.getQualifiedName(0));
+        assertEquals("Bodies.BodyID", catalog.getQualifiedName(5));
+        assertEquals(Arrays.asList("Addresses", "Applications", "Bodies"), catalog.getTableNames());
+        assertEquals(-1, catalog.ordinalOf("Bodies", "Unknown"));
+    }
+
+    @Test
+    @DisplayName("Should match the same fields as the suffix string comparison")
+    void shouldMatchLikeSuffixComparison() {
+        String[] paths = {
+            "id", "applicationId", "address.id", "applicantBody.address.id", "applicantBody.id",
+            "contactPerson.userAddress.id", "variantsTypesList.authorisationHolder.address.city",
+            "xaddress.id", "address", "applicantBody.address.street"
+        };
+
+        for (String path : paths) {
+            assertEquals(expectedMatches(path), actualMatches(path), path);
+        }
+    }
+
+    @Test
+    @DisplayName("Should match every alternative of a mapping and array elements only by their segment")
+    void shouldMatchAlternativesAndElements() {
+        Map<String, Map<String, String>> mappings = new HashMap<>();
+        Map<String, String> staff = new HashMap<>();
+        staff.put("StaffName", "assessor[]|projectManager[]");
+        staff.put("ApplicationID", "applicationId");
+        mappings.put("ApplicationStaff", staff);
+        FieldCatalog staffCatalog = FieldCatalog.of(mappings);
+        FieldPathMatcher staffMatcher = new FieldPathMatcher(staffCatalog);
+        int staffName = staffCatalog.ordinalOf("ApplicationStaff", "StaffName");
+
+        assertEquals(Arrays.asList("assessor[]", "projectManager[]"), staffCatalog.getJsonPaths(staffName));
+        assertArrayEquals(new String[] { "a", "assessor", FieldCatalog.ELEMENTS }, FieldCatalog.segmentsOf("a.assessor[]"));
+        assertEquals(3, staffMatcher.maxMatches());
+        assertEquals(List.of(staffName), matches(staffMatcher, "applicationListDTO", "assessor", FieldCatalog.ELEMENTS));
+        assertEquals(List.of(staffName), matches(staffMatcher, "projectManager", FieldCatalog.ELEMENTS));
+        assertEquals(List.of(), matches(staffMatcher, "applicationListDTO", "assessor"));
+    }
+
+    private static List<Integer> matches(FieldPathMatcher matcher, String... segments) {
+        int[] result = new int[matcher.maxMatches()];
+        int count = matcher.match(segments, segments.length, result);
+        List<Integer> ordinals = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ordinals.add(result[i]);
+        }
+        return ordinals;
+    }
+
+    private List<Integer> expectedMatches(String path) {
+        List<Integer> ordinals = new ArrayList<>();
+        for (int ordinal = 0; ordinal < catalog.size(); ordinal++) {
+            String jsonField = catalog.getJsonPath(ordinal);
+            if (path.equals(jsonField) || path.endsWith("." + jsonField)) {
+                ordinals.add(ordinal);
+            }
+        }
+        return ordinals;
+    }
+
+    private List<Integer> actualMatches(String path) {
+        String[] segments = path.split("\\.");
+        int[] result = new int[matcher.maxMatches()];
+        int count = matcher.match(segments, segments.length, result);
+
+        List<Integer> ordinals = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ordinals.add(result[i]);
+        }
+        ordinals.sort(null);
+        return ordinals;
+    }
+}
@@ -0,0 +1,83 @@
+package com.vehicleauth.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for JsonSources
+ */
+class JsonSourcesTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should find plain, gzip and zipped JSON sources and read them decompressed")
+    void shouldReadCompressedSources() throws IOException {
+        Files.createDirectories(tempDir.resolve("sub"));
+        Files.writeString(tempDir.resolve("plain.json"), "{\"a\":1}");
+        Files.writeString(tempDir.resolve("notes.txt"), "not json");
+        writeGzip(tempDir.resolve("sub/packed.json.gz"), "{\"b\":2}");
+        writeZip(tempDir.resolve("bundle.zip"), "first.json", "{\"c\":3}", "docs/readme.txt", "text", "dir/second.json", "{\"d\":4}");
+
+        try (JsonSources sources = JsonSources.open(tempDir)) {
+            List<String> names = sources.getFiles().stream()
+                .map(file -> JsonSources.relativeName(tempDir, file))
+                .collect(Collectors.toList());
+            assertEquals(List.of("bundle.zip!/dir/second.json", "bundle.zip!/first.json", "plain.json", "sub/packed.json.gz"), names);
+
+            assertEquals("{\"d\":4}", read(sources.getFiles().get(0)));
+            assertEquals("{\"a\":1}", read(sources.getFiles().get(2)));
+            assertEquals("{\"b\":2}", read(sources.getFiles().get(3)));
+            assertTrue(JsonSources.describe(sources.getFiles().get(1)).endsWith("bundle.zip!/first.json"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should skip archives that cannot be opened")
+    void shouldSkipBrokenArchives() throws IOException {
+        Files.writeString(tempDir.resolve("broken.zip"), "not a zip");
+        Files.writeString(tempDir.resolve("plain.json"), "{}");
+
+        try (JsonSources sources = JsonSources.open(tempDir)) {
+            assertEquals(List.of(tempDir.resolve("plain.json")), sources.getFiles());
+        }
+    }
+
+    private static String read(Path file) throws IOException {
+        try (InputStream input = JsonSources.newInputStream(file)) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    static void writeGzip(Path file, String content) throws IOException {
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(file))) {
+            output.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    static void writeZip(Path file, String... namesAndContents) throws IOException {
+        try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(file))) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                output.putNextEntry(new ZipEntry(namesAndContents[i]));
+                output.write(namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+                output.closeEntry();
+            }
+        }
+    }
+}
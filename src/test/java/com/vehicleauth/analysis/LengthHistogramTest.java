@@ -0,0 +1,72 @@
+package com.vehicleauth.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LengthHistogram and FieldLengthStatistics
+ */
+class LengthHistogramTest {
+
+    @Test
+    @DisplayName("Every length should fall into a bucket at most 12.5% wide whose bounds contain it")
+    void bucketsShouldCoverLengthsInOrder() {
+        int previousBucket = 0;
+        for (int length = 0; length < 70_000; length++) {
+            int bucket = LengthHistogram.bucketOf(length);
+            assertTrue(bucket >= previousBucket && bucket < LengthHistogram.BUCKET_COUNT, "bucket of " + length);
+            assertTrue(LengthHistogram.upperBound(bucket) >= length, "upper bound of " + length);
+            if (bucket > 0) {
+                int lowerBound = LengthHistogram.upperBound(bucket - 1) + 1;
+                assertTrue(lowerBound <= length, "lower bound of " + length);
+                if (bucket < LengthHistogram.BUCKET_COUNT - 1) {
+                    assertTrue(LengthHistogram.upperBound(bucket) - lowerBound + 1 <= Math.max(1, lowerBound / 8));
+                }
+            }
+            previousBucket = bucket;
+        }
+        assertEquals(LengthHistogram.BUCKET_COUNT - 1, LengthHistogram.bucketOf(Integer.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("Percentiles should be exact for short values and capped by the maximum")
+    void percentilesShouldFollowDistribution() {
+        FieldLengthStatistics statistics = new FieldLengthStatistics(2);
+        for (int i = 1; i <= 100; i++) {
+            statistics.record(0, i <= 90 ? 5 : 12, ValueType.TEXT);
+        }
+        statistics.record(0, 0, ValueType.NULL);
+        assertTrue(statistics.record(0, 1000, ValueType.TEXT));
+        assertFalse(statistics.record(0, 999, ValueType.TEXT));
+
+        assertEquals(102, statistics.getCount(0));
+        assertEquals(1, statistics.getNullCount(0));
+        assertEquals(5, statistics.getPercentile(0, 50));
+        assertEquals(12, statistics.getPercentile(0, 95));
+        assertEquals(1000, statistics.getMaxLength(0));
+        assertEquals(1000, statistics.getPercentile(0, 100));
+        assertEquals(0, statistics.getPercentile(1, 99));
+        assertNull(statistics.getHistogram(1));
+    }
+
+    @Test
+    @DisplayName("Merging should add counts and histograms and keep the larger maximum")
+    void mergeShouldCombineStatistics() {
+        FieldLengthStatistics first = new FieldLengthStatistics(1);
+        FieldLengthStatistics second = new FieldLengthStatistics(1);
+        first.record(0, 3, ValueType.INTEGER);
+        second.record(0, 40, ValueType.TEXT);
+        second.record(0, 0, ValueType.NULL);
+
+        first.merge(second);
+
+        assertEquals(2, first.getCount(0));
+        assertEquals(1, first.getNullCount(0));
+        assertEquals(40, first.getMaxLength(0));
+        assertEquals(1.0 / 3, first.getNullRatio(0), 1e-9);
+        assertEquals(1, first.getHistogram(0)[LengthHistogram.bucketOf(40)]);
+        assertEquals(ValueType.INTEGER.mask() | ValueType.TEXT.mask(), first.getTypeMask(0));
+    }
+}
@@ -0,0 +1,139 @@
+package com.vehicleauth.analysis;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SampledFieldLengthAnalyzer
+ */
+class SampledFieldLengthAnalyzerTest {
+
+    private static final int RECORD_COUNT = 5000;
+
+    @TempDir
+    Path tempDir;
+
+    private FieldCatalog catalog;
+    private SampledFieldLengthAnalyzer analyzer;
+    private Path applicationList;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Map<String, Map<String, String>> mappings = new HashMap<>();
+        Map<String, String> applications = new HashMap<>();
+        applications.put("ApplicationID", "applicationId");
+        applications.put("ProjectName", "projectName");
+        mappings.put("Applications", applications);
+        catalog = FieldCatalog.of(mappings);
+        analyzer = new SampledFieldLengthAnalyzer(new StreamingFieldLengthAnalyzer(), new FieldPathMatcher(catalog),
+                                                  catalog.size(), 42L);
+
+        // Fixed length identifiers and project names with a long tail of rare long names
+        StringBuilder json = new StringBuilder("{\"count\":" + RECORD_COUNT + ",\"applicationListDTO\":[");
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            json.append(i > 0 ? "," : "")
+                .append(String.format("{\"applicationId\":\"V-20250130-%03d\",\"projectName\":\"", i % 1000))
+                .append("P".repeat(i % 500 == 0 ? 100 + i / 50 : 10 + i % 20))
+                .append("\",\"memberStates\":[\"pt\"]}");
+        }
+        applicationList = tempDir.resolve("Application List.json");
+        Files.writeString(applicationList, json.append("]}").toString());
+    }
+
+    @Test
+    @DisplayName("Should measure every record exactly when the budget covers the whole list")
+    void shouldBeExactWhenBudgetCoversList() throws IOException {
+        SampledFieldLengthAnalyzer.Result result = analyzer.sample(applicationList, RECORD_COUNT, null);
+
+        assertTrue(result.isExact());
+        assertEquals(RECORD_COUNT, result.getRecordsSampled());
+        int projectName = catalog.ordinalOf("Applications", "ProjectName");
+        SampledFieldLengthAnalyzer.FieldEstimate estimate = result.estimate(projectName);
+        assertEquals(190, estimate.getMaxLength());
+        assertEquals(1.0, estimate.getMaxCoverage());
+        assertFalse(estimate.isUnderEstimated());
+    }
+
+    @Test
+    @DisplayName("Should flag long-tailed fields of a partial sample and bound their percentiles")
+    void shouldFlagLongTailedFieldsOfSample() throws IOException {
+        SampledFieldLengthAnalyzer.Result result = analyzer.sample(applicationList, 200, null);
+
+        assertTrue(result.isComplete());
+        assertFalse(result.isExact());
+        assertEquals(200, result.getRecordsSampled());
+        assertEquals(RECORD_COUNT, result.getRecordsSeen());
+
+        SampledFieldLengthAnalyzer.FieldEstimate applicationId = result.estimate(catalog.ordinalOf("Applications", "ApplicationID"));
+        assertEquals(200, applicationId.getSampledValues());
+        assertEquals(14, applicationId.getMaxLength());
+        assertFalse(applicationId.isUnderEstimated());
+
+        SampledFieldLengthAnalyzer.FieldEstimate projectName = result.estimate(catalog.ordinalOf("Applications", "ProjectName"));
+        assertTrue(projectName.getMaxLength() <= 190);
+        assertTrue(projectName.getP99Upper() >= projectName.getP99());
+        assertTrue(projectName.getMaxCoverage() > 0.98 && projectName.getMaxCoverage() < 1.0);
+    }
+
+    @Test
+    @DisplayName("Should stop reading when the time budget is exhausted")
+    void shouldStopAtTimeBudget() throws IOException {
+        SampledFieldLengthAnalyzer.Result result = analyzer.sample(applicationList, 100, Duration.ZERO);
+
+        assertFalse(result.isComplete());
+        assertTrue(result.getRecordsSeen() < RECORD_COUNT);
+        assertTrue(result.getEstimatedRecords() >= result.getRecordsSeen());
+    }
+
+    @Test
+    @DisplayName("Should flag every estimate when reading stopped before the end of the file")
+    void shouldFlagEstimatesOfIncompleteRead() throws IOException {
+        SampledFieldLengthAnalyzer.Result read = analyzer.sample(applicationList, 200, null);
+        SampledFieldLengthAnalyzer.Result stopped = new SampledFieldLengthAnalyzer.Result(read.getStatistics(),
+            read.getRecordsSampled(), read.getRecordsSeen(), read.getRecordsSeen() * 2, false, read.getElapsed());
+
+        int applicationId = catalog.ordinalOf("Applications", "ApplicationID");
+        assertFalse(read.estimate(applicationId).isUnderEstimated());
+        assertTrue(stopped.estimate(applicationId).isUnderEstimated());
+    }
+
+    @Test
+    @DisplayName("Should sample a gzip dump like the plain file")
+    void shouldSampleGzipDump() throws IOException {
+        Path compressed = tempDir.resolve("Application List.json.gz");
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(compressed))) {
+            Files.copy(applicationList, output);
+        }
+
+        SampledFieldLengthAnalyzer.Result result = analyzer.sample(compressed, RECORD_COUNT, null);
+
+        assertTrue(result.isExact());
+        assertEquals(RECORD_COUNT, result.getRecordsSeen());
+        assertEquals(190, result.estimate(catalog.ordinalOf("Applications", "ProjectName")).getMaxLength());
+    }
+
+    @Test
+    @DisplayName("Should report nothing for a file without an application list")
+    void shouldIgnoreFilesWithoutApplicationList() throws IOException {
+        Path details = tempDir.resolve("Details.json");
+        Files.writeString(details, "{\"applicationId\":\"V-20250130-002\"}");
+
+        SampledFieldLengthAnalyzer.Result result = analyzer.sample(details, 100, null);
+
+        assertEquals(0, result.getRecordsSeen());
+        assertEquals(0, result.getStatistics().getMaxLength(catalog.ordinalOf("Applications", "ApplicationID")));
+    }
+}
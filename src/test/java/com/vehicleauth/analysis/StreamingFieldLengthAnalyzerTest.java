@@ -0,0 +1,105 @@
+package com.vehicleauth.analysis;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Unit tests for StreamingFieldLengthAnalyzer
+ */
+class StreamingFieldLengthAnalyzerTest {
+
+    private static final int RECORD_COUNT = 20_000;
+    private static final int VALUES_PER_RECORD = 8;
+
+    @Test
+    @DisplayName("Should count UTF-16 units by default and code points when requested")
+    void shouldMeasureUtf16UnitsOrCodePoints() throws IOException {
+        // "Zürich 🚆" is 8 code points and 9 UTF-16 units
+        byte[] json = "{\"address\":{\"city\":\"Zürich 🚆\",\"postalCode\":-0,\"street\":true}}".getBytes(StandardCharsets.UTF_8);
+
+        Map<String, Integer> utf16Lengths = measure(new StreamingFieldLengthAnalyzer(LengthMode.UTF16_UNITS), json);
+        Map<String, Integer> codePointLengths = measure(new StreamingFieldLengthAnalyzer(LengthMode.CODE_POINTS), json);
+
+        assertEquals(9, utf16Lengths.get("address.city"));
+        assertEquals(8, codePointLengths.get("address.city"));
+        assertEquals(1, utf16Lengths.get("address.postalCode"));
+        assertEquals(4, utf16Lengths.get("address.street"));
+    }
+
+    @Test
+    @DisplayName("Should not allocate per analyzed value")
+    void shouldNotAllocatePerValue() throws IOException {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof ThreadMXBean);
+        ThreadMXBean allocationBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+
+        Map<String, Map<String, String>> mappings = new HashMap<>();
+        Map<String, String> applications = new HashMap<>();
+        applications.put("ApplicationID", "applicationId");
+        applications.put("ProjectName", "projectName");
+        applications.put("MemberStates", "memberStates");
+        mappings.put("Applications", applications);
+        FieldCatalog catalog = FieldCatalog.of(mappings);
+        FieldPathMatcher matcher = new FieldPathMatcher(catalog);
+
+        byte[] json = buildApplicationList();
+        int[] maxLengths = new int[catalog.size()];
+        int[] matches = new int[matcher.maxMatches()];
+        StreamingFieldLengthAnalyzer analyzer = new StreamingFieldLengthAnalyzer();
+        StreamingFieldLengthAnalyzer.FieldValueListener listener = (segments, pathLength, length, type) -> {
+            int count = matcher.match(segments, pathLength, matches);
+            for (int i = 0; i < count; i++) {
+                maxLengths[matches[i]] = Math.max(maxLengths[matches[i]], length);
+            }
+        };
+
+        // Warm up so buffer recycling and JIT compilation are in place before measuring
+        for (int i = 0; i < 3; i++) {
+            analyzer.analyze(new ByteArrayInputStream(json), listener);
+        }
+
+        ByteArrayInputStream input = new ByteArrayInputStream(json);
+        long threadId = Thread.currentThread().getId();
+        long before = allocationBean.getThreadAllocatedBytes(threadId);
+        analyzer.analyze(input, listener);
+        long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+
+        long valueCount = (long) RECORD_COUNT * VALUES_PER_RECORD;
+        assertTrue(allocated < valueCount, "Allocated " + allocated + " bytes for " + valueCount + " values");
+        assertEquals(24, maxLengths[catalog.ordinalOf("Applications", "ProjectName")]);
+    }
+
+    private Map<String, Integer> measure(StreamingFieldLengthAnalyzer analyzer, byte[] json) throws IOException {
+        Map<String, Integer> lengths = new HashMap<>();
+        analyzer.analyze(new ByteArrayInputStream(json),
+            (segments, pathLength, length, type) -> lengths.put(String.join(".", java.util.Arrays.copyOf(segments, pathLength)), length));
+        return lengths;
+    }
+
+    private byte[] buildApplicationList() {
+        StringBuilder json = new StringBuilder("{\"applicationListDTO\":[");
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"{503FBA7E-0000-CB10-84B0-D640B5B3AB46}\",\"applicationId\":\"E-20220202-")
+                .append(i % 1000).append("\",\"projectName\":\"Project ").append(i % 7 == 0 ? "with longer name" : "name")
+                .append("\",\"modified\":\"2025-04-02T11:05:26.852Z\",\"count\":").append(i)
+                .append(",\"isWholeEu\":").append(i % 2 == 0).append(",\"preEngaged\":null,\"memberStates\":[\"pt\",\"es\"]")
+                .append(",\"phase\":\"Pre engagement\",\"ein\":\"EIN12348\"}");
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
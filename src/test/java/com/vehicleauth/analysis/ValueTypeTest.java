@@ -0,0 +1,42 @@
+package com.vehicleauth.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ValueType
+ */
+class ValueTypeTest {
+
+    @Test
+    @DisplayName("Should recognize ISO-8601 dates and date-times")
+    void shouldRecognizeIsoTimestamps() {
+        assertEquals(ValueType.TIMESTAMP, classify("2025-04-02T11:05:26.852Z"));
+        assertEquals(ValueType.TIMESTAMP, classify("2025-04-02T11:05:26Z"));
+        assertEquals(ValueType.TIMESTAMP, classify("2025-04-02T11:05"));
+        assertEquals(ValueType.TIMESTAMP, classify("2025-04-02 11:05:26.123456789+02:00"));
+        assertEquals(ValueType.TIMESTAMP, classify("2025-04-02T11:05:26-0500"));
+        assertEquals(ValueType.TIMESTAMP, classify("2025-04-02"));
+    }
+
+    @Test
+    @DisplayName("Should treat other strings as text and empty strings as null")
+    void shouldClassifyOtherStringsAsText() {
+        assertEquals(ValueType.TEXT, classify("V-20250130-002"));
+        assertEquals(ValueType.TEXT, classify("2025-13-02"));
+        assertEquals(ValueType.TEXT, classify("2025-04-02T25:00"));
+        assertEquals(ValueType.TEXT, classify("2025-04-02T11:05:26."));
+        assertEquals(ValueType.TEXT, classify("2025-04-02T11:05:26ZZ"));
+        assertEquals(ValueType.TEXT, classify("2025-04-02 and more"));
+        assertEquals(ValueType.TEXT, classify("{503FBA7E-0000-CB10-84B0-D640B5B3AB46}"));
+        assertEquals(ValueType.NULL, classify(""));
+    }
+
+    private static ValueType classify(String value) {
+        // Classify from the middle of a larger buffer, the way the parser hands out text
+        char[] buffer = ("##" + value + "##").toCharArray();
+        return ValueType.ofText(buffer, 2, value.length());
+    }
+}
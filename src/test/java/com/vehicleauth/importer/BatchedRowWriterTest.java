@@ -0,0 +1,133 @@
+package com.vehicleauth.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vehicleauth.service.ConfigurationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BatchedRowWriter
+ */
+class BatchedRowWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ImportSchema schema;
+    private RowMapper rowMapper;
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        schema = ImportSchema.of(new ConfigurationService().getFieldCatalog());
+        rowMapper = new RowMapper(schema, null);
+        connection = TestDatabase.create(schema);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    @DisplayName("Should insert and then update rows in batches, merging rows with the same key")
+    void shouldUpsertInBatches() throws Exception {
+        try (BatchedRowWriter writer = new BatchedRowWriter(connection, schema, 4, 8)) {
+            writer.write(application("V-1", "First", "Bob"));
+            writer.write(issue("I-1", "V-1"));
+            writer.write(application("V-2", "Second", "Eve"));
+            writer.write(application("V-1", "First, renamed", "Bob"));
+            writer.flush();
+
+            assertEquals(5, writer.getRowsInserted());
+            assertEquals(2, writer.getRowsUpdated());
+            assertEquals(2, TestDatabase.count(connection, "Applications"));
+            assertEquals(2, TestDatabase.count(connection, "ApplicationStaff"));
+            assertEquals("First, renamed", TestDatabase.value(connection, "SELECT ProjectName FROM Applications WHERE ApplicationID = 'V-1'"));
+
+            writer.write(application("V-2", "Second, renamed", "Eve"));
+            writer.flush();
+            assertEquals("Second, renamed", TestDatabase.value(connection, "SELECT ProjectName FROM Applications WHERE ApplicationID = 'V-2'"));
+            assertEquals(2, TestDatabase.count(connection, "ApplicationStaff"));
+            assertEquals(4, writer.getRowsUpdated());
+            assertEquals(0, writer.getRejectedRecords());
+            assertEquals(List.of("Applications", "ApplicationStaff", "Issues"), List.copyOf(writer.getTableThroughput().keySet()));
+            assertEquals(4, writer.getTableThroughput().get("Applications").getRows());
+        }
+    }
+
+    @Test
+    @DisplayName("Should commit only every commit interval rows")
+    void shouldCommitAtInterval() throws Exception {
+        try (BatchedRowWriter writer = new BatchedRowWriter(connection, schema, 2, 100);
+             Connection reader = DriverManager.getConnection(connection.getMetaData().getURL())) {
+            writer.write(application("V-1", "First", "Bob"));
+            assertEquals(0, TestDatabase.count(reader, "Applications"));
+
+            writer.flush();
+            assertEquals(1, TestDatabase.count(reader, "Applications"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject only the records that fail when a batch is written again one by one")
+    void shouldRejectFailingRecordsOnly() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE Applications ADD CONSTRAINT NoBadNames CHECK (ProjectName <> 'bad')");
+        }
+
+        try (BatchedRowWriter writer = new BatchedRowWriter(connection, schema, 100, 100)) {
+            writer.write(application("V-1", "First", "Bob"));
+            writer.write(application("V-2", "bad", "Eve"));
+            writer.write(application("V-3", "Third", "Ann"));
+            writer.flush();
+
+            assertEquals(1, writer.getRejectedRecords());
+            assertEquals(2, TestDatabase.count(connection, "Applications"));
+            assertEquals(2, TestDatabase.count(connection, "ApplicationStaff"));
+            assertEquals(4, writer.getRowsInserted());
+        }
+    }
+
+    @Test
+    @DisplayName("Should write the same rows as the row-by-row writer")
+    void shouldMatchRowByRowWriter() throws Exception {
+        List<List<Row>> records = List.of(application("V-1", "First", "Bob"), issue("I-1", "V-1"),
+                                          issue("I-2", "V-9"), application("V-1", "Again", "Eve"));
+        try (BatchedRowWriter writer = new BatchedRowWriter(connection, schema, 3, 3)) {
+            for (List<Row> record : records) {
+                writer.write(record);
+            }
+        }
+
+        try (Connection expected = TestDatabase.create(schema);
+             JdbcRowWriter writer = new JdbcRowWriter(expected)) {
+            for (List<Row> record : records) {
+                writer.write(record);
+            }
+            for (String table : List.of("Applications", "ApplicationStaff", "Issues")) {
+                assertEquals(TestDatabase.count(expected, table), TestDatabase.count(connection, table), table);
+            }
+            String sql = "SELECT ProjectName || '/' || ID FROM Applications WHERE ApplicationID = 'V-1'";
+            assertEquals(TestDatabase.value(expected, sql), TestDatabase.value(connection, sql));
+        }
+    }
+
+    private List<Row> application(String applicationId, String projectName, String assessor) throws Exception {
+        return rowMapper.map(JsonPayloadType.APPLICATION_LIST, objectMapper.readTree(
+            "{\"applicationId\":\"" + applicationId + "\",\"id\":\"guid-" + applicationId + "\",\"projectName\":\"" + projectName
+            + "\",\"assessor\":[\"" + assessor + "\"]}"), "list.json");
+    }
+
+    private List<Row> issue(String issueId, String applicationId) throws Exception {
+        return rowMapper.map(JsonPayloadType.ISSUE_LIST, objectMapper.readTree(
+            "{\"issueId\":\"" + issueId + "\",\"applicationId\":\"" + applicationId + "\",\"title\":\"Issue\"}"), "issues.json");
+    }
+}
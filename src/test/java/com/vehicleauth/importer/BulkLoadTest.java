@@ -0,0 +1,115 @@
+package com.vehicleauth.importer;
+
+import com.vehicleauth.service.ConfigurationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BulkLoad
+ */
+class BulkLoadTest {
+
+    private static final String INDEX = "CREATE INDEX IX_Issues_ApplicationID ON Issues(ApplicationID)";
+    private static final String FOREIGN_KEY =
+        "ALTER TABLE Issues ADD CONSTRAINT FK_Issues_Applications FOREIGN KEY (ApplicationID) REFERENCES Applications(ApplicationID)";
+    // In the script, but never created in the database
+    private static final String MISSING_INDEX = "CREATE INDEX IX_Missing ON Issues(AssessmentStage)";
+    private static final String SCRIPT = "\"" + INDEX + "\",\n"
+                                         + "# \"CREATE INDEX IX_Commented ON Issues(Title)\",\n"
+                                         + "\"" + FOREIGN_KEY + "\",\n"
+                                         + "\"" + MISSING_INDEX + "\"\n";
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = TestDatabase.create(ImportSchema.of(new ConfigurationService().getFieldCatalog()));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(INDEX);
+            statement.execute(FOREIGN_KEY);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    @DisplayName("Should read every index and foreign key of the database script")
+    void shouldLoadScript() throws Exception {
+        BulkLoad bulkLoad = BulkLoad.load(Paths.get(ImportSchema.DATABASE_SCRIPT));
+
+        assertEquals(31, bulkLoad.getIndexCount());
+        assertEquals(21, bulkLoad.getForeignKeyCount());
+    }
+
+    @Test
+    @DisplayName("Should load rows the foreign key would reject until the rebuild, then rebuild and verify")
+    void shouldDropAndRebuild() throws Exception {
+        BulkLoad bulkLoad = BulkLoad.parse(SCRIPT);
+        assertEquals(2, bulkLoad.getIndexCount());
+        bulkLoad.prepare(connection);
+
+        try (Statement statement = connection.createStatement()) {
+            // Issues first, as a bulk load in any order would
+            statement.execute("INSERT INTO Issues (IssueID, ApplicationID) VALUES ('I-1', 'V-1')");
+            statement.execute("INSERT INTO Applications (ApplicationID) VALUES ('V-1')");
+        }
+        BulkLoad.Result result = bulkLoad.rebuild(connection);
+
+        assertTrue(result.isComplete(), result.getFailures().toString());
+        assertEquals(3, result.getRebuilt());
+        try (Statement statement = connection.createStatement()) {
+            assertThrows(Exception.class, () -> statement.execute("INSERT INTO Issues (IssueID, ApplicationID) VALUES ('I-2', 'V-2')"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should report a foreign key that rows violate and still rebuild the indexes")
+    void shouldReportFailedRebuild() throws Exception {
+        BulkLoad bulkLoad = BulkLoad.parse(SCRIPT);
+        bulkLoad.prepare(connection);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO Issues (IssueID, ApplicationID) VALUES ('I-1', 'V-404')");
+        }
+
+        BulkLoad.Result result = bulkLoad.rebuild(connection);
+
+        assertFalse(result.isComplete());
+        assertEquals(2, result.getRebuilt());
+        assertEquals(1, result.getFailures().size());
+        assertTrue(result.getFailures().get(0).startsWith(FOREIGN_KEY));
+        assertTrue(result.getFailures().get(0).contains("1 rows reference missing Applications rows"));
+    }
+
+    @Test
+    @DisplayName("Should rebuild the definitions an earlier bulk load dropped and died before rebuilding")
+    void shouldRebuildAfterInterruptedLoad() throws Exception {
+        BulkLoad.parse(SCRIPT).prepare(connection);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO Applications (ApplicationID) VALUES ('V-1')");
+            statement.execute("INSERT INTO Issues (IssueID, ApplicationID) VALUES ('I-1', 'V-1')");
+        }
+
+        // The next run finds nothing to drop
+        BulkLoad rerun = BulkLoad.parse(SCRIPT);
+        rerun.prepare(connection);
+        BulkLoad.Result result = rerun.rebuild(connection);
+
+        assertTrue(result.isComplete(), result.getFailures().toString());
+        assertEquals(3, result.getRebuilt());
+        try (Statement statement = connection.createStatement()) {
+            assertThrows(Exception.class, () -> statement.execute("INSERT INTO Issues (IssueID, ApplicationID) VALUES ('I-2', 'V-2')"));
+        }
+        assertEquals(0, BulkLoad.parse(SCRIPT).rebuild(connection).getRebuilt());
+    }
+}
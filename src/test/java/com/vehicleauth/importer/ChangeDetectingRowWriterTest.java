@@ -0,0 +1,128 @@
+package com.vehicleauth.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vehicleauth.service.ConfigurationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChangeDetectingRowWriter
+ */
+class ChangeDetectingRowWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ImportSchema schema;
+    private RowMapper rowMapper;
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        schema = ImportSchema.of(new ConfigurationService().getFieldCatalog());
+        rowMapper = new RowMapper(schema, null);
+        connection = TestDatabase.create(schema);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    @DisplayName("Should write nothing when the same records are imported again by a new writer")
+    void shouldSkipUnchangedRowsOnReimport() throws Exception {
+        importRecords(application("V-1", "First"), application("V-2", "Second"), issue("I-1", "V-1"));
+        assertEquals(6, TestDatabase.count(connection, ImportSchema.ROW_HASHES_TABLE));
+
+        try (BatchedRowWriter writer = new BatchedRowWriter(connection, schema, 10, 10);
+             ChangeDetectingRowWriter changeDetectingWriter = new ChangeDetectingRowWriter(writer, connection, schema)) {
+            assertEquals(6, changeDetectingWriter.getStoredHashCount());
+            changeDetectingWriter.write(application("V-1", "First"));
+            changeDetectingWriter.write(application("V-2", "Second, renamed"));
+            changeDetectingWriter.write(issue("I-1", "V-1"));
+            changeDetectingWriter.flush();
+
+            assertEquals(6, changeDetectingWriter.getRowsChecked());
+            assertEquals(5, changeDetectingWriter.getRowsUnchanged());
+            assertEquals(0, writer.getRowsInserted());
+            assertEquals(2, writer.getRowsUpdated());
+        }
+        assertEquals("Second, renamed", TestDatabase.value(connection, "SELECT ProjectName FROM Applications WHERE ApplicationID = 'V-2'"));
+    }
+
+    @Test
+    @DisplayName("Should forget hashes of rows that were rolled back")
+    void shouldReloadAfterRejection() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE Applications ADD CONSTRAINT NoBadNames CHECK (ProjectName <> 'bad')");
+        }
+
+        try (BatchedRowWriter writer = new BatchedRowWriter(connection, schema, 100, 100);
+             ChangeDetectingRowWriter changeDetectingWriter = new ChangeDetectingRowWriter(writer, connection, schema)) {
+            changeDetectingWriter.write(application("V-1", "First"));
+            changeDetectingWriter.write(application("V-2", "bad"));
+            changeDetectingWriter.flush();
+            assertEquals(1, changeDetectingWriter.getRejectedRecords());
+            assertEquals(2, changeDetectingWriter.getStoredHashCount());
+
+            changeDetectingWriter.write(application("V-1", "First"));
+            assertEquals(2, changeDetectingWriter.getRowsUnchanged());
+        }
+    }
+
+    @Test
+    @DisplayName("Should only take in the hashes of rows once they are committed")
+    void shouldTakeInHashesOnCommit() throws Exception {
+        try (BatchedRowWriter writer = new BatchedRowWriter(connection, schema, 100, 100);
+             ChangeDetectingRowWriter changeDetectingWriter = new ChangeDetectingRowWriter(writer, connection, schema)) {
+            changeDetectingWriter.write(application("V-1", "First"));
+            changeDetectingWriter.write(application("V-1", "First"));
+            assertEquals(0, changeDetectingWriter.getStoredHashCount());
+            assertEquals(0, changeDetectingWriter.getRowsUnchanged());
+
+            changeDetectingWriter.flush();
+            assertEquals(2, changeDetectingWriter.getStoredHashCount());
+            changeDetectingWriter.write(application("V-1", "First"));
+            assertEquals(2, changeDetectingWriter.getRowsUnchanged());
+        }
+        assertEquals(2, TestDatabase.count(connection, ImportSchema.ROW_HASHES_TABLE));
+    }
+
+    @Test
+    @DisplayName("Should create the row hash table when it is missing")
+    void shouldCreateRowHashTable() throws Exception {
+        try (Connection empty = DriverManager.getConnection("jdbc:h2:mem:")) {
+            ChangeDetectingRowWriter.createRowHashTable(empty, schema);
+            ChangeDetectingRowWriter.createRowHashTable(empty, schema);
+            assertEquals(0, TestDatabase.count(empty, ImportSchema.ROW_HASHES_TABLE));
+        }
+    }
+
+    @SafeVarargs
+    private void importRecords(List<Row>... records) throws Exception {
+        try (JdbcRowWriter writer = new JdbcRowWriter(connection);
+             ChangeDetectingRowWriter changeDetectingWriter = new ChangeDetectingRowWriter(writer, connection, schema)) {
+            for (List<Row> record : records) {
+                changeDetectingWriter.write(record);
+            }
+        }
+    }
+
+    private List<Row> application(String applicationId, String projectName) throws Exception {
+        return rowMapper.map(JsonPayloadType.APPLICATION_LIST, objectMapper.readTree(
+            "{\"applicationId\":\"" + applicationId + "\",\"projectName\":\"" + projectName + "\",\"assessor\":[\"Bob\"]}"), "list.json");
+    }
+
+    private List<Row> issue(String issueId, String applicationId) throws Exception {
+        return rowMapper.map(JsonPayloadType.ISSUE_LIST, objectMapper.readTree(
+            "{\"issueId\":\"" + issueId + "\",\"applicationId\":\"" + applicationId + "\",\"title\":\"Issue\"}"), "issues.json");
+    }
+}
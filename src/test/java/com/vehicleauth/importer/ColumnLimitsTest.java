@@ -0,0 +1,162 @@
+package com.vehicleauth.importer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vehicleauth.service.ConfigurationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ColumnLimits
+ */
+class ColumnLimitsTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final String CONFIGURATION = "# Applications Table\n"
+        + "Applications.ApplicationID=5\n"
+        + "Applications.ProjectName=10\n"
+        + "Applications.CaseType=240\n"
+        + "Applications.Unknown=10\n";
+
+    private static final String SCRIPT = "ApplicationID $(Get-FieldDefinition $FieldLengths 'Applications' 'ApplicationID' 50),"
+        + " ProjectName $(Get-FieldDefinition $FieldLengths 'Applications' 'ProjectName' 255),"
+        + " CaseType $(Get-FieldDefinition $FieldLengths 'Applications' 'CaseType' 50),"
+        + " NationalRegNumber TEXT($(Get-ConfiguredFieldLength $FieldLengths 'Applications' 'NationalRegNumber' 30))";
+
+    @TempDir
+    Path tempDir;
+
+    private ImportSchema schema;
+    private TableMapping applications;
+
+    @BeforeEach
+    void setUp() {
+        schema = ImportSchema.of(new ConfigurationService().getFieldCatalog());
+        applications = schema.getTables().stream()
+            .filter(table -> table.getTableName().equals("Applications")).findFirst().orElseThrow();
+    }
+
+    @Test
+    @DisplayName("Should limit the columns as the script creates them, with padding, defaults and MEMO")
+    void shouldLimitColumnsAsCreated() {
+        ColumnLimits limits = ColumnLimits.parse(CONFIGURATION, null, SCRIPT, schema, ColumnLimits.Policy.DEAD_LETTER);
+
+        int[] columns = limits.of(applications);
+        List<String> names = List.copyOf(applications.getColumnTypes().keySet());
+        // Configured lengths get at least 10 characters of padding
+        assertEquals(15, columns[names.indexOf("ApplicationID")]);
+        assertEquals(20, columns[names.indexOf("ProjectName")]);
+        // Too long for TEXT once padded, so MEMO
+        assertEquals(0, columns[names.indexOf("CaseType")]);
+        // Not configured, the script's default
+        assertEquals(30, columns[names.indexOf("NationalRegNumber")]);
+        assertEquals(3, limits.size());
+    }
+
+    @Test
+    @DisplayName("Should limit a column typed from the inferred schema to its inferred TEXT length")
+    void shouldLimitInferredTextColumns() {
+        String script = SCRIPT + ", MemberStates $(Get-InferredFieldDefinition $FieldSchema 'Applications' 'MemberStates' 'MEMO'),"
+            + " Subcategory $(Get-InferredFieldDefinition $FieldSchema 'Applications' 'Subcategory' 'MEMO'),"
+            + " DocLang $(Get-InferredFieldDefinition $FieldSchema 'Applications' 'DocLang' 'MEMO')";
+        String inferredSchema = "# Format: TableName.FieldName=Type\n"
+            + "Applications.MemberStates=TEXT(40)\n"
+            + "Applications.Subcategory=MEMO\n";
+
+        ColumnLimits limits = ColumnLimits.parse(CONFIGURATION, inferredSchema, script, schema, ColumnLimits.Policy.DEAD_LETTER);
+
+        int[] columns = limits.of(applications);
+        List<String> names = List.copyOf(applications.getColumnTypes().keySet());
+        assertEquals(40, columns[names.indexOf("MemberStates")]);
+        assertEquals(0, columns[names.indexOf("Subcategory")]);
+        // Not inferred, created with the script's default type
+        assertEquals(0, columns[names.indexOf("DocLang")]);
+        assertEquals(4, limits.size());
+        assertEquals(0, ColumnLimits.parse(CONFIGURATION, null, script, schema, ColumnLimits.Policy.DEAD_LETTER)
+            .of(applications)[names.indexOf("MemberStates")]);
+    }
+
+    @Test
+    @DisplayName("Should limit every configured column without the script")
+    void shouldLimitConfiguredColumnsWithoutScript() throws Exception {
+        Path configuration = Files.writeString(tempDir.resolve("Fields_length.txt"), CONFIGURATION);
+
+        ColumnLimits limits = ColumnLimits.load(configuration, tempDir.resolve("Fields_schema.txt"), null, schema, ColumnLimits.Policy.DEAD_LETTER);
+
+        assertEquals(2, limits.size());
+    }
+
+    @Test
+    @DisplayName("Should truncate a value longer than its column, but fail a key that is too long")
+    void shouldTruncateNonKeyValues() throws Exception {
+        ColumnLimits limits = ColumnLimits.parse(CONFIGURATION, null, SCRIPT, schema, ColumnLimits.Policy.TRUNCATE);
+        RowMapper rowMapper = new RowMapper(schema, id -> null, limits);
+
+        List<Row> rows = rowMapper.map(JsonPayloadType.APPLICATION_LIST,
+                                       record("V-1", "Twenty characters..🚗 and more"), "list.json");
+
+        // The surrogate pair at the limit is dropped whole
+        assertEquals("Twenty characters..", rows.get(0).get("ProjectName"));
+        assertEquals(1, limits.getTruncatedValues());
+
+        ColumnLengthException error = assertThrows(ColumnLengthException.class, () ->
+            rowMapper.map(JsonPayloadType.APPLICATION_LIST, record("V-20250130-002-X", "Project"), "list.json"));
+        assertFalse(error.isFailFast());
+    }
+
+    @Test
+    @DisplayName("Should send a record with a value too long to the dead letter queue as a validation failure")
+    void shouldDeadLetterTooLongValues() throws Exception {
+        ColumnLimits limits = ColumnLimits.parse(CONFIGURATION, null, SCRIPT, schema, ColumnLimits.Policy.DEAD_LETTER);
+        DryRunRowWriter writer = new DryRunRowWriter();
+        Path list = Files.writeString(tempDir.resolve("list.json"), "{\"applicationListDTO\":["
+            + json("V-1", "Short") + "," + json("V-2", "A project name too long for its column") + "]}");
+        Path deadLetterFile = tempDir.resolve("dead-letters.jsonl");
+
+        ParallelJsonImporter.Result result;
+        try (DeadLetterQueue deadLetters = new DeadLetterQueue(deadLetterFile)) {
+            result = new ParallelJsonImporter(new RowMapper(schema, writer, limits), 1, 4, null, deadLetters, null)
+                .importSources(List.of(list), writer);
+        }
+
+        assertEquals(2, result.getRecords());
+        assertEquals(1, result.getFailedRecords());
+        List<DeadLetterQueue.Entry> entries = DeadLetterQueue.read(deadLetterFile);
+        assertEquals(1, entries.size());
+        assertEquals(DeadLetterQueue.STAGE_VALIDATION, entries.get(0).getStage());
+        assertEquals("V-2", entries.get(0).getRecord().path("applicationId").asText());
+    }
+
+    @Test
+    @DisplayName("Should stop the import at the first value too long under the fail-fast policy")
+    void shouldFailFast() throws Exception {
+        ColumnLimits limits = ColumnLimits.parse(CONFIGURATION, null, SCRIPT, schema, ColumnLimits.Policy.FAIL_FAST);
+        DryRunRowWriter writer = new DryRunRowWriter();
+        Path list = Files.writeString(tempDir.resolve("list.json"), "{\"applicationListDTO\":["
+            + json("V-1", "A project name too long for its column") + "," + json("V-2", "Short") + "]}");
+
+        ParallelJsonImporter importer = new ParallelJsonImporter(new RowMapper(schema, writer, limits), 1, 4);
+        ColumnLengthException error = assertThrows(ColumnLengthException.class,
+                                                   () -> importer.importSources(List.of(list), writer));
+
+        assertTrue(error.isFailFast());
+        assertTrue(error.getMessage().startsWith("Applications.ProjectName"));
+    }
+
+    private static JsonNode record(String applicationId, String projectName) throws Exception {
+        return OBJECT_MAPPER.readTree(json(applicationId, projectName));
+    }
+
+    private static String json(String applicationId, String projectName) {
+        return "{\"applicationId\":\"" + applicationId + "\",\"projectName\":\"" + projectName + "\"}";
+    }
+}
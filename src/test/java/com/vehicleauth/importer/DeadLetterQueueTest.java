@@ -0,0 +1,153 @@
+package com.vehicleauth.importer;
+
+import com.vehicleauth.analysis.JsonSources;
+import com.vehicleauth.service.ConfigurationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DeadLetterQueue
+ */
+class DeadLetterQueueTest {
+
+    private static final String LIST = "{\"applicationListDTO\":["
+        + "{\"applicationId\":\"V-1\",\"projectName\":\"First\"},\n"
+        + "{\"applicationId\":\"V-2\",\"projectName\":\"bad\",\"decisionPdf\":{\"name\":\"decision.pdf\"}},\n"
+        + "{\"applicationId\":\"V-3\",\"completenessAcknowledgement\":\"Completeness\",\"decisionPdf\":{\"name\":\"decision.pdf\"}},\n"
+        + "{\"applicationId\":\"V-4\",\"projectName\":\"Fourth\"}]}";
+
+    @TempDir
+    Path tempDir;
+
+    private ImportSchema schema;
+    private Connection connection;
+    private Path deadLetterFile;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        schema = ImportSchema.of(new ConfigurationService().getFieldCatalog());
+        connection = TestDatabase.create(schema);
+        deadLetterFile = tempDir.resolve("dead-letters.jsonl");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE Applications ADD CONSTRAINT NoBadNames CHECK (ProjectName <> 'bad')");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    @DisplayName("Should dead-letter records failing mapping or insertion with their JSON, error, file and offset")
+    void shouldDeadLetterFailedRecords() throws Exception {
+        Path list = write("list.json", LIST);
+
+        ParallelJsonImporter.Result result = importFile(list);
+
+        assertEquals(4, result.getRecords());
+        assertEquals(2, result.getFailedRecords());
+        assertEquals(2, TestDatabase.count(connection, "Applications"));
+
+        List<DeadLetterQueue.Entry> entries = DeadLetterQueue.read(deadLetterFile);
+        assertEquals(2, entries.size());
+        DeadLetterQueue.Entry mapping = find(entries, DeadLetterQueue.STAGE_MAPPING);
+        assertEquals("V-3", mapping.getRecord().path("applicationId").asText());
+        assertTrue(mapping.getError().contains("Completeness"));
+        // Unmapped properties are pruned when records are read, the dead letter has the whole record
+        assertEquals("decision.pdf", mapping.getRecord().path("decisionPdf").path("name").asText());
+        DeadLetterQueue.Entry insertion = find(entries, DeadLetterQueue.STAGE_INSERTION);
+        assertEquals("V-2", insertion.getRecord().path("applicationId").asText());
+        assertEquals("decision.pdf", insertion.getRecord().path("decisionPdf").path("name").asText());
+        assertEquals(JsonPayloadType.APPLICATION_LIST, insertion.getType());
+        assertEquals(JsonSources.describe(list), insertion.getSource());
+        assertEquals(LIST.indexOf("{\"applicationId\":\"V-2\""), insertion.getOffset());
+    }
+
+    @Test
+    @DisplayName("Should replay only the dead-lettered records and keep those that fail again")
+    void shouldReplayDeadLetters() throws Exception {
+        importFile(write("list.json", LIST));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE Applications DROP CONSTRAINT NoBadNames");
+            statement.execute("UPDATE Applications SET ProjectName = 'Changed' WHERE ApplicationID = 'V-1'");
+        }
+
+        JsonImporter.Result result;
+        try (BatchedRowWriter writer = new BatchedRowWriter(connection, schema, 10, 10)) {
+            result = DeadLetterQueue.replay(deadLetterFile, new RowMapper(schema, writer), writer);
+        }
+
+        assertEquals(2, result.getRecords());
+        assertEquals(1, result.getFailedRecords());
+        assertEquals("bad", TestDatabase.value(connection, "SELECT ProjectName FROM Applications WHERE ApplicationID = 'V-2'"));
+        assertEquals("Changed", TestDatabase.value(connection, "SELECT ProjectName FROM Applications WHERE ApplicationID = 'V-1'"));
+        List<DeadLetterQueue.Entry> remaining = DeadLetterQueue.read(deadLetterFile);
+        assertEquals(1, remaining.size());
+        assertEquals("V-3", remaining.get(0).getRecord().path("applicationId").asText());
+        assertFalse(Files.exists(tempDir.resolve("dead-letters.jsonl.replaying")));
+    }
+
+    @Test
+    @DisplayName("Should fold the entries of a killed replay back into the file before replaying")
+    void shouldFoldBackInterruptedReplay() throws Exception {
+        importFile(write("list.json", LIST));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE Applications DROP CONSTRAINT NoBadNames");
+        }
+        // Killed after V-3 failed again, before V-2 was written
+        Path replaying = tempDir.resolve("dead-letters.jsonl.replaying");
+        List<String> lines = Files.readAllLines(deadLetterFile);
+        Files.move(deadLetterFile, replaying);
+        Files.write(deadLetterFile, lines.stream().filter(line -> line.contains("V-3")).collect(Collectors.toList()));
+
+        JsonImporter.Result result;
+        try (BatchedRowWriter writer = new BatchedRowWriter(connection, schema, 10, 10)) {
+            result = DeadLetterQueue.replay(deadLetterFile, new RowMapper(schema, writer), writer);
+        }
+
+        assertEquals(2, result.getRecords());
+        assertEquals(1, result.getFailedRecords());
+        assertEquals("bad", TestDatabase.value(connection, "SELECT ProjectName FROM Applications WHERE ApplicationID = 'V-2'"));
+        assertEquals(1, DeadLetterQueue.read(deadLetterFile).size());
+        assertFalse(Files.exists(replaying));
+    }
+
+    @Test
+    @DisplayName("Should replay nothing when there is no dead letter file")
+    void shouldReplayNothingWithoutFile() throws Exception {
+        try (JdbcRowWriter writer = new JdbcRowWriter(connection)) {
+            assertEquals(0, DeadLetterQueue.replay(deadLetterFile, new RowMapper(schema, writer), writer).getRecords());
+        }
+    }
+
+    private ParallelJsonImporter.Result importFile(Path file) throws Exception {
+        try (BatchedRowWriter writer = new BatchedRowWriter(connection, schema, 10, 10);
+             DeadLetterQueue deadLetters = new DeadLetterQueue(deadLetterFile)) {
+            return new ParallelJsonImporter(new RowMapper(schema, writer), 1, 4, null, deadLetters)
+                .importSources(List.of(file), writer);
+        }
+    }
+
+    private static DeadLetterQueue.Entry find(List<DeadLetterQueue.Entry> entries, String stage) {
+        return entries.stream().filter(entry -> stage.equals(entry.getStage())).findFirst().orElseThrow();
+    }
+
+    private Path write(String name, String content) throws Exception {
+        Path file = tempDir.resolve(name);
+        Files.writeString(file, content);
+        return file;
+    }
+}
@@ -0,0 +1,150 @@
+package com.vehicleauth.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vehicleauth.service.ConfigurationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DeduplicatingRowWriter
+ */
+class DeduplicatingRowWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ImportSchema schema;
+    private RowMapper rowMapper;
+    private RecordingWriter recorder;
+    private DeduplicatingRowWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        schema = ImportSchema.of(new ConfigurationService().getFieldCatalog());
+        rowMapper = new RowMapper(schema, null);
+        recorder = new RecordingWriter();
+        writer = new DeduplicatingRowWriter(recorder, DeduplicatingRowWriter.DEFAULT_SHARED_TABLES, 100, true);
+    }
+
+    @Test
+    @DisplayName("Should write shared rows once while the rows referencing them are written every time")
+    void shouldSkipRepeatedSharedRows() throws Exception {
+        writer.write(details("V-20250101-001", "Applicant"));
+        writer.write(details("V-20250101-002", "Applicant"));
+        writer.write(details("V-20250101-003", "Applicant, renamed"));
+
+        assertEquals(List.of(1L, 0L, 1L), recorder.countPerRecord("Bodies"));
+        assertEquals(List.of(1L, 0L, 0L), recorder.countPerRecord("Addresses"));
+        assertEquals(List.of(1L, 1L, 1L), recorder.countPerRecord("ApplicationBodies"));
+        assertEquals(1, writer.getCaches().get("Bodies").getSuppressed());
+        assertEquals(2, writer.getCaches().get("Addresses").getSuppressed());
+        assertEquals(3, writer.getSuppressedRows());
+    }
+
+    @Test
+    @DisplayName("Should forget written rows when the underlying writer rejects a record")
+    void shouldClearOnRejection() throws Exception {
+        writer.write(details("V-20250101-001", "Applicant"));
+        recorder.rejected++;
+        writer.write(details("V-20250101-002", "Applicant"));
+        writer.write(details("V-20250101-003", "Applicant"));
+
+        assertEquals(List.of(1L, 0L, 1L), recorder.countPerRecord("Bodies"));
+    }
+
+    @Test
+    @DisplayName("Should not remember rows of a record that failed to write")
+    void shouldNotRememberFailedRecords() throws Exception {
+        recorder.failNext = true;
+        assertThrows(SQLException.class, () -> writer.write(details("V-20250101-001", "Applicant")));
+        writer.write(details("V-20250101-002", "Applicant"));
+
+        assertEquals(List.of(1L), recorder.countPerRecord("Bodies"));
+    }
+
+    @Test
+    @DisplayName("Should pass repeated rows on until they are committed, so a replayed record still carries them")
+    void shouldRememberCommittedRowsOnly() throws Exception {
+        try (Connection connection = TestDatabase.create(schema)) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ALTER TABLE Bodies ADD FOREIGN KEY (AddressID) REFERENCES Addresses (AddressID)");
+                statement.execute("ALTER TABLE ApplicationBodies ADD FOREIGN KEY (BodyID) REFERENCES Bodies (BodyID)");
+                statement.execute("ALTER TABLE ApplicationBodies ADD CONSTRAINT NoFirst CHECK (ApplicationID <> 'V-20250101-001')");
+            }
+            try (BatchedRowWriter batched = new BatchedRowWriter(connection, schema, 100, 100);
+                 DeduplicatingRowWriter deduplicating = new DeduplicatingRowWriter(batched, DeduplicatingRowWriter.DEFAULT_SHARED_TABLES, 100, true)) {
+                // The batch fails on the first record, which is rejected when the batch is written again one by one
+                deduplicating.write(details("V-20250101-001", "Applicant"));
+                deduplicating.write(details("V-20250101-002", "Applicant"));
+                deduplicating.flush();
+
+                assertEquals(0, deduplicating.getSuppressedRows());
+                assertEquals(1, batched.getRejectedRecords());
+                assertEquals(1, TestDatabase.count(connection, "Addresses"));
+                assertEquals(1, TestDatabase.count(connection, "ApplicationBodies"));
+
+                deduplicating.write(details("V-20250101-003", "Applicant"));
+                deduplicating.flush();
+                deduplicating.write(details("V-20250101-004", "Applicant"));
+                deduplicating.flush();
+                assertEquals(2, deduplicating.getSuppressedRows());
+                assertEquals(3, TestDatabase.count(connection, "ApplicationBodies"));
+            }
+        }
+    }
+
+    private List<Row> details(String applicationId, String bodyName) throws Exception {
+        return rowMapper.map(JsonPayloadType.DETAILS, objectMapper.readTree(
+            "{\"applicationId\":\"" + applicationId + "\",\"applicantBody\":{\"id\":\"8A6B1C2D-0000-C216-ABFA-EAEF6132E070\","
+            + "\"name\":\"" + bodyName + "\",\"address\":{\"id\":\"ad-1\",\"city\":\"Lille\"}}}"), "details.json");
+    }
+
+    private static final class RecordingWriter implements RowWriter {
+        final List<List<Row>> records = new ArrayList<>();
+        long rejected;
+        long commits;
+        boolean failNext;
+
+        /**
+         * Commits every record
+         */
+        @Override
+        public void write(List<Row> rows) throws SQLException {
+            if (failNext) {
+                failNext = false;
+                throw new SQLException("Write failed");
+            }
+            records.add(rows);
+            commits++;
+        }
+
+        @Override
+        public long getRejectedRecords() {
+            return rejected;
+        }
+
+        @Override
+        public long getCommits() {
+            return commits;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        List<Long> countPerRecord(String table) {
+            List<Long> counts = new ArrayList<>();
+            for (List<Row> record : records) {
+                counts.add(record.stream().filter(row -> row.getTable().getTableName().equals(table)).count());
+            }
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.vehicleauth.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vehicleauth.service.ConfigurationService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DryRunRowWriter
+ */
+class DryRunRowWriterTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Test
+    @DisplayName("Should count rows and value bytes per table and resolve details records without a database")
+    void shouldCountRowsPerTable() throws Exception {
+        ImportSchema schema = ImportSchema.of(new ConfigurationService().getFieldCatalog());
+        DryRunRowWriter writer = new DryRunRowWriter();
+        RowMapper rowMapper = new RowMapper(schema, writer);
+
+        writer.write(rowMapper.map(JsonPayloadType.APPLICATION_LIST, OBJECT_MAPPER.readTree(
+            "{\"applicationId\":\"V-20250130-002\",\"id\":\"{F052A46F-0000-C216-ABFA-EAEF6132E070}\","
+            + "\"projectName\":\"Ñandú\",\"assessor\":[\"Ann\",\"Bob\"]}"), "list.json"));
+
+        DryRunRowWriter.TableVolume applications = writer.getTableVolumes().get("Applications");
+        assertEquals(1, applications.getRows());
+        // Both keys and the two-byte characters of the name
+        assertEquals("V-20250130-002".length() + 38 + "Ñandú".length() + 2, applications.getBytes());
+        assertEquals(2, writer.getTableVolumes().get("ApplicationStaff").getRows());
+        assertEquals(3, writer.getRows());
+        assertEquals("V-20250130-002", writer.findApplicationId("{F052A46F-0000-C216-ABFA-EAEF6132E070}"));
+        assertNull(writer.findApplicationId("{00000000-0000-0000-0000-000000000000}"));
+    }
+
+    @Test
+    @DisplayName("Should map the records of a whole import without storing them")
+    void shouldDiscardRows() {
+        ImportSchema schema = ImportSchema.of(new ConfigurationService().getFieldCatalog());
+        DryRunRowWriter writer = new DryRunRowWriter();
+
+        ParallelJsonImporter.Result result = new ParallelJsonImporter(new RowMapper(schema, writer), 2, 16)
+            .importSources(List.of(), writer);
+
+        assertEquals(0, result.getRows());
+        assertEquals(0, writer.getBytes());
+        assertTrue(writer.getTableVolumes().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should count the UTF-8 bytes of text without encoding it")
+    void shouldCountUtf8Bytes() {
+        for (String text : List.of("", "V-20250130-002", "Ñandú", "Zürich – €", "Tōkyō 東京", "rail 🚆", "lone \ud83d surrogate")) {
+            assertEquals(text.getBytes(StandardCharsets.UTF_8).length, DryRunRowWriter.utf8Length(text), text);
+        }
+    }
+}
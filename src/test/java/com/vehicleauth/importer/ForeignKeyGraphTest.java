@@ -0,0 +1,81 @@
+package com.vehicleauth.importer;
+
+import com.vehicleauth.service.ConfigurationService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ForeignKeyGraph
+ */
+class ForeignKeyGraphTest {
+
+    @Test
+    @DisplayName("Should read the foreign keys of the database script")
+    void shouldLoadScript() throws Exception {
+        ForeignKeyGraph graph = ForeignKeyGraph.load(Paths.get(ImportSchema.DATABASE_SCRIPT));
+
+        assertEquals(21, graph.size());
+        assertEquals(List.of("MSMappingRequirements", "Documents"),
+                     List.copyOf(graph.getReferences("MSMappingRequirementValues")));
+        assertTrue(graph.getReferences("Applications").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should skip commented statements")
+    void shouldSkipComments() {
+        ForeignKeyGraph graph = ForeignKeyGraph.parse(
+            "  \"ALTER TABLE Issues ADD CONSTRAINT FK_A FOREIGN KEY (ApplicationID) REFERENCES Applications(ApplicationID)\",\n"
+            + "  # \"ALTER TABLE Applications ADD CONSTRAINT FK_B FOREIGN KEY (BodyID) REFERENCES Bodies(BodyID)\"\n");
+
+        assertEquals(1, graph.size());
+        assertEquals(List.of("Applications"), List.copyOf(graph.getReferences("Issues")));
+    }
+
+    @Test
+    @DisplayName("Should put every table after the tables it references, keeping the given order within a wave")
+    void shouldSplitIntoWaves() {
+        ForeignKeyGraph graph = new ForeignKeyGraph()
+            .addReference("C", "B")
+            .addReference("B", "A")
+            .addReference("D", "A")
+            .addReference("D", "Unknown");
+
+        assertEquals(List.of(List.of("E", "A"), List.of("D", "B"), List.of("C")), graph.waves(List.of("E", "D", "C", "B", "A")));
+    }
+
+    @Test
+    @DisplayName("Should reject cyclic references")
+    void shouldRejectCycles() {
+        ForeignKeyGraph graph = new ForeignKeyGraph().addReference("A", "B").addReference("B", "A");
+
+        assertThrows(IllegalStateException.class, () -> graph.waves(List.of("A", "B")));
+    }
+
+    @Test
+    @DisplayName("Should order the import schema by the script's foreign keys")
+    void shouldOrderImportSchema() throws Exception {
+        ImportSchema schema = ImportSchema.of(new ConfigurationService().getFieldCatalog(),
+                                              ForeignKeyGraph.load(Paths.get(ImportSchema.DATABASE_SCRIPT)));
+
+        List<List<String>> waves = schema.getWaves().stream()
+            .map(wave -> wave.stream().map(TableMapping::getTableName).collect(Collectors.toList()))
+            .collect(Collectors.toList());
+        assertEquals(List.of(
+            List.of("Addresses", "ContactDetails", "Documents"),
+            List.of("ContactPersons", "BillingInformation", "Bodies"),
+            List.of("Applications"),
+            List.of("ApplicationStaff", "ApplicationBodies", "Issues", "VehicleTypes"),
+            List.of("VehiclesToAuthorise", "ApplicableRules", "MemberStateMappings", "AgencyMappings"),
+            List.of("Networks", "AgencyMappingValues", "MSMappingRequirements"),
+            List.of("MSMappingRequirementValues")), waves);
+        assertEquals(19, schema.getTables().size());
+        assertTrue(schema.orderOf(schema.table("Applications")) < schema.orderOf(schema.table("Issues")));
+        assertEquals(waves.size(), schema.waveOf(schema.getRowHashTable()));
+    }
+}
@@ -0,0 +1,164 @@
+package com.vehicleauth.importer;
+
+import com.vehicleauth.service.ConfigurationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ImportCheckpoint
+ */
+class ImportCheckpointTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ImportSchema schema;
+    private Connection connection;
+    private Path checkpointFile;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        schema = ImportSchema.of(new ConfigurationService().getFieldCatalog());
+        connection = TestDatabase.create(schema);
+        checkpointFile = tempDir.resolve("checkpoint.json");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    @DisplayName("Should resume a file after its last committed record once the import died")
+    void shouldResumeAfterLastCommit() throws Exception {
+        Path list = write("list.json", list(1, 5));
+
+        // Batches of two records, the fourth write kills the run with the third one uncommitted
+        assertThrows(Crash.class, () -> importFiles(List.of(list), 2, 4));
+        connection.rollback();
+        assertEquals(2, TestDatabase.count(connection, "Applications"));
+        assertTrue(Files.exists(checkpointFile));
+
+        ParallelJsonImporter.Result result = importFiles(List.of(list), 2, 0);
+
+        assertEquals(3, result.getRecords());
+        assertEquals(5, TestDatabase.count(connection, "Applications"));
+        assertFalse(Files.exists(checkpointFile));
+    }
+
+    @Test
+    @DisplayName("Should skip files completed before the import died and read changed files again")
+    void shouldSkipCompletedFiles() throws Exception {
+        Path first = write("first.json", list(1, 2));
+        Path second = write("second.json", list(3, 5));
+
+        assertThrows(Crash.class, () -> importFiles(List.of(first, second), 1, 4));
+        connection.rollback();
+        assertEquals(3, TestDatabase.count(connection, "Applications"));
+
+        ImportCheckpoint checkpoint = ImportCheckpoint.load(checkpointFile);
+        ParallelJsonImporter.Result result = importFiles(List.of(first, second), 1, 0, checkpoint);
+
+        assertEquals(2, result.getRecords());
+        assertEquals(1, checkpoint.getSkippedSources());
+        assertEquals(1, checkpoint.getResumedSources());
+        assertEquals(5, TestDatabase.count(connection, "Applications"));
+    }
+
+    @Test
+    @DisplayName("Should import a completed file again if it changed since the checkpoint")
+    void shouldReadChangedFileAgain() throws Exception {
+        Path first = write("first.json", list(1, 2));
+        Path second = write("second.json", list(3, 5));
+        assertThrows(Crash.class, () -> importFiles(List.of(first, second), 1, 4));
+        connection.rollback();
+
+        write("first.json", list(1, 3));
+        ParallelJsonImporter.Result result = importFiles(List.of(first, second), 1, 0);
+
+        assertEquals(5, result.getRecords());
+    }
+
+    private ParallelJsonImporter.Result importFiles(List<Path> files, int batchSize, int crashAt) throws Exception {
+        return importFiles(files, batchSize, crashAt, ImportCheckpoint.load(checkpointFile));
+    }
+
+    /**
+     * @param crashAt Write that kills the run, 0 to import everything
+     */
+    private ParallelJsonImporter.Result importFiles(List<Path> files, int batchSize, int crashAt,
+                                                    ImportCheckpoint checkpoint) throws Exception {
+        // Not closed on a crash, closing would commit the buffered rows
+        BatchedRowWriter writer = new BatchedRowWriter(connection, schema, batchSize, batchSize);
+        ParallelJsonImporter.Result result = new ParallelJsonImporter(new RowMapper(schema, writer), 1, 4, null, null, checkpoint)
+            .importSources(files, new CrashingRowWriter(writer, crashAt));
+        writer.close();
+        return result;
+    }
+
+    private static String list(int first, int last) {
+        StringBuilder json = new StringBuilder("{\"applicationListDTO\":[");
+        for (int i = first; i <= last; i++) {
+            json.append(i == first ? "" : ",\n").append("{\"applicationId\":\"V-").append(i).append("\",\"projectName\":\"Project ")
+                .append(i).append("\"}");
+        }
+        return json.append("]}").toString();
+    }
+
+    private Path write(String name, String content) throws Exception {
+        Path file = tempDir.resolve(name);
+        Files.writeString(file, content);
+        return file;
+    }
+
+    /**
+     * Stands for the process dying, not caught by the importer
+     */
+    private static final class Crash extends Error {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private static final class CrashingRowWriter implements RowWriter {
+        private final RowWriter delegate;
+        private final int crashAt;
+        private int writes;
+
+        CrashingRowWriter(RowWriter delegate, int crashAt) {
+            this.delegate = delegate;
+            this.crashAt = crashAt;
+        }
+
+        @Override
+        public void write(List<Row> rows) throws SQLException {
+            if (++writes == crashAt) {
+                throw new Crash();
+            }
+            delegate.write(rows);
+        }
+
+        @Override
+        public void flush() throws SQLException {
+            delegate.flush();
+        }
+
+        @Override
+        public long getCommits() {
+            return delegate.getCommits();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
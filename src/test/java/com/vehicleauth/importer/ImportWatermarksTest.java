@@ -0,0 +1,78 @@
+package com.vehicleauth.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ImportWatermarks
+ */
+class ImportWatermarksTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:");
+        ImportWatermarks.createTable(connection);
+        ImportWatermarks.createTable(connection);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    @DisplayName("Should take the later of modified and cachedLastUpdate of list records")
+    void shouldReadRecordTimestamp() throws Exception {
+        assertEquals(Instant.parse("2025-02-01T10:00:00.250Z"), ImportWatermarks.recordTimestamp(JsonPayloadType.APPLICATION_LIST,
+            objectMapper.readTree("{\"modified\":\"2025-01-30T15:04:57.036Z\",\"cachedLastUpdate\":\"2025-02-01T11:00:00.250+0100\"}")));
+        assertEquals(Instant.parse("2025-01-30T15:04:57Z"), ImportWatermarks.recordTimestamp(JsonPayloadType.APPLICATION_LIST,
+            objectMapper.readTree("{\"modified\":\"2025-01-30T15:04:57Z\",\"cachedLastUpdate\":null}")));
+        assertNull(ImportWatermarks.recordTimestamp(JsonPayloadType.APPLICATION_LIST,
+            objectMapper.readTree("{\"modified\":\"yesterday\",\"cachedLastUpdate\":\"2025-01-30T15:04:57Z\"}")));
+        assertNull(ImportWatermarks.recordTimestamp(JsonPayloadType.ISSUE_LIST,
+            objectMapper.readTree("{\"modified\":\"2025-01-30T15:04:57Z\"}")));
+    }
+
+    @Test
+    @DisplayName("Should key marks on the application ID of list records")
+    void shouldReadApplication() throws Exception {
+        assertEquals("V-1", ImportWatermarks.applicationOf(JsonPayloadType.APPLICATION_LIST,
+            objectMapper.readTree("{\"applicationId\":\"V-1\"}")));
+        assertNull(ImportWatermarks.applicationOf(JsonPayloadType.APPLICATION_LIST, objectMapper.readTree("{\"applicationId\":null}")));
+        assertNull(ImportWatermarks.applicationOf(JsonPayloadType.DETAILS, objectMapper.readTree("{\"applicationId\":\"V-1\"}")));
+    }
+
+    @Test
+    @DisplayName("Should store marks, only move them forward and skip records strictly below them")
+    void shouldAdvanceMarks() throws Exception {
+        ImportWatermarks watermarks = ImportWatermarks.load(connection);
+        Instant mark = Instant.parse("2025-01-30T15:04:57.036Z");
+        assertFalse(watermarks.isImported("V-1", mark.minusMillis(1)));
+
+        assertEquals(2, watermarks.advance(Map.of("V-1", mark, "V-2", mark)));
+        assertEquals(0, watermarks.advance(Map.of("V-1", mark.minusSeconds(60))));
+
+        ImportWatermarks reloaded = ImportWatermarks.load(connection);
+        assertEquals(mark, reloaded.get("V-1"));
+        assertTrue(reloaded.isImported("V-1", mark.minusMillis(1)));
+        assertFalse(reloaded.isImported("V-1", mark));
+        assertFalse(reloaded.isImported("V-1", mark.plusMillis(1)));
+        assertFalse(reloaded.isImported("V-1", null));
+        assertFalse(reloaded.isImported(null, mark.minusMillis(1)));
+        assertFalse(reloaded.isImported("V-3", mark.minusMillis(1)));
+        assertEquals(2, TestDatabase.count(connection, ImportWatermarks.TABLE));
+    }
+}
@@ -0,0 +1,69 @@
+package com.vehicleauth.importer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time per date-time of IsoTimestamps against the JDK parsers, on values shaped like the API's
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IsoTimestampsBenchmark {
+
+    private static final int VALUES = 1024;
+
+    private final String[] texts = new String[VALUES];
+    private final JsonNode[] nodes = new JsonNode[VALUES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        long millis = Instant.parse("2025-01-30T15:04:57.036Z").toEpochMilli();
+        for (int i = 0; i < VALUES; i++) {
+            texts[i] = Instant.ofEpochMilli(millis + i * 3_601_013L).toString();
+            nodes[i] = TextNode.valueOf(texts[i]);
+        }
+    }
+
+    @Benchmark
+    public long isoTimestamps() {
+        return IsoTimestamps.parseEpochMillis(nextText());
+    }
+
+    @Benchmark
+    public long instantParse() {
+        return Instant.parse(nextText()).toEpochMilli();
+    }
+
+    @Benchmark
+    public Timestamp columnValue() {
+        return ColumnValues.dateTime(nodes[next++ & (VALUES - 1)]);
+    }
+
+    @Benchmark
+    public Timestamp columnValueJdkParser() {
+        return ColumnValues.parseDateTime(nextText());
+    }
+
+    private String nextText() {
+        return texts[next++ & (VALUES - 1)];
+    }
+}
@@ -0,0 +1,146 @@
+package com.vehicleauth.importer;
+
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.CharBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Unit tests for IsoTimestamps, checked against the JDK parsers on random values
+ */
+class IsoTimestampsTest {
+
+    private static final int SAMPLES = 20_000;
+    // 1000-01-01 to 2999-12-31, the range of four digit years
+    private static final long MIN_EPOCH_SECOND = LocalDateTime.of(1000, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+    private static final long MAX_EPOCH_SECOND = LocalDateTime.of(2999, 12, 31, 23, 59, 59).toEpochSecond(ZoneOffset.UTC);
+
+    private final Random random = new Random(20250402L);
+
+    @Test
+    @DisplayName("Should read UTC date-times to the same millisecond as Instant.parse")
+    void shouldMatchInstantParse() {
+        for (int i = 0; i < SAMPLES; i++) {
+            String text = randomDateTime("Z");
+
+            assertEquals(Instant.parse(text).toEpochMilli(), IsoTimestamps.parseEpochMillis(text), text);
+        }
+    }
+
+    @Test
+    @DisplayName("Should convert date-times with any offset or none as the JDK parser does")
+    void shouldMatchJdkParserForOffsets() {
+        String[] offsets = { "", "Z", "+00:00", "+0000", "+02:00", "-0530", "+14:00", "-18:00" };
+        for (int i = 0; i < SAMPLES; i++) {
+            String text = randomDateTime(offsets[random.nextInt(offsets.length)]);
+
+            assertNotEquals(IsoTimestamps.NOT_PARSED, IsoTimestamps.parseEpochMillis(text), text);
+            assertEquals(ColumnValues.parseDateTime(text), ColumnValues.dateTime(TextNode.valueOf(text)), text);
+        }
+    }
+
+    @Test
+    @DisplayName("Should leave other shapes and values out of range to the JDK parser")
+    void shouldLeaveOtherShapesToJdkParser() {
+        String[] others = { "2025-04-02", "2025-04-02T11:10Z", "2025-04-02T11:10:00.015123Z", "2025-04-02T11:10:00.Z",
+                            "2025-02-29T11:10:00Z", "2025-04-02T24:00:00Z", "2025-04-02T11:10:00+19:00",
+                            "2025-04-02T11:10:00+02", "2025-04-02 11:10:00Z", "+12025-04-02T11:10:00Z", "Completeness" };
+        for (String text : others) {
+            assertEquals(IsoTimestamps.NOT_PARSED, IsoTimestamps.parseEpochMillis(text), text);
+        }
+        assertEquals(ColumnValues.parseDateTime("2025-04-02T11:10:00.015123Z"),
+                     ColumnValues.dateTime(TextNode.valueOf("2025-04-02T11:10:00.015123Z")));
+        // The JDK parser moves the day to the end of the month
+        assertEquals(ColumnValues.parseDateTime("2025-02-28T11:10:00Z"), ColumnValues.dateTime(TextNode.valueOf("2025-02-29T11:10:00Z")));
+        assertThrows(IllegalArgumentException.class, () -> ColumnValues.dateTime(TextNode.valueOf("Completeness")));
+    }
+
+    @Test
+    @DisplayName("Should never accept a damaged value the JDK parser rejects, nor read it differently")
+    void shouldAgreeWithJdkParserOnDamagedValues() {
+        String alphabet = "0123456789-:.TZ+ x";
+        for (int i = 0; i < SAMPLES; i++) {
+            StringBuilder text = new StringBuilder(randomDateTime(random.nextBoolean() ? "Z" : "+01:00"));
+            int position = random.nextInt(text.length() + 1);
+            char c = alphabet.charAt(random.nextInt(alphabet.length()));
+            if (random.nextBoolean() && position < text.length()) {
+                text.setCharAt(position, c);
+            } else if (random.nextBoolean() && position < text.length()) {
+                text.deleteCharAt(position);
+            } else {
+                text.insert(position, c);
+            }
+
+            long millis = IsoTimestamps.parseEpochMillis(text);
+            if (millis != IsoTimestamps.NOT_PARSED) {
+                assertEquals(ColumnValues.parseDateTime(text.toString()), ColumnValues.dateTime(TextNode.valueOf(text.toString())),
+                             text.toString());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should read a date-time inside a character buffer")
+    void shouldReadRangeOfBuffer() {
+        CharBuffer buffer = CharBuffer.wrap("\"modified\":\"2025-04-02T11:10:00.015Z\"".toCharArray());
+
+        assertEquals(Instant.parse("2025-04-02T11:10:00.015Z").toEpochMilli(), IsoTimestamps.parseEpochMillis(buffer, 12, 36));
+    }
+
+    @Test
+    @DisplayName("Should parse without allocating")
+    void shouldNotAllocate() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof ThreadMXBean);
+        ThreadMXBean allocationBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+
+        String[] values = new String[100];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = randomDateTime(i % 2 == 0 ? "Z" : "+0200");
+        }
+        long sum = 0;
+        // Warm up, so the measured loop runs compiled
+        for (int i = 0; i < SAMPLES * 10; i++) {
+            sum += IsoTimestamps.parseEpochMillis(values[i % values.length]);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = allocationBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < SAMPLES * 10; i++) {
+            sum += IsoTimestamps.parseEpochMillis(values[i % values.length]);
+        }
+        long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue(allocated < SAMPLES * 10, "Allocated " + allocated + " bytes for " + SAMPLES * 10 + " values");
+        assertNotEquals(0, sum);
+    }
+
+    /**
+     * @return A date-time with seconds and zero to three fraction digits, followed by the offset text
+     */
+    private String randomDateTime(String offset) {
+        long epochSecond = MIN_EPOCH_SECOND + (long) (random.nextDouble() * (MAX_EPOCH_SECOND - MIN_EPOCH_SECOND));
+        String dateTime = LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC).toString();
+        if (dateTime.length() == 16) {
+            // LocalDateTime leaves out zero seconds
+            dateTime += ":00";
+        }
+        int fractionDigits = random.nextInt(4);
+        if (fractionDigits > 0) {
+            String fraction = String.valueOf(1000 + random.nextInt(1000)).substring(1);
+            dateTime += "." + fraction.substring(0, fractionDigits);
+        }
+        return dateTime + offset;
+    }
+}
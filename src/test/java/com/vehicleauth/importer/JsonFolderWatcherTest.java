@@ -0,0 +1,161 @@
+package com.vehicleauth.importer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for JsonFolderWatcher
+ */
+class JsonFolderWatcherTest {
+
+    private static final Duration STABLE_INTERVAL = Duration.ofMillis(300);
+
+    @TempDir
+    Path tempDir;
+
+    private final List<List<Path>> batches = new CopyOnWriteArrayList<>();
+    private JsonFolderWatcher watcher;
+    private Thread watchThread;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (watcher != null) {
+            watcher.close();
+            watchThread.join(5000);
+        }
+    }
+
+    @Test
+    @DisplayName("Should import a file written in bursts once, after it stopped changing")
+    void shouldImportStableFileOnce() throws Exception {
+        start(10, false);
+        Path file = tempDir.resolve("list.json");
+        for (int i = 0; i < 5; i++) {
+            Files.writeString(file, "{\"applicationListDTO\":[" + i, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            Thread.sleep(50);
+        }
+
+        waitFor(() -> importedFiles().contains(file));
+        Thread.sleep(STABLE_INTERVAL.toMillis() * 2);
+
+        assertEquals(List.of(List.of(file)), batches);
+        assertEquals(1, watcher.getImportedFiles());
+        assertTrue(watcher.getMaxLatency().compareTo(STABLE_INTERVAL) >= 0);
+    }
+
+    @Test
+    @DisplayName("Should import every file of a drop larger than the pending limit, in bounded batches")
+    void shouldBoundPendingFiles() throws Exception {
+        start(2, false);
+        Set<Path> dropped = new HashSet<>();
+        for (int i = 0; i < 7; i++) {
+            dropped.add(Files.writeString(tempDir.resolve("list" + i + ".json"), "{}"));
+        }
+        Files.writeString(tempDir.resolve("notes.txt"), "not imported");
+
+        waitFor(() -> importedFiles().containsAll(dropped));
+
+        assertTrue(batches.stream().allMatch(batch -> batch.size() <= 2), batches.toString());
+        assertEquals(dropped, importedFiles());
+    }
+
+    @Test
+    @DisplayName("Should import the files of a directory moved in, whatever their modification time")
+    void shouldImportMovedDirectory(@TempDir Path staging) throws Exception {
+        Path drop = Files.createDirectories(staging.resolve("drop"));
+        FileTime lastWeek = FileTime.from(Instant.now().minus(Duration.ofDays(7)));
+        for (int i = 0; i < 3; i++) {
+            Files.setLastModifiedTime(Files.writeString(drop.resolve("list" + i + ".json"), "{}"), lastWeek);
+        }
+        start(2, false);
+
+        Path moved = Files.move(drop, tempDir.resolve("drop"));
+
+        Set<Path> expected = Set.of(moved.resolve("list0.json"), moved.resolve("list1.json"), moved.resolve("list2.json"));
+        waitFor(() -> importedFiles().containsAll(expected));
+        assertTrue(batches.stream().allMatch(batch -> batch.size() <= 2), batches.toString());
+        assertEquals(expected, importedFiles());
+    }
+
+    @Test
+    @DisplayName("Should import the files already in the directory when asked to")
+    void shouldImportExistingFiles() throws Exception {
+        Path existing = Files.writeString(tempDir.resolve("details.json"), "{}");
+        Path nested = Files.createDirectories(tempDir.resolve("nested")).resolve("list.json.gz");
+        Files.write(nested, new byte[0]);
+
+        start(10, true);
+
+        waitFor(() -> importedFiles().containsAll(Set.of(existing, nested)));
+        assertEquals(2, watcher.getImportedFiles());
+    }
+
+    @Test
+    @DisplayName("Should keep the files of a failed batch pending and import them on a later try")
+    void shouldRetryFailedBatch() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        start(10, false, files -> {
+            if (attempts.incrementAndGet() <= 2) {
+                throw new SQLException("Database is locked");
+            }
+            batches.add(files);
+            return new JsonImporter.Result(files.size(), 0, 3, 1, 2, Duration.ZERO);
+        });
+        Path file = Files.writeString(tempDir.resolve("list.json"), "{}");
+
+        waitFor(() -> importedFiles().contains(file));
+
+        assertEquals(3, attempts.get());
+        assertEquals(List.of(List.of(file)), batches);
+        assertEquals(2, watcher.getFailedBatches());
+        assertEquals(1, watcher.getImportedFiles());
+        assertEquals(1, watcher.getFailedRecords());
+        // The retries waited one, then two stable intervals
+        assertTrue(watcher.getMaxLatency().compareTo(STABLE_INTERVAL.multipliedBy(4)) >= 0, watcher.getMaxLatency().toString());
+    }
+
+    private void start(int maxPendingFiles, boolean importExisting) throws Exception {
+        start(maxPendingFiles, importExisting, files -> {
+            batches.add(files);
+            return new JsonImporter.Result(files.size(), 0, 0, 0, 0, Duration.ZERO);
+        });
+    }
+
+    private void start(int maxPendingFiles, boolean importExisting, JsonFolderWatcher.BatchImporter importer) throws Exception {
+        watcher = new JsonFolderWatcher(tempDir, STABLE_INTERVAL, maxPendingFiles, importExisting, importer);
+        watchThread = new Thread(watcher::run, "test-folder-watcher");
+        watchThread.start();
+    }
+
+    private Set<Path> importedFiles() {
+        Set<Path> files = new HashSet<>();
+        batches.forEach(files::addAll);
+        return files;
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the watcher");
+            Thread.sleep(50);
+        }
+    }
+}
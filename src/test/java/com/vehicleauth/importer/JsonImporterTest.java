@@ -0,0 +1,111 @@
+package com.vehicleauth.importer;
+
+import com.vehicleauth.service.ConfigurationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for JsonImporter with JdbcRowWriter
+ */
+class JsonImporterTest {
+
+    private static final String LIST = "{\"applicationListDTO\":["
+        + "{\"applicationId\":\"V-20250101-001\",\"id\":\"guid-1\",\"projectName\":\"First\",\"assessor\":[\"Bob\"]},"
+        + "{\"applicationId\":\"V-20250101-002\",\"id\":\"guid-2\",\"projectName\":\"Second\",\"preEngaged\":true}"
+        + "],\"count\":2}";
+    private static final String ISSUES = "{\"result\":["
+        + "{\"issueId\":\"I-1\",\"applicationId\":\"V-20250101-001\",\"title\":\"Missing file\",\"dueBy\":\"2025-06-01T00:00:00Z\"},"
+        + "{\"issueId\":\"I-2\",\"applicationId\":\"V-20250101-003\",\"application\":{\"id\":\"guid-3\"},\"dueBy\":\"soon\"}"
+        + "],\"count\":2}";
+    private static final String DETAILS = "{\"id\":\"guid-1\",\"projectName\":\"First, detailed\","
+        + "\"variantsTypesList\":[{\"id\":\"vt-1\",\"msMappings\":[{\"id\":\"ms-1\",\"networks\":[\"Net A\",\"Net B\"]}]}]}";
+
+    @TempDir
+    Path tempDir;
+
+    private ImportSchema schema;
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        schema = ImportSchema.of(new ConfigurationService().getFieldCatalog());
+        connection = TestDatabase.create(schema);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    @DisplayName("Should import list, issue and details files and skip only invalid records")
+    void shouldImportSources() throws Exception {
+        List<Path> sources = List.of(write("a-list.json", LIST), write("b-issues.json", ISSUES), write("c-details.json", DETAILS));
+
+        JsonImporter.Result result = importSources(sources);
+
+        assertEquals(3, result.getSources());
+        assertEquals(5, result.getRecords());
+        assertEquals(1, result.getFailedRecords());
+        assertFalse(result.isComplete());
+        assertEquals(2, TestDatabase.count(connection, "Applications"));
+        assertEquals(1, TestDatabase.count(connection, "Issues"));
+        assertEquals(1, TestDatabase.count(connection, "ApplicationStaff"));
+        assertEquals(2, TestDatabase.count(connection, "Networks"));
+        assertEquals("First, detailed", TestDatabase.value(connection,
+            "SELECT ProjectName FROM Applications WHERE ApplicationID = 'V-20250101-001'"));
+        assertEquals("V-20250101-001", TestDatabase.value(connection, "SELECT ApplicationID FROM VehicleTypes"));
+        assertEquals(Boolean.TRUE, TestDatabase.value(connection,
+            "SELECT PreEngaged FROM Applications WHERE ApplicationID = 'V-20250101-002'"));
+    }
+
+    @Test
+    @DisplayName("Should update existing rows when the same files are imported again")
+    void shouldReimportIdempotently() throws Exception {
+        List<Path> sources = List.of(write("a-list.json", LIST), write("c-details.json", DETAILS));
+        importSources(sources);
+
+        try (JdbcRowWriter writer = new JdbcRowWriter(connection)) {
+            JsonImporter.Result result = new JsonImporter(new RowMapper(schema, writer)).importSources(sources, writer);
+            assertTrue(result.isComplete());
+            assertEquals(0, writer.getRowsInserted());
+            assertEquals(result.getRows(), writer.getRowsUpdated());
+        }
+        assertEquals(2, TestDatabase.count(connection, "Applications"));
+        assertEquals(2, TestDatabase.count(connection, "Networks"));
+    }
+
+    @Test
+    @DisplayName("Should keep the records read before a truncated file breaks off")
+    void shouldImportRecordsBeforeTruncation() throws Exception {
+        String truncated = LIST.substring(0, LIST.indexOf("{\"applicationId\":\"V-20250101-002\"") + 20);
+
+        JsonImporter.Result result = importSources(List.of(write("list.json", truncated)));
+
+        assertEquals(1, result.getFailedSources());
+        assertEquals(1, result.getRecords());
+        assertEquals(1, TestDatabase.count(connection, "Applications"));
+    }
+
+    private JsonImporter.Result importSources(List<Path> sources) throws Exception {
+        try (JdbcRowWriter writer = new JdbcRowWriter(connection)) {
+            return new JsonImporter(new RowMapper(schema, writer)).importSources(sources, writer);
+        }
+    }
+
+    private Path write(String name, String content) throws Exception {
+        Path file = tempDir.resolve(name);
+        Files.writeString(file, content);
+        return file;
+    }
+}
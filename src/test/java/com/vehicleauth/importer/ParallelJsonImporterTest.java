@@ -0,0 +1,210 @@
+package com.vehicleauth.importer;
+
+import com.vehicleauth.service.ConfigurationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ParallelJsonImporter
+ */
+class ParallelJsonImporterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ImportSchema schema;
+
+    @BeforeEach
+    void setUp() {
+        schema = ImportSchema.of(new ConfigurationService().getFieldCatalog());
+    }
+
+    @Test
+    @DisplayName("Should write the records of all files on the calling thread")
+    void shouldImportAllFiles() throws Exception {
+        List<Path> sources = new ArrayList<>();
+        for (int file = 0; file < 6; file++) {
+            sources.add(writeList("list-" + file + ".json", file, 20));
+        }
+        sources.add(write("broken.json", "{\"applicationListDTO\":[{\"applicationId\":\"X-1\"},"));
+        sources.add(write("issues.json", "{\"result\":[{\"issueId\":\"I-1\",\"dueBy\":\"never\"}]}"));
+
+        try (Connection connection = TestDatabase.create(schema);
+             JdbcRowWriter writer = new JdbcRowWriter(connection)) {
+            ParallelJsonImporter.Result result = new ParallelJsonImporter(new RowMapper(schema, writer), 3, 4)
+                .importSources(sources, writer);
+
+            assertEquals(8, result.getSources());
+            assertEquals(1, result.getFailedSources());
+            assertEquals(122, result.getRecords());
+            assertEquals(1, result.getFailedRecords());
+            assertEquals(121, TestDatabase.count(connection, "Applications"));
+            assertEquals(241, result.getRows());
+            assertTrue(result.getMaxQueueDepth() <= 4);
+        }
+    }
+
+    @Test
+    @DisplayName("Should block the parsers and report the writer as the limit when writing is slow")
+    void shouldApplyBackpressure() throws Exception {
+        List<Path> sources = List.of(writeList("a.json", 0, 30), writeList("b.json", 1, 30));
+        SlowWriter writer = new SlowWriter();
+
+        ParallelJsonImporter.Result result = new ParallelJsonImporter(new RowMapper(schema, null), 2, 2)
+            .importSources(sources, writer);
+
+        assertEquals(60, writer.applicationIds.size());
+        assertEquals(0, result.getFailedRecords());
+        assertTrue(result.getMaxQueueDepth() <= 2);
+        assertEquals("writer", result.getBottleneck());
+    }
+
+    @Test
+    @DisplayName("Should skip list records below their application's watermark and advance it after the commit")
+    void shouldImportIncrementally() throws Exception {
+        Path list = write("list.json", "{\"applicationListDTO\":[" + modified("V-1", "2025-01-01T10:00:00Z") + ","
+                                       + modified("V-2", "2025-01-02T10:00:00Z") + "]}");
+
+        try (Connection connection = TestDatabase.create(schema);
+             JdbcRowWriter writer = new JdbcRowWriter(connection)) {
+            ImportWatermarks.createTable(connection);
+            ParallelJsonImporter.Result first = importIncrementally(List.of(list), connection, writer);
+            assertEquals(2, first.getRecords());
+            assertEquals(2, first.getAdvancedWatermarks());
+
+            // V-1 is stale, V-2 unchanged and written again, V-3 new
+            write("list.json", "{\"applicationListDTO\":[" + modified("V-1", "2024-12-31T10:00:00Z") + ","
+                               + modified("V-2", "2025-01-02T10:00:00Z") + "," + modified("V-3", "2025-01-03T10:00:00Z") + "]}");
+            ParallelJsonImporter.Result second = importIncrementally(List.of(list), connection, writer);
+            assertEquals(2, second.getRecords());
+            assertEquals(1, second.getSkippedRecords());
+            assertEquals(1, second.getAdvancedWatermarks());
+            assertEquals(3, TestDatabase.count(connection, "Applications"));
+            ImportWatermarks watermarks = ImportWatermarks.load(connection);
+            assertEquals(Instant.parse("2025-01-01T10:00:00Z"), watermarks.get("V-1"));
+            assertEquals(Instant.parse("2025-01-03T10:00:00Z"), watermarks.get("V-3"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should import the newer records of a file whose times interleave with an earlier file of its directory")
+    void shouldImportInterleavedExports() throws Exception {
+        Path exports = Files.createDirectories(tempDir.resolve("Application list"));
+        Path first = Files.writeString(exports.resolve("250513-01.json"), "{\"applicationListDTO\":["
+            + modified("V-1", "2025-01-05T10:00:00Z") + "," + modified("V-2", "2025-01-01T10:00:00Z") + "]}");
+
+        try (Connection connection = TestDatabase.create(schema);
+             JdbcRowWriter writer = new JdbcRowWriter(connection)) {
+            ImportWatermarks.createTable(connection);
+            importIncrementally(List.of(first), connection, writer);
+
+            // Older than the latest record of the first file, but newer than the marks of V-2 and V-3
+            Path next = Files.writeString(exports.resolve("250514-01.json"), "{\"applicationListDTO\":["
+                + modified("V-1", "2025-01-04T10:00:00Z") + "," + modified("V-2", "2025-01-03T10:00:00Z") + ","
+                + modified("V-3", "2025-01-02T10:00:00Z") + "]}");
+            ParallelJsonImporter.Result second = importIncrementally(List.of(next), connection, writer);
+
+            assertEquals(2, second.getRecords());
+            assertEquals(1, second.getSkippedRecords());
+            assertEquals(3, TestDatabase.count(connection, "Applications"));
+            ImportWatermarks watermarks = ImportWatermarks.load(connection);
+            assertEquals(Instant.parse("2025-01-05T10:00:00Z"), watermarks.get("V-1"));
+            assertEquals(Instant.parse("2025-01-03T10:00:00Z"), watermarks.get("V-2"));
+            assertEquals(Instant.parse("2025-01-02T10:00:00Z"), watermarks.get("V-3"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep the watermarks of a file with rejected rows and advance those of the other files")
+    void shouldNotAdvancePastRejectedRows() throws Exception {
+        Path list = write("list.json", "{\"applicationListDTO\":[" + modified("V-1", "2025-01-01T10:00:00Z") + ","
+                                       + modified("V-2", "2025-01-02T10:00:00Z") + "]}");
+
+        try (Connection connection = TestDatabase.create(schema);
+             BatchedRowWriter writer = new BatchedRowWriter(connection, schema, 10, 10)) {
+            ImportWatermarks.createTable(connection);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ALTER TABLE Applications ADD CONSTRAINT NoV2 CHECK (ApplicationID <> 'V-2')");
+            }
+            // Rejected with the last commit, after every file was parsed
+            Path clean = write("clean.json", "{\"applicationListDTO\":[" + modified("V-5", "2025-01-05T10:00:00Z") + "]}");
+            ParallelJsonImporter.Result result = importIncrementally(List.of(list, clean), connection, writer);
+
+            assertEquals(1, result.getFailedRecords());
+            assertEquals(1, result.getAdvancedWatermarks());
+            ImportWatermarks watermarks = ImportWatermarks.load(connection);
+            assertNull(watermarks.get("V-1"));
+            assertEquals(Instant.parse("2025-01-05T10:00:00Z"), watermarks.get("V-5"));
+            assertEquals(2, TestDatabase.count(connection, "Applications"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject invalid settings")
+    void shouldRejectInvalidSettings() {
+        RowMapper rowMapper = new RowMapper(schema, null);
+        assertThrows(IllegalArgumentException.class, () -> new ParallelJsonImporter(rowMapper, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelJsonImporter(rowMapper, 1, 0));
+    }
+
+    private ParallelJsonImporter.Result importIncrementally(List<Path> sources, Connection connection, RowWriter writer)
+            throws Exception {
+        return new ParallelJsonImporter(new RowMapper(schema, null), 2, 4, ImportWatermarks.load(connection), null)
+            .importSources(sources, writer);
+    }
+
+    private static String modified(String applicationId, String modified) {
+        return "{\"applicationId\":\"" + applicationId + "\",\"modified\":\"" + modified + "\",\"assessor\":[\"Bob\"]}";
+    }
+
+    private Path writeList(String name, int file, int records) throws Exception {
+        StringBuilder json = new StringBuilder("{\"applicationListDTO\":[");
+        for (int i = 0; i < records; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"applicationId\":\"V-").append(file).append('-').append(i)
+                .append("\",\"assessor\":[\"Bob\"]}");
+        }
+        return write(name, json.append("]}").toString());
+    }
+
+    private Path write(String name, String content) throws Exception {
+        Path file = tempDir.resolve(name);
+        Files.writeString(file, content);
+        return file;
+    }
+
+    /**
+     * Takes 2 ms per record
+     */
+    private static final class SlowWriter implements RowWriter {
+        final Set<String> applicationIds = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void write(List<Row> rows) throws SQLException {
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            applicationIds.add((String) rows.get(0).get("ApplicationID"));
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.vehicleauth.importer;
+
+import com.vehicleauth.service.ConfigurationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to read the records of a sample payload as complete trees and as shaped records
+ * Run with -prof gc for the bytes allocated per payload
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordBindingBenchmark {
+
+    @Param({ "Json Files/API Test - CTT - V-20250130-002/V-20250130-002 - Details.json",
+             "Json Files/API Test - CTT - V-20250130-002/V-20250130-002 - Issues.json",
+             "Json Files/Application list/250513-01.json" })
+    public String payload;
+
+    private byte[] json;
+    private JsonRecordReader treeReader;
+    private JsonRecordReader shapedReader;
+
+    @Setup
+    public void setUp() throws IOException {
+        json = Files.readAllBytes(Paths.get(payload));
+        RowMapper rowMapper = new RowMapper(ImportSchema.of(new ConfigurationService().getFieldCatalog()), id -> null);
+        treeReader = new JsonRecordReader();
+        shapedReader = new JsonRecordReader(rowMapper::shapeOf);
+    }
+
+    @Benchmark
+    public long tree(Blackhole blackhole) throws IOException {
+        return treeReader.read(new ByteArrayInputStream(json), (type, record) -> blackhole.consume(record));
+    }
+
+    @Benchmark
+    public long shaped(Blackhole blackhole) throws IOException {
+        return shapedReader.read(new ByteArrayInputStream(json), (type, record) -> blackhole.consume(record));
+    }
+}
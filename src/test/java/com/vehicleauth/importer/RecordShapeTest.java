@@ -0,0 +1,121 @@
+package com.vehicleauth.importer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.vehicleauth.analysis.JsonSources;
+import com.vehicleauth.service.ConfigurationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RecordShape and the shaped reading of JsonRecordReader
+ */
+class RecordShapeTest {
+
+    private RowMapper rowMapper;
+
+    @BeforeEach
+    void setUp() {
+        ImportSchema schema = ImportSchema.of(new ConfigurationService().getFieldCatalog());
+        rowMapper = new RowMapper(schema, id -> null);
+    }
+
+    @Test
+    @DisplayName("Should map the sample files to the same rows from shaped records as from complete trees")
+    void shouldMapSameRowsAsCompleteTrees() throws Exception {
+        long treeNodes = 0;
+        long shapedNodes = 0;
+        try (JsonSources sources = JsonSources.open(Paths.get("Json Files"))) {
+            for (Path file : sources.getFiles()) {
+                List<JsonPayloadType> types = new ArrayList<>();
+                List<JsonNode> trees = read(new JsonRecordReader(), file, types);
+                List<JsonNode> shaped = read(new JsonRecordReader(rowMapper::shapeOf), file, new ArrayList<>());
+                assertEquals(trees.size(), shaped.size(), file.toString());
+
+                for (int i = 0; i < trees.size(); i++) {
+                    JsonPayloadType type = types.get(i);
+                    assertEquals(rows(type, trees.get(i), file), rows(type, shaped.get(i), file), file + " record " + i);
+                    treeNodes += nodes(trees.get(i));
+                    shapedNodes += nodes(shaped.get(i));
+                }
+            }
+        }
+        assertTrue(shapedNodes < treeNodes, shapedNodes + " of " + treeNodes + " nodes");
+    }
+
+    @Test
+    @DisplayName("Should skip the properties no table reads, keeping the ones it does whole")
+    void shouldSkipUnmappedProperties() throws Exception {
+        String json = "{\"id\":\"{F052A46F}\",\"applicationId\":\"V-20250130-002\",\"projectName\":\"Project\","
+            + "\"financialContactPerson\":{\"id\":\"P1\",\"identityPdf\":{\"name\":\"id.pdf\",\"content\":\"JVBERi0\"},"
+            + "\"address\":{\"id\":\"A1\",\"city\":\"Lille\"}},\"unknown\":[1,2,3],"
+            + "\"assessor\":[\"Ann\"]}";
+        List<JsonNode> records = new ArrayList<>();
+
+        long count = new JsonRecordReader(rowMapper::shapeOf).read(input(json), (type, record) -> records.add(record));
+
+        assertEquals(1, count);
+        JsonNode record = records.get(0);
+        assertEquals("Project", record.path("projectName").asText());
+        assertEquals("A1", record.path("financialContactPerson").path("address").path("id").asText());
+        assertTrue(record.path("financialContactPerson").path("identityPdf").isMissingNode());
+        assertTrue(record.path("unknown").isMissingNode());
+    }
+
+    @Test
+    @DisplayName("Should still hand over a details record of which no property is read")
+    void shouldKeepEmptyDetailsRecord() throws Exception {
+        List<JsonNode> records = new ArrayList<>();
+
+        new JsonRecordReader(rowMapper::shapeOf).read(input("{\"unknown\":{\"a\":1}}"), (type, record) -> records.add(record));
+
+        assertEquals(1, records.size());
+        assertEquals(0, records.get(0).size());
+    }
+
+    private List<JsonNode> read(JsonRecordReader reader, Path file, List<JsonPayloadType> types) throws Exception {
+        List<JsonNode> records = new ArrayList<>();
+        try (InputStream input = JsonSources.newInputStream(file)) {
+            reader.read(input, (type, record) -> {
+                types.add(type);
+                records.add(record);
+            });
+        }
+        return records;
+    }
+
+    private List<String> rows(JsonPayloadType type, JsonNode record, Path file) {
+        List<String> rows = new ArrayList<>();
+        try {
+            for (Row row : rowMapper.map(type, record, file.toString())) {
+                rows.add(row.getTable() + " " + row.getValues());
+            }
+        } catch (Exception e) {
+            rows.add(e.getMessage());
+        }
+        return rows;
+    }
+
+    private static long nodes(JsonNode node) {
+        long count = 1;
+        for (Iterator<JsonNode> children = node.elements(); children.hasNext(); ) {
+            count += nodes(children.next());
+        }
+        return count;
+    }
+
+    private static InputStream input(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
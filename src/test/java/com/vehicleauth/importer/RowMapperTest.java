@@ -0,0 +1,133 @@
+package com.vehicleauth.importer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vehicleauth.service.ConfigurationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RowMapper
+ */
+class RowMapperTest {
+
+    private static final String DETAILS = "{"
+        + "\"id\":\"guid-1\",\"projectName\":\"Project\",\"memberStates\":[\"DE\",\"FR\"],\"isWholeEu\":true,"
+        + "\"modified\":\"2025-01-30T15:04:57.036+0000\","
+        + "\"contactPerson\":{\"id\":\"cp-1\",\"firstName\":\"Ann\",\"userAddress\":{\"id\":\"ad-1\",\"city\":\"Lille\"},"
+        + "\"userContactDetails\":{\"id\":\"cd-1\",\"email\":\"ann@example.org\"}},"
+        + "\"applicantBody\":{\"id\":\"bo-1\",\"name\":\"Applicant\"},"
+        + "\"notifiedBodies\":[{\"id\":\"bo-2\",\"name\":\"Notified\"}],"
+        + "\"variantsTypesList\":[{\"id\":\"vt-1\",\"typeName\":\"Type\",\"creationDate\":\"2025-01-30T10:00:00Z\","
+        + "\"vehiclesToAuthorise\":[{\"id\":\"va-1\",\"vehicleValue\":\"93 80 0000 001-1\"}],"
+        + "\"uiApplicableRules\":[{\"type\":\"NR\",\"msCode\":\"DE\",\"rules\":[{\"id\":\"ru-1\",\"comment\":\"c\"}]}],"
+        + "\"msMappings\":[{\"id\":\"ms-1\",\"name\":\"Germany\",\"highSpeed\":false,\"networks\":[\"DB Netz\"],"
+        + "\"msMappings\":[{\"id\":\"rq-1\",\"requirement\":\"R1\",\"values\":[{\"id\":\"rv-1\",\"document\":{\"id\":\"do-1\",\"fileTitle\":\"a.pdf\"}}]}]}],"
+        + "\"agencyMappings\":[{\"id\":\"am-1\",\"visible\":true,\"values\":[{\"id\":\"av-1\",\"text\":\"t\"}]}]}]"
+        + "}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ImportSchema schema;
+
+    @BeforeEach
+    void setUp() {
+        schema = ImportSchema.of(new ConfigurationService().getFieldCatalog());
+    }
+
+    @Test
+    @DisplayName("Should map a details record to rows of all nested tables in write order")
+    void shouldMapDetailsRecord() throws Exception {
+        RowMapper mapper = new RowMapper(schema, id -> "guid-1".equals(id) ? "V-20250130-002" : null);
+
+        List<Row> rows = mapper.map(JsonPayloadType.DETAILS, json(DETAILS), "details.json");
+
+        List<String> tables = rows.stream().map(row -> row.getTable().getTableName()).distinct().collect(Collectors.toList());
+        assertEquals(List.of("Addresses", "ContactDetails", "Documents", "ContactPersons", "Bodies", "Applications",
+                             "ApplicationBodies", "VehicleTypes", "VehiclesToAuthorise", "ApplicableRules", "MemberStateMappings",
+                             "AgencyMappings", "Networks", "AgencyMappingValues", "MSMappingRequirements",
+                             "MSMappingRequirementValues"), tables);
+
+        Row application = find(rows, "Applications");
+        assertEquals("V-20250130-002", application.get("ApplicationID"));
+        assertEquals("DE,FR", application.get("MemberStates"));
+        assertEquals(Boolean.TRUE, application.get("IsWholeEU"));
+        assertFalse(application.getValues().containsKey("PreEngaged"));
+        assertEquals(Timestamp.from(Instant.parse("2025-01-30T15:04:57.036Z")), application.get("Modified"));
+        assertEquals("cp-1", application.get("ContactPersonID"));
+
+        Row contactPerson = find(rows, "ContactPersons");
+        assertEquals("ad-1", contactPerson.get("AddressID"));
+        assertEquals("cd-1", contactPerson.get("ContactDetailsID"));
+        assertEquals("contact", contactPerson.get("PersonType"));
+
+        assertEquals(2, rows.stream().filter(row -> row.getTable().getTableName().equals("ApplicationBodies")).count());
+        assertEquals("DB Netz", find(rows, "Networks").get("NetworkName"));
+        assertEquals("ms-1", find(rows, "MSMappingRequirements").get("MappingID"));
+        assertEquals("do-1", find(rows, "MSMappingRequirementValues").get("DocumentID"));
+        assertEquals("vt-1", find(rows, "ApplicableRules").get("VehicleTypeID"));
+        assertEquals("NR", find(rows, "ApplicableRules").get("RuleType"));
+    }
+
+    @Test
+    @DisplayName("Should take the application ID of unknown details records from the file name")
+    void shouldResolveApplicationIdFromFileName() throws Exception {
+        RowMapper mapper = new RowMapper(schema, id -> null);
+
+        List<Row> rows = mapper.map(JsonPayloadType.DETAILS, json(DETAILS), "API Test - V-20250513-001/V-20250513-001 Details.json");
+        assertEquals("V-20250513-001", find(rows, "Applications").get("ApplicationID"));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> mapper.map(JsonPayloadType.DETAILS, json(DETAILS), "details.json"));
+    }
+
+    @Test
+    @DisplayName("Should map list and issue records with their staff and application key rows")
+    void shouldMapListAndIssueRecords() throws Exception {
+        RowMapper mapper = new RowMapper(schema, null);
+
+        List<Row> listRows = mapper.map(JsonPayloadType.APPLICATION_LIST, json(
+            "{\"applicationId\":\"V-1\",\"id\":\"guid-1\",\"assessor\":[\"Bob\",\"Eve\"],\"submission\":\"2025-05-12T08:20:00.015Z\"}"), "list.json");
+        assertEquals(3, listRows.size());
+        assertEquals("guid-1", find(listRows, "Applications").get("ID"));
+        assertEquals("assessor", listRows.get(1).get("StaffType"));
+        assertEquals("Eve", listRows.get(2).get("StaffName"));
+
+        List<Row> issueRows = mapper.map(JsonPayloadType.ISSUE_LIST, json(
+            "{\"issueId\":\"I-1\",\"applicationId\":\"V-1\",\"application\":{\"id\":\"guid-1\"},\"userIsOwner\":\"true\",\"assignees\":[\"a\",\"b\"]}"), "issues.json");
+        assertEquals(List.of("ApplicationID", "ID"), List.copyOf(find(issueRows, "Applications").getValues().keySet()));
+        assertEquals(Boolean.TRUE, find(issueRows, "Issues").get("UserIsOwner"));
+        assertEquals("a,b", find(issueRows, "Issues").get("Assignees"));
+    }
+
+    @Test
+    @DisplayName("Should reject records without key or with values that do not fit their column")
+    void shouldRejectInvalidRecords() {
+        RowMapper mapper = new RowMapper(schema, null);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> mapper.map(JsonPayloadType.ISSUE_LIST, json("{\"title\":\"no key\"}"), "issues.json"));
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+            () -> mapper.map(JsonPayloadType.ISSUE_LIST, json("{\"issueId\":\"I-1\",\"dueBy\":\"tomorrow\"}"), "issues.json"));
+        assertTrue(error.getMessage().startsWith("Issues.DueBy"));
+    }
+
+    private JsonNode json(String text) {
+        try {
+            return objectMapper.readTree(text);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Row find(List<Row> rows, String tableName) {
+        return rows.stream().filter(row -> row.getTable().getTableName().equals(tableName)).findFirst().orElseThrow();
+    }
+}
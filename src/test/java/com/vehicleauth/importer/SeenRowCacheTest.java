@@ -0,0 +1,72 @@
+package com.vehicleauth.importer;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SeenRowCache
+ */
+class SeenRowCacheTest {
+
+    private static final TableMapping ADDRESSES = new TableMapping("Addresses", List.of("AddressID"),
+        Map.of("AddressID", TableMapping.ColumnType.TEXT, "City", TableMapping.ColumnType.TEXT),
+        Map.of("AddressID", JsonPointer.compile("/id")));
+
+    @Test
+    @DisplayName("Should skip a row only when the same key was written with the same values")
+    void shouldSkipIdenticalRows() {
+        for (boolean useBloomFilter : new boolean[] { false, true }) {
+            SeenRowCache cache = new SeenRowCache(10, useBloomFilter);
+            Row address = address("{503FBA7E-0000-CB10-84B0-D640B5B3AB46}", "Lille");
+
+            assertFalse(cache.isWritten(address));
+            cache.markWritten(address);
+            assertTrue(cache.isWritten(address("503fba7e-0000-cb10-84b0-d640b5b3ab46", "Lille")));
+            assertFalse(cache.isWritten(address("{503FBA7E-0000-CB10-84B0-D640B5B3AB46}", "Valenciennes")));
+            assertFalse(cache.isWritten(address("not-a-guid", "Lille")));
+
+            assertEquals(4, cache.getLookups());
+            assertEquals(1, cache.getSuppressed());
+        }
+    }
+
+    @Test
+    @DisplayName("Should forget the least recently seen keys beyond its capacity")
+    void shouldStayBounded() {
+        SeenRowCache cache = new SeenRowCache(2, true);
+        cache.markWritten(address("a", "1"));
+        cache.markWritten(address("b", "2"));
+        assertTrue(cache.isWritten(address("a", "1")));
+        cache.markWritten(address("c", "3"));
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.isWritten(address("a", "1")));
+        assertFalse(cache.isWritten(address("b", "2")));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertFalse(cache.isWritten(address("a", "1")));
+    }
+
+    @Test
+    @DisplayName("Should read GUIDs with or without braces and reject other keys")
+    void shouldParseGuidKeys() {
+        assertEquals(SeenRowCache.GuidKey.parse("{F052A46F-0000-C216-ABFA-EAEF6132E070}"),
+                     SeenRowCache.GuidKey.parse("f052a46f-0000-c216-abfa-eaef6132e070"));
+        assertNotEquals(SeenRowCache.GuidKey.parse("F052A46F-0000-C216-ABFA-EAEF6132E070"),
+                        SeenRowCache.GuidKey.parse("F052A46F-0000-C216-ABFA-EAEF6132E071"));
+        assertNull(SeenRowCache.GuidKey.parse("F052A46F-0000-C216-ABFA-EAEF6132E07"));
+        assertNull(SeenRowCache.GuidKey.parse("F052A46F+0000-C216-ABFA-EAEF6132E070"));
+        assertNull(SeenRowCache.GuidKey.parse("X052A46F-0000-C216-ABFA-EAEF6132E070"));
+    }
+
+    private static Row address(String id, String city) {
+        return new Row(ADDRESSES, Map.of("AddressID", id, "City", city));
+    }
+}
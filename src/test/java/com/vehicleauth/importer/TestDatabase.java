@@ -0,0 +1,72 @@
+package com.vehicleauth.importer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory H2 database with the import tables, for tests
+ * Columns are created from the import schema, including the row hash table;
+ * Networks gets its AUTOINCREMENT NetworkID like the Access table
+ */
+public final class TestDatabase {
+
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    private TestDatabase() {
+    }
+
+    public static Connection create(ImportSchema schema) throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:h2:mem:import" + COUNTER.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            for (TableMapping table : schema.getTables()) {
+                statement.execute(createTable(table));
+            }
+            statement.execute(createTable(schema.getRowHashTable()));
+        }
+        return connection;
+    }
+
+    public static int count(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            result.next();
+            return result.getInt(1);
+        }
+    }
+
+    public static Object value(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(sql)) {
+            return result.next() ? result.getObject(1) : null;
+        }
+    }
+
+    private static String createTable(TableMapping table) {
+        StringBuilder sql = new StringBuilder("CREATE TABLE ").append(table.getTableName()).append(" (");
+        if ("Networks".equals(table.getTableName())) {
+            sql.append("NetworkID INT AUTO_INCREMENT PRIMARY KEY, ");
+        }
+        for (Map.Entry<String, TableMapping.ColumnType> column : table.getColumnTypes().entrySet()) {
+            sql.append(column.getKey()).append(' ').append(sqlType(column.getValue())).append(", ");
+        }
+        String key = String.join(", ", table.getKeyColumns());
+        sql.append("Networks".equals(table.getTableName()) ? "UNIQUE (" : "PRIMARY KEY (").append(key).append("))");
+        return sql.toString();
+    }
+
+    private static String sqlType(TableMapping.ColumnType type) {
+        switch (type) {
+            case DATETIME:
+                return "TIMESTAMP";
+            case YESNO:
+                return "BOOLEAN";
+            default:
+                return "VARCHAR(100000)";
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.vehicleauth.service;
+
+import com.vehicleauth.analysis.AnalysisMetrics;
+import com.vehicleauth.analysis.FieldCatalog;
+import com.vehicleauth.analysis.FieldLengthStatistics;
+import com.vehicleauth.analysis.IncrementalFieldLengthAnalyzer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ConfigurationService
+ */
+class ConfigurationServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should return service info")
+    void shouldReturnServiceInfo() {
+        String serviceInfo = new ConfigurationService().getServiceInfo();
+        assertTrue(serviceInfo.contains("Configuration Service Information"));
+        assertTrue(serviceInfo.contains("Database Tables Mapped: 19"));
+    }
+
+    @Test
+    @DisplayName("Streaming engine should produce the same lengths as the tree engine on sample data")
+    void streamingEngineShouldMatchTreeEngineOnSampleData() throws IOException {
+        Path jsonDir = Paths.get("Json Files");
+        if (!Files.exists(jsonDir)) {
+            return;
+        }
+
+        FieldLengthStatistics treeStatistics = new ConfigurationService(ConfigurationService.AnalysisEngine.TREE).analyzeJsonFiles(jsonDir);
+        FieldLengthStatistics streamingStatistics = new ConfigurationService(ConfigurationService.AnalysisEngine.STREAMING).analyzeJsonFiles(jsonDir);
+
+        assertSameStatistics(treeStatistics, streamingStatistics);
+    }
+
+    @Test
+    @DisplayName("Analysis run should be visible through the JMX metrics")
+    void analysisShouldPublishMetrics() throws Exception {
+        Files.writeString(tempDir.resolve("one.json"), "{\"applicationListDTO\":[{\"applicationId\":\"A-1\"}]}");
+        Files.writeString(tempDir.resolve("broken.json"), "{\"applicationListDTO\":[");
+
+        ConfigurationService service = new ConfigurationService(ConfigurationService.AnalysisEngine.STREAMING, 1);
+        ObjectName name = new ObjectName(AnalysisMetrics.OBJECT_NAME);
+        assertTrue(service.registerAnalysisMetrics());
+        try {
+            // A later instance leaves the registered metrics in place
+            ConfigurationService other = new ConfigurationService(ConfigurationService.AnalysisEngine.STREAMING, 1);
+            assertFalse(other.registerAnalysisMetrics());
+            other.unregisterAnalysisMetrics();
+
+            service.analyzeJsonFiles(tempDir);
+
+            assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "FilesAnalyzed"));
+            assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "FilesFailed"));
+            assertTrue(service.getAnalysisMetrics().getTokensRead() > 0);
+            assertEquals(Files.size(tempDir.resolve("one.json")) + Files.size(tempDir.resolve("broken.json")),
+                         service.getAnalysisMetrics().getBytesRead());
+        } finally {
+            service.unregisterAnalysisMetrics();
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+
+    @Test
+    @DisplayName("Parallel analysis should produce the same lengths as single-threaded analysis")
+    void parallelAnalysisShouldMatchSequentialAnalysis() throws IOException {
+        Path jsonDir = Paths.get("Json Files");
+        if (!Files.exists(jsonDir)) {
+            return;
+        }
+
+        FieldLengthStatistics sequentialStatistics = new ConfigurationService(ConfigurationService.AnalysisEngine.STREAMING, 1).analyzeJsonFiles(jsonDir);
+        FieldLengthStatistics parallelStatistics = new ConfigurationService(ConfigurationService.AnalysisEngine.STREAMING, 4).analyzeJsonFiles(jsonDir);
+
+        assertSameStatistics(sequentialStatistics, parallelStatistics);
+    }
+
+    @Test
+    @DisplayName("Should reject a worker count below one")
+    void shouldRejectInvalidWorkerCount() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new ConfigurationService(ConfigurationService.AnalysisEngine.STREAMING, 0));
+    }
+
+    @Test
+    @DisplayName("Streaming engine should follow tree semantics for arrays, numbers and malformed files")
+    void streamingEngineShouldFollowTreeSemantics() throws IOException {
+        Files.writeString(tempDir.resolve("details.json"),
+            "{\"applicationId\":\"V-20250130-002\",\"memberStates\":[\"pt\",\"es\"],"
+            + "\"variantsTypesList\":[{\"id\":12345,\"msMappings\":[{\"code\":\"es\",\"networks\":[\"Network 1\"]}]}],"
+            + "\"applicantBody\":{\"address\":{\"id\":\"{ADDRESS}\",\"street\":null}}}");
+        Files.writeString(tempDir.resolve("broken.json"),
+            "{\"applicationId\":\"A-MUCH-LONGER-APPLICATION-ID\",\"title\":");
+
+        ConfigurationService streamingService = new ConfigurationService(ConfigurationService.AnalysisEngine.STREAMING);
+        FieldCatalog catalog = streamingService.getFieldCatalog();
+        FieldLengthStatistics treeStatistics = new ConfigurationService(ConfigurationService.AnalysisEngine.TREE).analyzeJsonFiles(tempDir);
+        FieldLengthStatistics streamingStatistics = streamingService.analyzeJsonFiles(tempDir);
+        int[] streamingLengths = streamingStatistics.getMaxLengths();
+
+        assertSameStatistics(treeStatistics, streamingStatistics);
+        assertEquals(14, streamingLengths[catalog.ordinalOf("Applications", "ApplicationID")]);
+        assertEquals(5, streamingLengths[catalog.ordinalOf("Applications", "MemberStates")]);
+        assertEquals(9, streamingLengths[catalog.ordinalOf("Networks", "NetworkName")]);
+        assertEquals(5, streamingLengths[catalog.ordinalOf("VehicleTypes", "VehicleTypeID")]);
+        assertEquals(2, streamingLengths[catalog.ordinalOf("MemberStateMappings", "CountryCode")]);
+        assertEquals(9, streamingLengths[catalog.ordinalOf("Addresses", "AddressID")]);
+        assertEquals(9, streamingLengths[catalog.ordinalOf("Bodies", "AddressID")]);
+        assertEquals(1, streamingStatistics.getNullCount(catalog.ordinalOf("Addresses", "Street")));
+        assertEquals(1, streamingStatistics.getCount(catalog.ordinalOf("Applications", "MemberStates")));
+    }
+
+    @Test
+    @DisplayName("Gzip files and zip bundles should be analyzed like the plain files they contain")
+    void compressedSourcesShouldMatchPlainFiles() throws IOException {
+        String first = "{\"applicationId\":\"V-20250130-002\",\"title\":\"Short\"}";
+        String second = "{\"applicationId\":\"V-20250130-002-LONGER\",\"title\":\"A longer title\"}";
+        String third = "{\"applicationListDTO\":[{\"applicationId\":\"A-1\",\"title\":null}]}";
+        Path plainDir = Files.createDirectories(tempDir.resolve("plain"));
+        Files.writeString(plainDir.resolve("first.json"), first);
+        Files.writeString(plainDir.resolve("second.json"), second);
+        Files.writeString(plainDir.resolve("third.json"), third);
+
+        Path packedDir = Files.createDirectories(tempDir.resolve("packed"));
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(packedDir.resolve("first.json.gz")))) {
+            output.write(first.getBytes(StandardCharsets.UTF_8));
+        }
+        try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(packedDir.resolve("bundle.zip")))) {
+            output.putNextEntry(new ZipEntry("second.json"));
+            output.write(second.getBytes(StandardCharsets.UTF_8));
+            output.putNextEntry(new ZipEntry("nested/third.json"));
+            output.write(third.getBytes(StandardCharsets.UTF_8));
+        }
+
+        for (ConfigurationService.AnalysisEngine engine : ConfigurationService.AnalysisEngine.values()) {
+            ConfigurationService service = new ConfigurationService(engine, 2);
+            assertSameStatistics(service.analyzeJsonFiles(plainDir), service.analyzeJsonFiles(packedDir));
+            assertEquals(3, service.getAnalysisMetrics().getFilesAnalyzed());
+        }
+
+        ConfigurationService service = new ConfigurationService(ConfigurationService.AnalysisEngine.STREAMING, 2);
+        Path manifest = tempDir.resolve("Fields_length.manifest.json");
+        assertEquals(3, service.analyzeJsonFilesIncrementally(packedDir, manifest).getParsedFiles());
+        IncrementalFieldLengthAnalyzer.Result rerun = service.analyzeJsonFilesIncrementally(packedDir, manifest);
+        assertEquals(3, rerun.getReusedFiles());
+        assertSameStatistics(service.analyzeJsonFiles(plainDir), rerun.getStatistics());
+        assertTrue(Files.readString(manifest).contains("bundle.zip!/nested/third.json"));
+    }
+
+    @Test
+    @DisplayName("Incremental analysis should only parse new or changed files and forget deleted ones")
+    void incrementalAnalysisShouldReuseCachedResults() throws IOException {
+        Path jsonDir = Files.createDirectories(tempDir.resolve("json"));
+        Path manifest = tempDir.resolve("Fields_length.manifest.json");
+        Path first = jsonDir.resolve("first.json");
+        Path second = jsonDir.resolve("second.json");
+        Files.writeString(first, "{\"applicationId\":\"V-20250130-002\",\"title\":\"Short\"}");
+        Files.writeString(second, "{\"applicationId\":\"V-20250130-002-LONGER\",\"title\":\"A longer title\"}");
+
+        ConfigurationService service = new ConfigurationService(ConfigurationService.AnalysisEngine.STREAMING, 2);
+        int applicationId = service.getFieldCatalog().ordinalOf("Applications", "ApplicationID");
+        int title = service.getFieldCatalog().ordinalOf("Issues", "Title");
+
+        IncrementalFieldLengthAnalyzer.Result initial = service.analyzeJsonFilesIncrementally(jsonDir, manifest);
+        assertEquals(2, initial.getParsedFiles());
+        assertSameStatistics(service.analyzeJsonFiles(jsonDir), initial.getStatistics());
+        assertTrue(Files.exists(manifest));
+
+        IncrementalFieldLengthAnalyzer.Result rerun = service.analyzeJsonFilesIncrementally(jsonDir, manifest);
+        assertEquals(2, rerun.getReusedFiles());
+        assertEquals(0, rerun.getParsedFiles());
+        assertSameStatistics(initial.getStatistics(), rerun.getStatistics());
+
+        Files.writeString(first, "{\"applicationId\":\"V-1\",\"title\":\"An even longer issue title\"}");
+        IncrementalFieldLengthAnalyzer.Result changed = service.analyzeJsonFilesIncrementally(jsonDir, manifest);
+        assertEquals(1, changed.getReusedFiles());
+        assertEquals(1, changed.getParsedFiles());
+        assertEquals(26, changed.getStatistics().getMaxLength(title));
+        assertSameStatistics(service.analyzeJsonFiles(jsonDir), changed.getStatistics());
+
+        Files.delete(second);
+        IncrementalFieldLengthAnalyzer.Result deleted = service.analyzeJsonFilesIncrementally(jsonDir, manifest);
+        assertEquals(1, deleted.getRemovedFiles());
+        assertEquals(0, deleted.getParsedFiles());
+        assertEquals(3, deleted.getStatistics().getMaxLength(applicationId));
+        assertSameStatistics(service.analyzeJsonFiles(jsonDir), deleted.getStatistics());
+    }
+
+    @Test
+    @DisplayName("Percentile sizing should ignore rare outliers while max sizing keeps them")
+    void shouldSizeColumnsBySizingPolicy() throws IOException {
+        StringBuilder json = new StringBuilder("{\"applicationListDTO\":[");
+        for (int i = 0; i < 200; i++) {
+            json.append(i > 0 ? "," : "").append("{\"projectName\":\"Project ").append(i % 10).append("\"}");
+        }
+        json.append(",{\"projectName\":\"").append("X".repeat(400)).append("\"},{\"projectName\":null}]}");
+        Path jsonDir = Files.createDirectories(tempDir.resolve("json"));
+        Files.writeString(jsonDir.resolve("list.json"), json.toString());
+
+        ConfigurationService service = new ConfigurationService(ConfigurationService.AnalysisEngine.STREAMING, 1);
+        FieldLengthStatistics statistics = service.analyzeJsonFiles(jsonDir);
+        int projectName = service.getFieldCatalog().ordinalOf("Applications", "ProjectName");
+        assertEquals(201, statistics.getCount(projectName));
+        assertEquals(9, statistics.getPercentile(projectName, 99));
+        assertEquals(400, statistics.getMaxLength(projectName));
+
+        Path maxDir = Files.createDirectories(tempDir.resolve("max"));
+        Path p99Dir = Files.createDirectories(tempDir.resolve("p99"));
+        service.writeConfigurationFiles(statistics, ConfigurationService.SizingPolicy.MAX, maxDir);
+        service.writeConfigurationFiles(statistics, ConfigurationService.SizingPolicy.P99_MARGIN, p99Dir);
+
+        assertTrue(Files.readAllLines(maxDir.resolve("Fields_length.txt")).contains("Applications.ProjectName=480"));
+        assertTrue(Files.readAllLines(p99Dir.resolve("Fields_length.txt")).contains("Applications.ProjectName=19"));
+        assertTrue(Files.readAllLines(p99Dir.resolve("Fields_length_stats.txt"))
+            .contains("Applications.ProjectName=201,0.0050,9,9,9,400,19"));
+    }
+
+    @Test
+    @DisplayName("Should infer column types from the kinds of values in the same pass, given enough values")
+    void shouldInferColumnTypes() throws IOException {
+        for (int i = 0; i < ConfigurationService.MIN_INFERENCE_VALUES; i++) {
+            Files.writeString(tempDir.resolve("details" + i + ".json"),
+                "{\"applicationId\":\"V-20250130-002\",\"projectName\":\"" + "P".repeat(300) + "\","
+                + (i == 0 ? "\"caseType\":\"Rare\"," : "")
+                + "\"variantsTypesList\":[{\"id\":12345,\"vehicleValue\":\"2025-01-30T10:00:00Z\",\"typeId\":true,"
+                + "\"typeName\":3.5,\"altTypeName\":null}]}");
+        }
+
+        ConfigurationService service = new ConfigurationService(ConfigurationService.AnalysisEngine.STREAMING, 1);
+        FieldCatalog catalog = service.getFieldCatalog();
+        FieldLengthStatistics statistics = service.analyzeJsonFiles(tempDir);
+        ConfigurationService.SizingPolicy policy = ConfigurationService.SizingPolicy.MAX;
+
+        // 14 characters, configured as 24 and created as 34 once the script pads it
+        assertEquals("TEXT(34)", service.inferColumnType(statistics, catalog.ordinalOf("Applications", "ApplicationID"), policy));
+        assertEquals("MEMO", service.inferColumnType(statistics, catalog.ordinalOf("Applications", "ProjectName"), policy));
+        // Too few values to un-MEMO the column
+        assertEquals("MEMO", service.inferColumnType(statistics, catalog.ordinalOf("Applications", "CaseType"), policy));
+        assertEquals("INTEGER", service.inferColumnType(statistics, catalog.ordinalOf("VehicleTypes", "VehicleTypeID"), policy));
+        assertEquals("DATETIME", service.inferColumnType(statistics, catalog.ordinalOf("VehicleTypes", "VehicleValue"), policy));
+        assertEquals("YESNO", service.inferColumnType(statistics, catalog.ordinalOf("VehicleTypes", "TypeID"), policy));
+        assertEquals("DOUBLE", service.inferColumnType(statistics, catalog.ordinalOf("VehicleTypes", "TypeName"), policy));
+        assertNull(service.inferColumnType(statistics, catalog.ordinalOf("VehicleTypes", "AltTypeName"), policy));
+
+        FieldLengthStatistics treeStatistics = new ConfigurationService(ConfigurationService.AnalysisEngine.TREE, 1).analyzeJsonFiles(tempDir);
+        for (int ordinal = 0; ordinal < catalog.size(); ordinal++) {
+            assertEquals(treeStatistics.getTypeMask(ordinal), statistics.getTypeMask(ordinal), catalog.getQualifiedName(ordinal));
+        }
+
+        service.writeConfigurationFiles(statistics, policy, tempDir);
+        assertTrue(Files.readAllLines(tempDir.resolve("Fields_schema.txt")).contains("VehicleTypes.VehicleValue=DATETIME"));
+    }
+
+    private static void assertSameStatistics(FieldLengthStatistics expected, FieldLengthStatistics actual) {
+        assertEquals(expected.getFieldCount(), actual.getFieldCount());
+        for (int ordinal = 0; ordinal < expected.getFieldCount(); ordinal++) {
+            assertEquals(expected.getMaxLength(ordinal), actual.getMaxLength(ordinal), "max of field " + ordinal);
+            assertEquals(expected.getCount(ordinal), actual.getCount(ordinal), "count of field " + ordinal);
+            assertEquals(expected.getNullCount(ordinal), actual.getNullCount(ordinal), "nulls of field " + ordinal);
+            assertArrayEquals(expected.getHistogram(ordinal), actual.getHistogram(ordinal), "histogram of field " + ordinal);
+            assertEquals(expected.getTypeMask(ordinal), actual.getTypeMask(ordinal), "types of field " + ordinal);
+        }
+    }
+}
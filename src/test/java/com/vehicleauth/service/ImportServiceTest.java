@@ -0,0 +1,164 @@
+package com.vehicleauth.service;
+
+import com.vehicleauth.importer.DeadLetterQueue;
+import com.vehicleauth.importer.ImportSchema;
+import com.vehicleauth.importer.JsonImporter;
+import com.vehicleauth.importer.ParallelJsonImporter;
+import com.vehicleauth.importer.TestDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ImportService
+ */
+class ImportServiceTest {
+
+    private ConfigurationService configurationService;
+    private ImportService importService;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        // Text lengths are checked against Configuration/Fields_length.txt and the database script
+        configurationService = new ConfigurationService();
+        importService = new ImportService(configurationService);
+    }
+
+    @Test
+    @DisplayName("Should return service info")
+    void shouldReturnServiceInfo() {
+        String info = importService.getServiceInfo();
+        assertTrue(info.contains("Import Service Information"));
+        assertTrue(info.contains("Tables Imported: 19"));
+    }
+
+    @Test
+    @DisplayName("Should import the sample JSON files, skipping only the invalid list records")
+    void shouldImportSampleJsonFiles() throws Exception {
+        Path jsonDir = Paths.get("Json Files");
+        ImportSchema schema = ImportSchema.of(configurationService.getFieldCatalog());
+
+        try (Connection connection = TestDatabase.create(schema)) {
+            JsonImporter.Result result = importService.importJsonFiles(jsonDir, connection, false, null, null);
+
+            assertFalse(importService.getServiceInfo().contains("Length Checked Columns: 0 "));
+            assertEquals(0, result.getFailedSources());
+            // Two list records lack their applicationId, one has "Completeness" as a date
+            assertEquals(3, result.getFailedRecords());
+            assertTrue(result.getRecords() > 0);
+            assertTrue(TestDatabase.count(connection, "Applications") > 0);
+            assertTrue(TestDatabase.count(connection, "Issues") > 0);
+            assertTrue(TestDatabase.count(connection, "VehicleTypes") > 0);
+            assertEquals(0, TestDatabase.count(connection, "Applications WHERE ApplicationID IS NULL"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should send the records with text longer than the configured columns to the dead letter queue")
+    void shouldRejectValuesLongerThanConfigured() throws Exception {
+        Path jsonDir = Paths.get("Json Files");
+        ImportSchema schema = ImportSchema.of(configurationService.getFieldCatalog());
+        Files.writeString(tempDir.resolve("Fields_length.txt"), "ApplicationStaff.StaffName=5\n");
+        ImportService checkingService = new ImportService(configurationIn(tempDir));
+
+        try (Connection connection = TestDatabase.create(schema);
+             DeadLetterQueue deadLetters = new DeadLetterQueue(tempDir.resolve("dead-letters.jsonl"))) {
+            JsonImporter.Result result = checkingService.importJsonFiles(jsonDir, connection, false, deadLetters, null);
+
+            // StaffName is created as TEXT(15), most of the sample's names are longer
+            assertTrue(result.getFailedRecords() > 3);
+            List<DeadLetterQueue.Entry> entries = DeadLetterQueue.read(tempDir.resolve("dead-letters.jsonl"));
+            assertEquals(result.getFailedRecords(), entries.size());
+            assertTrue(entries.stream().filter(entry -> DeadLetterQueue.STAGE_VALIDATION.equals(entry.getStage()))
+                           .anyMatch(entry -> entry.getError().startsWith("ApplicationStaff.StaffName")));
+            assertEquals(result.getFailedRecords() - 3, entries.stream()
+                .filter(entry -> DeadLetterQueue.STAGE_VALIDATION.equals(entry.getStage())).count());
+        }
+    }
+
+    @Test
+    @DisplayName("Should import every valid sample record within the limits of a length file generated from the samples")
+    void shouldFitSampleJsonFilesIntoGeneratedLengths() throws Exception {
+        Path jsonDir = Paths.get("Json Files");
+        ConfigurationService generated = configurationIn(tempDir);
+        generated.writeConfigurationFiles(generated.analyzeJsonFiles(jsonDir), ConfigurationService.SizingPolicy.MAX, tempDir);
+        ImportService checkingService = new ImportService(generated);
+        ImportSchema schema = ImportSchema.of(configurationService.getFieldCatalog());
+
+        try (Connection connection = TestDatabase.create(schema);
+             DeadLetterQueue deadLetters = new DeadLetterQueue(tempDir.resolve("dead-letters.jsonl"))) {
+            JsonImporter.Result result = checkingService.importJsonFiles(jsonDir, connection, false, deadLetters, null);
+
+            assertFalse(checkingService.getServiceInfo().contains("Length Checked Columns: 0 "));
+            assertEquals(3, result.getFailedRecords());
+            assertEquals(0, DeadLetterQueue.read(tempDir.resolve("dead-letters.jsonl")).stream()
+                .filter(entry -> DeadLetterQueue.STAGE_VALIDATION.equals(entry.getStage())).count());
+            assertTrue(TestDatabase.count(connection, "ApplicationStaff") > 0);
+            assertTrue(TestDatabase.count(connection, "Networks") > 0);
+            assertTrue(TestDatabase.count(connection, "MSMappingRequirements") > 0);
+        }
+    }
+
+    @Test
+    @DisplayName("Should skip superseded list records on a second incremental import of the same files, and write the rest again")
+    void shouldSkipUnmodifiedRecordsIncrementally() throws Exception {
+        Path jsonDir = Paths.get("Json Files");
+        ImportSchema schema = ImportSchema.of(configurationService.getFieldCatalog());
+
+        try (Connection connection = TestDatabase.create(schema)) {
+            ParallelJsonImporter.Result first = (ParallelJsonImporter.Result) importService.importJsonFiles(jsonDir, connection, true, null, null);
+            assertEquals(0, first.getSkippedRecords());
+            assertTrue(first.getAdvancedWatermarks() > 0);
+
+            long applications = TestDatabase.count(connection, "Applications");
+            ParallelJsonImporter.Result second = (ParallelJsonImporter.Result) importService.importJsonFiles(jsonDir, connection, true, null, null);
+            // Older exports of an application are below its mark, the latest one is at it
+            assertTrue(second.getSkippedRecords() > 0);
+            assertEquals(first.getRecords() - second.getSkippedRecords(), second.getRecords());
+            assertEquals(0, second.getAdvancedWatermarks());
+            assertEquals(applications, TestDatabase.count(connection, "Applications"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should map the same rows in a dry run as the import writes, with the time per stage")
+    void shouldDryRunSampleJsonFiles() throws Exception {
+        Path jsonDir = Paths.get("Json Files");
+        ImportSchema schema = ImportSchema.of(configurationService.getFieldCatalog());
+
+        ParallelJsonImporter.Result dryRun = importService.dryRunJsonFiles(jsonDir);
+
+        try (Connection connection = TestDatabase.create(schema)) {
+            JsonImporter.Result imported = importService.importJsonFiles(jsonDir, connection, false, null, null);
+            assertEquals(imported.getRecords(), dryRun.getRecords());
+            assertEquals(imported.getFailedRecords(), dryRun.getFailedRecords());
+            assertEquals(imported.getRows(), dryRun.getRows());
+        }
+        assertTrue(dryRun.getParseTime().toNanos() > 0);
+        assertTrue(dryRun.getMapTime().toNanos() > 0);
+    }
+
+    /**
+     * @return Configuration reading Fields_length.txt and Fields_schema.txt from the directory
+     */
+    private static ConfigurationService configurationIn(Path configDir) {
+        return new ConfigurationService() {
+            @Override
+            public Path getFieldLengthFile() {
+                return configDir.resolve("Fields_length.txt");
+            }
+        };
+    }
+}